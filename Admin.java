@@ -16,7 +16,6 @@ import javax.swing.JOptionPane;
 public class Admin {
 
     private List<Pet> pets;
-    private ArrayList<Customer> customers = new ArrayList<>();
     private String username, password;
 
     /**
@@ -73,7 +72,7 @@ public class Admin {
      */
     public void addPet(Pet pet) {
         this.pets.add(pet);
-        savePetsToFile();
+        PetStorage.addAnimal(pet);
         JOptionPane.showMessageDialog(null, "Pet added successfully!");
     }
 
@@ -85,7 +84,7 @@ public class Admin {
     public void removePet(String petID) {
         for (int i = 0; i < pets.size(); i++) {
             if (pets.get(i).getId().equals(petID)) {
-                pets.remove(i);
+                PetStorage.removeAnimal(pets.remove(i));
                 JOptionPane.showMessageDialog(null, "Pet removed successfully!");
                 return;
             }
@@ -104,7 +103,7 @@ public class Admin {
             if (pets.get(i).getId().equals(petID)) {
                 pets.set(i, updatedPet);
                 JOptionPane.showMessageDialog(null, "Pet details updated successfully!");
-                savePetsToFile();
+                PetStorage.updateAnimal(updatedPet);
                 return;
             }
         }
@@ -128,7 +127,7 @@ public class Admin {
                 pet.setAge(age);
                 pet.setGender(gender);
                 JOptionPane.showMessageDialog(null, "Pet details updated successfully!");
-                savePetsToFile();
+                PetStorage.updateAnimal(pet);
                 return;
             }
         }
@@ -152,104 +151,37 @@ public class Admin {
 
     /**
      * Approves the adoption of a pet by a customer.
+     * The pet, the customer, and the customer's request are looked up through the {@link AdoptionService}.
      *
      * @param customerID the ID of the customer who wants to adopt the pet
      * @param petID the ID of the pet to be adopted
-     * @param requests the list of adoption requests
      * @return {@code true} if the adoption is approved, {@code false} otherwise
      */
-    public boolean approveAdoption(String customerID, String petID, List<AdoptionRequest> requests) {
-        Pet petToAdopt = null;
-
-        for (Pet pet : pets) {
-            if (pet.getId().equals(petID)) {
-                petToAdopt = pet;
-                break;
-            }
-        }
-
-        if (petToAdopt == null) {
-            JOptionPane.showMessageDialog(null, "Pet with ID " + petID + " not found.");
+    public boolean approveAdoption(String customerID, String petID) {
+        try {
+            AdoptionService.approve(customerID, petID);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage());
             return false;
         }
-
-        if (!petToAdopt.isAvalibleForAdoption()) {
-            JOptionPane.showMessageDialog(null, "Pet " + petID + " is not available for adoption.");
-            return false;
-        }
-
-        for (Customer customer : customers) {
-            if (customer.getCustomerId().equals(customerID)) {
-                if (customer.isEligibleToAdopt()) {
-                    petToAdopt.setAdoptionStat(true);
-
-                    for (AdoptionRequest req : requests) {
-                        if (req.getCustomerId().equals(customerID) && req.getAnimalID().equals(petID)) {
-                            req.setStatus("Approved");
-                            break;
-                        }
-                    }
-
-                    JOptionPane.showMessageDialog(null, "Pet " + petID + " has been adopted by customer " + customerID);
-                    PetStorage.saveAnimals(pets);
-                    return true;
-                } else {
-                    JOptionPane.showMessageDialog(null, "Customer " + customerID + " is not eligible to adopt.");
-                    return false;
-                }
-            }
-        }
-
-        JOptionPane.showMessageDialog(null, "Customer with ID " + customerID + " not found.");
-        return false;
+        JOptionPane.showMessageDialog(null, "Pet " + petID + " has been adopted by customer " + customerID);
+        return true;
     }
 
     /**
      * Denies the adoption of a pet by a customer.
+     * The customer's pending request for the pet is denied through the {@link AdoptionService}.
      *
      * @param customerID the ID of the customer who wants to adopt the pet
      * @param petID the ID of the pet to be adopted
-     * @param requests the list of adoption requests
      */
-    public void denyAdoption(String customerID, String petID, List<AdoptionRequest> requests) {
-        Pet petToDeny = null;
-
-        for (Pet pet : pets) {
-            if (pet.getId().equals(petID)) {
-                petToDeny = pet;
-                break;
-            }
-        }
-
-        if (petToDeny == null) {
-            JOptionPane.showMessageDialog(null, "Pet with ID " + petID + " not found.");
+    public void denyAdoption(String customerID, String petID) {
+        try {
+            AdoptionService.deny(customerID, petID);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage());
             return;
         }
-
-        for (AdoptionRequest req : requests) {
-            if (req.getCustomerId().equals(customerID) && req.getAnimalID().equals(petID)) {
-                req.setStatus("Denied");
-                break;
-            }
-        }
-
-        petToDeny.setAdoptionStat(false);
         JOptionPane.showMessageDialog(null, "Adoption for Pet " + petID + " has been denied.");
-       
-        savePetsToFile();
     }
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
+}
\ No newline at end of file
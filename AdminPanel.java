@@ -1,22 +1,27 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * The {@code AdminPanel} class represents the graphical user interface (GUI) for the admin dashboard
  * in the pet adoption system. It allows the admin to manage pets, adoption requests, and perform various
  * administrative tasks such as adding, editing, and removing pets, as well as approving or denying adoption requests.
  * 
- * <p>This class extends {@code JPanel} and uses Swing components to create an interactive interface.</p>
+ * <p>This class extends {@code JPanel} and uses Swing components to create an interactive interface.
+ * Actions only make their change in the storage; the pet table and the request table follow the changes
+ * published to {@link StorageEvents}, whoever made them, and update only the affected rows.</p>
  * 
  * <p>Key functionalities include:</p>
  * <ul>
  *   <li>Displaying a table of pets with their details</li>
  *   <li>Adding, editing, and removing pets</li>
  *   <li>Managing adoption requests (approve, deny, or remove requests)</li>
- *   <li>Sorting and filtering pets by various criteria</li>
+ *   <li>Sorting and filtering pets by several criteria at once</li>
  *   <li>Navigating back to the main menu</li>
  * </ul>
  */
@@ -24,11 +29,17 @@ public class AdminPanel extends JPanel {
 
     private CardLayout cardLayout;
     private JPanel mainPanel;
-    private List<Pet> animals;
-    private List<AdoptionRequest> requests;
-    private List<Customer> customers;
     private Admin admin;
-    private List<Pet> allPets;
+    private final PetTableModel model;
+    private PagedPetTableModel pagedModel;
+    private final JTable table;
+    private final JLabel queryLabel = new JLabel();
+    private PetQuery query = PetQuery.all();
+    private final StorageEvents.Listener storageListener = this::storageChanged;
+
+    private static final PetTableModel.Column[] PET_COLUMNS = {PetTableModel.Column.ID, PetTableModel.Column.NAME,
+            PetTableModel.Column.BREED, PetTableModel.Column.GENDER, PetTableModel.Column.AGE,
+            PetTableModel.Column.ADOPTED};
 
     /**
      * Constructs a new {@code AdminPanel} with the specified layout, parent panel, and data lists.
@@ -36,20 +47,13 @@ public class AdminPanel extends JPanel {
      *
      * @param cardLayout the {@code CardLayout} used for navigating between panels
      * @param mainPanel the parent {@code JPanel} containing this panel
-     * @param animals the list of pets
-     * @param requests the list of adoption requests
-     * @param customers the list of customers
+     * @param animals the pets to show at first; the table shows a copy, so the list is never changed
      * @param admin the {@code Admin} object representing the admin user
      */
-    public AdminPanel(CardLayout cardLayout, JPanel mainPanel, List<Pet> animals,
-                      List<AdoptionRequest> requests, List<Customer> customers, Admin admin) {
+    public AdminPanel(CardLayout cardLayout, JPanel mainPanel, List<Pet> animals, Admin admin) {
         this.cardLayout = cardLayout;
         this.mainPanel = mainPanel;
-        this.animals = animals;
-        this.requests = requests;
-        this.customers = customers;
         this.admin = admin;
-        this.allPets = animals.stream().collect(Collectors.toList());
 
         setLayout(new BorderLayout(10, 10));
         setBackground(Color.WHITE);
@@ -60,12 +64,20 @@ public class AdminPanel extends JPanel {
         title.setForeground(Color.DARK_GRAY);
         add(title, BorderLayout.NORTH);
 
-        String[] columns = {"ID", "Name", "Breed", "Gender", "Age", "Adopted"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
-        JTable table = new JTable(model);
+        // Large catalogs are shown a page at a time, once a background check finds the catalog large enough;
+        // filtered and sorted lists are shown in full
+        model = new PetTableModel(new ArrayList<>(animals), PET_COLUMNS);
+        table = new JTable(model);
+        TaskRunner.run(PagedPetTableModel::isPreferred, preferred -> {
+            if (preferred) {
+                pagedModel = new PagedPetTableModel(PET_COLUMNS);
+                if (!query.isRestricted()) {
+                    table.setModel(pagedModel);
+                }
+            }
+        });
         JScrollPane scrollPane = new JScrollPane(table);
         add(scrollPane, BorderLayout.CENTER);
-        refreshTable(model, animals);
 
         JPanel buttons = new JPanel(new GridLayout(0, 1, 10, 10));
         buttons.setBackground(Color.WHITE);
@@ -89,15 +101,19 @@ public class AdminPanel extends JPanel {
         JButton filterGenderBtn = new JButton("Filter by Gender");
         JButton filterAdoptedBtn = new JButton("Filter by Adopted");
         JButton filterBreedBtn = new JButton("Filter by Breed");
+        JButton filterAgeBtn = new JButton("Filter by Age");
         JButton sortAgeBtn = new JButton("Sort by Age");
         JButton sortIdBtn = new JButton("Sort by ID");
         JButton removeFiltersBtn = new JButton("Remove All Filters");
         filterPanel.add(filterGenderBtn);
         filterPanel.add(filterAdoptedBtn);
         filterPanel.add(filterBreedBtn);
+        filterPanel.add(filterAgeBtn);
         filterPanel.add(sortAgeBtn);
         filterPanel.add(sortIdBtn);
         filterPanel.add(removeFiltersBtn);
+        filterPanel.add(queryLabel);
+        queryLabel.setText("Showing: " + query);
         add(filterPanel, BorderLayout.SOUTH);
 
         // Add Pet
@@ -122,6 +138,8 @@ public class AdminPanel extends JPanel {
 
         filterBreedBtn.addActionListener(e -> handleFilterByBreedAction());
 
+        filterAgeBtn.addActionListener(e -> handleFilterByAgeAction());
+
         filterGenderBtn.addActionListener(e -> handleFilterByGenderAction());
 
         filterAdoptedBtn.addActionListener(e -> handleFilterByAdoptionStatusAction());
@@ -130,73 +148,72 @@ public class AdminPanel extends JPanel {
     }
 
     /**
-     * Refreshes the table to display the given list of pets.
+     * Finds the adoption request a customer made for a pet.
      *
-     * @param model the {@code DefaultTableModel} used by the table
-     * @param pets the list of pets to display
+     * @param customerId the ID of the customer who made the request
+     * @param petId the ID of the requested pet
+     * @return the {@code AdoptionRequest} object
+     * @throws IllegalArgumentException if the customer has no request for the pet
      */
-    private void refreshTable(DefaultTableModel model, List<Pet> pets) {
-        model.setRowCount(0);
-        for (Pet p : pets) {
-            model.addRow(new Object[]{
-                    p.getId(), p.getName(), p.getBreed(), p.getGender(),
-                    p.getAge(), p.getAdoptionStat() ? "Yes" : "No"
-            });
+    private AdoptionRequest findRequest(String customerId, String petId) {
+        AdoptionRequest request = AdoptionRequestStorage.findRequest(customerId, petId);
+        if (request == null) {
+            throw new IllegalArgumentException("No adoption request by " + customerId + " for pet " + petId + ".");
         }
+        return request;
     }
 
     /**
-     * Finds an adoption request by the customer's ID.
+     * Finds a customer by their unique ID using the customer store's ID index.
      *
-     * @param requests the list of adoption requests
-     * @param id the ID of the customer
-     * @return the {@code AdoptionRequest} object if found, or {@code null} if not found
-     */
-    private AdoptionRequest findRequestByCustomerId(List<AdoptionRequest> requests, String id) {
-        for (AdoptionRequest r : requests) {
-            if (r.getCustomerId().equals(id)) return r;
-        }
-        return null;
-    }
-
-    /**
-     * Finds a customer by their unique ID.
-     *
-     * @param customers the list of customers
      * @param customerId the unique ID of the customer
      * @return the {@code Customer} object if found, or {@code null} if not found
      */
-    private Customer findCustomerById(List<Customer> customers, String customerId) {
-        for (Customer c : customers) {
-            if (c.getCustomerId().equals(customerId)) return c;
-        }
-        return null;
+    private Customer findCustomerById(String customerId) {
+        return CustomerStorage.getCustomerById(customerId);
     }
 
     /**
      * Handles the action for adding a new pet.
      * Displays a dialog for entering pet details and adds the pet to the list if confirmed.
+     * The pet's ID is assigned from the sequence for the chosen species prefix.
      */
     private void handleAddPetAction() {
-        JTextField id = new JTextField();
+        JComboBox<String> prefix = new JComboBox<>(new String[]{"D", "C", "B", "R", "F"});
+        prefix.setEditable(true);
         JTextField name = new JTextField();
         JTextField breed = new JTextField();
         JTextField age = new JTextField();
         JComboBox<String> gender = new JComboBox<>(new String[]{"Male", "Female"});
 
         JPanel panel = new JPanel(new GridLayout(5, 2));
-        panel.add(new JLabel("ID:")); panel.add(id);
+        panel.add(new JLabel("ID prefix:")); panel.add(prefix);
         panel.add(new JLabel("Name:")); panel.add(name);
         panel.add(new JLabel("Breed:")); panel.add(breed);
         panel.add(new JLabel("Gender:")); panel.add(gender);
         panel.add(new JLabel("Age:")); panel.add(age);
 
         if (JOptionPane.showConfirmDialog(this, panel, "Add Pet", JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
-            Pet newPet = new Pet(id.getText(), name.getText(), breed.getText(),
-                    Integer.parseInt(age.getText()), (String) gender.getSelectedItem());
-            PetStorage.addAnimal(newPet);
-            admin.getPets().add(newPet);
-            refreshTable(model, admin.getPets());
+            String idPrefix = String.valueOf(prefix.getSelectedItem()).trim().toUpperCase();
+            if (idPrefix.isEmpty() || idPrefix.contains("_")) {
+                JOptionPane.showMessageDialog(this, "Please enter an ID prefix such as D for dogs.");
+                return;
+            }
+            int petAge;
+            try {
+                petAge = Integer.parseInt(age.getText());
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid age entered.");
+                return;
+            }
+            String petName = name.getText();
+            String petBreed = breed.getText();
+            String petGender = (String) gender.getSelectedItem();
+            TaskRunner.run(() -> {
+                Pet newPet = new Pet(PetStorage.nextAnimalId(idPrefix), petName, petBreed, petAge, petGender);
+                PetStorage.addAnimal(newPet);
+                return newPet;
+            }, newPet -> admin.getPets().add(newPet));
         }
     }
 
@@ -207,155 +224,186 @@ public class AdminPanel extends JPanel {
     private void handleRemovePetAction() {
         String id = JOptionPane.showInputDialog("Enter Pet ID to remove:");
         if (id != null && !id.isEmpty()) {
-            admin.removePet(id);
-            PetStorage.saveAnimals(admin.getPets());
-            refreshTable(model, admin.getPets());
+            TaskRunner.run(() -> {
+                Pet pet = PetStorage.findAnimal(id);
+                if (pet == null) {
+                    throw new IllegalArgumentException("Pet with ID " + id + " not found.");
+                }
+                PetStorage.removeAnimal(pet);
+                return pet;
+            }, pet -> {
+                admin.getPets().removeIf(p -> p.getId().equals(id));
+                JOptionPane.showMessageDialog(this, "Pet removed successfully!");
+            });
         }
     }
 
     /**
      * Handles the action for editing a pet's details.
-     * Prompts the admin to select a pet and edit its details.
+     * Prompts the admin to enter a pet ID and looks the pet up before its details are edited.
      */
     private void handleEditPetAction() {
         String id = JOptionPane.showInputDialog("Enter Pet ID to edit:");
         if (id != null && !id.isEmpty()) {
-            Pet petToEdit = animals.stream().filter(p -> p.getId().equals(id)).findFirst().orElse(null);
-            if (petToEdit == null) {
-                JOptionPane.showMessageDialog(this, "No pet found with ID: " + id);
-                return;
-            }
-
-            String[] options = {"Name", "Breed", "Gender", "Age", "Edit All"};
-            String choice = (String) JOptionPane.showInputDialog(this, "Select field to edit:",
-                    "Edit Options", JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
-            if (choice == null) return;
-
-            Pet updated = new Pet(petToEdit.getId(), petToEdit.getName(),
-                    petToEdit.getBreed(), petToEdit.getAge(), petToEdit.getGender());
-
-            switch (choice) {
-                case "Name" -> {
-                    String newName = JOptionPane.showInputDialog("Enter new name:");
-                    if (newName != null) updated.setName(newName);
-                }
-                case "Breed" -> {
-                    String newBreed = JOptionPane.showInputDialog("Enter new breed:");
-                    if (newBreed != null) updated.setBreed(newBreed);
-                }
-                case "Gender" -> {
-                    String[] genders = {"Male", "Female"};
-                    String newGender = (String) JOptionPane.showInputDialog(this, "Select new gender:",
-                            "Gender", JOptionPane.PLAIN_MESSAGE, null, genders, genders[0]);
-                    if (newGender != null) updated.setGender(newGender);
+            TaskRunner.run(() -> PetStorage.findAnimal(id), petToEdit -> {
+                if (petToEdit == null) {
+                    JOptionPane.showMessageDialog(this, "No pet found with ID: " + id);
+                } else {
+                    editPet(petToEdit);
                 }
-                case "Age" -> {
-                    String newAge = JOptionPane.showInputDialog("Enter new age:");
-                    if (newAge != null) {
-                        try {
-                            updated.setAge(Integer.parseInt(newAge));
-                        } catch (NumberFormatException ex) {
-                            JOptionPane.showMessageDialog(this, "Invalid age entered.");
-                            return;
-                        }
+            });
+        }
+    }
+
+    /**
+     * Prompts the admin to edit the details of a pet and saves the edited pet.
+     *
+     * @param petToEdit the pet to edit
+     */
+    private void editPet(Pet petToEdit) {
+        String id = petToEdit.getId();
+        String[] options = {"Name", "Breed", "Gender", "Age", "Edit All"};
+        String choice = (String) JOptionPane.showInputDialog(this, "Select field to edit:",
+                "Edit Options", JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+        if (choice == null) return;
+
+        Pet updated = new Pet(petToEdit.getId(), petToEdit.getName(),
+                petToEdit.getBreed(), petToEdit.getAge(), petToEdit.getGender());
+
+        switch (choice) {
+            case "Name" -> {
+                String newName = JOptionPane.showInputDialog("Enter new name:");
+                if (newName != null) updated.setName(newName);
+            }
+            case "Breed" -> {
+                String newBreed = JOptionPane.showInputDialog("Enter new breed:");
+                if (newBreed != null) updated.setBreed(newBreed);
+            }
+            case "Gender" -> {
+                String[] genders = {"Male", "Female"};
+                String newGender = (String) JOptionPane.showInputDialog(this, "Select new gender:",
+                        "Gender", JOptionPane.PLAIN_MESSAGE, null, genders, genders[0]);
+                if (newGender != null) updated.setGender(newGender);
+            }
+            case "Age" -> {
+                String newAge = JOptionPane.showInputDialog("Enter new age:");
+                if (newAge != null) {
+                    try {
+                        updated.setAge(Integer.parseInt(newAge));
+                    } catch (NumberFormatException ex) {
+                        JOptionPane.showMessageDialog(this, "Invalid age entered.");
+                        return;
                     }
                 }
-                case "Edit All" -> {
-                    JTextField nameField = new JTextField(petToEdit.getName());
-                    JTextField breedField = new JTextField(petToEdit.getBreed());
-                    JTextField ageField = new JTextField(String.valueOf(petToEdit.getAge()));
-                    JComboBox<String> genderBox = new JComboBox<>(new String[]{"Male", "Female"});
-                    genderBox.setSelectedItem(petToEdit.getGender());
-
-                    JPanel editAllPanel = new JPanel(new GridLayout(4, 2));
-                    editAllPanel.add(new JLabel("Name:")); editAllPanel.add(nameField);
-                    editAllPanel.add(new JLabel("Breed:")); editAllPanel.add(breedField);
-                    editAllPanel.add(new JLabel("Gender:")); editAllPanel.add(genderBox);
-                    editAllPanel.add(new JLabel("Age:")); editAllPanel.add(ageField);
-
-                    int result = JOptionPane.showConfirmDialog(this, editAllPanel, "Edit Pet Details", JOptionPane.OK_CANCEL_OPTION);
-                    if (result == JOptionPane.OK_OPTION) {
-                        updated.setName(nameField.getText());
-                        updated.setBreed(breedField.getText());
-                        updated.setGender((String) genderBox.getSelectedItem());
-                        try {
-                            updated.setAge(Integer.parseInt(ageField.getText()));
-                        } catch (NumberFormatException ex) {
-                            JOptionPane.showMessageDialog(this, "Invalid age entered.");
-                            return;
-                        }
-                    } else return;
-                }
             }
-
-            admin.editPet(id, updated);
-            PetStorage.saveAnimals(admin.getPets());
-            refreshTable(model, admin.getPets());
+            case "Edit All" -> {
+                JTextField nameField = new JTextField(petToEdit.getName());
+                JTextField breedField = new JTextField(petToEdit.getBreed());
+                JTextField ageField = new JTextField(String.valueOf(petToEdit.getAge()));
+                JComboBox<String> genderBox = new JComboBox<>(new String[]{"Male", "Female"});
+                genderBox.setSelectedItem(petToEdit.getGender());
+
+                JPanel editAllPanel = new JPanel(new GridLayout(4, 2));
+                editAllPanel.add(new JLabel("Name:")); editAllPanel.add(nameField);
+                editAllPanel.add(new JLabel("Breed:")); editAllPanel.add(breedField);
+                editAllPanel.add(new JLabel("Gender:")); editAllPanel.add(genderBox);
+                editAllPanel.add(new JLabel("Age:")); editAllPanel.add(ageField);
+
+                int result = JOptionPane.showConfirmDialog(this, editAllPanel, "Edit Pet Details", JOptionPane.OK_CANCEL_OPTION);
+                if (result == JOptionPane.OK_OPTION) {
+                    updated.setName(nameField.getText());
+                    updated.setBreed(breedField.getText());
+                    updated.setGender((String) genderBox.getSelectedItem());
+                    try {
+                        updated.setAge(Integer.parseInt(ageField.getText()));
+                    } catch (NumberFormatException ex) {
+                        JOptionPane.showMessageDialog(this, "Invalid age entered.");
+                        return;
+                    }
+                } else return;
+            }
         }
+
+        TaskRunner.execute(() -> PetStorage.updateAnimal(updated), () -> {
+            admin.getPets().replaceAll(p -> p.getId().equals(id) ? updated : p);
+            JOptionPane.showMessageDialog(this, "Pet details updated successfully!");
+        });
     }
 
     /**
      * Handles the action for managing adoption requests.
-     * Displays a dialog for viewing, approving, denying, or removing adoption requests.
+     * Displays a dialog for viewing, approving, denying, or removing adoption requests,
+     * screening all pending requests at once, and importing or exporting them as JSON Lines.
      */
     private void handleManageRequestsAction() {
         JDialog requestDialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Manage Adoption Requests", true);
         requestDialog.setSize(600, 400);
         requestDialog.setLocationRelativeTo(this);
 
-        String[] reqCols = {"Customer ID", "Pet ID", "Status"};
-        DefaultTableModel reqModel = new DefaultTableModel(reqCols, 0);
+        AdoptionRequestTableModel reqModel = new AdoptionRequestTableModel();
         JTable reqTable = new JTable(reqModel);
         JScrollPane reqScroll = new JScrollPane(reqTable);
 
+        JCheckBox pendingOnlyBox = new JCheckBox("Show Pending Only");
+        JLabel countsLabel = new JLabel();
+
+        // Requests are read from storage and changed in the background; the table is filled in when they arrive
+        TaskRunner.Task<?>[] refreshing = {null};
+        TaskRunner.Task<?>[] approving = {null};
         Runnable refreshRequests = () -> {
-            reqModel.setRowCount(0);
-            for (AdoptionRequest r : requests) {
-                reqModel.addRow(new Object[]{r.getCustomerId(), r.getAnimalID(), r.getStatus()});
+            boolean pendingOnly = pendingOnlyBox.isSelected();
+            if (refreshing[0] != null) {
+                refreshing[0].cancel();
             }
+            refreshing[0] = TaskRunner.run(() -> new RequestCounts(pendingOnly
+                    ? AdoptionRequestStorage.getRequestsByStatus(RequestStatus.PENDING)
+                    : AdoptionRequestStorage.loadRequests()), counts -> {
+                reqModel.setRequests(counts.shown, pendingOnly ? r -> r.getStatus() == RequestStatus.PENDING : r -> true);
+                countsLabel.setText(counts.toString());
+            });
         };
+        pendingOnlyBox.addActionListener(evt -> refreshRequests.run());
         refreshRequests.run();
 
+        // After that, the table follows the request changes row by row, and the counts are read again once per
+        // batch, unless a bulk approval is showing its progress in their place
+        Runnable refreshCounts = () -> TaskRunner.run(() -> new RequestCounts(List.of()),
+                counts -> countsLabel.setText(counts.toString()));
+        StorageEvents.Listener requestListener = changes -> {
+            reqModel.applyChanges(changes);
+            boolean requestsChanged = changes.stream().anyMatch(change -> change.getRequest() != null);
+            if (requestsChanged && (approving[0] == null || approving[0].isDone())) {
+                refreshCounts.run();
+            }
+        };
+        StorageEvents.addListener(requestListener);
+
         JButton approveBtn = new JButton("Approve");
         JButton denyBtn = new JButton("Deny");
         JButton viewCustomerBtn = new JButton("View Request Details");
         JButton removerequestBtn = new JButton("Remove");
+        JButton screenBtn = new JButton("Screen Pending");
+        JButton importBtn = new JButton("Import...");
+        JButton exportBtn = new JButton("Export...");
         JButton closeBtn = new JButton("Close");
 
         approveBtn.addActionListener(evt -> {
             int row = reqTable.getSelectedRow();
             if (row != -1) {
-                String id = (String) reqTable.getValueAt(row, 0);
-                AdoptionRequest r = findRequestByCustomerId(requests, id);
-                if (r != null) {
-                    r.setStatus("Approved");
-                    
-                    // Find the pet corresponding to the adoption request and update its status
-                    Pet petToUpdate = animals.stream().filter(p -> p.getId().equals(r.getAnimalID())).findFirst().orElse(null);
-                    if (petToUpdate != null) {
-                        petToUpdate.setAdoptionStat(true); // Set adoption status to "Yes"
-                    }
-        
-                    AdoptionRequestStorage.saveRequests(requests);
-                    PetStorage.saveAnimals(animals); // Save the updated pets list with new adoption status
-                    refreshRequests.run();
-                    refreshTable(model, animals); // Refresh both the request and pet tables
-                    JOptionPane.showMessageDialog(this, "Request Approved!");
-                }
+                AdoptionRequest request = reqModel.getRequestAt(reqTable.convertRowIndexToModel(row));
+                // Approves the request and marks the pet as adopted in one batched write; both rows follow the changes
+                TaskRunner.execute(() -> AdoptionService.approve(request),
+                        () -> JOptionPane.showMessageDialog(this, "Request Approved!"));
             }
         });
 
         denyBtn.addActionListener(evt -> {
             int row = reqTable.getSelectedRow();
             if (row != -1) {
-                String id = (String) reqTable.getValueAt(row, 0);
-                AdoptionRequest r = findRequestByCustomerId(requests, id);
-                if (r != null) {
-                    r.setStatus("Denied");
-                    AdoptionRequestStorage.saveRequests(requests); 
-                    refreshRequests.run();
-                    JOptionPane.showMessageDialog(this, "Request Denied!");
-                }
+                String customerId = (String) reqTable.getValueAt(row, 0);
+                String petId = (String) reqTable.getValueAt(row, 1);
+                TaskRunner.execute(() -> AdoptionService.deny(customerId, petId),
+                        () -> JOptionPane.showMessageDialog(this, "Request Denied!"));
             }
         });
 
@@ -364,51 +412,22 @@ public class AdminPanel extends JPanel {
             if (row != -1) {
                 String customerId = (String) reqTable.getValueAt(row, 0);
                 String petId = (String) reqTable.getValueAt(row, 1);
-                Customer customer = findCustomerById(customers, customerId);
-                Pet pet = animals.stream().filter(p -> p.getId().equals(petId)).findFirst().orElse(null);
-
-                if (customer != null) {
-                    JDialog customerDialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Customer & Pet Details", true);
-                    customerDialog.setSize(350, 300);
-                    customerDialog.setLocationRelativeTo(this);
-
-                    JPanel infoPanel = new JPanel(new GridLayout(0, 2, 5, 5));
-                    infoPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-                    infoPanel.add(new JLabel("Customer ID:")); infoPanel.add(new JLabel(customer.getCustomerId()));
-                    infoPanel.add(new JLabel("Name:")); infoPanel.add(new JLabel(customer.getName()));
-                    infoPanel.add(new JLabel("Email:")); infoPanel.add(new JLabel(customer.getEmail()));
-                    infoPanel.add(new JLabel("Address:")); infoPanel.add(new JLabel(customer.getAddress()));
-                    infoPanel.add(new JLabel("Gender:")); infoPanel.add(new JLabel(customer.getGender()));
-                    infoPanel.add(new JLabel("Phone:")); infoPanel.add(new JLabel(customer.getPhone()));
-                    infoPanel.add(new JLabel("")); infoPanel.add(new JLabel(""));
-
-                    if (pet != null) {
-                        infoPanel.add(new JLabel("Pet ID:")); infoPanel.add(new JLabel(pet.getId()));
-                        infoPanel.add(new JLabel("Name:")); infoPanel.add(new JLabel(pet.getName()));
-                        infoPanel.add(new JLabel("Breed:")); infoPanel.add(new JLabel(pet.getBreed()));
-                        infoPanel.add(new JLabel("Gender:")); infoPanel.add(new JLabel(pet.getGender()));
-                        infoPanel.add(new JLabel("Age:")); infoPanel.add(new JLabel(String.valueOf(pet.getAge())));
-                    }
-
-                    JButton customerCloseBtn = new JButton("Close");
-                    customerCloseBtn.addActionListener(e2 -> customerDialog.dispose());
-                    JPanel closePanel = new JPanel();
-                    closePanel.add(customerCloseBtn);
-
-                    customerDialog.add(infoPanel, BorderLayout.CENTER);
-                    customerDialog.add(closePanel, BorderLayout.SOUTH);
-                    customerDialog.setVisible(true);
-                }
+                TaskRunner.run(() -> new AbstractMap.SimpleImmutableEntry<>(findCustomerById(customerId), PetStorage.findAnimal(petId)),
+                        found -> {
+                            if (found.getKey() != null) {
+                                showRequestDetails(found.getKey(), found.getValue());
+                            }
+                        });
             }
         });
 
         removerequestBtn.addActionListener(evt -> {
             int row = reqTable.getSelectedRow();
             if (row != -1) {
-                String id = (String) reqTable.getValueAt(row, 0);
-                AdoptionRequest r = findRequestByCustomerId(requests, id);
-                if (r != null) {
-                    if (r.getStatus().equals("Pending")) {
+                String customerId = (String) reqTable.getValueAt(row, 0);
+                String petId = (String) reqTable.getValueAt(row, 1);
+                TaskRunner.run(() -> findRequest(customerId, petId), r -> {
+                    if (!r.getStatus().isDecided()) {
                         JOptionPane.showMessageDialog(this, "You must approve or deny the request before removing it.");
                     } else {
                         int confirm = JOptionPane.showConfirmDialog(this, 
@@ -416,95 +435,335 @@ public class AdminPanel extends JPanel {
                             "Confirm Deletion", 
                             JOptionPane.YES_NO_OPTION);
                         if (confirm == JOptionPane.YES_OPTION) {
-                            requests.remove(r);
-                            AdoptionRequestStorage.saveRequests(requests);
-                            refreshRequests.run();
-                            JOptionPane.showMessageDialog(this, "Request removed.");
+                            TaskRunner.execute(() -> AdoptionRequestStorage.removeRequest(r),
+                                    () -> JOptionPane.showMessageDialog(this, "Request removed."));
                         }
                     }
+                });
+            }
+        });
+
+        screenBtn.addActionListener(evt -> {
+            countsLabel.setText("Screening pending requests...");
+            TaskRunner.run(AdoptionScreening::screenPending, result -> {
+                refreshRequests.run();
+                List<AdoptionRequest> approvable = result.get(AdoptionScreening.Outcome.AUTO_APPROVABLE);
+                String summary = "Auto-approvable: " + approvable.size()
+                        + "\nCustomer not eligible: " + result.count(AdoptionScreening.Outcome.INELIGIBLE)
+                        + "\nPet unavailable: " + result.count(AdoptionScreening.Outcome.PET_UNAVAILABLE)
+                        + "\nSeveral requests for the same pet: " + result.count(AdoptionScreening.Outcome.CONFLICTING);
+                if (approvable.isEmpty()) {
+                    JOptionPane.showMessageDialog(requestDialog, summary, "Screening Result", JOptionPane.INFORMATION_MESSAGE);
+                    return;
                 }
+                int confirm = JOptionPane.showConfirmDialog(requestDialog,
+                        summary + "\n\nApprove the " + approvable.size() + " auto-approvable requests?",
+                        "Screening Result", JOptionPane.YES_NO_OPTION);
+                if (confirm == JOptionPane.YES_OPTION) {
+                    screenBtn.setEnabled(false);
+                    approving[0] = TaskRunner.runWithProgress(progress -> approveAll(approvable, progress),
+                            (done, total, message) -> countsLabel.setText(message + " " + done + " of " + total + "..."),
+                            approved -> {
+                                screenBtn.setEnabled(true);
+                                refreshCounts.run();
+                                JOptionPane.showMessageDialog(requestDialog, approved.size() + " requests approved.");
+                            }, e -> {
+                                screenBtn.setEnabled(true);
+                                refreshCounts.run();
+                                TaskRunner.reportFailure(e);
+                            });
+                }
+            });
+        });
+
+        importBtn.addActionListener(evt -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(requestDialog) == JFileChooser.APPROVE_OPTION) {
+                File file = chooser.getSelectedFile();
+                countsLabel.setText("Importing " + file.getName() + "...");
+                TaskRunner.run(() -> AdoptionRequestJsonl.importRequests(file), imported -> {
+                    refreshRequests.run();
+                    JOptionPane.showMessageDialog(this, imported + " requests imported.");
+                }, e -> {
+                    refreshRequests.run();
+                    JOptionPane.showMessageDialog(this, "Import failed: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                });
+            }
+        });
+
+        exportBtn.addActionListener(evt -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new File("adoption_requests.jsonl"));
+            if (chooser.showSaveDialog(requestDialog) == JFileChooser.APPROVE_OPTION) {
+                File file = chooser.getSelectedFile();
+                TaskRunner.run(() -> AdoptionRequestJsonl.exportRequests(file),
+                        exported -> JOptionPane.showMessageDialog(this, exported + " requests exported."),
+                        e -> JOptionPane.showMessageDialog(this, "Export failed: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
             }
         });
 
         closeBtn.addActionListener(evt -> requestDialog.dispose());
 
         JPanel bottomPanel = new JPanel();
+        bottomPanel.add(pendingOnlyBox);
         bottomPanel.add(approveBtn);
         bottomPanel.add(denyBtn);
         bottomPanel.add(viewCustomerBtn);
         bottomPanel.add(removerequestBtn);
+        bottomPanel.add(screenBtn);
+        bottomPanel.add(importBtn);
+        bottomPanel.add(exportBtn);
         bottomPanel.add(closeBtn);
 
+        countsLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        requestDialog.add(countsLabel, BorderLayout.NORTH);
         requestDialog.add(reqScroll, BorderLayout.CENTER);
         requestDialog.add(bottomPanel, BorderLayout.SOUTH);
         requestDialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        requestDialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                // Closing the dialog stops a bulk approval; the pets it already approved have been published
+                StorageEvents.removeListener(requestListener);
+                if (refreshing[0] != null) {
+                    refreshing[0].cancel();
+                }
+                if (approving[0] != null && !approving[0].isDone()) {
+                    approving[0].cancel();
+                }
+            }
+        });
         requestDialog.setVisible(true);
     }
 
+    /**
+     * Shows the details of the customer and pet named by an adoption request.
+     *
+     * @param customer the customer who made the request
+     * @param pet the requested pet, or {@code null} if it no longer exists
+     */
+    private void showRequestDetails(Customer customer, Pet pet) {
+        JDialog customerDialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Customer & Pet Details", true);
+        customerDialog.setSize(350, 300);
+        customerDialog.setLocationRelativeTo(this);
+
+        JPanel infoPanel = new JPanel(new GridLayout(0, 2, 5, 5));
+        infoPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        infoPanel.add(new JLabel("Customer ID:")); infoPanel.add(new JLabel(customer.getCustomerId()));
+        infoPanel.add(new JLabel("Name:")); infoPanel.add(new JLabel(customer.getName()));
+        infoPanel.add(new JLabel("Email:")); infoPanel.add(new JLabel(customer.getEmail()));
+        infoPanel.add(new JLabel("Address:")); infoPanel.add(new JLabel(customer.getAddress()));
+        infoPanel.add(new JLabel("Gender:")); infoPanel.add(new JLabel(customer.getGender()));
+        infoPanel.add(new JLabel("Phone:")); infoPanel.add(new JLabel(customer.getPhone()));
+        infoPanel.add(new JLabel("")); infoPanel.add(new JLabel(""));
+
+        if (pet != null) {
+            infoPanel.add(new JLabel("Pet ID:")); infoPanel.add(new JLabel(pet.getId()));
+            infoPanel.add(new JLabel("Name:")); infoPanel.add(new JLabel(pet.getName()));
+            infoPanel.add(new JLabel("Breed:")); infoPanel.add(new JLabel(pet.getBreed()));
+            infoPanel.add(new JLabel("Gender:")); infoPanel.add(new JLabel(pet.getGender()));
+            infoPanel.add(new JLabel("Age:")); infoPanel.add(new JLabel(String.valueOf(pet.getAge())));
+        }
+
+        JButton customerCloseBtn = new JButton("Close");
+        customerCloseBtn.addActionListener(e2 -> customerDialog.dispose());
+        JPanel closePanel = new JPanel();
+        closePanel.add(customerCloseBtn);
+
+        customerDialog.add(infoPanel, BorderLayout.CENTER);
+        customerDialog.add(closePanel, BorderLayout.SOUTH);
+        customerDialog.setVisible(true);
+    }
+
+    /**
+     * Approves screened requests one by one, reporting progress and stopping early if cancelled. Requests that
+     * changed since they were screened are left for the admin to decide.
+     *
+     * @param approvable the auto-approvable requests
+     * @param progress receives the number of requests handled so far
+     * @return the requests that were approved
+     */
+    private static List<AdoptionRequest> approveAll(List<AdoptionRequest> approvable, TaskRunner.Progress progress) {
+        List<AdoptionRequest> approved = new ArrayList<>();
+        for (int i = 0; i < approvable.size() && !progress.isCancelled(); i++) {
+            AdoptionRequest r = approvable.get(i);
+            try {
+                AdoptionService.approve(r);
+                approved.add(r);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // Changed since it was screened; left for the admin to decide.
+            }
+            progress.update(i + 1, approvable.size(), "Approving requests:");
+        }
+        return approved;
+    }
+
+    /**
+     * The adoption requests to show in the request table, with the number of requests in each status, read
+     * together in the background.
+     */
+    private static class RequestCounts {
+        final List<AdoptionRequest> shown;
+        final long pending = AdoptionRequestStorage.countRequests(RequestStatus.PENDING);
+        final long approved = AdoptionRequestStorage.countRequests(RequestStatus.APPROVED);
+        final long denied = AdoptionRequestStorage.countRequests(RequestStatus.DENIED);
+
+        RequestCounts(List<AdoptionRequest> shown) {
+            this.shown = shown;
+        }
+
+        @Override
+        public String toString() {
+            return "Pending: " + pending + "   Approved: " + approved + "   Denied: " + denied;
+        }
+    }
+
     /**
      * Handles the action for sorting pets by age.
-     * Sorts the list of pets in ascending order of age and refreshes the table.
+     * Shows the pets that pass the current filters in ascending order of age.
      */
     private void handleSortByAgeAction() {
-        animals.sort((a, b) -> Integer.compare(a.getAge(), b.getAge()));
-        refreshTable(model, animals);
+        showQuery(query.sortedBy(PetQuery.Order.AGE));
     }
 
     /**
      * Handles the action for sorting pets by ID.
-     * Sorts the list of pets in ascending order of ID and refreshes the table.
+     * Shows the pets that pass the current filters in ascending order of ID.
      */
     private void handleSortByIdAction() {
-        animals.sort((a, b) -> a.getId().compareToIgnoreCase(b.getId()));
-        refreshTable(model, animals);
+        showQuery(query.sortedBy(PetQuery.Order.ID));
     }
 
     /**
      * Handles the action for filtering pets by breed.
-     * Prompts the admin to enter a breed and filters the list of pets accordingly.
+     * Prompts the admin to enter a breed and adds it to the current filters; an empty breed allows any breed.
      */
     private void handleFilterByBreedAction() {
         String breed = JOptionPane.showInputDialog("Enter Breed to filter by:");
-        if (breed != null && !breed.isEmpty()) {
-            List<Pet> filtered = allPets.stream().filter(p -> p.getBreed().equalsIgnoreCase(breed)).collect(Collectors.toList());
-            animals.clear(); animals.addAll(filtered);
-            refreshTable(model, animals);
+        if (breed != null) {
+            showQuery(query.withBreed(breed));
         }
     }
 
     /**
      * Handles the action for filtering pets by gender.
-     * Prompts the admin to enter a gender and filters the list of pets accordingly.
+     * Prompts the admin to enter a gender and adds it to the current filters; an empty gender allows any gender.
      */
     private void handleFilterByGenderAction() {
         String gender = JOptionPane.showInputDialog("Enter Gender to filter by (Male/Female):");
-        if (gender != null && !gender.isEmpty()) {
-            List<Pet> filtered = allPets.stream().filter(p -> p.getGender().equalsIgnoreCase(gender)).collect(Collectors.toList());
-            animals.clear(); animals.addAll(filtered);
-            refreshTable(model, animals);
+        if (gender != null) {
+            showQuery(query.withGender(gender));
         }
     }
 
     /**
      * Handles the action for filtering pets by adoption status.
-     * Prompts the admin to enter an adoption status (Yes/No) and filters the list of pets accordingly.
+     * Prompts the admin to enter an adoption status (Yes/No) and adds it to the current filters.
      */
     private void handleFilterByAdoptionStatusAction() {
         String input = JOptionPane.showInputDialog("Enter Adoption Status to filter by (Yes/No):");
-        boolean adopted = input != null && input.equalsIgnoreCase("Yes");
-        List<Pet> filtered = allPets.stream().filter(p -> p.getAdoptionStat() == adopted).collect(Collectors.toList());
-        animals.clear(); animals.addAll(filtered);
-        refreshTable(model, animals);
+        if (input != null) {
+            showQuery(query.withAdopted(input.equalsIgnoreCase("Yes")));
+        }
+    }
+
+    /**
+     * Handles the action for filtering pets by age.
+     * Prompts the admin to enter an age or a range such as 2-5 and adds it to the current filters.
+     */
+    private void handleFilterByAgeAction() {
+        String input = JOptionPane.showInputDialog("Enter Age or Age Range to filter by (e.g. 2-5):");
+        if (input == null) {
+            return;
+        }
+        String[] bounds = input.split("-", 2);
+        try {
+            int min = Integer.parseInt(bounds[0].trim());
+            int max = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : min;
+            showQuery(query.withAgeRange(min, max));
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid age range entered.");
+        }
     }
 
     /**
      * Handles the action for removing all filters.
-     * Resets the list of pets to the original list and refreshes the table.
+     * Resets the table to all stored pets, a page at a time for large catalogs.
      */
     private void handleRemoveAllFiltersAction() {
-        animals.clear();
-        animals.addAll(allPets);
-        refreshTable(model, animals);
+        showQuery(PetQuery.all());
+    }
+
+    /**
+     * Shows the pets selected by a query. The query is evaluated in the background into a view over the stored
+     * pets, which the table shows without copying; the unrestricted query shows the whole catalog, a page at a
+     * time for large catalogs.
+     *
+     * @param next the query to show
+     */
+    private void showQuery(PetQuery next) {
+        query = next;
+        queryLabel.setText("Showing: " + next);
+        if (next.isRestricted()) {
+            TaskRunner.run(() -> PetStorage.viewAnimals(next), view -> {
+                if (view.getQuery().equals(query)) {
+                    showPets(view);
+                }
+            });
+        } else if (pagedModel != null) {
+            pagedModel.refresh();
+            table.setModel(pagedModel);
+        } else {
+            TaskRunner.run(PetStorage::loadAnimals, loaded -> {
+                if (!query.isRestricted()) {
+                    showPets(loaded);
+                }
+            });
+        }
+    }
+
+    /**
+     * Shows the given list of pets in the pet table, switching away from the paged catalog if it is shown.
+     *
+     * @param pets the pets to show
+     */
+    private void showPets(List<Pet> pets) {
+        model.setPets(pets);
+        if (table.getModel() != model) {
+            table.setModel(model);
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        StorageEvents.addListener(storageListener);
+    }
+
+    @Override
+    public void removeNotify() {
+        StorageEvents.removeListener(storageListener);
+        super.removeNotify();
+    }
+
+    /**
+     * Brings the pet table up to date with a batch of storage changes. The whole catalog is updated row by
+     * row, in whichever model shows it; a filtered or sorted list is selected again, once per batch, since the
+     * changed pets may now pass or fail the filters or move in the order.
+     *
+     * @param changes the storage changes, in the order they were made
+     */
+    private void storageChanged(List<StorageEvents.Change> changes) {
+        if (!StorageEvents.hasPetChanges(changes)) {
+            return;
+        }
+        if (query.isRestricted()) {
+            showQuery(query);
+        } else if (table.getModel() == pagedModel) {
+            pagedModel.applyChanges(changes);
+        } else {
+            model.applyChanges(changes);
+        }
     }
 
     /**
@@ -1,21 +1,45 @@
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 /**
  * The {@code AdoptionRequest} class is responsible for managing adoption requests in the pet adoption system.
  * It stores details about the request, such as the customer ID, the animal ID, and the status of the request.
  * 
- * <p>Implements {@code Serializable} to allow instances of this class to be serialized for storage or transmission.</p>
+ * <p>Implements {@code Serializable} to allow instances of this class to be serialized for storage or transmission.
+ * The status is serialized as its label, as it was before it became a {@link RequestStatus}, so existing files
+ * still load.</p>
+ *
+ * <p>The status and a version that increases with every status change are held together in one stamp that is
+ * updated with compare-and-set, so concurrent decisions on the same request cannot both succeed and need no
+ * lock. The version is not stored; a loaded request starts at version zero.</p>
  * 
  * <p>Key functionalities include:</p>
  * <ul>
  *   <li>Storing the customer ID and animal ID associated with the request</li>
  *   <li>Tracking the status of the request (Pending, Approved, or Denied)</li>
  *   <li>Providing methods to retrieve and update the request details</li>
+ *   <li>Changing the status atomically, optionally only at an expected version</li>
  * </ul>
  */
 public class AdoptionRequest implements Serializable {
 
     private String customerId, animalID;
-    private String status; // Pending, Approved, Denied
+    private transient volatile int stamp; // Version in the upper bits, status code in the lowest two bits
+    private static final long serialVersionUID = 8627308468831407783L; // Value computed for the original class, so existing files still load
+
+    /** The serialized form: the status is written as its label. */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("customerId", String.class),
+            new ObjectStreamField("animalID", String.class),
+            new ObjectStreamField("status", String.class)
+    };
+
+    private static final AtomicIntegerFieldUpdater<AdoptionRequest> STAMP =
+            AtomicIntegerFieldUpdater.newUpdater(AdoptionRequest.class, "stamp");
 
     /**
      * Constructs a new {@code AdoptionRequest} object with the specified customer ID and animal ID.
@@ -27,7 +51,7 @@ public class AdoptionRequest implements Serializable {
     public AdoptionRequest(String customerId, String animalID) {
         this.customerId = customerId;
         this.animalID = animalID;
-        this.status = "Pending";
+        this.stamp = RequestStatus.PENDING.getCode(); // Version 0
     }
 
     /**
@@ -53,8 +77,17 @@ public class AdoptionRequest implements Serializable {
      *
      * @return the status of the request (e.g., Pending, Approved, Denied)
      */
-    public String getStatus() {
-        return status;
+    public RequestStatus getStatus() {
+        return RequestStatus.fromCode(stamp & 3);
+    }
+
+    /**
+     * Gets the version of the request, which increases with every status change.
+     *
+     * @return the current version
+     */
+    public int getVersion() {
+        return stamp >>> 2;
     }
 
     /**
@@ -76,12 +109,55 @@ public class AdoptionRequest implements Serializable {
     }
 
     /**
-     * Sets the status of the adoption request.
+     * Sets the status of the adoption request without checking the transition, for restoring a stored request.
+     * Use {@link #transitionTo} to decide a request.
      *
      * @param status the new status of the request (e.g., Pending, Approved, Denied)
      */
-    public void setStatus(String status) {
-        this.status = status;
+    public void setStatus(RequestStatus status) {
+        int current;
+        do {
+            current = stamp;
+        } while (!STAMP.compareAndSet(this, current, next(current, status)));
+    }
+
+    /**
+     * Moves the request to a new status if the move is allowed.
+     *
+     * @param next the new status
+     * @throws IllegalStateException if the request may not change from its current status to {@code next}
+     */
+    public void transitionTo(RequestStatus next) {
+        while (true) {
+            int current = stamp;
+            RequestStatus status = RequestStatus.fromCode(current & 3);
+            if (!status.canBecome(next)) {
+                throw new IllegalStateException("Request " + customerId + "/" + animalID
+                        + " cannot change from " + status + " to " + next);
+            }
+            if (STAMP.compareAndSet(this, current, next(current, next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves the request to a new status if it is still at the expected version and the move is allowed.
+     * The check and the change are one atomic step.
+     *
+     * @param expectedVersion the version the caller read before deciding to make the change
+     * @param next the new status
+     * @return {@code true} if the status was changed, {@code false} if the request changed in the meantime
+     *         or may not move to {@code next}
+     */
+    public boolean compareAndSetStatus(int expectedVersion, RequestStatus next) {
+        int current = stamp;
+        return current >>> 2 == expectedVersion && RequestStatus.fromCode(current & 3).canBecome(next)
+                && STAMP.compareAndSet(this, current, next(current, next));
+    }
+
+    private static int next(int current, RequestStatus status) {
+        return ((current >>> 2) + 1) << 2 | status.getCode();
     }
 
     /**
@@ -92,6 +168,26 @@ public class AdoptionRequest implements Serializable {
      */
     @Override
     public String toString() {
-        return "Customer: " + customerId + ", Animal ID: " + animalID + ", Status: " + status;
+        return "Customer: " + customerId + ", Animal ID: " + animalID + ", Status: " + getStatus();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("customerId", customerId);
+        fields.put("animalID", animalID);
+        fields.put("status", getStatus().getLabel());
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        customerId = (String) fields.get("customerId", null);
+        animalID = (String) fields.get("animalID", null);
+        String label = (String) fields.get("status", null);
+        try {
+            stamp = (label == null ? RequestStatus.PENDING : RequestStatus.fromLabel(label)).getCode();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,255 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code AdoptionRequestIndex} class maintains multimap indexes over adoption requests by customer ID,
+ * by animal ID, and by status, so that per-customer and per-pet queries and the pending queue cost time
+ * proportional to the number of matching requests rather than the size of the request history.
+ *
+ * <p>Requests are tracked by identity. Status changes must go through {@link #changeStatus} so the request
+ * is moved to its new status bucket. Only the moves allowed by {@link RequestStatus} are accepted.</p>
+ *
+ * <p>The index remembers the status each request was bucketed under, and always moves or removes a request
+ * from that bucket. A request whose status was already changed with
+ * {@link AdoptionRequest#compareAndSetStatus}, but not yet reported with {@link #statusChanged}, is therefore
+ * still removed from the right bucket, and the counts stay exact.</p>
+ *
+ * <p>Each request is also numbered in the order it was indexed. A list that holds the requests in that same
+ * order, such as the cached request list the index is built over, is therefore sorted by that number, and
+ * {@link #positionIn} finds a request in it with a binary search instead of a scan.</p>
+ *
+ * <p>The number of requests in each status is kept in an {@link AtomicLongArray}, so
+ * {@link #countByStatus} can be called from any thread without a lock and without scanning.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Building the indexes from a list of requests</li>
+ *   <li>Adding and removing single requests</li>
+ *   <li>Moving a request between status buckets when its status changes</li>
+ *   <li>Looking up requests by customer, by pet, by status, or by customer and pet together</li>
+ *   <li>Counting the requests in each status</li>
+ * </ul>
+ */
+public class AdoptionRequestIndex {
+
+    private final Map<String, Set<AdoptionRequest>> byCustomer = new HashMap<>();
+    private final Map<String, Set<AdoptionRequest>> byAnimal = new HashMap<>();
+    private final Map<RequestStatus, Set<AdoptionRequest>> byStatus = new EnumMap<>(RequestStatus.class);
+    private final Map<AdoptionRequest, RequestStatus> indexedStatus = new IdentityHashMap<>();
+    private final Map<AdoptionRequest, Long> sequence = new IdentityHashMap<>();
+    private long nextSequence;
+    private final AtomicLongArray statusCounts = new AtomicLongArray(RequestStatus.values().length);
+
+    /**
+     * Constructs a new {@code AdoptionRequestIndex} over the given requests.
+     *
+     * @param requests the requests to index
+     */
+    public AdoptionRequestIndex(List<AdoptionRequest> requests) {
+        for (AdoptionRequest request : requests) {
+            add(request);
+        }
+    }
+
+    /**
+     * Adds a request to all indexes.
+     *
+     * @param request the request to add
+     */
+    public void add(AdoptionRequest request) {
+        bucket(byCustomer, request.getCustomerId()).add(request);
+        bucket(byAnimal, request.getAnimalID()).add(request);
+        RequestStatus status = request.getStatus();
+        if (indexedStatus.putIfAbsent(request, status) == null) {
+            sequence.put(request, nextSequence++);
+            bucket(byStatus, status).add(request);
+            statusCounts.incrementAndGet(status.ordinal());
+        }
+    }
+
+    /**
+     * Removes a request from all indexes.
+     *
+     * @param request the request to remove
+     */
+    public void remove(AdoptionRequest request) {
+        unbucket(byCustomer, request.getCustomerId(), request);
+        unbucket(byAnimal, request.getAnimalID(), request);
+        RequestStatus status = indexedStatus.remove(request);
+        if (status != null) {
+            sequence.remove(request);
+            unbucket(byStatus, status, request);
+            statusCounts.decrementAndGet(status.ordinal());
+        }
+    }
+
+    /**
+     * Sets the status of an indexed request and moves it to the matching status bucket.
+     *
+     * @param request the request whose status changes
+     * @param status the new status
+     * @throws IllegalStateException if the request may not change to the new status
+     */
+    public void changeStatus(AdoptionRequest request, RequestStatus status) {
+        request.transitionTo(status);
+        statusChanged(request);
+    }
+
+    /**
+     * Moves an indexed request whose status has already been changed, for example with
+     * {@link AdoptionRequest#compareAndSetStatus}, from the status bucket it was indexed under to the one for
+     * its current status.
+     *
+     * @param request the request whose status changed
+     */
+    public void statusChanged(AdoptionRequest request) {
+        RequestStatus status = request.getStatus();
+        RequestStatus previous = indexedStatus.get(request);
+        if (previous != null && previous != status) {
+            indexedStatus.put(request, status);
+            unbucket(byStatus, previous, request);
+            statusCounts.decrementAndGet(previous.ordinal());
+            bucket(byStatus, status).add(request);
+            statusCounts.incrementAndGet(status.ordinal());
+        }
+    }
+
+    /**
+     * Tells whether a request is indexed.
+     *
+     * @param request the request
+     * @return {@code true} if this very request instance is indexed
+     */
+    public boolean contains(AdoptionRequest request) {
+        return indexedStatus.containsKey(request);
+    }
+
+    /**
+     * Finds the position of an indexed request in a list holding the indexed requests in the order they were
+     * added to this index, such as the list it was built over.
+     *
+     * @param requests the list, in indexing order
+     * @param request the request to find
+     * @return the position of this very request instance, or {@code -1} if it is not in the list
+     */
+    public int positionIn(List<AdoptionRequest> requests, AdoptionRequest request) {
+        Long target = sequence.get(request);
+        if (target == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = requests.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Long found = sequence.get(requests.get(middle));
+            if (found == null) {
+                // The list holds a request this index does not know, so it is not in indexing order
+                return indexOf(requests, request);
+            }
+            if (found < target) {
+                low = middle + 1;
+            } else if (found > target) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the requests made by a customer, in the order they were indexed.
+     *
+     * @param customerId the customer ID
+     * @return the customer's requests
+     */
+    public List<AdoptionRequest> getByCustomer(String customerId) {
+        return snapshot(byCustomer.get(customerId));
+    }
+
+    /**
+     * Gets the requests made for a pet, in the order they were indexed.
+     *
+     * @param animalId the animal ID
+     * @return the requests for the pet
+     */
+    public List<AdoptionRequest> getByAnimal(String animalId) {
+        return snapshot(byAnimal.get(animalId));
+    }
+
+    /**
+     * Gets the requests with the given status, in the order they were indexed.
+     *
+     * @param status the status, such as {@code RequestStatus.PENDING}
+     * @return the requests with that status
+     */
+    public List<AdoptionRequest> getByStatus(RequestStatus status) {
+        return snapshot(byStatus.get(status));
+    }
+
+    /**
+     * Gets the number of requests with the given status. Safe to call from any thread without a lock.
+     *
+     * @param status the status, such as {@code RequestStatus.PENDING}
+     * @return the number of requests with that status
+     */
+    public long countByStatus(RequestStatus status) {
+        return statusCounts.get(status.ordinal());
+    }
+
+    /**
+     * Finds the first request a customer made for a specific pet.
+     *
+     * @param customerId the customer ID
+     * @param animalId the animal ID
+     * @return the matching request, or {@code null} if there is none
+     */
+    public AdoptionRequest find(String customerId, String animalId) {
+        Set<AdoptionRequest> requests = byCustomer.get(customerId);
+        if (requests == null) {
+            return null;
+        }
+        for (AdoptionRequest request : requests) {
+            if (request.getAnimalID().equals(animalId)) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    private static <K> Set<AdoptionRequest> bucket(Map<K, Set<AdoptionRequest>> index, K key) {
+        return index.computeIfAbsent(key, k -> new LinkedHashSet<>());
+    }
+
+    private static <K> boolean unbucket(Map<K, Set<AdoptionRequest>> index, K key, AdoptionRequest request) {
+        Set<AdoptionRequest> requests = index.get(key);
+        if (requests == null || !requests.remove(request)) {
+            return false;
+        }
+        if (requests.isEmpty()) {
+            index.remove(key);
+        }
+        return true;
+    }
+
+    private static int indexOf(List<AdoptionRequest> requests, AdoptionRequest request) {
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i) == request) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<AdoptionRequest> snapshot(Set<AdoptionRequest> requests) {
+        return requests == null ? Collections.emptyList() : new ArrayList<>(requests);
+    }
+}
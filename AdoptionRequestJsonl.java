@@ -0,0 +1,284 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code AdoptionRequestJsonl} class imports and exports adoption requests as JSON Lines, one JSON object
+ * per line, as exchanged with partner shelters:
+ *
+ * <pre>{"customerId":"C001","animalID":"A001","status":"Pending"}</pre>
+ *
+ * <p>Both directions stream. An import reads one line at a time and appends the parsed requests to
+ * {@code AdoptionRequestStorage} in batches of {@value #DEFAULT_BATCH_SIZE}, so the file is never held in
+ * memory. An export visits the stored requests one at a time. Lines that cannot be parsed are reported with
+ * their line number and skipped. A missing status means {@code "Pending"}; other fields are ignored.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Importing requests from a JSON Lines file in batches</li>
+ *   <li>Exporting all stored requests to a JSON Lines file</li>
+ *   <li>Parsing and formatting single request lines</li>
+ * </ul>
+ */
+public class AdoptionRequestJsonl {
+
+    static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Imports the requests in a JSON Lines file.
+     *
+     * @param file the file to read
+     * @return the number of requests imported
+     * @throws IOException if the file cannot be read
+     */
+    public static int importRequests(File file) throws IOException {
+        return importRequests(file, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Imports the requests in a JSON Lines file, appending them to the storage {@code batchSize} at a time.
+     *
+     * @param file the file to read
+     * @param batchSize the number of requests appended to the storage at once
+     * @return the number of requests imported
+     * @throws IOException if the file cannot be read
+     */
+    public static int importRequests(File file, int batchSize) throws IOException {
+        int imported = 0;
+        int lineNumber = 0;
+        List<AdoptionRequest> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(parse(line));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(file.getName() + ":" + lineNumber + ": " + e.getMessage());
+                    continue;
+                }
+                if (batch.size() >= batchSize) {
+                    AdoptionRequestStorage.addRequests(batch);
+                    imported += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            AdoptionRequestStorage.addRequests(batch);
+            imported += batch.size();
+        }
+        return imported;
+    }
+
+    /**
+     * Exports every stored request to a JSON Lines file, replacing the file if it exists.
+     *
+     * @param file the file to write
+     * @return the number of requests exported
+     * @throws IOException if the file cannot be written
+     */
+    public static int exportRequests(File file) throws IOException {
+        int[] exported = {0};
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            AdoptionRequestStorage.forEachRequest(request -> {
+                try {
+                    writer.write(format(request));
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exported[0];
+    }
+
+    /**
+     * Formats a request as a single JSON object.
+     *
+     * @param request the request
+     * @return the JSON text, without a line terminator
+     */
+    public static String format(AdoptionRequest request) {
+        StringBuilder json = new StringBuilder(64);
+        json.append("{\"customerId\":");
+        appendString(json, request.getCustomerId());
+        json.append(",\"animalID\":");
+        appendString(json, request.getAnimalID());
+        json.append(",\"status\":");
+        appendString(json, request.getStatus().getLabel());
+        return json.append('}').toString();
+    }
+
+    /**
+     * Parses a request from a single JSON object.
+     *
+     * @param line the JSON text
+     * @return the parsed {@code AdoptionRequest}
+     * @throws IllegalArgumentException if the text is not a JSON object with the required fields
+     */
+    public static AdoptionRequest parse(String line) {
+        Map<String, String> fields = new Parser(line).parseObject();
+        String customerId = fields.get("customerId");
+        String animalId = fields.get("animalID");
+        if (customerId == null || customerId.isBlank() || animalId == null || animalId.isBlank()) {
+            throw new IllegalArgumentException("customerId and animalID are required");
+        }
+        AdoptionRequest request = new AdoptionRequest(customerId, animalId);
+        String status = fields.get("status");
+        if (status != null) {
+            request.setStatus(RequestStatus.fromLabel(status));
+        }
+        return request;
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Reads a flat JSON object whose values are strings, numbers, booleans, or null.
+     */
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> parseObject() {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+            } else {
+                do {
+                    String name = parseString();
+                    expect(':');
+                    fields.put(name, parseValue());
+                } while (consume(','));
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw error("unexpected text after object");
+            }
+            return fields;
+        }
+
+        private String parseValue() {
+            char c = peek();
+            if (c == '"') {
+                return parseString();
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return literal;
+            }
+            throw error("unsupported value");
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw error("bad unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad unicode escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (pos + 1));
+        }
+    }
+}
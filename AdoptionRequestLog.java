@@ -0,0 +1,319 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code AdoptionRequestLog} class is an append-only log of single-request changes that sits next to the
+ * {@code adoption_requests.dat} snapshot. Adding a request, changing its status, and removing it each append
+ * one small record instead of rewriting every request; a removal is recorded as a tombstone. The log is
+ * replayed on top of the snapshot when requests are loaded.
+ *
+ * <p>Records use the same {@code [length][crc32][op][payload]} framing as {@link PetMutationLog}, so a record
+ * torn by a crash is detected and dropped. Requests are identified by customer ID and animal ID together, and
+ * an add for a pair that is already present replaces its status, so replaying records that a snapshot already
+ * contains does not duplicate requests. Like the pet log, the log is replayed into a map keyed by that pair
+ * (see {@link #key}), so each record is applied in constant time however many requests are stored. The status
+ * is written as its one-byte {@link RequestStatus} code; records written when it was a text label still
+ * replay.</p>
+ *
+ * <p>Tombstones and status changes make earlier data obsolete. The log counts them as garbage so the storage
+ * can decide when to compact the snapshot and log into a new snapshot. Like the pet log, it is rotated to a
+ * {@code .1} file while that snapshot is written.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Appending add, status change, and tombstone records</li>
+ *   <li>Replaying the log on top of a loaded snapshot</li>
+ *   <li>Counting records and garbage since the last snapshot</li>
+ *   <li>Rotating the log while a new snapshot is written</li>
+ * </ul>
+ */
+public class AdoptionRequestLog {
+
+    static final byte OP_ADD = 1;
+    static final byte OP_STATUS = 2;
+    static final byte OP_REMOVE = 3;
+
+    private static final int MAX_RECORD_LENGTH = 1 << 16;
+
+    private final File file;
+    private final File rotated;
+    private int recordCount = -1;
+    private int garbageCount;
+
+    /**
+     * Constructs a new {@code AdoptionRequestLog} backed by the given file.
+     *
+     * @param fileName the name of the log file
+     */
+    public AdoptionRequestLog(String fileName) {
+        this.file = new File(fileName);
+        this.rotated = new File(fileName + ".1");
+    }
+
+    /**
+     * Appends a record for the given operation and request to the end of the log.
+     *
+     * @param op one of {@code OP_ADD}, {@code OP_STATUS} or {@code OP_REMOVE}
+     * @param request the request the operation applies to
+     */
+    public synchronized void append(byte op, AdoptionRequest request) {
+        int existing = getRecordCount();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        try (DataOutputStream payload = new DataOutputStream(bytes)) {
+            payload.writeByte(op);
+            payload.writeUTF(request.getCustomerId());
+            payload.writeUTF(request.getAnimalID());
+            if (op != OP_REMOVE) {
+                payload.writeByte(request.getStatus().getCode());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            out.writeInt(record.length);
+            out.writeInt((int) crc.getValue());
+            out.write(record);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        recordCount = existing + 1;
+        if (op != OP_ADD) {
+            garbageCount++;
+        }
+    }
+
+    /**
+     * Replays every complete record in the rotated and current log on top of the given requests.
+     * Replay of a file stops at its first truncated or corrupt record.
+     *
+     * @param requests the snapshot contents, keyed by {@link #key}; updated in place
+     * @return the number of records that were applied
+     */
+    public synchronized int replay(LinkedHashMap<String, AdoptionRequest> requests) {
+        int applied = replay(rotated, requests);
+        recordCount = 0;
+        garbageCount = 0;
+        return applied + replay(file, requests);
+    }
+
+    private int replay(File file, LinkedHashMap<String, AdoptionRequest> requests) {
+        int applied = 0;
+        long validLength = 0;
+        if (!file.exists()) {
+            return 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException eof) {
+                    break;
+                }
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                if (apply(record, requests) && file == this.file) {
+                    garbageCount++;
+                }
+                applied++;
+                validLength += 8 + length;
+            }
+        } catch (EOFException e) {
+            // A partially written record at the tail is expected after a crash and is ignored.
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (file == this.file) {
+            recordCount = applied;
+        }
+        dropTornTail(file, validLength);
+        return applied;
+    }
+
+    /**
+     * Applies one record to the requests.
+     *
+     * @return {@code true} if the record is garbage (a tombstone or a status change), {@code false} otherwise
+     */
+    private boolean apply(byte[] record, LinkedHashMap<String, AdoptionRequest> requests) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte op = in.readByte();
+        String customerId = in.readUTF();
+        String animalId = in.readUTF();
+        String key = key(customerId, animalId);
+        switch (op) {
+            case OP_ADD, OP_STATUS -> {
+                RequestStatus status = readStatus(in);
+                AdoptionRequest existing = requests.get(key);
+                if (existing != null) {
+                    existing.setStatus(status);
+                } else if (op == OP_ADD) {
+                    AdoptionRequest request = new AdoptionRequest(customerId, animalId);
+                    request.setStatus(status);
+                    requests.put(key, request);
+                }
+            }
+            case OP_REMOVE -> requests.remove(key);
+            default -> throw new IOException("Unknown log operation: " + op);
+        }
+        return op != OP_ADD;
+    }
+
+    /**
+     * Reads the status of an add or status change record: a one-byte code, or in older records the label.
+     */
+    private static RequestStatus readStatus(DataInputStream in) throws IOException {
+        try {
+            return in.available() == 1 ? RequestStatus.fromCode(in.readByte()) : RequestStatus.fromLabel(in.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the key a request is identified by in the log: its customer ID and animal ID together.
+     *
+     * @param customerId the customer ID
+     * @param animalId the animal ID
+     * @return the key for the pair
+     */
+    static String key(String customerId, String animalId) {
+        return customerId + '\u0000' + animalId;
+    }
+
+    /**
+     * Gets the number of records appended since the log was last rotated.
+     * The first call walks the record headers of an existing log file to establish the count.
+     *
+     * @return the number of records in the log
+     */
+    public synchronized int getRecordCount() {
+        if (recordCount < 0) {
+            countRecords();
+        }
+        return recordCount;
+    }
+
+    /**
+     * Gets the number of tombstones and status changes appended since the log was last rotated.
+     *
+     * @return the number of garbage records in the log
+     */
+    public synchronized int getGarbageCount() {
+        getRecordCount();
+        return garbageCount;
+    }
+
+    private void countRecords() {
+        int count = 0;
+        int garbage = 0;
+        long validLength = 0;
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    int length = in.readInt();
+                    in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                        break;
+                    }
+                    byte op = in.readByte();
+                    if (in.skipBytes(length - 1) < length - 1) {
+                        break;
+                    }
+                    count++;
+                    if (op != OP_ADD) {
+                        garbage++;
+                    }
+                    validLength += 8 + length;
+                }
+            } catch (EOFException e) {
+                // End of log reached.
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            dropTornTail(file, validLength);
+        }
+        recordCount = count;
+        garbageCount = garbage;
+    }
+
+    /**
+     * Cuts a partially written record off the end of the log so that later appends are not hidden behind it.
+     *
+     * @param file the log file
+     * @param validLength the length of the log up to the end of the last complete record
+     */
+    private void dropTornTail(File file, long validLength) {
+        if (file.length() <= validLength) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(validLength);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Moves the current records to the rotated file and starts a fresh log. Called when a snapshot that will
+     * contain every logged change is about to be written. If an earlier rotated file was never cleared because
+     * its snapshot failed, the current records are appended to it.
+     */
+    public synchronized void rotate() {
+        try {
+            if (file.exists()) {
+                if (rotated.exists()) {
+                    Files.write(rotated.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+                    Files.delete(file.toPath());
+                } else {
+                    Files.move(file.toPath(), rotated.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            recordCount = 0;
+            garbageCount = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rotate " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Deletes the rotated records. Called once the snapshot that contains them is in place.
+     */
+    public synchronized void clearRotated() {
+        if (rotated.exists() && !rotated.delete()) {
+            System.err.println("Could not delete " + rotated.getName());
+        }
+    }
+
+    /**
+     * Gets the files the log is stored in, for detecting changes made outside this process.
+     *
+     * @return the rotated and the current log file
+     */
+    public File[] getFiles() {
+        return new File[]{rotated, file};
+    }
+}
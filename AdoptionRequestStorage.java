@@ -1,36 +1,193 @@
 import java.io.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * The {@code AdoptionRequestStorage} class is responsible for handling the storage and retrieval of adoption requests
  * in the pet adoption system. It provides methods to save, load, add, and retrieve adoption requests using file-based storage.
  * 
- * <p>This class uses serialization to persist adoption request data to a file and retrieve it when needed.</p>
+ * <p>This class uses serialization to persist adoption request data to a file and retrieve it when needed.
+ * Loaded requests are kept in the {@link StorageCache} until the file changes, together with an
+ * {@link AdoptionRequestIndex} over customer ID, animal ID, and status that is updated incrementally
+ * as requests are added, removed, or change status. Status changes follow {@link RequestStatus}: a pending
+ * request is approved or denied once, and only a decided request can be removed, while a customer may withdraw
+ * a request that is still pending. The number of requests in each status can be read at any time without
+ * a lock.</p>
+ *
+ * <p>Adding a request, changing its status, or removing it appends one record to an
+ * {@link AdoptionRequestLog}; a removal is written as a tombstone. Once the log holds
+ * {@code petmanager.compactGarbage} tombstones and status changes (default {@value #DEFAULT_COMPACT_GARBAGE})
+ * or {@value #COMPACT_RECORDS} records in all, the {@link LogCompactor} thread merges the snapshot and log
+ * into a new snapshot and swaps it into place. Saving a whole list is written by the {@link StorageWriter}
+ * thread the same way.</p>
+ *
+ * <p>Records are kept in the {@link RecordStore} chosen by {@link RecordStores}, keyed by customer ID and
+ * animal ID together. When the store supports point writes, each change is written to the store on its own
+ * instead of rewriting every request. A new B+tree store is filled from the snapshot with the log
+ * replayed on top of it, and the log is then folded into the snapshot and cleared.</p>
+ *
+ * <p>Every request that is added, changes status, or is removed is published to {@link StorageEvents} once
+ * the change is in memory. Saving a whole list publishes nothing.</p>
  * 
  * <p>Key functionalities include:</p>
  * <ul>
  *   <li>Saving adoption requests to a file</li>
  *   <li>Loading adoption requests from a file</li>
  *   <li>Adding a new adoption request to the storage</li>
- *   <li>Retrieving adoption requests by customer ID</li>
+ *   <li>Updating the status of a request and removing a request</li>
+ *   <li>Appending batches of requests and visiting every request without copying the list</li>
+ *   <li>Retrieving adoption requests by customer ID, animal ID, or status</li>
+ *   <li>Counting the requests in each status</li>
+ *   <li>Publishing each change to a request to {@link StorageEvents}</li>
  * </ul>
  */
 public class AdoptionRequestStorage {
 
     private static final String FILE_NAME = "adoption_requests.dat";
+    private static final String CACHE_KEY = "adoption_requests";
+
+    private static final String LOG_FILE_NAME = "adoption_requests.log";
+    static final int DEFAULT_COMPACT_GARBAGE = 200;
+    private static final int COMPACT_GARBAGE = Integer.getInteger("petmanager.compactGarbage", DEFAULT_COMPACT_GARBAGE);
+    private static final int COMPACT_RECORDS = 2000;
+
+    private static final AdoptionRequestLog log = new AdoptionRequestLog(LOG_FILE_NAME);
+    private static final SerializedFileStore<AdoptionRequest> snapshots =
+            new SerializedFileStore<>(FILE_NAME, AdoptionRequestStorage::key, BinaryCodec.REQUESTS);
+    private static final RecordStore<AdoptionRequest> store = openStore();
+    private static final Object snapshotLock = new Object();
+    private static volatile AdoptionRequestIndex liveIndex;
 
     /**
      * Saves the list of adoption requests to the storage file.
+     * The list becomes the cached request list immediately and is written in the background.
      *
      * @param requests the {@code List<AdoptionRequest>} to be saved
+     * @return a future that completes when the file has been written
+     */
+    public static synchronized CompletableFuture<Void> saveRequests(List<AdoptionRequest> requests) {
+        if (store.supportsPointWrites()) {
+            store.saveAll(requests);
+        }
+        StorageCache.put(CACHE_KEY, requests, files());
+        liveIndex = new AdoptionRequestIndex(requests);
+        StorageCache.attach(CACHE_KEY, liveIndex);
+        return store.supportsPointWrites() ? StorageWriter.completed() : scheduleWrite();
+    }
+
+    /**
+     * Persists a change that has already been applied to the cached requests. With a store that supports point
+     * writes the change is written to the store; otherwise it is appended to the log, and a compaction is
+     * scheduled once the log holds enough garbage. Either way the change is on disk when this method returns.
+     *
+     * @param op one of the {@link AdoptionRequestLog} operations
+     * @param request the request the change applies to
+     * @return a completed future
+     */
+    private static CompletableFuture<Void> commit(byte op, AdoptionRequest request) {
+        if (store.supportsPointWrites()) {
+            if (op == AdoptionRequestLog.OP_REMOVE) {
+                store.remove(key(request));
+            } else {
+                store.put(request);
+            }
+        } else {
+            log.append(op, request);
+            if (log.getGarbageCount() >= COMPACT_GARBAGE || log.getRecordCount() >= COMPACT_RECORDS) {
+                LogCompactor.schedule(FILE_NAME, AdoptionRequestStorage::writeSnapshot);
+            }
+        }
+        StorageCache.restamp(CACHE_KEY, files());
+        return StorageWriter.completed();
+    }
+
+    /**
+     * Marks the cached requests as unsaved and queues a rewrite of the storage file.
+     *
+     * @return a future that completes when the file has been written
+     */
+    private static CompletableFuture<Void> scheduleWrite() {
+        StorageCache.markDirty(CACHE_KEY);
+        return StorageWriter.submit(FILE_NAME, AdoptionRequestStorage::writeSnapshot);
+    }
+
+    /**
+     * Writes the cached request list as a new snapshot and drops the log records it contains. Runs on the
+     * {@link StorageWriter} or {@link LogCompactor} thread; the two never write the snapshot at the same time.
+     * Foreground operations only wait for the log to be rotated, not for the snapshot to be written.
+     */
+    private static void writeSnapshot() {
+        synchronized (snapshotLock) {
+            List<AdoptionRequest> requests;
+            synchronized (AdoptionRequestStorage.class) {
+                StorageCache.view(CACHE_KEY, AdoptionRequestStorage::loadFromDisk, files());
+                StorageCache.markDirty(CACHE_KEY); // Keep reads on the cached list while the file is replaced
+                requests = StorageCache.takeForWrite(CACHE_KEY);
+                log.rotate();
+                StorageCache.restamp(CACHE_KEY, files());
+            }
+            store.saveAll(requests);
+            synchronized (AdoptionRequestStorage.class) {
+                log.clearRotated();
+                StorageCache.markWritten(CACHE_KEY);
+                StorageCache.restamp(CACHE_KEY, files());
+            }
+        }
+    }
+
+    private static List<AdoptionRequest> loadFromDisk() {
+        return store.supportsPointWrites() ? store.loadAll() : loadSnapshot();
+    }
+
+    /**
+     * Loads the snapshot file and replays the log on top of it.
+     *
+     * @return the requests as of the last logged change
+     */
+    private static List<AdoptionRequest> loadSnapshot() {
+        List<AdoptionRequest> requests = snapshots.loadAll();
+        LinkedHashMap<String, AdoptionRequest> byKey = new LinkedHashMap<>();
+        for (AdoptionRequest request : requests) {
+            byKey.putIfAbsent(AdoptionRequestLog.key(request.getCustomerId(), request.getAnimalID()), request);
+        }
+        if (log.replay(byKey) == 0 && byKey.size() == requests.size()) {
+            return requests;
+        }
+        return new ArrayList<>(byKey.values());
+    }
+
+    /**
+     * Opens the configured store. A newly created B+tree store is filled from the snapshot and its log; the
+     * log records are then folded into the snapshot and the log is cleared, since they are in the store and
+     * changes are no longer logged.
+     *
+     * @return the open {@code RecordStore}
      */
-    public static void saveRequests(List<AdoptionRequest> requests) {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-            out.writeObject(requests);
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static RecordStore<AdoptionRequest> openStore() {
+        RecordStore<AdoptionRequest> opened = RecordStores.open("adoption_requests", AdoptionRequestStorage::key,
+                BinaryCodec.REQUESTS, AdoptionRequestStorage::loadSnapshot);
+        File[] logFiles = log.getFiles();
+        if (opened.supportsPointWrites() && (logFiles[0].exists() || logFiles[1].exists())) {
+            List<AdoptionRequest> requests = loadSnapshot();
+            if (opened.size() == 0) {
+                opened.saveAll(requests); // Nothing was imported if every request is still in the log
+            }
+            log.rotate();
+            snapshots.saveAll(requests);
+            log.clearRotated();
+        }
+        return opened;
+    }
+
+    private static File[] files() {
+        if (store.supportsPointWrites()) {
+            return store.getFiles();
         }
+        File[] logFiles = log.getFiles();
+        return new File[]{new File(FILE_NAME), logFiles[0], logFiles[1]};
     }
 
     /**
@@ -39,25 +196,178 @@ public class AdoptionRequestStorage {
      *
      * @return an {@code ArrayList<AdoptionRequest>} containing all adoption requests loaded from the file
      */
-    @SuppressWarnings("unchecked")
-    public static ArrayList<AdoptionRequest> loadRequests() {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-            return (ArrayList<AdoptionRequest>) in.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
-        }
+    public static synchronized ArrayList<AdoptionRequest> loadRequests() {
+        return new ArrayList<>(StorageCache.view(CACHE_KEY, AdoptionRequestStorage::loadFromDisk, files()));
+    }
+
+    /**
+     * Derives the store key of a request from its customer ID and animal ID.
+     *
+     * @param request the request
+     * @return the key, which sorts by customer ID and then by animal ID
+     */
+    private static String key(AdoptionRequest request) {
+        return request.getCustomerId() + '\u0000' + request.getAnimalID();
     }
 
     /**
      * Adds a new adoption request to the storage.
-     * The request is added to the existing list of adoption requests, and the updated list is saved to the file.
+     * The request is added to the existing list of adoption requests and appended to the log.
+     * It replaces an earlier request by the same customer for the same pet, since requests are stored
+     * by customer and pet.
      *
      * @param request the {@code AdoptionRequest} object to be added
+     * @return a future that completes when the request has been written
+     */
+    public static synchronized CompletableFuture<Void> addRequest(AdoptionRequest request) {
+        AdoptionRequestIndex index = index();
+        AdoptionRequest replaced = index.find(request.getCustomerId(), request.getAnimalID());
+        StorageCache.update(CACHE_KEY, (List<AdoptionRequest> requests) -> {
+            removeAt(requests, index.positionIn(requests, replaced));
+            requests.add(request);
+        }, files());
+        if (replaced != null) {
+            index.remove(replaced);
+        }
+        index.add(request);
+        StorageCache.attach(CACHE_KEY, index);
+        StorageEvents.publish(StorageEvents.Type.REQUEST_ADDED, request);
+        return commit(AdoptionRequestLog.OP_ADD, request);
+    }
+
+    /**
+     * Appends a batch of adoption requests, such as one read from an import file.
+     * With a store that supports point writes the batch is written straight to the store and the cached list
+     * is dropped, so a large import never holds every request in memory; otherwise the batch is added to the
+     * cached list and a single rewrite of the file is queued.
+     *
+     * @param batch the requests to append
+     * @return a future that completes when the batch is on disk
+     */
+    public static synchronized CompletableFuture<Void> addRequests(List<AdoptionRequest> batch) {
+        if (store.supportsPointWrites()) {
+            store.putAll(batch);
+            StorageCache.invalidate(CACHE_KEY);
+            liveIndex = null;
+            publishAdded(batch);
+            return StorageWriter.completed();
+        }
+        AdoptionRequestIndex index = index();
+        StorageCache.update(CACHE_KEY, (List<AdoptionRequest> requests) -> requests.addAll(batch), files());
+        for (AdoptionRequest request : batch) {
+            index.add(request);
+        }
+        StorageCache.attach(CACHE_KEY, index);
+        publishAdded(batch);
+        return scheduleWrite();
+    }
+
+    private static void publishAdded(List<AdoptionRequest> batch) {
+        for (AdoptionRequest request : batch) {
+            StorageEvents.publish(StorageEvents.Type.REQUEST_ADDED, request);
+        }
+    }
+
+    /**
+     * Passes every stored adoption request to the given action without copying the request list.
+     * With a store that supports point writes the requests are read from the store one at a time.
+     *
+     * @param action the action to run for each request
      */
-    public static void addRequest(AdoptionRequest request) {
-        ArrayList<AdoptionRequest> requests = loadRequests();
-        requests.add(request);
-        saveRequests(requests);
+    public static synchronized void forEachRequest(Consumer<? super AdoptionRequest> action) {
+        if (store.supportsPointWrites()) {
+            store.forEach(action);
+        } else {
+            StorageCache.view(CACHE_KEY, AdoptionRequestStorage::loadFromDisk, files()).forEach(action);
+        }
+    }
+
+    /**
+     * Changes the status of a stored adoption request and appends the change to the log.
+     * The request must be one obtained from this storage so that it is the instance held in the index.
+     *
+     * @param request the {@code AdoptionRequest} whose status changes
+     * @param status the new status (e.g., Approved, Denied)
+     * @return a future that completes when the change has been written
+     * @throws IllegalStateException if the request is not pending or the new status is not a decision
+     */
+    public static synchronized CompletableFuture<Void> updateStatus(AdoptionRequest request, RequestStatus status) {
+        index().changeStatus(request, status);
+        StorageEvents.publish(StorageEvents.Type.REQUEST_STATUS_CHANGED, request);
+        return commit(AdoptionRequestLog.OP_STATUS, request);
+    }
+
+    /**
+     * Records a status change that the caller has already made on a stored request with
+     * {@link AdoptionRequest#compareAndSetStatus}, and returns the write that persists it, so the caller can put
+     * it in one batch with other writes. Until the write runs the change is only in memory. If the request was
+     * removed since its status changed, there is nothing left to record and the write does nothing.
+     *
+     * @param request the {@code AdoptionRequest} whose status changed
+     * @return the write that appends the change to the log or the store
+     */
+    static synchronized Runnable stageStatus(AdoptionRequest request) {
+        AdoptionRequestIndex index = index();
+        if (!index.contains(request)) {
+            return () -> { };
+        }
+        index.statusChanged(request);
+        StorageEvents.publish(StorageEvents.Type.REQUEST_STATUS_CHANGED, request);
+        return () -> {
+            synchronized (AdoptionRequestStorage.class) {
+                commit(AdoptionRequestLog.OP_STATUS, request);
+            }
+        };
+    }
+
+    /**
+     * Removes a decided adoption request by appending a tombstone for it to the log.
+     *
+     * @param request the {@code AdoptionRequest} to remove
+     * @return a future that completes when the removal has been written
+     * @throws IllegalStateException if the request is still pending
+     */
+    public static synchronized CompletableFuture<Void> removeRequest(AdoptionRequest request) {
+        if (!request.getStatus().isDecided()) {
+            throw new IllegalStateException("Request " + request.getCustomerId() + "/" + request.getAnimalID()
+                    + " must be approved or denied before it is removed");
+        }
+        return delete(request);
+    }
+
+    /**
+     * Withdraws a pending adoption request, as when the customer cancels it, by appending a tombstone for it
+     * to the log.
+     *
+     * @param request the {@code AdoptionRequest} to withdraw
+     * @return a future that completes when the removal has been written
+     * @throws IllegalStateException if the request has already been decided
+     */
+    public static synchronized CompletableFuture<Void> withdrawRequest(AdoptionRequest request) {
+        if (request.getStatus().isDecided()) {
+            throw new IllegalStateException("Request " + request.getCustomerId() + "/" + request.getAnimalID()
+                    + " has already been decided");
+        }
+        return delete(request);
+    }
+
+    private static CompletableFuture<Void> delete(AdoptionRequest request) {
+        AdoptionRequestIndex index = index();
+        if (!index.contains(request)) {
+            return StorageWriter.completed();
+        }
+        StorageCache.update(CACHE_KEY,
+                (List<AdoptionRequest> requests) -> removeAt(requests, index.positionIn(requests, request)), files());
+        index.remove(request);
+        StorageCache.attach(CACHE_KEY, index);
+        StorageEvents.publish(StorageEvents.Type.REQUEST_REMOVED, request);
+        return commit(AdoptionRequestLog.OP_REMOVE, request);
+    }
+
+    private static void removeAt(List<AdoptionRequest> requests, int position) {
+        if (position >= 0) {
+            requests.remove(position);
+        }
     }
 
     /**
@@ -66,14 +376,80 @@ public class AdoptionRequestStorage {
      * @param customerId the ID of the customer whose adoption requests are to be retrieved
      * @return a {@code List<AdoptionRequest>} containing all adoption requests made by the specified customer
      */
-    public static List<AdoptionRequest> getRequestsByCustomerId(String customerId) {
-        ArrayList<AdoptionRequest> requests = loadRequests();
-        List<AdoptionRequest> customerRequests = new ArrayList<>();
-        for (AdoptionRequest request : requests) {
-            if (request.getCustomerId().equals(customerId)) {
-                customerRequests.add(request);
-            }
+    public static synchronized List<AdoptionRequest> getRequestsByCustomerId(String customerId) {
+        return index().getByCustomer(customerId);
+    }
+
+    /**
+     * Retrieves all adoption requests made for a specific pet.
+     *
+     * @param animalId the ID of the pet whose adoption requests are to be retrieved
+     * @return a {@code List<AdoptionRequest>} containing all adoption requests for the specified pet
+     */
+    public static synchronized List<AdoptionRequest> getRequestsByAnimalId(String animalId) {
+        return index().getByAnimal(animalId);
+    }
+
+    /**
+     * Retrieves all adoption requests with a specific status.
+     *
+     * @param status the status to match (e.g., Pending, Approved, Denied)
+     * @return a {@code List<AdoptionRequest>} containing all adoption requests with the specified status
+     */
+    public static synchronized List<AdoptionRequest> getRequestsByStatus(RequestStatus status) {
+        return index().getByStatus(status);
+    }
+
+    /**
+     * Gets the number of stored adoption requests with a specific status. The count is read from counters
+     * kept up to date by every change, so it takes no lock and does not scan the requests once the requests
+     * have been loaded.
+     *
+     * @param status the status to count
+     * @return the number of requests with that status
+     */
+    public static long countRequests(RequestStatus status) {
+        AdoptionRequestIndex index = liveIndex;
+        if (index == null) {
+            index = index();
+        }
+        return index.countByStatus(status);
+    }
+
+    /**
+     * Finds the adoption request a customer made for a specific pet.
+     *
+     * @param customerId the ID of the customer who made the request
+     * @param animalId the ID of the requested pet
+     * @return the {@code AdoptionRequest}, or {@code null} if there is none
+     */
+    public static synchronized AdoptionRequest findRequest(String customerId, String animalId) {
+        return index().find(customerId, animalId);
+    }
+
+    /**
+     * Tells whether a request is the stored instance, so that it has not been removed or replaced.
+     *
+     * @param request the {@code AdoptionRequest} to check
+     * @return {@code true} if the request is stored
+     */
+    public static synchronized boolean isStored(AdoptionRequest request) {
+        return index().contains(request);
+    }
+
+    /**
+     * Gets the index over the current request list, building it if the list was reloaded since it was last built.
+     *
+     * @return the {@code AdoptionRequestIndex} for the cached requests
+     */
+    private static synchronized AdoptionRequestIndex index() {
+        List<AdoptionRequest> requests = StorageCache.view(CACHE_KEY, AdoptionRequestStorage::loadFromDisk, files());
+        AdoptionRequestIndex index = (AdoptionRequestIndex) StorageCache.getAttachment(CACHE_KEY);
+        if (index == null) {
+            index = new AdoptionRequestIndex(requests);
+            StorageCache.attach(CACHE_KEY, index);
         }
-        return customerRequests;
+        liveIndex = index;
+        return index;
     }
 }
@@ -0,0 +1,147 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The {@code AdoptionRequestTableModel} class shows adoption requests in a {@code JTable} by reading each cell
+ * straight from the {@link AdoptionRequest}, and keeps the table current by applying batches of
+ * {@link StorageEvents} changes to the affected rows instead of reloading every request.
+ *
+ * <p>The model shows the requests that pass a filter, such as only the pending ones. A request that is added,
+ * or whose status changes so that it now passes the filter, is appended; a request that is removed, or that no
+ * longer passes, is dropped; any other changed request has its row repainted. Rows are found by customer ID
+ * and pet ID, the key requests are stored under.</p>
+ *
+ * <p>Like every Swing model it must only be used on the event dispatch thread.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Showing a list of requests, optionally filtered</li>
+ *   <li>Applying a batch of storage changes with a single table event</li>
+ * </ul>
+ */
+public class AdoptionRequestTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"Customer ID", "Pet ID", "Status"};
+
+    private List<AdoptionRequest> requests = new ArrayList<>();
+    private Predicate<? super AdoptionRequest> filter = request -> true;
+    private Map<String, Integer> rowByKey;
+
+    @Override
+    public int getRowCount() {
+        return requests.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        AdoptionRequest request = requests.get(row);
+        return switch (column) {
+            case 0 -> request.getCustomerId();
+            case 1 -> request.getAnimalID();
+            default -> request.getStatus();
+        };
+    }
+
+    /**
+     * Gets the request shown in the given row.
+     *
+     * @param row the row index
+     * @return the {@code AdoptionRequest} in that row
+     */
+    public AdoptionRequest getRequestAt(int row) {
+        return requests.get(row);
+    }
+
+    /**
+     * Shows another list of requests.
+     *
+     * @param requests the requests to show; they are copied, so later changes reach the table only through
+     *                 {@link #applyChanges}
+     * @param filter decides which requests added or changed later are shown
+     */
+    public void setRequests(List<AdoptionRequest> requests, Predicate<? super AdoptionRequest> filter) {
+        this.requests = new ArrayList<>(requests);
+        this.filter = filter;
+        rowByKey = null;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Applies the request changes in a batch of storage changes. The table is told about the whole batch at
+     * once, so it is repainted once however many requests changed.
+     *
+     * @param changes the storage changes, in the order they were made
+     */
+    public void applyChanges(List<StorageEvents.Change> changes) {
+        int firstAdded = requests.size();
+        int firstUpdated = Integer.MAX_VALUE;
+        int lastUpdated = -1;
+        Set<String> dropped = new HashSet<>();
+        for (StorageEvents.Change change : changes) {
+            AdoptionRequest request = change.getRequest();
+            if (request == null) {
+                continue;
+            }
+            String key = key(request);
+            if (change.getType() == StorageEvents.Type.REQUEST_REMOVED || !filter.test(request)) {
+                dropped.add(key);
+                continue;
+            }
+            dropped.remove(key);
+            int row = rowOf(key);
+            if (row >= 0) {
+                requests.set(row, request);
+                if (row < firstAdded) {
+                    firstUpdated = Math.min(firstUpdated, row);
+                    lastUpdated = Math.max(lastUpdated, row);
+                }
+            } else {
+                rowByKey.put(key, requests.size());
+                requests.add(request);
+            }
+        }
+        if (!dropped.isEmpty() && requests.removeIf(request -> dropped.contains(key(request)))) {
+            // Rows shifted, so the whole table is redrawn
+            rowByKey = null;
+            fireTableDataChanged();
+            return;
+        }
+        if (lastUpdated >= 0) {
+            fireTableRowsUpdated(firstUpdated, lastUpdated);
+        }
+        if (requests.size() > firstAdded) {
+            fireTableRowsInserted(firstAdded, requests.size() - 1);
+        }
+    }
+
+    private int rowOf(String key) {
+        if (rowByKey == null) {
+            rowByKey = new HashMap<>(Math.max(16, requests.size() * 4 / 3 + 1));
+            for (int row = 0; row < requests.size(); row++) {
+                rowByKey.put(key(requests.get(row)), row);
+            }
+        }
+        Integer row = rowByKey.get(key);
+        return row == null ? -1 : row;
+    }
+
+    private static String key(AdoptionRequest request) {
+        return request.getCustomerId() + '\u0000' + request.getAnimalID();
+    }
+}
@@ -0,0 +1,143 @@
+import java.time.Year;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code AdoptionScreening} class screens every pending adoption request at once, for adoption events where
+ * thousands of requests arrive before an admin can look at them one by one.
+ *
+ * <p>The customers and pets named by the pending requests are looked up with one batch lookup each, and the
+ * current year is read once, so every request is judged against the same clock. The requests are then screened
+ * in parallel on the common fork-join pool, and each ends up in exactly one {@link Outcome}:</p>
+ * <ol>
+ *   <li>{@link Outcome#PET_UNAVAILABLE} if the pet no longer exists or has already been adopted</li>
+ *   <li>{@link Outcome#INELIGIBLE} if the customer no longer exists or is not eligible to adopt</li>
+ *   <li>{@link Outcome#CONFLICTING} if another request for the same pet also passed the checks above</li>
+ *   <li>{@link Outcome#AUTO_APPROVABLE} otherwise</li>
+ * </ol>
+ *
+ * <p>Screening does not change any request or pet. The result is a snapshot; approving its auto-approvable
+ * requests still goes through the {@link AdoptionService}, which checks each one again.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Screening all pending requests in one parallel pass</li>
+ *   <li>Partitioning the requests by outcome</li>
+ * </ul>
+ */
+public class AdoptionScreening {
+
+    /**
+     * The outcome of screening a pending request.
+     */
+    public enum Outcome {
+        AUTO_APPROVABLE, INELIGIBLE, PET_UNAVAILABLE, CONFLICTING
+    }
+
+    /**
+     * The pending requests partitioned by outcome. Within each outcome the requests keep the order in which the
+     * request store returned them.
+     */
+    public static class Result {
+        private final Map<Outcome, List<AdoptionRequest>> byOutcome;
+        private final int year;
+
+        private Result(Map<Outcome, List<AdoptionRequest>> byOutcome, int year) {
+            this.byOutcome = byOutcome;
+            this.year = year;
+        }
+
+        /**
+         * Gets the requests with the given outcome.
+         *
+         * @param outcome the outcome
+         * @return an unmodifiable list of the requests
+         */
+        public List<AdoptionRequest> get(Outcome outcome) {
+            return byOutcome.get(outcome);
+        }
+
+        /**
+         * Gets the number of requests with the given outcome.
+         *
+         * @param outcome the outcome
+         * @return the number of requests
+         */
+        public int count(Outcome outcome) {
+            return byOutcome.get(outcome).size();
+        }
+
+        /**
+         * Gets the year the customers' ages were computed for.
+         *
+         * @return the year
+         */
+        public int getYear() {
+            return year;
+        }
+
+        @Override
+        public String toString() {
+            return "Auto-approvable: " + count(Outcome.AUTO_APPROVABLE)
+                    + ", Ineligible: " + count(Outcome.INELIGIBLE)
+                    + ", Pet unavailable: " + count(Outcome.PET_UNAVAILABLE)
+                    + ", Conflicting: " + count(Outcome.CONFLICTING);
+        }
+    }
+
+    /**
+     * Screens every pending request in the request store.
+     *
+     * @return the pending requests partitioned by outcome
+     */
+    public static Result screenPending() {
+        return screen(AdoptionRequestStorage.getRequestsByStatus(RequestStatus.PENDING), Year.now().getValue());
+    }
+
+    /**
+     * Screens the given requests against the stored customers and pets, computing ages for the given year.
+     *
+     * @param pending the requests to screen
+     * @param year the current year
+     * @return the requests partitioned by outcome
+     */
+    public static Result screen(List<AdoptionRequest> pending, int year) {
+        Set<String> customerIds = pending.parallelStream().map(AdoptionRequest::getCustomerId).collect(Collectors.toSet());
+        Set<String> petIds = pending.parallelStream().map(AdoptionRequest::getAnimalID).collect(Collectors.toSet());
+        Map<String, Customer> customers = CustomerStorage.findCustomers(customerIds);
+        Map<String, Pet> pets = PetStorage.findAnimals(petIds);
+
+        Map<Outcome, List<AdoptionRequest>> byOutcome = pending.parallelStream().collect(Collectors.groupingBy(
+                request -> check(request, customers, pets, year), () -> new EnumMap<>(Outcome.class), Collectors.toList()));
+
+        // Requests that passed the checks conflict when more than one of them is for the same pet.
+        List<AdoptionRequest> passed = byOutcome.getOrDefault(Outcome.AUTO_APPROVABLE, List.of());
+        Map<String, Long> passedPerPet = passed.parallelStream()
+                .collect(Collectors.groupingByConcurrent(AdoptionRequest::getAnimalID, Collectors.counting()));
+        Map<Boolean, List<AdoptionRequest>> split = passed.parallelStream()
+                .collect(Collectors.partitioningBy(request -> passedPerPet.get(request.getAnimalID()) > 1));
+        byOutcome.put(Outcome.AUTO_APPROVABLE, split.get(false));
+        byOutcome.put(Outcome.CONFLICTING, split.get(true));
+
+        for (Outcome outcome : Outcome.values()) {
+            byOutcome.put(outcome, Collections.unmodifiableList(byOutcome.getOrDefault(outcome, List.of())));
+        }
+        return new Result(byOutcome, year);
+    }
+
+    private static Outcome check(AdoptionRequest request, Map<String, Customer> customers, Map<String, Pet> pets, int year) {
+        Pet pet = pets.get(request.getAnimalID());
+        if (pet == null || !pet.isAvalibleForAdoption()) {
+            return Outcome.PET_UNAVAILABLE;
+        }
+        Customer customer = customers.get(request.getCustomerId());
+        if (customer == null || !customer.isEligibleToAdopt(year)) {
+            return Outcome.INELIGIBLE;
+        }
+        return Outcome.AUTO_APPROVABLE;
+    }
+}
@@ -0,0 +1,156 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code AdoptionService} class approves and denies adoptions. It resolves the pet, the customer, and the
+ * customer's request for the pet through the storage indexes, so each decision takes constant time no matter
+ * how many pets, customers, or past requests are stored.
+ *
+ * <p>An approval marks the pet as adopted and the request as approved together: both changes are applied in
+ * memory before the method returns, and their two records are written by the {@link StorageWriter} as one
+ * batch. A denial only decides the request; the pet's adoption status is left as it is, since another
+ * customer's request for the same pet may already have been approved.</p>
+ *
+ * <p>Several admins can decide at the same time. The service takes no lock of its own: it reads the version of
+ * the pet and of the request, checks them, and then claims each with compare-and-set on that version
+ * ({@link Pet#compareAndSetAdoptionStat}, {@link AdoptionRequest#compareAndSetStatus}). Approvals of different
+ * pets therefore never wait for each other, and when two admins decide on the same pet or request at once
+ * exactly one succeeds; the other is rejected. If the request cannot be claimed after the pet was, the pet is
+ * released again, and the release is written if the pet was changed in between.</p>
+ *
+ * <p>Decisions that are not allowed are reported with an exception whose message can be shown to the admin:
+ * {@code IllegalArgumentException} when the pet or customer does not exist, and {@code IllegalStateException}
+ * when the pet is not available, the customer is not eligible, the request has already been decided, or another
+ * admin changed the pet or request first.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Approving an adoption and persisting the pet and request changes in one batch</li>
+ *   <li>Approving a request the admin selected, without looking it up again</li>
+ *   <li>Denying an adoption request</li>
+ * </ul>
+ */
+public class AdoptionService {
+
+    private static final AtomicLong batchSequence = new AtomicLong();
+
+    /**
+     * Approves the adoption of a pet by a customer. If the customer has a request for the pet, it must be
+     * pending and is approved along with the adoption.
+     *
+     * @param customerId the ID of the customer adopting the pet
+     * @param petId the ID of the pet
+     * @return a future that completes when both changes are on disk
+     * @throws IllegalArgumentException if the pet or customer does not exist
+     * @throws IllegalStateException if the pet is not available, the customer is not eligible to adopt,
+     *                               the request has already been decided, or another admin changed the pet or
+     *                               request first
+     */
+    public static CompletableFuture<Void> approve(String customerId, String petId) {
+        return approve(customerId, petId, AdoptionRequestStorage.findRequest(customerId, petId));
+    }
+
+    /**
+     * Approves a stored adoption request, such as one selected in the request table, along with the adoption of
+     * its pet by its customer.
+     *
+     * @param request the pending request, as obtained from {@link AdoptionRequestStorage}
+     * @return a future that completes when both changes are on disk
+     * @throws IllegalArgumentException if the pet or customer does not exist
+     * @throws IllegalStateException if the request was removed or has already been decided, the pet is not
+     *                               available, the customer is not eligible to adopt, or another admin changed
+     *                               the pet or request first
+     */
+    public static CompletableFuture<Void> approve(AdoptionRequest request) {
+        if (!AdoptionRequestStorage.isStored(request)) {
+            throw new IllegalStateException("The request by " + request.getCustomerId() + " for pet "
+                    + request.getAnimalID() + " has been removed.");
+        }
+        return approve(request.getCustomerId(), request.getAnimalID(), request);
+    }
+
+    private static CompletableFuture<Void> approve(String customerId, String petId, AdoptionRequest request) {
+        Pet pet = PetStorage.findAnimal(petId);
+        if (pet == null) {
+            throw new IllegalArgumentException("Pet with ID " + petId + " not found.");
+        }
+        Customer customer = CustomerStorage.getCustomerById(customerId);
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer with ID " + customerId + " not found.");
+        }
+        int petVersion = pet.getVersion();
+        if (!pet.isAvalibleForAdoption()) {
+            throw new IllegalStateException("Pet " + petId + " is not available for adoption.");
+        }
+        if (!customer.isEligibleToAdopt()) {
+            throw new IllegalStateException("Customer " + customerId + " is not eligible to adopt.");
+        }
+        int requestVersion = request == null ? 0 : request.getVersion();
+        if (request != null && !request.getStatus().canBecome(RequestStatus.APPROVED)) {
+            throw alreadyDecided(request);
+        }
+
+        if (!pet.compareAndSetAdoptionStat(petVersion, true)) {
+            throw new IllegalStateException("Pet " + petId + " was changed by another admin. Please try again.");
+        }
+        if (request != null && !request.compareAndSetStatus(requestVersion, RequestStatus.APPROVED)) {
+            release(pet, petVersion + 1);
+            throw new IllegalStateException("The request by " + customerId + " for pet " + petId
+                    + " was changed by another admin. Please try again.");
+        }
+
+        Runnable requestWrite = request == null ? null : AdoptionRequestStorage.stageStatus(request);
+        Runnable petWrite = PetStorage.stageAdoptionStatus(pet);
+        return StorageWriter.submit("adoption-" + batchSequence.getAndIncrement(), () -> {
+            petWrite.run();
+            if (requestWrite != null) {
+                requestWrite.run();
+            }
+        });
+    }
+
+    /**
+     * Makes a pet available again after its request could not be claimed. If the pet changed since it was
+     * claimed, for example because an admin edited it and saved it while it was marked adopted, the release is
+     * forced and written, so the stored pet does not stay adopted without an approved request.
+     *
+     * @param pet the pet that was claimed
+     * @param claimedVersion the version the claim gave the pet
+     */
+    private static void release(Pet pet, int claimedVersion) {
+        if (!pet.compareAndSetAdoptionStat(claimedVersion, false)) {
+            pet.setAdoptionStat(false);
+            PetStorage.updateAdoptionStatus(pet);
+        }
+    }
+
+    /**
+     * Denies a customer's pending adoption request for a pet.
+     *
+     * @param customerId the ID of the customer who made the request
+     * @param petId the ID of the pet
+     * @return a future that completes when the change is on disk
+     * @throws IllegalArgumentException if the customer has no request for the pet
+     * @throws IllegalStateException if the request has already been decided
+     */
+    public static CompletableFuture<Void> deny(String customerId, String petId) {
+        AdoptionRequest request = AdoptionRequestStorage.findRequest(customerId, petId);
+        if (request == null) {
+            throw new IllegalArgumentException("No adoption request by " + customerId + " for pet " + petId + ".");
+        }
+        int version = request.getVersion();
+        if (!request.getStatus().canBecome(RequestStatus.DENIED)) {
+            throw alreadyDecided(request);
+        }
+        if (!request.compareAndSetStatus(version, RequestStatus.DENIED)) {
+            throw alreadyDecided(request);
+        }
+        AdoptionRequestStorage.stageStatus(request).run();
+        return StorageWriter.completed();
+    }
+
+    private static IllegalStateException alreadyDecided(AdoptionRequest request) {
+        return new IllegalStateException("The request by " + request.getCustomerId() + " for pet "
+                + request.getAnimalID() + " has already been " + request.getStatus().getLabel().toLowerCase() + ".");
+    }
+}
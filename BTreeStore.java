@@ -0,0 +1,708 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code BTreeStore} class is an embedded storage engine that keeps records in a B+tree of fixed-size
+ * pages in a single file. Reading, writing, or removing one record touches only the pages on the path from the
+ * root to its leaf, so the cost grows with the depth of the tree rather than with the number of records.
+ *
+ * <p>Page 0 holds the header (magic, version, page size, root page, page count, record count). Every other
+ * page is a node of {@value #PAGE_SIZE} bytes. Leaves hold the keys in order together with the encoded records
+ * and are linked to their right neighbour for ordered scans; internal nodes hold separator keys and child page
+ * numbers. A record and its key must fit in {@value #MAX_ENTRY_SIZE} bytes.</p>
+ *
+ * <p>Decoded pages are kept in a buffer pool of {@code petmanager.btree.poolPages} pages
+ * (default {@value #DEFAULT_POOL_PAGES}), evicting the least recently used. Pages changed by an operation are
+ * held until the operation completes and then written back together with the header. Removal does not merge
+ * underfull leaves; {@link #saveAll} rebuilds a compact tree.</p>
+ *
+ * <p>Writing pages back is crash-safe. The changed pages and the new header are first written to a journal
+ * file next to the store, with a checksum, and forced to disk; only then are they written in place, the store
+ * is forced, and the journal is emptied. A store opened with a complete journal left behind writes the journaled
+ * pages again, so a split is never left half-written; an incomplete journal means no page was touched yet and
+ * is discarded. {@link #saveAll} builds the new tree in a temporary file and moves it over the store.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Point reads, upserts, and removals by key</li>
+ *   <li>Ordered scans over all records</li>
+ *   <li>Rebuilding the tree from a full list of records</li>
+ *   <li>Caching decoded pages in a bounded buffer pool</li>
+ * </ul>
+ *
+ * @param <V> the record type
+ */
+public class BTreeStore<V> implements RecordStore<V> {
+
+    static final int PAGE_SIZE = 8192;
+    static final int MAX_ENTRY_SIZE = PAGE_SIZE / 4;
+    static final int DEFAULT_POOL_PAGES = 256;
+
+    private static final int MAGIC = 0x50455442; // "PETB"
+    private static final short VERSION = 1;
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int NODE_HEADER_SIZE = 7;
+    private static final int NO_PAGE = -1;
+    private static final int JOURNAL_MAGIC = 0x504A524E; // "PJRN"
+    private static final int JOURNAL_ENTRY_SIZE = 4 + PAGE_SIZE;
+
+    private final File file;
+    private FileChannel channel;
+    private final FileChannel journal;
+    private final Function<V, String> keyOf;
+    private final RecordCodec<V> codec;
+    private final int poolPages;
+    private final Map<Integer, Node> pool;
+    private final Map<Integer, Node> dirty = new HashMap<>();
+    private int root;
+    private int pageCount;
+    private int size;
+    private long pageReads;
+    private long pageWrites;
+    private int[] leafPages;
+    private int[] leafStarts;
+
+    private static final class Node {
+        final int page;
+        final boolean leaf;
+        int next = NO_PAGE;
+        final List<String> keys = new ArrayList<>();
+        final List<byte[]> values = new ArrayList<>();
+        final List<Integer> children = new ArrayList<>();
+
+        Node(int page, boolean leaf) {
+            this.page = page;
+            this.leaf = leaf;
+        }
+
+        int encodedSize() {
+            int total = NODE_HEADER_SIZE + (leaf ? 0 : 4);
+            for (int i = 0; i < keys.size(); i++) {
+                total += entrySize(i);
+            }
+            return total;
+        }
+
+        int entrySize(int i) {
+            return 2 + keys.get(i).getBytes(StandardCharsets.UTF_8).length + (leaf ? 2 + values.get(i).length : 4);
+        }
+    }
+
+    private record Split(String key, int page) {
+    }
+
+    private BTreeStore(File file, FileChannel channel, FileChannel journal, Function<V, String> keyOf,
+                       RecordCodec<V> codec) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.journal = journal;
+        this.keyOf = keyOf;
+        this.codec = codec;
+        this.poolPages = Math.max(8, Integer.getInteger("petmanager.btree.poolPages", DEFAULT_POOL_PAGES));
+        this.pool = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Node> eldest) {
+                return size() > poolPages;
+            }
+        };
+        recover();
+        if (channel.size() < PAGE_SIZE) {
+            initialize();
+        } else {
+            readHeader();
+        }
+    }
+
+    /**
+     * Opens a B+tree store, creating an empty one if the file does not exist.
+     *
+     * @param file the store file
+     * @param keyOf derives the key of a record
+     * @param codec encodes records into leaf entries
+     * @param <V> the record type
+     * @return the opened {@code BTreeStore}
+     * @throws IOException if the file cannot be opened or is not a B+tree store
+     */
+    public static <V> BTreeStore<V> open(File file, Function<V, String> keyOf, RecordCodec<V> codec) throws IOException {
+        FileChannel channel = openChannel(file);
+        FileChannel journal = null;
+        try {
+            journal = openChannel(journalFile(file));
+            return new BTreeStore<>(file, channel, journal, keyOf, codec);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            if (journal != null) {
+                journal.close();
+            }
+            throw e;
+        }
+    }
+
+    private static FileChannel openChannel(File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static File journalFile(File file) {
+        return new File(file.getPath() + ".journal");
+    }
+
+    @Override
+    public synchronized List<V> loadAll() {
+        List<V> values = new ArrayList<>(size);
+        forEach(values::add);
+        return values;
+    }
+
+    /**
+     * Loads the records at the given positions in key order. The first leaf of the range is found in a directory
+     * of leaf positions, which is built from the leaf page headers on first use and rebuilt after the tree
+     * changes, so the leaves before the range are not read. The walk stops at the end of the range.
+     *
+     * @param offset the position of the first record to load
+     * @param count the maximum number of records to load
+     * @return a new list holding the records from {@code offset}
+     */
+    @Override
+    public synchronized List<V> loadRange(int offset, int count) {
+        List<V> values = new ArrayList<>(Math.max(0, Math.min(count, size - offset)));
+        if (offset < 0 || offset >= size || count <= 0) {
+            return values;
+        }
+        if (leafPages == null) {
+            indexLeaves();
+        }
+        int leaf = Arrays.binarySearch(leafStarts, offset);
+        if (leaf < 0) {
+            leaf = -leaf - 2;
+        }
+        while (leaf + 1 < leafStarts.length && leafStarts[leaf + 1] == offset) {
+            leaf++; // Skip empty leaves that start at the same position.
+        }
+        Node node = node(leafPages[leaf]);
+        int skip = offset - leafStarts[leaf];
+        while (values.size() < count) {
+            for (int i = skip; i < node.values.size() && values.size() < count; i++) {
+                values.add(codec.decode(node.values.get(i)));
+            }
+            skip = 0;
+            if (node.next == NO_PAGE) {
+                break;
+            }
+            node = node(node.next);
+        }
+        return values;
+    }
+
+    /**
+     * Discards the current tree and builds a new one holding the given records. The records are inserted in key
+     * order, so every leaf but the last is filled completely. If several records share a key, the last one is kept.
+     * The new tree is built in a temporary file, which replaces the store only once it is complete and on disk,
+     * so a crash during the rebuild leaves the old tree in place.
+     *
+     * @param values the records to store
+     */
+    @Override
+    public synchronized void saveAll(List<V> values) {
+        List<V> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.comparing(keyOf));
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            Files.deleteIfExists(tmp.toPath());
+            Files.deleteIfExists(journalFile(tmp).toPath());
+            try (BTreeStore<V> rebuilt = open(tmp, keyOf, codec)) {
+                for (V value : sorted) {
+                    rebuilt.insert(keyOf.apply(value), encode(value));
+                    if (rebuilt.dirty.size() >= poolPages) {
+                        rebuilt.flush();
+                    }
+                }
+            }
+            channel.close();
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                channel = openChannel(file);
+                pool.clear();
+                dirty.clear();
+                leafPages = null;
+                readHeader();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rebuild " + file.getName(), e);
+        }
+    }
+
+    @Override
+    public synchronized V get(String key) {
+        Node node = leafFor(key);
+        int i = Collections.binarySearch(node.keys, key);
+        return i >= 0 ? codec.decode(node.values.get(i)) : null;
+    }
+
+    /**
+     * Writes a record into its leaf, splitting pages up to the root as needed.
+     *
+     * @param value the record to write
+     * @throws IllegalArgumentException if the encoded record is larger than {@value #MAX_ENTRY_SIZE} bytes
+     */
+    @Override
+    public synchronized void put(V value) {
+        insert(keyOf.apply(value), encode(value));
+        flush();
+    }
+
+    /**
+     * Writes several records and flushes the changed pages once for the whole batch.
+     *
+     * @param values the records to write
+     */
+    @Override
+    public synchronized void putAll(List<V> values) {
+        for (V value : values) {
+            insert(keyOf.apply(value), encode(value));
+            if (dirty.size() >= poolPages) {
+                flush();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public synchronized boolean remove(String key) {
+        Node node = leafFor(key);
+        int i = Collections.binarySearch(node.keys, key);
+        if (i < 0) {
+            return false;
+        }
+        node.keys.remove(i);
+        node.values.remove(i);
+        size--;
+        markDirty(node);
+        flush();
+        return true;
+    }
+
+    /**
+     * Passes every record to the given action in key order, walking the linked leaves.
+     *
+     * @param action the action to run for each record
+     */
+    @Override
+    public synchronized void forEach(Consumer<? super V> action) {
+        Node node = node(root);
+        while (!node.leaf) {
+            node = node(node.children.get(0));
+        }
+        while (true) {
+            for (byte[] value : node.values) {
+                action.accept(codec.decode(value));
+            }
+            if (node.next == NO_PAGE) {
+                return;
+            }
+            node = node(node.next);
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public boolean supportsPointWrites() {
+        return true;
+    }
+
+    @Override
+    public File[] getFiles() {
+        return new File[]{file};
+    }
+
+    /**
+     * Returns a short summary of the tree size and page traffic.
+     *
+     * @return the store statistics as text
+     */
+    public synchronized String getStats() {
+        return file.getName() + ": " + size + " records in " + (pageCount - 1) + " pages, "
+                + pageReads + " page reads, " + pageWrites + " page writes";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+            journal.close();
+        }
+        Files.deleteIfExists(journalFile(file).toPath());
+    }
+
+    private byte[] encode(V value) {
+        byte[] bytes = codec.encode(value);
+        int entrySize = 4 + keyOf.apply(value).getBytes(StandardCharsets.UTF_8).length + bytes.length;
+        if (entrySize > MAX_ENTRY_SIZE) {
+            throw new IllegalArgumentException("Record " + keyOf.apply(value) + " needs " + entrySize
+                    + " bytes; the limit is " + MAX_ENTRY_SIZE);
+        }
+        return bytes;
+    }
+
+    private Node leafFor(String key) {
+        Node node = node(root);
+        while (!node.leaf) {
+            node = node(node.children.get(childIndex(node, key)));
+        }
+        return node;
+    }
+
+    private static int childIndex(Node node, String key) {
+        int i = Collections.binarySearch(node.keys, key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private void insert(String key, byte[] value) {
+        Split split = insert(root, key, value);
+        if (split != null) {
+            Node newRoot = allocate(false);
+            newRoot.children.add(root);
+            newRoot.keys.add(split.key());
+            newRoot.children.add(split.page());
+            root = newRoot.page;
+        }
+    }
+
+    private Split insert(int page, String key, byte[] value) {
+        Node node = node(page);
+        if (node.leaf) {
+            int i = Collections.binarySearch(node.keys, key);
+            if (i >= 0) {
+                node.values.set(i, value);
+            } else {
+                node.keys.add(-i - 1, key);
+                node.values.add(-i - 1, value);
+                size++;
+            }
+            markDirty(node);
+            if (node.encodedSize() <= PAGE_SIZE) {
+                return null;
+            }
+            // An append past the last key only moves the new entry, so ascending inserts leave full leaves behind.
+            return node.next == NO_PAGE && -i - 1 == node.keys.size() - 1 ? split(node, node.keys.size() - 1) : split(node);
+        }
+        int child = childIndex(node, key);
+        Split split = insert(node.children.get(child), key, value);
+        if (split == null) {
+            return null;
+        }
+        node.keys.add(child, split.key());
+        node.children.add(child + 1, split.page());
+        markDirty(node);
+        return node.encodedSize() > PAGE_SIZE ? split(node) : null;
+    }
+
+    /**
+     * Moves the upper half of an overfull node, measured in bytes, to a new right sibling.
+     *
+     * @param node the overfull node
+     * @return the separator key and page of the new sibling
+     */
+    private Split split(Node node) {
+        int half = node.encodedSize() / 2;
+        int used = NODE_HEADER_SIZE;
+        int mid = 0;
+        while (mid < node.keys.size() - 1 && used < half) {
+            used += node.entrySize(mid);
+            mid++;
+        }
+        return split(node, Math.max(mid, 1));
+    }
+
+    /**
+     * Moves the entries of a node from position {@code mid} onwards to a new right sibling.
+     *
+     * @param node the overfull node
+     * @param mid the first entry to move
+     * @return the separator key and page of the new sibling
+     */
+    private Split split(Node node, int mid) {
+        int count = node.keys.size();
+        Node right = allocate(node.leaf);
+        if (node.leaf) {
+            right.keys.addAll(node.keys.subList(mid, count));
+            right.values.addAll(node.values.subList(mid, count));
+            node.keys.subList(mid, count).clear();
+            node.values.subList(mid, count).clear();
+            right.next = node.next;
+            node.next = right.page;
+            return new Split(right.keys.get(0), right.page);
+        }
+        String separator = node.keys.get(mid);
+        right.keys.addAll(node.keys.subList(mid + 1, count));
+        right.children.addAll(node.children.subList(mid + 1, count + 1));
+        node.keys.subList(mid, count).clear();
+        node.children.subList(mid + 1, count + 1).clear();
+        return new Split(separator, right.page);
+    }
+
+    /**
+     * Writes an empty tree into a new store file.
+     */
+    private void initialize() throws IOException {
+        channel.truncate(0);
+        pageCount = 1;
+        size = 0;
+        root = allocate(true).page;
+        flush();
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(24);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt(0) != MAGIC || header.getInt(8) != PAGE_SIZE) {
+            throw new IOException(file.getName() + " is not a B+tree store");
+        }
+        root = header.getInt(12);
+        pageCount = header.getInt(16);
+        size = header.getInt(20);
+    }
+
+    /**
+     * Finishes a write-back that was interrupted by a crash. A complete journal is written to the store again;
+     * an incomplete one is dropped, since the store is only written once its journal is complete.
+     */
+    private void recover() throws IOException {
+        long length = journal.size();
+        if (length == 0) {
+            return;
+        }
+        if (length <= Integer.MAX_VALUE) {
+            ByteBuffer entries = ByteBuffer.allocate((int) length);
+            readFully(journal, entries, 0);
+            entries.flip();
+            if (isComplete(entries)) {
+                int count = entries.getInt(4);
+                for (int i = 0; i < count; i++) {
+                    writeFully(channel, journalPage(entries, i), (long) entries.getInt(8 + i * JOURNAL_ENTRY_SIZE) * PAGE_SIZE);
+                }
+                channel.force(true);
+            }
+        }
+        journal.truncate(0);
+        journal.force(true);
+    }
+
+    private static boolean isComplete(ByteBuffer entries) {
+        if (entries.limit() < 16 || entries.getInt(0) != JOURNAL_MAGIC) {
+            return false;
+        }
+        int count = entries.getInt(4);
+        long expected = 8 + (long) count * JOURNAL_ENTRY_SIZE + 8;
+        if (count < 0 || entries.limit() != expected) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(entries.array(), 0, entries.limit() - 8);
+        return entries.getLong(entries.limit() - 8) == crc.getValue();
+    }
+
+    private static ByteBuffer journalPage(ByteBuffer entries, int i) {
+        int start = 8 + i * JOURNAL_ENTRY_SIZE + 4;
+        return entries.duplicate().limit(start + PAGE_SIZE).position(start);
+    }
+
+    private Node allocate(boolean leaf) {
+        Node node = new Node(pageCount++, leaf);
+        pool.put(node.page, node);
+        markDirty(node);
+        return node;
+    }
+
+    private void markDirty(Node node) {
+        dirty.put(node.page, node);
+        leafPages = null;
+    }
+
+    /**
+     * Records the page and the position of the first record of every leaf, reading only the header of leaves
+     * that are not in memory.
+     */
+    private void indexLeaves() {
+        Node node = node(root);
+        while (!node.leaf) {
+            node = node(node.children.get(0));
+        }
+        int[] pages = new int[16];
+        int[] starts = new int[16];
+        int leaves = 0;
+        int start = 0;
+        ByteBuffer header = ByteBuffer.allocate(NODE_HEADER_SIZE);
+        for (int page = node.page; page != NO_PAGE; ) {
+            int count;
+            int next;
+            Node cached = dirty.containsKey(page) ? dirty.get(page) : pool.get(page);
+            if (cached != null) {
+                count = cached.values.size();
+                next = cached.next;
+            } else {
+                header.clear();
+                try {
+                    readFully(channel, header, (long) page * PAGE_SIZE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read page " + page + " of " + file.getName(), e);
+                }
+                header.flip();
+                header.get();
+                count = header.getShort() & 0xFFFF;
+                next = header.getInt();
+            }
+            if (leaves == pages.length) {
+                pages = Arrays.copyOf(pages, leaves * 2);
+                starts = Arrays.copyOf(starts, leaves * 2);
+            }
+            pages[leaves] = page;
+            starts[leaves++] = start;
+            start += count;
+            page = next;
+        }
+        leafPages = Arrays.copyOf(pages, leaves);
+        leafStarts = Arrays.copyOf(starts, leaves);
+    }
+
+    private Node node(int page) {
+        Node node = dirty.get(page);
+        if (node == null) {
+            node = pool.get(page);
+        }
+        if (node == null) {
+            node = read(page);
+            pool.put(page, node);
+        }
+        return node;
+    }
+
+    private Node read(int page) {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        try {
+            readFully(channel, buffer, (long) page * PAGE_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read page " + page + " of " + file.getName(), e);
+        }
+        pageReads++;
+        buffer.flip();
+        Node node = new Node(page, buffer.get() == LEAF);
+        int count = buffer.getShort() & 0xFFFF;
+        node.next = buffer.getInt();
+        if (!node.leaf) {
+            node.children.add(buffer.getInt());
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] key = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(key);
+            node.keys.add(new String(key, StandardCharsets.UTF_8));
+            if (node.leaf) {
+                byte[] value = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(value);
+                node.values.add(value);
+            } else {
+                node.children.add(buffer.getInt());
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Writes every page changed since the last flush, together with the header. The pages and the header are
+     * journaled and forced to disk before any of them is written in place, and the store is forced before the
+     * journal is emptied.
+     */
+    private void flush() {
+        try {
+            int count = dirty.size() + 1;
+            ByteBuffer entries = ByteBuffer.allocate(8 + count * JOURNAL_ENTRY_SIZE + 8);
+            entries.putInt(JOURNAL_MAGIC).putInt(count);
+            for (Node node : dirty.values()) {
+                entries.putInt(node.page);
+                encode(node, entries.slice(entries.position(), PAGE_SIZE));
+                entries.position(entries.position() + PAGE_SIZE);
+            }
+            entries.putInt(0);
+            entries.slice(entries.position(), PAGE_SIZE).putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putInt(PAGE_SIZE).putInt(root).putInt(pageCount).putInt(size);
+            entries.position(entries.position() + PAGE_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(entries.array(), 0, entries.position());
+            entries.putLong(crc.getValue());
+            entries.flip();
+
+            writeFully(journal, entries.duplicate(), 0);
+            journal.force(true);
+            for (int i = 0; i < count; i++) {
+                writeFully(channel, journalPage(entries, i), (long) entries.getInt(8 + i * JOURNAL_ENTRY_SIZE) * PAGE_SIZE);
+            }
+            pageWrites += count - 1;
+            channel.force(true);
+            journal.truncate(0);
+            dirty.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file.getName(), e);
+        }
+    }
+
+    private static void encode(Node node, ByteBuffer buffer) {
+        buffer.put(node.leaf ? LEAF : INTERNAL);
+        buffer.putShort((short) node.keys.size());
+        buffer.putInt(node.next);
+        if (!node.leaf) {
+            buffer.putInt(node.children.get(0));
+        }
+        for (int i = 0; i < node.keys.size(); i++) {
+            byte[] key = node.keys.get(i).getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) key.length);
+            buffer.put(key);
+            if (node.leaf) {
+                buffer.putShort((short) node.values.get(i).length);
+                buffer.put(node.values.get(i));
+            } else {
+                buffer.putInt(node.children.get(i + 1));
+            }
+        }
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + file.getName());
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
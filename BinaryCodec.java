@@ -0,0 +1,341 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code BinaryCodec} class is a hand-written, versioned binary format for pets, customers, and adoption
+ * requests that replaces Java serialization in the storage files. It writes no class metadata and uses no
+ * reflection, so files are smaller and load without the allocation overhead of {@code ObjectInputStream}.
+ *
+ * <p>A list file starts with the magic number {@code "PMBC"}, a format version, a record type tag, and the
+ * record count. Integers are written as unsigned LEB128 varints and strings as a varint length followed by
+ * UTF-8 bytes. Values that repeat across records, such as breed, gender, and status, go through a per-file
+ * dictionary: the first occurrence is written in full and later ones as a small index. The status of an
+ * adoption request is written as its one-byte {@link RequestStatus} code; version 1 files, which wrote it as a
+ * shared string, still load.</p>
+ *
+ * <p>Files that do not start with the magic number are read with Java serialization, so existing
+ * {@code .dat} files keep loading and are converted the next time they are saved. Starting with
+ * {@code -Dpetmanager.codec=java} keeps writing Java serialization.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Reading and writing whole record lists with a shared string dictionary</li>
+ *   <li>Encoding single records for the B+tree store</li>
+ *   <li>Falling back to Java serialization for data written in the old format</li>
+ * </ul>
+ *
+ * @param <V> the record type
+ */
+public abstract class BinaryCodec<V> implements RecordCodec<V> {
+
+    static final int MAGIC = 0x504D4243; // "PMBC"
+    static final byte VERSION = 2;
+
+    /** The most list slots allocated before any record is read, whatever count the file claims. */
+    static final int MAX_INITIAL_CAPACITY = 4096;
+
+    /** Writes binary files unless {@code -Dpetmanager.codec=java} is set. */
+    static final boolean ENABLED = !"java".equalsIgnoreCase(System.getProperty("petmanager.codec"));
+
+    /** The codec for {@code Pet} records. */
+    public static final BinaryCodec<Pet> PETS = new BinaryCodec<>('P') {
+        @Override
+        void write(Pet pet, Output out) throws IOException {
+            out.writeString(pet.getId());
+            out.writeString(pet.getName());
+            out.writeShared(pet.getBreed());
+            out.writeVarInt(pet.getAge());
+            out.writeShared(pet.getGender());
+            out.writeBoolean(pet.getAdoptionStat());
+        }
+
+        @Override
+        Pet read(Input in) throws IOException {
+            Pet pet = new Pet(in.readString(), in.readString(), in.readShared(), in.readVarInt(), in.readShared());
+            pet.setAdoptionStat(in.readBoolean());
+            return pet;
+        }
+    };
+
+    /** The codec for {@code Customer} records. */
+    public static final BinaryCodec<Customer> CUSTOMERS = new BinaryCodec<>('C') {
+        @Override
+        void write(Customer customer, Output out) throws IOException {
+            out.writeString(customer.getCustomerId());
+            out.writeString(customer.getName());
+            out.writeShared(customer.getGender());
+            out.writeString(customer.getAddress());
+            out.writeString(customer.getEmail());
+            out.writeString(customer.getPhone());
+            out.writeVarInt(customer.getBirthYear());
+            out.writeString(customer.getPassword());
+            out.writeString(customer.getUsername());
+            List<String> adoptedPets = customer.getAdoptedPets();
+            out.writeVarInt(adoptedPets.size());
+            for (String animalId : adoptedPets) {
+                out.writeString(animalId);
+            }
+        }
+
+        @Override
+        Customer read(Input in) throws IOException {
+            Customer customer = new Customer(in.readString(), in.readString(), in.readShared(), in.readString(),
+                    in.readString(), in.readString(), in.readVarInt(), in.readString(), in.readString());
+            for (int i = in.readVarInt(); i > 0; i--) {
+                customer.addAdoptedPet(in.readString());
+            }
+            return customer;
+        }
+    };
+
+    /** The codec for {@code AdoptionRequest} records. */
+    public static final BinaryCodec<AdoptionRequest> REQUESTS = new BinaryCodec<>('R') {
+        @Override
+        void write(AdoptionRequest request, Output out) throws IOException {
+            out.writeShared(request.getCustomerId());
+            out.writeString(request.getAnimalID());
+            out.data.writeByte(request.getStatus().getCode());
+        }
+
+        @Override
+        AdoptionRequest read(Input in) throws IOException {
+            AdoptionRequest request = new AdoptionRequest(in.readShared(), in.readString());
+            try {
+                request.setStatus(in.version >= 2 ? RequestStatus.fromCode(in.data.readByte())
+                        : RequestStatus.fromLabel(in.readShared()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+            return request;
+        }
+    };
+
+    private final byte type;
+
+    private BinaryCodec(char type) {
+        this.type = (byte) type;
+    }
+
+    abstract void write(V value, Output out) throws IOException;
+
+    abstract V read(Input in) throws IOException;
+
+    /**
+     * Writes a list of records with a header and a shared string dictionary.
+     *
+     * @param values the records to write
+     * @param stream the stream to write to, preferably buffered; it is flushed but not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeAll(List<V> values, OutputStream stream) throws IOException {
+        Output out = new Output(stream);
+        out.data.writeInt(MAGIC);
+        out.data.writeByte(VERSION);
+        out.data.writeByte(type);
+        out.writeVarInt(values.size());
+        for (V value : values) {
+            write(value, out);
+        }
+        out.data.flush();
+    }
+
+    /**
+     * Reads a list of records written by {@link #writeAll}, or a list written with Java serialization.
+     *
+     * @param stream the stream to read from; it is not closed
+     * @return a new modifiable list holding the records
+     * @throws IOException if the stream is not a list of this codec's records
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> readAll(InputStream stream) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(stream);
+        buffered.mark(4);
+        DataInputStream data = new DataInputStream(buffered);
+        if (data.readInt() != MAGIC) {
+            buffered.reset();
+            try {
+                return new ArrayList<>((List<V>) new ObjectInputStream(buffered).readObject());
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+        byte version = data.readByte();
+        byte fileType = data.readByte();
+        if (version > VERSION || fileType != type) {
+            throw new IOException("Unsupported record file: version " + version + ", type " + (char) fileType);
+        }
+        Input in = new Input(data);
+        in.version = version;
+        int count = in.readVarInt();
+        if (count < 0) {
+            throw new IOException("Malformed record count " + count);
+        }
+        List<V> values = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+        for (int i = 0; i < count; i++) {
+            values.add(read(in));
+        }
+        return values;
+    }
+
+    /**
+     * Encodes a single record, prefixed by the format version. Shared values are written in full.
+     *
+     * @param value the record
+     * @return the encoded bytes
+     */
+    @Override
+    public byte[] encode(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        Output out = new Output(bytes);
+        out.dictionary = null;
+        try {
+            out.data.writeByte(VERSION);
+            write(value, out);
+            out.data.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a single record written by {@link #encode}, or one written with Java serialization.
+     *
+     * @param bytes the encoded record
+     * @return the record
+     */
+    @Override
+    public V decode(byte[] bytes) {
+        if (bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED) {
+            return RecordCodec.<V>serialization().decode(bytes);
+        }
+        try {
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+            byte version = data.readByte();
+            Input in = new Input(data);
+            in.version = version;
+            in.dictionary = null;
+            return read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes varints, strings, and dictionary references.
+     */
+    static final class Output {
+        final DataOutputStream data;
+        Map<String, Integer> dictionary = new HashMap<>();
+
+        Output(OutputStream stream) {
+            this.data = new DataOutputStream(stream);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                data.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data.writeByte(value);
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            data.writeByte(value ? 1 : 0);
+        }
+
+        /**
+         * Writes a string as its UTF-8 length plus one, then its bytes; a length of zero means {@code null}.
+         */
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            data.write(bytes);
+        }
+
+        /**
+         * Writes a value that is likely to repeat: {@code 0} followed by the string the first time,
+         * and its dictionary index plus one after that.
+         */
+        void writeShared(String value) throws IOException {
+            Integer index = dictionary == null || value == null ? null : dictionary.get(value);
+            if (index != null) {
+                writeVarInt(index + 1);
+                return;
+            }
+            writeVarInt(0);
+            writeString(value);
+            if (dictionary != null && value != null) {
+                dictionary.put(value, dictionary.size());
+            }
+        }
+    }
+
+    /**
+     * Reads what {@link Output} writes.
+     */
+    static final class Input {
+        final DataInputStream data;
+        List<String> dictionary = new ArrayList<>();
+        byte version = VERSION;
+
+        Input(DataInputStream data) {
+            this.data = data;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = data.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        boolean readBoolean() throws IOException {
+            return data.readByte() != 0;
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0) {
+                throw new IOException("Malformed string length " + length);
+            }
+            // Read in chunks, so a corrupt length fails at the end of the data instead of allocating it up front
+            byte[] bytes = data.readNBytes(length - 1);
+            if (bytes.length < length - 1) {
+                throw new EOFException();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String readShared() throws IOException {
+            int index = readVarInt();
+            if (index > 0) {
+                if (dictionary == null || index > dictionary.size()) {
+                    throw new IOException("Unknown dictionary entry " + index);
+                }
+                return dictionary.get(index - 1);
+            }
+            String value = readString();
+            if (dictionary != null && value != null) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * The {@code CodecBenchmark} class compares {@link BinaryCodec} with Java serialization on generated pets,
+ * customers, and adoption requests. For each record type and format it reports the encoded size and the
+ * save and load throughput, taking the best of several in-memory rounds after a warm-up.
+ *
+ * <p>Run with {@code java CodecBenchmark [records]}; the default is {@value #DEFAULT_RECORDS} records per type.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Generating realistic catalog, customer, and request lists</li>
+ *   <li>Measuring encoded size and save/load throughput for both formats</li>
+ * </ul>
+ */
+public class CodecBenchmark {
+
+    static final int DEFAULT_RECORDS = 50_000;
+    private static final int ROUNDS = 7;
+
+    private static final String[] BREEDS = {"Labrador", "Beagle", "Poodle", "Siamese", "Persian", "Bulldog", "Maine Coon"};
+    private static final String[] GENDERS = {"Male", "Female"};
+
+    /**
+     * Runs the benchmark and prints one line per record type and format.
+     *
+     * @param args an optional record count
+     * @throws IOException if encoding fails
+     */
+    public static void main(String[] args) throws IOException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RECORDS;
+        Random random = new Random(42);
+
+        List<Pet> pets = new ArrayList<>(records);
+        List<Customer> customers = new ArrayList<>(records);
+        List<AdoptionRequest> requests = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            Pet pet = new Pet("A" + i, "Pet" + i, BREEDS[random.nextInt(BREEDS.length)],
+                    1 + random.nextInt(15), GENDERS[random.nextInt(2)]);
+            pet.setAdoptionStat(random.nextInt(4) == 0);
+            pets.add(pet);
+            customers.add(new Customer("C" + i, "Customer " + i, GENDERS[random.nextInt(2)], i + " Main Street",
+                    "customer" + i + "@example.com", "555-" + (1000 + i % 9000), 1950 + random.nextInt(55),
+                    "password" + i, "user" + i));
+            AdoptionRequest request = new AdoptionRequest("C" + random.nextInt(records / 10 + 1), "A" + i);
+            request.setStatus(RequestStatus.values()[random.nextInt(RequestStatus.values().length)]);
+            requests.add(request);
+        }
+
+        System.out.printf("%-16s %-8s %12s %14s %14s%n", "records", "format", "bytes", "save rec/s", "load rec/s");
+        report("Pet", pets, BinaryCodec.PETS);
+        report("Customer", customers, BinaryCodec.CUSTOMERS);
+        report("AdoptionRequest", requests, BinaryCodec.REQUESTS);
+    }
+
+    private static <V> void report(String name, List<V> values, BinaryCodec<V> codec) throws IOException {
+        byte[] javaBytes = measure(name, "java", values.size(), () -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(new ArrayList<>(values));
+            }
+            return bytes.toByteArray();
+        }, bytes -> {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                in.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        });
+        byte[] binaryBytes = measure(name, "binary", values.size(), () -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            codec.writeAll(values, bytes);
+            return bytes.toByteArray();
+        }, bytes -> codec.readAll(new ByteArrayInputStream(bytes)));
+        System.out.printf("%-16s %-8s %11.1f%%%n", name, "size", 100.0 * binaryBytes.length / javaBytes.length);
+    }
+
+    private interface Save {
+        byte[] run() throws IOException;
+    }
+
+    private interface Load {
+        void run(byte[] bytes) throws IOException;
+    }
+
+    private static byte[] measure(String name, String format, int count, Save save, Load load) throws IOException {
+        byte[] bytes = null;
+        long bestSave = Long.MAX_VALUE;
+        long bestLoad = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            bytes = save.run();
+            long saved = System.nanoTime();
+            load.run(bytes);
+            long loaded = System.nanoTime();
+            if (round > 1) {
+                bestSave = Math.min(bestSave, saved - start);
+                bestLoad = Math.min(bestLoad, loaded - saved);
+            }
+        }
+        System.out.printf("%-16s %-8s %12d %14.0f %14.0f%n", name, format, bytes.length,
+                count / (bestSave / 1e9), count / (bestLoad / 1e9));
+        return bytes;
+    }
+}
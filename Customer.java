@@ -1,7 +1,9 @@
 import java.io.Serializable;
 import java.time.Year;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import javax.swing.*;
 /**
  * The {@code Customer} class represents a customer in the pet adoption system.
@@ -56,7 +58,17 @@ public class Customer implements Serializable {
      * @return {@code true} if the customer is eligible to adopt, {@code false} otherwise.
      */
     public boolean isEligibleToAdopt() {
-        int currentYear = Year.now().getValue();
+        return isEligibleToAdopt(Year.now().getValue());
+    }
+
+    /**
+     * Checks if the customer is eligible to adopt a pet in the given year.
+     * Use this when checking many customers, so the clock is read once for all of them.
+     *
+     * @param currentYear the current year
+     * @return {@code true} if the customer is eligible to adopt, {@code false} otherwise.
+     */
+    public boolean isEligibleToAdopt(int currentYear) {
         return (currentYear - birthYear) >= 21;
     }
 
@@ -82,49 +94,39 @@ public class Customer implements Serializable {
     }
 
     /**
-     * Cancels an adoption request for a specific pet.
+     * Cancels an adoption request for a specific pet and removes it from storage.
+     * Only a request that is still pending can be canceled. This writes to storage, so it should not be called
+     * on the event dispatch thread.
      *
-     * @param requests the list of existing adoption requests
      * @param animalId the ID of the pet for which the request is to be canceled
      * @return {@code true} if the request was successfully canceled, {@code false} otherwise
      */
-    public boolean cancelAdoptionRequest(List<AdoptionRequest> requests, String animalId) {
+    public boolean cancelAdoptionRequest(String animalId) {
         if (animalId == null || animalId.trim().isEmpty()) {
             return false;
         }
 
-        for (AdoptionRequest req : requests) {
-            if (req.getAnimalID().equals(animalId.trim()) && req.getCustomerId().equals(this.customerId)) {
-                return true;
-            }
+        AdoptionRequest req = AdoptionRequestStorage.findRequest(this.customerId, animalId.trim());
+        if (req == null || req.getStatus().isDecided()) {
+            return false;
         }
 
-        return false;
+        AdoptionRequestStorage.withdrawRequest(req);
+        return true;
     }
 
     /**
-     * Displays the adoption status of the customer.
-     *
-     * @param requests the list of adoption requests
+     * Displays the adoption status of the customer. The requests are looked up in the background and the
+     * status is shown on the event dispatch thread.
      */
-    public void viewAdoptionStatus(List<AdoptionRequest> requests) {
-        boolean found = false;
-        StringBuilder statusMessage = new StringBuilder();
-
-        for (AdoptionRequest req : requests) {
-            if (req.getCustomerId().equals(this.customerId)) {
-                if (!found) {
-                    statusMessage.append(req.toString());  // Add status message for the first matching request
-                    found = true;
-                }
+    public void viewAdoptionStatus() {
+        TaskRunner.run(() -> AdoptionRequestStorage.getRequestsByCustomerId(this.customerId), requests -> {
+            if (!requests.isEmpty()) {
+                JOptionPane.showMessageDialog(null, requests.get(0).toString());  // Status of the first matching request
+            } else {
+                JOptionPane.showMessageDialog(null, "No adoption status found for this customer.");
             }
-        }
-
-        if (found) {
-            JOptionPane.showMessageDialog(null, statusMessage.toString());
-        } else {
-            JOptionPane.showMessageDialog(null, "No adoption status found for this customer.");
-        }
+        });
     }
 
     /**
@@ -141,38 +143,54 @@ public class Customer implements Serializable {
     }
 
     /**
-     * Displays a list of pets adopted by the customer.
+     * Displays a list of pets adopted by the customer. The pets are looked up in the background and the list is
+     * shown on the event dispatch thread.
      */
     public void viewAdoptedPets() {
-        adoptedPets.clear();
-        List<AdoptionRequest> requests = AdoptionRequestStorage.loadRequests();
-        List<Pet> allAnimals = PetStorage.loadAnimals();
+        TaskRunner.run(this::findAdoptedPets, pets -> {
+            adoptedPets.clear();
+            StringBuilder sb = new StringBuilder("Adopted Pets for " + customerId + ":\n\n");
+            for (Pet pet : pets) {
+                adoptedPets.add(pet.getId());
+                sb.append("ID: ").append(pet.getId()).append("\n");
+                sb.append("Name: ").append(pet.getName()).append("\n");
+                sb.append("Breed: ").append(pet.getBreed()).append("\n");
+                sb.append("Age: ").append(pet.getAge()).append("\n");
+                sb.append("Gender: ").append(pet.getGender()).append("\n");
+                sb.append("-----------------------\n");
+            }
 
-        StringBuilder sb = new StringBuilder("Adopted Pets for " + customerId + ":\n\n");
-        boolean hasAdopted = false;
+            if (pets.isEmpty()) {
+                sb.append("No pets adopted yet.");
+            }
+
+            showMessage(sb.toString(), "Adopted Pets");
+        });
+    }
 
-        for (AdoptionRequest request : requests) {
-            if (request.getCustomerId().equals(customerId) && request.getStatus().equals("Approved")) {
-                for (Pet pet : allAnimals) {
-                    if (pet.getId().equals(request.getAnimalID())) {
-                        adoptedPets.add(pet.getId());
-                        sb.append("ID: ").append(pet.getId()).append("\n");
-                        sb.append("Name: ").append(pet.getName()).append("\n");
-                        sb.append("Breed: ").append(pet.getBreed()).append("\n");
-                        sb.append("Age: ").append(pet.getAge()).append("\n");
-                        sb.append("Gender: ").append(pet.getGender()).append("\n");
-                        sb.append("-----------------------\n");
-                        hasAdopted = true;
-                    }
-                }
+    /**
+     * Finds the pets the customer adopted through approved requests. The customer's requests and their pets
+     * are looked up by ID in the request and pet stores, without loading every request and pet. This reads
+     * storage, so it should not be called on the event dispatch thread.
+     *
+     * @return the adopted pets, in the order of the customer's requests
+     */
+    public List<Pet> findAdoptedPets() {
+        List<String> petIds = new ArrayList<>();
+        for (AdoptionRequest request : AdoptionRequestStorage.getRequestsByCustomerId(customerId)) {
+            if (request.getStatus() == RequestStatus.APPROVED) {
+                petIds.add(request.getAnimalID());
             }
         }
-
-        if (!hasAdopted) {
-            sb.append("No pets adopted yet.");
+        Map<String, Pet> found = PetStorage.findAnimals(petIds);
+        List<Pet> pets = new ArrayList<>();
+        for (String petId : petIds) {
+            Pet pet = found.get(petId);
+            if (pet != null) {
+                pets.add(pet);
+            }
         }
-
-        showMessage(sb.toString(), "Adopted Pets");
+        return pets;
     }
 
     private void showMessage(String message, String title) {
@@ -274,4 +292,13 @@ public class Customer implements Serializable {
     public int getBirthYear() {
         return birthYear;
     }
+
+    /**
+     * Gets the IDs of the pets the customer has adopted.
+     *
+     * @return a read-only view of the adopted pet IDs
+     */
+    public List<String> getAdoptedPets() {
+        return Collections.unmodifiableList(adoptedPets);
+    }
 }
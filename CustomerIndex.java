@@ -0,0 +1,116 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code CustomerIndex} class provides constant-time customer lookups for {@code CustomerStorage}.
+ * It keeps a primary index on the customer ID and unique secondary indexes on the username and the email address.
+ *
+ * <p>Usernames are matched exactly, as they are at login. Email addresses are matched without regard to case.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Building the indexes from a list of customers</li>
+ *   <li>Looking up a customer by ID, username, or email</li>
+ *   <li>Adding a customer while rejecting duplicate IDs, usernames, and emails</li>
+ * </ul>
+ */
+public class CustomerIndex {
+
+    private final Map<String, Customer> byId;
+    private final Map<String, Customer> byUsername;
+    private final Map<String, Customer> byEmail;
+
+    /**
+     * Constructs a new {@code CustomerIndex} over the given customers.
+     * If existing records share a username or email, the first one wins.
+     *
+     * @param customers the customers to index
+     */
+    public CustomerIndex(List<Customer> customers) {
+        int capacity = Math.max(16, customers.size() * 2);
+        byId = new HashMap<>(capacity);
+        byUsername = new HashMap<>(capacity);
+        byEmail = new HashMap<>(capacity);
+        for (Customer customer : customers) {
+            byId.putIfAbsent(customer.getCustomerId(), customer);
+            if (customer.getUsername() != null) {
+                byUsername.putIfAbsent(customer.getUsername(), customer);
+            }
+            if (hasEmail(customer)) {
+                byEmail.putIfAbsent(normalizeEmail(customer.getEmail()), customer);
+            }
+        }
+    }
+
+    /**
+     * Gets the customer with the given ID.
+     *
+     * @param customerId the customer ID
+     * @return the {@code Customer}, or {@code null} if there is none
+     */
+    public Customer getById(String customerId) {
+        return byId.get(customerId);
+    }
+
+    /**
+     * Gets the customer with the given username.
+     *
+     * @param username the username
+     * @return the {@code Customer}, or {@code null} if there is none
+     */
+    public Customer getByUsername(String username) {
+        return byUsername.get(username);
+    }
+
+    /**
+     * Gets the customer with the given email address.
+     *
+     * @param email the email address
+     * @return the {@code Customer}, or {@code null} if there is none
+     */
+    public Customer getByEmail(String email) {
+        return email == null || email.isBlank() ? null : byEmail.get(normalizeEmail(email));
+    }
+
+    /**
+     * Checks whether the customer can be added without breaking the uniqueness of any index.
+     *
+     * @param customer the customer to check
+     * @return {@code true} if the ID, username, and email are all unused, {@code false} otherwise
+     */
+    public boolean canAdd(Customer customer) {
+        return !byId.containsKey(customer.getCustomerId())
+                && (customer.getUsername() == null || !byUsername.containsKey(customer.getUsername()))
+                && getByEmail(customer.getEmail()) == null;
+    }
+
+    /**
+     * Adds a customer to all indexes.
+     *
+     * @param customer the customer to add
+     * @throws IllegalArgumentException if the ID, username, or email is already in use
+     */
+    public void add(Customer customer) {
+        if (!canAdd(customer)) {
+            throw new IllegalArgumentException("Customer " + customer.getCustomerId()
+                    + " duplicates an existing ID, username, or email");
+        }
+        byId.put(customer.getCustomerId(), customer);
+        if (customer.getUsername() != null) {
+            byUsername.put(customer.getUsername(), customer);
+        }
+        if (hasEmail(customer)) {
+            byEmail.put(normalizeEmail(customer.getEmail()), customer);
+        }
+    }
+
+    private static boolean hasEmail(Customer customer) {
+        return customer.getEmail() != null && !customer.getEmail().isBlank();
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
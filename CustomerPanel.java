@@ -1,29 +1,40 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import java.awt.*;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 /**
  * The {@code CustomerPanel} class represents the graphical user interface (GUI) for the customer dashboard
  * in the pet adoption system. It allows customers to view available pets, request adoptions, cancel adoption requests,
  * view adoption statuses, and sort/filter pets based on specific criteria.
  * 
- * <p>This class extends {@code JPanel} and uses Swing components to create an interactive interface.</p>
+ * <p>This class extends {@code JPanel} and uses Swing components to create an interactive interface.
+ * A dashboard is built for each login and removed from its parent when the customer logs out. While it is shown,
+ * pets added, changed, or removed by the admin are applied to the table as they are published to
+ * {@link StorageEvents}.</p>
  * 
  * <p>Key functionalities include:</p>
  * <ul>
  *   <li>Displaying a table of available pets</li>
  *   <li>Submitting and canceling adoption requests</li>
- *   <li>Sorting and filtering pets by age, breed, or gender</li>
+ *   <li>Sorting and filtering pets by age, breed, and gender at once</li>
+ *   <li>Searching pets by name or breed as the customer types</li>
  *   <li>Viewing adopted pets and adoption statuses</li>
  * </ul>
  */
 public class CustomerPanel extends JPanel {
 
+    private static final int SEARCH_LIMIT = 200;
+
+    private PetQuery query = PetQuery.all();
+    private PagedPetTableModel pagedModel;
+    private final StorageEvents.Listener storageListener;
+
     /**
      * Constructs a new {@code CustomerPanel} with the specified layout, parent panel, customer, list of pets, and adoption requests.
      *
@@ -39,27 +50,40 @@ public class CustomerPanel extends JPanel {
 
         JLabel title = new JLabel("Customer Dashboard", SwingConstants.CENTER);
 
-        String[] columns = {"ID", "Name", "Breed", "Gender", "Age"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
+        // Large catalogs are shown a page at a time, once a background check finds the catalog large enough;
+        // filtered, searched, and sorted lists are shown in full
+        PetTableModel.Column[] columns = {PetTableModel.Column.ID, PetTableModel.Column.NAME,
+                PetTableModel.Column.BREED, PetTableModel.Column.GENDER, PetTableModel.Column.AGE};
+        PetTableModel model = new PetTableModel(new ArrayList<>(animals), columns);
         JTable table = new JTable(model);
         JScrollPane scrollPane = new JScrollPane(table);
 
-        // Wrap animals list in a one-element array to make it final or effectively final
-        final List<Pet> animalsRef = animals;
-
+        Consumer<List<Pet>> showPets = pets -> {
+            model.setPets(pets);
+            if (table.getModel() != model) {
+                table.setModel(model);
+            }
+        };
+        // Shows the pets selected by the current filters and order, as a view over the stored pets
         Runnable refreshTable = () -> {
-            model.setRowCount(0);
-            for (Pet pet : animalsRef) {
-                model.addRow(new Object[]{
-                        pet.getId(),
-                        pet.getName(),
-                        pet.getBreed(),
-                        pet.getGender(),
-                        pet.getAge()
+            PetQuery shown = query;
+            if (shown.isRestricted()) {
+                TaskRunner.run(() -> PetStorage.viewAnimals(shown), view -> {
+                    if (view.getQuery().equals(query)) {
+                        showPets.accept(view);
+                    }
+                });
+            } else if (pagedModel != null) {
+                pagedModel.refresh();
+                table.setModel(pagedModel);
+            } else {
+                TaskRunner.run(PetStorage::loadAnimals, loaded -> {
+                    if (!query.isRestricted()) {
+                        showPets.accept(loaded);
+                    }
                 });
             }
         };
-        refreshTable.run();
 
         // Side buttons
         JButton requestAdoptionButton = new JButton("Request Adoption");
@@ -91,30 +115,105 @@ public class CustomerPanel extends JPanel {
         sortPanel.add(sortByGenderButton);
         sortPanel.add(removeFiltersButton); // Add the Remove Filters button to the panel
 
+        // Type-ahead search over pet names and breeds
+        JTextField searchField = new JTextField(25);
+        searchField.setToolTipText("Search pets by name or breed");
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        searchPanel.add(new JLabel("Search:"));
+        searchPanel.add(searchField);
+
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.add(title, BorderLayout.NORTH);
+        northPanel.add(searchPanel, BorderLayout.SOUTH);
+
         // Add components
-        add(title, BorderLayout.NORTH);
+        add(northPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         add(sideButtonPanel, BorderLayout.EAST);
         add(sortPanel, BorderLayout.SOUTH);
 
+        // Only the search for the latest text is shown; earlier ones still running are cancelled
+        TaskRunner.Task<?>[] searching = {null};
+        Runnable search = () -> {
+            if (searching[0] != null) {
+                searching[0].cancel();
+            }
+            String text = searchField.getText();
+            if (text.isBlank()) {
+                searching[0] = null;
+                refreshTable.run();
+            } else {
+                searching[0] = TaskRunner.run(() -> PetStorage.searchAnimals(text, SEARCH_LIMIT), showPets);
+            }
+        };
+
+        // Search action, run on every keystroke
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                search.run();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                search.run();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                search.run();
+            }
+        });
+
+        // Pet changes made by the admin reach the table: the catalog is updated row by row, and a search or a
+        // filtered list is run again, once per batch
+        storageListener = changes -> {
+            if (!StorageEvents.hasPetChanges(changes)) {
+                return;
+            }
+            if (!searchField.getText().isBlank()) {
+                search.run();
+            } else if (query.isRestricted()) {
+                refreshTable.run();
+            } else if (table.getModel() == pagedModel) {
+                pagedModel.applyChanges(changes);
+            } else {
+                model.applyChanges(changes);
+            }
+        };
+
+        TaskRunner.run(PagedPetTableModel::isPreferred, preferred -> {
+            if (preferred) {
+                pagedModel = new PagedPetTableModel(columns);
+                if (!query.isRestricted() && searchField.getText().isBlank()) {
+                    table.setModel(pagedModel);
+                }
+            }
+        });
+
         // Button actions
 
         requestAdoptionButton.addActionListener(e -> {
             String animalId = JOptionPane.showInputDialog("Enter Animal ID for Adoption:");
-            Pet selectedPet = findPetById(animalsRef, animalId);
+            if (animalId == null) {
+                return;
+            }
 
-            if (selectedPet == null) {
-                JOptionPane.showMessageDialog(this, "No pet found with that ID.");
-            } else if (selectedPet.getAdoptionStat()) {
-                JOptionPane.showMessageDialog(this, "This pet is already adopted.");
-            } else {
-                AdoptionRequest req = customer.requestAdoption(animalId);
-                if (req != null) {
-                    requests.add(req);
-                    AdoptionRequestStorage.saveRequests(requests);
-                    JOptionPane.showMessageDialog(this, "Adoption request submitted.");
+            TaskRunner.run(() -> findPetById(animalId), selectedPet -> {
+                if (selectedPet == null) {
+                    JOptionPane.showMessageDialog(this, "No pet found with that ID.");
+                } else if (selectedPet.getAdoptionStat()) {
+                    JOptionPane.showMessageDialog(this, "This pet is already adopted.");
+                } else {
+                    AdoptionRequest req = customer.requestAdoption(selectedPet.getId());
+                    if (req != null) {
+                        requests.removeIf(r -> r.getCustomerId().equals(req.getCustomerId()) && r.getAnimalID().equals(req.getAnimalID()));
+                        requests.add(req);
+                        TaskRunner.execute(() -> AdoptionRequestStorage.addRequest(req),
+                                () -> JOptionPane.showMessageDialog(this, "Adoption request submitted."));
+                    }
                 }
-            }
+            });
         });
 
         cancelAdoptionButton.addActionListener(e -> {
@@ -124,119 +223,87 @@ public class CustomerPanel extends JPanel {
                 JOptionPane.showMessageDialog(this, "No ID entered.");
                 return;
             }
-        
-            Pet selectedPet = findPetById(animalsRef, animalId);
-        
-            if (selectedPet == null) {
-                JOptionPane.showMessageDialog(this, "No pet found with that ID.");
-            } else {
-                boolean success = customer.cancelAdoptionRequest(requests, animalId.trim());
-                if (success) {
-                    requests.removeIf(req -> req.getAnimalID().equals(animalId.trim()) && req.getCustomerId().equals(customer.getCustomerId()));
+
+            // Null when there is no such pet; otherwise whether a pending request was cancelled
+            TaskRunner.run(() -> {
+                Pet selectedPet = findPetById(animalId.trim());
+                return selectedPet == null ? null : customer.cancelAdoptionRequest(selectedPet.getId());
+            }, success -> {
+                if (success == null) {
+                    JOptionPane.showMessageDialog(this, "No pet found with that ID.");
+                } else if (success) {
+                    requests.removeIf(req -> req.getAnimalID().equalsIgnoreCase(animalId.trim()) && req.getCustomerId().equals(customer.getCustomerId()));
                     JOptionPane.showMessageDialog(this, "Adoption request cancelled.");
                 } else {
-                    JOptionPane.showMessageDialog(this, "No matching adoption request found.");
+                    JOptionPane.showMessageDialog(this, "No pending adoption request found for that pet.");
                 }
-            }
+            });
         });
         
-        viewAdoptionStatusButton.addActionListener(e -> customer.viewAdoptionStatus(requests));
+        viewAdoptionStatusButton.addActionListener(e -> customer.viewAdoptionStatus());
         viewAdoptedPetsButton.addActionListener(e -> customer.viewAdoptedPets());
-        logoutButton.addActionListener(e -> layout.show(parent, "Main Menu"));
+        // The dashboard belongs to this login only, so it is released when the customer logs out
+        logoutButton.addActionListener(e -> {
+            layout.show(parent, "Main Menu");
+            parent.remove(this);
+        });
 
         // Sort actions
+        // Sort and filter actions add to the current filters
         sortByAgeButton.addActionListener(e -> {
-            Collections.sort(animalsRef, Comparator.comparingInt(Pet::getAge));
+            query = query.sortedBy(PetQuery.Order.AGE);
             refreshTable.run();
         });
 
         sortByBreedButton.addActionListener(e -> {
             String breed = JOptionPane.showInputDialog("Enter Breed to filter by:");
-            List<Pet> filteredPets = filterPetsByBreed(animalsRef, breed);
-            refreshTableWithFilteredPets(filteredPets, model);
+            if (breed != null) {
+                query = query.withBreed(breed);
+                refreshTable.run();
+            }
         });
 
         sortByGenderButton.addActionListener(e -> {
             String gender = JOptionPane.showInputDialog("Enter Gender to filter by (Male/Female):");
-            List<Pet> filteredPets = filterPetsByGender(animalsRef, gender);
-            refreshTableWithFilteredPets(filteredPets, model);
+            if (gender != null) {
+                query = query.withGender(gender);
+                refreshTable.run();
+            }
         });
 
         // Remove all filters action
         removeFiltersButton.addActionListener(e -> {
+            query = PetQuery.all();
+            searchField.setText("");
             refreshTable.run(); // Refresh the table to show all pets
         });
     }
 
-    /**
-     * Finds a pet by its ID from the given list of pets.
-     *
-     * @param animals the list of pets to search
-     * @param id the ID of the pet to find
-     * @return the {@code Pet} object with the specified ID, or {@code null} if no match is found
-     */
-    private Pet findPetById(List<Pet> animals, String id) {
-        for (Pet pet : animals) {
-            if (pet.getId().equalsIgnoreCase(id)) {
-                return pet;
-            }
-        }
-        return null;
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        StorageEvents.addListener(storageListener);
     }
 
-    /**
-     * Filters the list of pets by breed.
-     *
-     * @param animals the list of pets to filter
-     * @param breed the breed to filter by
-     * @return a list of pets that match the specified breed
-     */
-    private List<Pet> filterPetsByBreed(List<Pet> animals, String breed) {
-        if (breed == null || breed.isEmpty()) return animals;
-        List<Pet> filteredPets = new ArrayList<>();
-        for (Pet pet : animals) {
-            if (pet.getBreed().equalsIgnoreCase(breed)) {
-                filteredPets.add(pet);
-            }
-        }
-        return filteredPets;
+    @Override
+    public void removeNotify() {
+        StorageEvents.removeListener(storageListener);
+        super.removeNotify();
     }
 
     /**
-     * Filters the list of pets by gender.
+     * Finds a stored pet by its ID using the pet storage's ID index. Since pet IDs are upper case, an ID typed
+     * in lower case is also found.
      *
-     * @param animals the list of pets to filter
-     * @param gender the gender to filter by (e.g., "Male" or "Female")
-     * @return a list of pets that match the specified gender
-     */
-    private List<Pet> filterPetsByGender(List<Pet> animals, String gender) {
-        if (gender == null || gender.isEmpty()) return animals;
-        List<Pet> filteredPets = new ArrayList<>();
-        for (Pet pet : animals) {
-            if (pet.getGender().equalsIgnoreCase(gender)) {
-                filteredPets.add(pet);
-            }
-        }
-        return filteredPets;
-    }
-
-    /**
-     * Refreshes the table to display the given list of pets.
-     *
-     * @param pets the list of pets to display
-     * @param model the {@code DefaultTableModel} used by the table
+     * @param id the ID of the pet to find
+     * @return the {@code Pet} object with the specified ID, or {@code null} if no match is found
      */
-    private void refreshTableWithFilteredPets(List<Pet> pets, DefaultTableModel model) {
-        model.setRowCount(0);
-        for (Pet pet : pets) {
-            model.addRow(new Object[]{
-                    pet.getId(),
-                    pet.getName(),
-                    pet.getBreed(),
-                    pet.getGender(),
-                    pet.getAge()
-            });
+    private static Pet findPetById(String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
         }
+        Pet pet = PetStorage.findAnimal(id);
+        return pet != null ? pet : PetStorage.findAnimal(id.toUpperCase(Locale.ROOT));
     }
 }
 
@@ -1,23 +1,39 @@
 import java.io.*;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The {@code CustomerStorage} class is responsible for handling the storage and retrieval of customer data
  * in the pet adoption system. It provides methods to save, load, and manage customer records using file-based storage.
  * 
- * <p>This class uses serialization to persist customer data to a file and retrieve it when needed.</p>
+ * <p>This class uses serialization to persist customer data to a file and retrieve it when needed.
+ * Loaded customers are kept in the {@link StorageCache} until the file changes, together with a
+ * {@link CustomerIndex} that answers lookups by ID, username, and email in constant time.
+ * Saves update the cache at once and are written to the file by the {@link StorageWriter} thread.</p>
+ *
+ * <p>Records are kept in the {@link RecordStore} chosen by {@link RecordStores}. When the store supports point
+ * writes, a new customer is written on its own instead of rewriting every customer. Each customer added is
+ * published to {@link StorageEvents}.</p>
  * 
  * <p>Key functionalities include:</p>
  * <ul>
  *   <li>Saving customer data to a file</li>
  *   <li>Loading customer data from a file</li>
  *   <li>Adding new customers to the storage</li>
- *   <li>Retrieving a customer by their unique ID</li>
+ *   <li>Retrieving a customer by their unique ID, username, or email</li>
+ *   <li>Retrieving many customers by ID in one lookup</li>
+ *   <li>Assigning new customer IDs from an {@link IdSequence}</li>
  * </ul>
  */
 public class CustomerStorage {
     private static final String FILE_NAME = "customers.dat";
+    private static final String CACHE_KEY = "customers";
+    private static final String ID_PREFIX = "CUST";
+
+    private static final RecordStore<Customer> store = RecordStores.open("customers", Customer::getCustomerId, BinaryCodec.CUSTOMERS);
 
     /**
      * Loads the list of customers from the file.
@@ -25,42 +41,81 @@ public class CustomerStorage {
      *
      * @return a {@code List<Customer>} containing all customers loaded from the file
      */
-    @SuppressWarnings("unchecked")
     public static List<Customer> loadCustomers() {
-        List<Customer> customers = new ArrayList<>();
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-            customers = (List<Customer>) ois.readObject(); // Explicit casting to ArrayList<Customer>
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace(); // If file is not found or file content is incorrect, it will print error
-        }
-        return customers;
+        return StorageCache.get(CACHE_KEY, store::loadAll, store.getFiles());
     }
 
     /**
      * Saves the list of customers to the file.
+     * The list becomes the cached customer list immediately and is written in the background.
      *
      * @param customers the {@code List<Customer>} to be saved
+     * @return a future that completes when the file has been written
      */
-    public static void saveCustomers(List<Customer> customers) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-            oos.writeObject(customers);
-        } catch (IOException e) {
-            e.printStackTrace();
+    public static synchronized CompletableFuture<Void> saveCustomers(List<Customer> customers) {
+        if (store.supportsPointWrites()) {
+            store.saveAll(customers);
+            StorageCache.put(CACHE_KEY, customers, store.getFiles());
+            StorageCache.attach(CACHE_KEY, new CustomerIndex(customers));
+            return StorageWriter.completed();
         }
+        StorageCache.put(CACHE_KEY, customers, store.getFiles());
+        StorageCache.attach(CACHE_KEY, new CustomerIndex(customers));
+        StorageCache.markDirty(CACHE_KEY);
+        return StorageWriter.submit(FILE_NAME, CustomerStorage::writeFile);
+    }
+
+    /**
+     * Writes the cached customer list to the file. Runs on the {@link StorageWriter} thread.
+     */
+    private static void writeFile() {
+        List<Customer> customers = StorageCache.takeForWrite(CACHE_KEY);
+        if (customers == null) {
+            return;
+        }
+        store.saveAll(customers);
+        StorageCache.markWritten(CACHE_KEY);
+        StorageCache.restamp(CACHE_KEY, store.getFiles());
     }
 
     /**
      * Adds a new customer to the storage.
-     * The customer is added to the existing list of customers, and the updated list is saved to the file.
+     * The customer is added to the cached list and to the index over it, and the list is written to the file,
+     * either as a single record or, in serialized storage, by a rewrite queued on the {@link StorageWriter}.
+     * A customer whose ID, username, or email is already registered is not added.
      *
      * @param customer the {@code Customer} object to be added
+     * @return {@code true} if the customer was added, {@code false} if it duplicates an existing customer
+     */
+    public static synchronized boolean addCustomer(Customer customer) {
+        CustomerIndex index = index();
+        if (!index.canAdd(customer)) {
+            return false;
+        }
+        if (store.supportsPointWrites()) {
+            store.put(customer);
+        }
+        StorageCache.update(CACHE_KEY, (List<Customer> customers) -> customers.add(customer), store.getFiles());
+        index.add(customer);
+        StorageCache.attach(CACHE_KEY, index);
+        if (!store.supportsPointWrites()) {
+            StorageCache.markDirty(CACHE_KEY);
+            StorageWriter.submit(FILE_NAME, CustomerStorage::writeFile);
+        }
+        StorageEvents.publish(StorageEvents.Type.CUSTOMER_ADDED, customer);
+        return true;
+    }
+
+    /**
+     * Assigns a new customer ID, such as {@code "CUST012"}. Every call returns a different ID, also across
+     * restarts, without looking through the stored customers.
+     *
+     * @return an unused customer ID
      */
-    public static void addCustomer(Customer customer) {
-        List<Customer> customers = loadCustomers();
-        customers.add(customer);
-        saveCustomers(customers);
+    public static String nextCustomerId() {
+        return IdSequence.forPrefix(ID_PREFIX, 3, () -> IdSequence.highestNumber(
+                loadCustomers().stream().map(Customer::getCustomerId)::iterator, ID_PREFIX)).nextId();
     }
-  
 
     /**
      * Retrieves a customer by their unique ID.
@@ -68,13 +123,60 @@ public class CustomerStorage {
      * @param customerId the unique ID of the customer to retrieve
      * @return the {@code Customer} object with the specified ID, or {@code null} if no customer is found
      */
-    public static Customer getCustomerById(String customerId) {
-        List<Customer> customers = loadCustomers();
-        for (Customer customer : customers) {
-            if (customer.getCustomerId().equals(customerId)) {
-                return customer;
+    public static synchronized Customer getCustomerById(String customerId) {
+        return index().getById(customerId);
+    }
+
+    /**
+     * Retrieves the customers with the given IDs in one lookup.
+     *
+     * @param customerIds the IDs of the customers to retrieve
+     * @return a map from ID to {@code Customer} holding only the IDs that were found
+     */
+    public static synchronized Map<String, Customer> findCustomers(Collection<String> customerIds) {
+        CustomerIndex index = index();
+        Map<String, Customer> found = new HashMap<>(Math.max(16, customerIds.size() * 4 / 3 + 1));
+        for (String customerId : customerIds) {
+            Customer customer = index.getById(customerId);
+            if (customer != null) {
+                found.put(customerId, customer);
             }
         }
-        return null; // Return null if no customer found with the given ID
+        return found;
+    }
+
+    /**
+     * Retrieves a customer by their username.
+     *
+     * @param username the username of the customer to retrieve
+     * @return the {@code Customer} object with the specified username, or {@code null} if no customer is found
+     */
+    public static synchronized Customer getCustomerByUsername(String username) {
+        return index().getByUsername(username);
+    }
+
+    /**
+     * Retrieves a customer by their email address, ignoring case.
+     *
+     * @param email the email address of the customer to retrieve
+     * @return the {@code Customer} object with the specified email, or {@code null} if no customer is found
+     */
+    public static synchronized Customer getCustomerByEmail(String email) {
+        return index().getByEmail(email);
+    }
+
+    /**
+     * Gets the index over the current customer list, building it if the list was reloaded since it was last built.
+     *
+     * @return the {@code CustomerIndex} for the cached customers
+     */
+    private static synchronized CustomerIndex index() {
+        List<Customer> customers = StorageCache.view(CACHE_KEY, store::loadAll, store.getFiles());
+        CustomerIndex index = (CustomerIndex) StorageCache.getAttachment(CACHE_KEY);
+        if (index == null) {
+            index = new CustomerIndex(customers);
+            StorageCache.attach(CACHE_KEY, index);
+        }
+        return index;
     }
 }
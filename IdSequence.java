@@ -0,0 +1,211 @@
+import java.io.*;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@code IdSequence} class hands out unique, increasing ID numbers for one kind of record, such as customers
+ * or the pets of one species, without looking at the records already stored.
+ *
+ * <p>Each sequence is named by the prefix of the IDs it numbers, for example {@code "CUST"} or {@code "D_"}. The
+ * highest number reserved for every sequence is kept in the small sidecar file {@value #FILE_NAME}. Numbers are
+ * reserved in blocks of {@code petmanager.idBlockSize} (default {@value #DEFAULT_BLOCK_SIZE}): within a block a
+ * number is taken with a single atomic increment, and only the first number past the block rewrites the sidecar.
+ * When the application starts again it continues after the last reserved block, so the numbers left over from a
+ * block are skipped but never handed out twice.</p>
+ *
+ * <p>A sequence that is not in the sidecar yet, such as after upgrading from a version without it, is started
+ * after the highest number given by its seed. The seed usually reads every stored record, so it is asked
+ * outside any lock and only until the sequence exists; callers take IDs in a background task, never on the
+ * event dispatch thread.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Getting the sequence for an ID prefix</li>
+ *   <li>Taking the next number or the next formatted ID</li>
+ *   <li>Reserving blocks of numbers in the sidecar file</li>
+ * </ul>
+ */
+public class IdSequence {
+
+    static final String FILE_NAME = "id_sequences.dat";
+    static final int DEFAULT_BLOCK_SIZE = 32;
+
+    private static final int MAGIC = 0x50534551; // "PSEQ"
+    private static final int BLOCK_SIZE = Math.max(1, Integer.getInteger("petmanager.idBlockSize", DEFAULT_BLOCK_SIZE));
+
+    private static final Map<String, IdSequence> sequences = new ConcurrentHashMap<>();
+    private static Map<String, Long> reserved;
+
+    private final String prefix;
+    private final int width;
+    private final AtomicLong next;
+    private volatile long limit;
+
+    private IdSequence(String prefix, int width, long last) {
+        this.prefix = prefix;
+        this.width = width;
+        this.next = new AtomicLong(last + 1);
+        this.limit = last;
+    }
+
+    /**
+     * Gets the sequence for the given ID prefix, starting it from the sidecar file or, if the sidecar has no
+     * entry for the prefix, after the highest number returned by the seed.
+     *
+     * @param prefix the text every ID of the sequence starts with, such as {@code "CUST"}
+     * @param width the minimum number of digits in a formatted ID; shorter numbers are padded with zeros
+     * @param seed returns the highest number already used with the prefix; only called while the sequence does
+     *             not exist yet, and possibly by several threads at once that start it together
+     * @return the {@code IdSequence} for the prefix
+     * @throws UncheckedIOException if the sidecar file exists but cannot be read
+     */
+    public static IdSequence forPrefix(String prefix, int width, LongSupplier seed) {
+        IdSequence sequence = sequences.get(prefix);
+        if (sequence != null) {
+            return sequence;
+        }
+        Long last;
+        synchronized (IdSequence.class) {
+            last = reserved().get(prefix);
+        }
+        // The seed runs outside the map and the lock, so a slow seed holds up neither other prefixes nor
+        // blocks being reserved; if another thread started the sequence meanwhile, its sequence is kept
+        IdSequence started = new IdSequence(prefix, width, last != null ? last : Math.max(0, seed.getAsLong()));
+        sequence = sequences.putIfAbsent(prefix, started);
+        return sequence != null ? sequence : started;
+    }
+
+    /**
+     * Takes the next number of the sequence.
+     *
+     * @return a number that has not been returned before for this prefix
+     * @throws UncheckedIOException if a new block is needed and the sidecar file cannot be written
+     */
+    public long nextNumber() {
+        long number = next.getAndIncrement();
+        if (number > limit) {
+            reserveThrough(number);
+        }
+        return number;
+    }
+
+    /**
+     * Takes the next number of the sequence and formats it as an ID, such as {@code "CUST012"}.
+     *
+     * @return a new ID
+     * @throws UncheckedIOException if a new block is needed and the sidecar file cannot be written
+     */
+    public String nextId() {
+        return format(nextNumber());
+    }
+
+    /**
+     * Formats a number of this sequence as an ID.
+     *
+     * @param number the number
+     * @return the prefix followed by the zero-padded number
+     */
+    public String format(long number) {
+        String digits = Long.toString(number);
+        StringBuilder id = new StringBuilder(prefix.length() + Math.max(width, digits.length())).append(prefix);
+        for (int i = digits.length(); i < width; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    /**
+     * Gets the prefix of the IDs in this sequence.
+     *
+     * @return the prefix
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Finds the highest number used by IDs with the given prefix, for seeding a new sequence.
+     *
+     * @param ids the existing IDs
+     * @param prefix the prefix
+     * @return the highest number following the prefix, or 0 if no ID has the prefix and a number
+     */
+    static long highestNumber(Iterable<String> ids, String prefix) {
+        long highest = 0;
+        for (String id : ids) {
+            if (id == null || !id.startsWith(prefix) || id.length() == prefix.length()) {
+                continue;
+            }
+            try {
+                highest = Math.max(highest, Long.parseLong(id.substring(prefix.length())));
+            } catch (NumberFormatException e) {
+                // Not numbered by this sequence.
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Reserves blocks until the given number is covered and records the new limit in the sidecar file before any
+     * number from the new blocks is handed out.
+     */
+    private void reserveThrough(long number) {
+        synchronized (IdSequence.class) {
+            if (number <= limit) {
+                return;
+            }
+            long newLimit = limit;
+            while (newLimit < number) {
+                newLimit += BLOCK_SIZE;
+            }
+            Map<String, Long> updated = new TreeMap<>(reserved());
+            updated.put(prefix, newLimit);
+            write(updated);
+            reserved = updated;
+            limit = newLimit;
+        }
+    }
+
+    private static Map<String, Long> reserved() {
+        if (reserved == null) {
+            reserved = read();
+        }
+        return reserved;
+    }
+
+    private static Map<String, Long> read() {
+        Map<String, Long> limits = new TreeMap<>();
+        File file = new File(FILE_NAME);
+        if (!file.exists()) {
+            return limits;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(FILE_NAME + " is not an ID sequence file");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                limits.put(in.readUTF(), in.readLong());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + FILE_NAME, e);
+        }
+        return limits;
+    }
+
+    private static void write(Map<String, Long> limits) {
+        StorageWriter.replaceFile(FILE_NAME, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(limits.size());
+            for (Map.Entry<String, Long> entry : limits.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.flush();
+        });
+    }
+}
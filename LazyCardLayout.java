@@ -0,0 +1,54 @@
+import java.awt.CardLayout;
+import java.awt.Component;
+import java.awt.Container;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The {@code LazyCardLayout} class is a {@code CardLayout} whose cards can be registered by name with a factory
+ * instead of being built up front. A registered card is built and added to its parent the first time it is
+ * shown, so a screen the user never opens never builds its components or fills its tables.
+ *
+ * <p>Panels navigate with {@link #show} exactly as with a plain {@code CardLayout}, so they need not know which
+ * cards already exist. Cards added directly with {@code Container.add}, such as the customer dashboard made for
+ * each login, work as usual. {@code first}, {@code next}, {@code previous}, and {@code last} only move between
+ * cards that have been built.</p>
+ *
+ * <p>Like every Swing component it must only be used on the event dispatch thread.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Registering a card to be built when it is first shown</li>
+ *   <li>Building and showing a registered card on first navigation</li>
+ * </ul>
+ */
+public class LazyCardLayout extends CardLayout {
+
+    private final Map<String, Supplier<? extends Component>> factories = new HashMap<>();
+
+    /**
+     * Registers a card to be built the first time it is shown.
+     *
+     * @param name the name the card is shown by
+     * @param factory builds the card; called at most once
+     */
+    public void register(String name, Supplier<? extends Component> factory) {
+        factories.put(name, factory);
+    }
+
+    /**
+     * Shows the card with the given name, first building and adding it if it was registered and not yet built.
+     *
+     * @param parent the container laid out by this layout
+     * @param name the name of the card
+     */
+    @Override
+    public void show(Container parent, String name) {
+        Supplier<? extends Component> factory = factories.remove(name);
+        if (factory != null) {
+            parent.add(factory.get(), name);
+        }
+        super.show(parent, name);
+    }
+}
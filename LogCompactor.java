@@ -0,0 +1,96 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@code LogCompactor} class runs log compactions on a low-priority background thread, so that folding
+ * a snapshot and its append log into a new snapshot never delays a Swing listener or a foreground save.
+ *
+ * <p>Compactions are scheduled under a key, normally the snapshot file name. Scheduling a compaction that is
+ * already queued for the same key replaces it, so a burst of changes triggers one compaction. A compaction
+ * that fails is reported and simply runs again the next time it is scheduled; the log keeps every change
+ * until then.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Scheduling a compaction without waiting for it</li>
+ *   <li>Coalescing repeated requests for the same file</li>
+ *   <li>Reporting how many compactions have run</li>
+ * </ul>
+ */
+public class LogCompactor {
+
+    private static final Object lock = new Object();
+    private static final Map<String, Runnable> pending = new LinkedHashMap<>();
+    private static Thread worker;
+    private static long completed;
+
+    /**
+     * Queues a compaction, replacing one that is already queued for the same key.
+     *
+     * @param key identifies the snapshot the compaction rewrites
+     * @param compaction merges the log into a new snapshot
+     */
+    public static void schedule(String key, Runnable compaction) {
+        synchronized (lock) {
+            if (worker == null) {
+                worker = new Thread(LogCompactor::run, "log-compactor");
+                worker.setDaemon(true);
+                worker.setPriority(Thread.MIN_PRIORITY);
+                worker.start();
+            }
+            pending.put(key, compaction);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Tells whether a compaction is queued for the given key and has not started yet.
+     *
+     * @param key the snapshot key
+     * @return {@code true} if a compaction is queued
+     */
+    public static boolean isPending(String key) {
+        synchronized (lock) {
+            return pending.containsKey(key);
+        }
+    }
+
+    /**
+     * Gets the number of compactions that have completed.
+     *
+     * @return the completed compaction count
+     */
+    public static long getCompletedCount() {
+        synchronized (lock) {
+            return completed;
+        }
+    }
+
+    private static void run() {
+        while (true) {
+            Runnable compaction;
+            synchronized (lock) {
+                try {
+                    while (pending.isEmpty()) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                Iterator<Runnable> next = pending.values().iterator();
+                compaction = next.next();
+                next.remove();
+            }
+            try {
+                compaction.run();
+                synchronized (lock) {
+                    completed++;
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
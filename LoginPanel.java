@@ -72,17 +72,16 @@ public class LoginPanel extends JPanel {
             if (username.equals("admin") && password.equals("password")) {
                 layout.show(parent, "Admin Dashboard");
             } else {
-                Customer customer = customers.stream()
-                    .filter(c -> c.getUsername().equals(username) && c.getPassword().equals(password))
-                    .findFirst().orElse(null);
-
-                if (customer != null) {
-                    CustomerPanel customerPanel = new CustomerPanel(layout, parent, customer, animals, requests);
-                    parent.add(customerPanel, "Customer Dashboard");
-                    layout.show(parent, "Customer Dashboard");
-                } else {
-                    JOptionPane.showMessageDialog(this, "Invalid login credentials.");
-                }
+                TaskRunner.run(() -> CustomerStorage.getCustomerByUsername(username), customer -> {
+                    if (customer != null && customer.getPassword().equals(password)) {
+                        // Each login gets its own dashboard, which is removed again on logout
+                        CustomerPanel customerPanel = new CustomerPanel(layout, parent, customer, animals, requests);
+                        parent.add(customerPanel, "Customer Dashboard");
+                        layout.show(parent, "Customer Dashboard");
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Invalid login credentials.");
+                    }
+                });
             }
         });
 
@@ -0,0 +1,73 @@
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code LogoImages} class provides the application logo, scaled to the sizes the splash screen and the main
+ * menu show it at.
+ *
+ * <p>The logo file is decoded once per run, and each scaled size is made once and then kept, so the splash screen
+ * and the main menu do not each decode and scale the full-size logo. Scaling draws the decoded image into an image
+ * of the target size with bilinear interpolation, which takes a few milliseconds, instead of using
+ * {@code Image.SCALE_SMOOTH}, whose area-averaging filter is much slower for an image of this size. Images can be
+ * requested from any thread, so the logo can be prepared while the stores load.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Decoding the logo file once</li>
+ *   <li>Scaling the logo to a size and keeping the result</li>
+ * </ul>
+ */
+public class LogoImages {
+
+    static final String LOGO_FILE = "Pet_Manager_App_Logo.png";
+
+    private static final Map<String, Image> scaled = new ConcurrentHashMap<>();
+    private static BufferedImage original;
+
+    /**
+     * Gets the logo scaled to the given size. If the logo file cannot be read, an empty image of that size is
+     * returned, like an {@code ImageIcon} of a missing file shows nothing.
+     *
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @return the scaled logo
+     */
+    public static Image get(int width, int height) {
+        return scaled.computeIfAbsent(width + "x" + height, key -> scale(width, height));
+    }
+
+    private static Image scale(int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage source = original();
+        if (source != null) {
+            Graphics2D g = result.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+            g.dispose();
+        }
+        return result;
+    }
+
+    private static synchronized BufferedImage original() {
+        if (original == null) {
+            File file = new File(LOGO_FILE);
+            if (!file.exists()) {
+                return null;
+            }
+            try {
+                original = ImageIO.read(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return original;
+    }
+}
@@ -32,10 +32,8 @@ public class MainMenuPanel extends JPanel {
     public MainMenuPanel(CardLayout layout, JPanel parent) {
         setLayout(new BorderLayout());
 
-        // Load and scale the logo image
-        ImageIcon logoIcon = new ImageIcon("Pet_Manager_App_Logo.png");
-        Image scaledImage = logoIcon.getImage().getScaledInstance(500, 500, Image.SCALE_SMOOTH); // Resize logo
-        ImageIcon scaledIcon = new ImageIcon(scaledImage);
+        // The logo is decoded and scaled once, usually while the stores load at startup
+        ImageIcon scaledIcon = new ImageIcon(LogoImages.get(500, 500));
         
         // Create the logo label and add it to the top
         logoLabel = new JLabel(scaledIcon);
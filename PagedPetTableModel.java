@@ -0,0 +1,209 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code PagedPetTableModel} class shows the whole pet catalog in a {@code JTable} while holding only the
+ * pages of pets around the rows being looked at, so opening the table and scrolling it cost the same no matter
+ * how many pets are stored.
+ *
+ * <p>The model holds the number of pets but no pets. The number is read by the {@link TaskRunner} when the
+ * model is made and on each {@link #refresh}, so the table starts empty and is filled in once it is known.
+ * When the table asks for a cell of a page
+ * that is not loaded, the cell is shown empty and the page is fetched from {@link PetStorage#loadPage} by the
+ * {@link TaskRunner}; the next and previous pages are fetched along with it, so they are usually ready before
+ * the user scrolls to them. Once a page arrives only its rows are repainted. At most
+ * {@code petmanager.pageCacheSize} pages (default {@value #DEFAULT_CACHED_PAGES}) of
+ * {@code petmanager.pageSize} pets (default {@value #DEFAULT_PAGE_SIZE}) are kept; the page used least
+ * recently is dropped first.</p>
+ *
+ * <p>Paging is only used with the binary and B+tree storage engines, which count and read a page of pets without
+ * decoding the rest of the catalog (see {@link PetStorage#supportsPaging}). With those engines, tables of more
+ * than {@code petmanager.pagingThreshold} pets (default {@value #DEFAULT_PAGING_THRESHOLD}) use this model;
+ * smaller catalogs, and every catalog in the default serialized storage, are shown with a
+ * {@link PetTableModel}. Like every Swing model it must only be used on the event dispatch thread.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Showing any number of pets while keeping a bounded number of pages in memory</li>
+ *   <li>Fetching pages, and prefetching their neighbours, in the background</li>
+ *   <li>Reloading the catalog, or only the pages of changed pets</li>
+ * </ul>
+ */
+public class PagedPetTableModel extends AbstractTableModel {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int DEFAULT_CACHED_PAGES = 10;
+    static final int DEFAULT_PAGING_THRESHOLD = 10_000;
+
+    private static final int PAGE_SIZE = Math.max(1, Integer.getInteger("petmanager.pageSize", DEFAULT_PAGE_SIZE));
+    private static final int CACHED_PAGES = Math.max(3, Integer.getInteger("petmanager.pageCacheSize", DEFAULT_CACHED_PAGES));
+    private static final int PAGING_THRESHOLD = Integer.getInteger("petmanager.pagingThreshold", DEFAULT_PAGING_THRESHOLD);
+
+    private final PetTableModel.Column[] columns;
+    private final Map<Integer, List<Pet>> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Integer> loading = new HashSet<>();
+    private int rowCount;
+    private int generation;
+
+    /**
+     * Constructs a new {@code PagedPetTableModel} over the stored pets with the given columns. The number of pets
+     * is read in the background; pages are fetched when the table shows them.
+     *
+     * @param columns the columns to show, in order
+     */
+    public PagedPetTableModel(PetTableModel.Column... columns) {
+        this.columns = columns.clone();
+        refresh();
+    }
+
+    /**
+     * Tells whether the catalog should be shown with a paged model: the storage engine supports paging and
+     * more than {@code petmanager.pagingThreshold} pets are stored. This reads the storage, so call it from a
+     * background task, not on the event dispatch thread.
+     *
+     * @return {@code true} if the catalog should be shown a page at a time
+     */
+    public static boolean isPreferred() {
+        return PetStorage.supportsPaging() && PetStorage.countAnimals() > PAGING_THRESHOLD;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column].getTitle();
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns[column].getType();
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Pet pet = getPetAt(row);
+        return pet == null ? null : columns[column].valueOf(pet);
+    }
+
+    /**
+     * Gets the pet shown in the given row, fetching its page in the background if it is not loaded.
+     *
+     * @param row the row index
+     * @return the {@code Pet} in that row, or {@code null} if its page has not arrived yet
+     */
+    public Pet getPetAt(int row) {
+        int page = row / PAGE_SIZE;
+        List<Pet> pets = pages.get(page);
+        if (pets == null) {
+            fetch(page);
+            fetch(page + 1);
+            fetch(page - 1);
+            return null;
+        }
+        if (!pages.containsKey(page + 1)) {
+            fetch(page + 1);
+        }
+        int index = row % PAGE_SIZE;
+        return index < pets.size() ? pets.get(index) : null;
+    }
+
+    /**
+     * Drops every loaded page and reads the number of pets again in the background, after pets were added or
+     * removed. Pages already being fetched are ignored when they arrive.
+     */
+    public void refresh() {
+        int countGeneration = ++generation;
+        pages.clear();
+        loading.clear();
+        fireTableDataChanged();
+        TaskRunner.run(PetStorage::countAnimals, count -> {
+            if (countGeneration == generation) {
+                rowCount = count;
+                fireTableDataChanged();
+            }
+        });
+    }
+
+    /**
+     * Applies the pet changes in a batch of storage changes. If pets were added or removed the rows shift, so
+     * the catalog is reloaded; otherwise each loaded page holding an updated pet is fetched again, once however
+     * many of its pets changed.
+     *
+     * @param changes the storage changes, in the order they were made
+     */
+    public void applyChanges(List<StorageEvents.Change> changes) {
+        Set<String> updated = new HashSet<>();
+        for (StorageEvents.Change change : changes) {
+            if (change.getPet() == null) {
+                continue;
+            }
+            if (change.getType() != StorageEvents.Type.PET_UPDATED) {
+                refresh();
+                return;
+            }
+            updated.add(change.getPet().getId());
+        }
+        List<Integer> stale = new ArrayList<>();
+        for (Map.Entry<Integer, List<Pet>> entry : pages.entrySet()) {
+            for (Pet pet : entry.getValue()) {
+                if (updated.contains(pet.getId())) {
+                    stale.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        for (int page : stale) {
+            pages.remove(page);
+            fetch(page);
+        }
+    }
+
+    /**
+     * Gets the number of pages currently held in memory.
+     *
+     * @return the number of loaded pages
+     */
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+
+    private void fetch(int page) {
+        if (page < 0 || (long) page * PAGE_SIZE >= rowCount || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+        int fetchGeneration = generation;
+        TaskRunner.run(() -> PetStorage.loadPage(page * PAGE_SIZE, PAGE_SIZE), pets -> {
+            if (fetchGeneration != generation) {
+                return;
+            }
+            loading.remove(page);
+            pages.put(page, pets);
+            while (pages.size() > CACHED_PAGES) {
+                pages.remove(pages.keySet().iterator().next());
+            }
+            int first = page * PAGE_SIZE;
+            int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+            if (first <= last) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, e -> {
+            if (fetchGeneration == generation) {
+                loading.remove(page);
+            }
+            e.printStackTrace();
+        });
+    }
+}
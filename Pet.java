@@ -1,4 +1,8 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * The {@code Pet} class represents a pet in the pet adoption system.
@@ -6,6 +10,12 @@ import java.io.Serializable;
  * This class also provides methods to retrieve and update the pet's information.
  * 
  * <p>Implements {@code Serializable} to allow instances of this class to be serialized for storage or transmission.</p>
+ *
+ * <p>Every change to a pet increments its version. The version and the adoption status are held together in one
+ * stamp that is updated with compare-and-set, so several admins can approve adoptions at the same time without a
+ * lock: an admin reads the version, checks the pet, and calls {@link #compareAndSetAdoptionStat}, which fails if
+ * anyone changed the pet in between. Of two conflicting approvals exactly one succeeds. The version is not
+ * stored; a loaded pet starts at version zero.</p>
  * 
  * <p>Key functionalities include:</p>
  * <ul>
@@ -13,6 +23,7 @@ import java.io.Serializable;
  *   <li>Updating pet details</li>
  *   <li>Determining the species of the pet based on its ID</li>
  *   <li>Checking if the pet is available for adoption</li>
+ *   <li>Changing the adoption status only if the pet has not changed since it was read</li>
  * </ul>
  */
 public class Pet implements Serializable {
@@ -22,9 +33,13 @@ public class Pet implements Serializable {
     private String breed;
     private int age;
     private String gender;
-    private boolean adopted;
+    private boolean adopted; // The serialized adoption status; in memory the stamp holds it
+    private transient String species;
+    private transient volatile int stamp; // Version in the upper bits, adoption status in the lowest bit
     private static final long serialVersionUID = 1L;
 
+    private static final AtomicIntegerFieldUpdater<Pet> STAMP = AtomicIntegerFieldUpdater.newUpdater(Pet.class, "stamp");
+
     /**
      * Constructs a new {@code Pet} object with the specified details.
      *
@@ -40,7 +55,7 @@ public class Pet implements Serializable {
         this.breed = breed;
         this.age = age;
         this.gender = gender;
-        this.adopted = false; // Default value for adopted
+        this.stamp = 0; // Version 0, not adopted
     }
 
     /**
@@ -63,6 +78,7 @@ public class Pet implements Serializable {
 
     /**
      * Determines the species of the pet based on the first letter of its ID.
+     * The species is worked out once and remembered until the ID changes.
      * 
      * <p>For example:</p>
      * <ul>
@@ -74,7 +90,21 @@ public class Pet implements Serializable {
      * @return the species of the pet, or "Unknown" if the ID format is not recognized
      */
     public String getSpecies() {
-        switch (aniD.split("_")[0]) {
+        if (species == null) {
+            species = speciesOf(aniD);
+        }
+        return species;
+    }
+
+    /**
+     * Determines the species named by the prefix of a pet ID, the part before the first underscore.
+     *
+     * @param aniD the pet ID
+     * @return the species, or "Unknown" if the prefix is not recognized
+     */
+    static String speciesOf(String aniD) {
+        int end = aniD.indexOf('_');
+        switch (end < 0 ? aniD : aniD.substring(0, end)) {
             case "D":
                 return "Dog";
             case "C":
@@ -123,7 +153,16 @@ public class Pet implements Serializable {
      * @return {@code true} if the pet has been adopted, {@code false} otherwise
      */
     public boolean getAdoptionStat() {
-        return adopted;
+        return (stamp & 1) != 0;
+    }
+
+    /**
+     * Gets the version of the pet, which increases with every change made through its setters.
+     *
+     * @return the current version
+     */
+    public int getVersion() {
+        return stamp >>> 1;
     }
 
     /**
@@ -132,7 +171,31 @@ public class Pet implements Serializable {
      * @param adopted {@code true} if the pet is adopted, {@code false} otherwise
      */
     public void setAdoptionStat(boolean adopted) {
-        this.adopted = adopted;
+        int current;
+        do {
+            current = stamp;
+        } while (!STAMP.compareAndSet(this, current, next(current, adopted)));
+    }
+
+    /**
+     * Sets the adoption status only if the pet is still at the expected version. The check and the change
+     * are one atomic step, so when several threads try this with the same version exactly one succeeds.
+     *
+     * @param expectedVersion the version the caller read before deciding to make the change
+     * @param adopted the new adoption status
+     * @return {@code true} if the status was changed, {@code false} if the pet changed in the meantime
+     */
+    public boolean compareAndSetAdoptionStat(int expectedVersion, boolean adopted) {
+        int current = stamp;
+        return current >>> 1 == expectedVersion && STAMP.compareAndSet(this, current, next(current, adopted));
+    }
+
+    private void touch() {
+        setAdoptionStat(getAdoptionStat());
+    }
+
+    private static int next(int current, boolean adopted) {
+        return ((current >>> 1) + 1) << 1 | (adopted ? 1 : 0);
     }
 
     /**
@@ -142,6 +205,7 @@ public class Pet implements Serializable {
      */
     public void setName(String name) {
         this.name = name;
+        touch();
     }
 
     /**
@@ -151,6 +215,7 @@ public class Pet implements Serializable {
      */
     public void setAge(int age) {
         this.age = age;
+        touch();
     }
 
     /**
@@ -160,6 +225,7 @@ public class Pet implements Serializable {
      */
     public void setBreed(String breed) {
         this.breed = breed;
+        touch();
     }
 
     /**
@@ -169,6 +235,7 @@ public class Pet implements Serializable {
      */
     public void setGender(String gender) {
         this.gender = gender;
+        touch();
     }
 
     /**
@@ -178,6 +245,8 @@ public class Pet implements Serializable {
      */
     public void setId(String aniD) {
         this.aniD = aniD;
+        this.species = null;
+        touch();
     }
 
     /**
@@ -187,7 +256,7 @@ public class Pet implements Serializable {
      */
     @Override
     public String toString() {
-        return "Pet ID: " + aniD + ", Name: " + name + ", Breed: " + breed + ", Age: " + age + ", Adopted: " + adopted;
+        return "Pet ID: " + aniD + ", Name: " + name + ", Breed: " + breed + ", Age: " + age + ", Adopted: " + getAdoptionStat();
     }
 
     /**
@@ -196,6 +265,16 @@ public class Pet implements Serializable {
      * @return {@code true} if the pet is available for adoption, {@code false} otherwise
      */
     public boolean isAvalibleForAdoption() {
-        return !adopted;
+        return !getAdoptionStat();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        adopted = getAdoptionStat();
+        out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        stamp = adopted ? 1 : 0;
     }
 }
\ No newline at end of file
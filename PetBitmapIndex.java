@@ -0,0 +1,472 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code PetBitmapIndex} class keeps bitmap indexes over the pet catalog for {@code PetStorage}, so that
+ * filtering by species, breed, gender, or adoption status costs a few word-wide bit operations per 64 pets
+ * instead of a string comparison per pet.
+ *
+ * <p>Every indexed pet is given a slot number. For each distinct species, breed, and gender there is a
+ * {@link BitSet} with the bits of the matching slots set, and one more bitmap marks the adopted pets. A query
+ * returns a new bitmap that the caller may combine with others using {@link BitSet#and} and {@link BitSet#or}
+ * before turning it into pets with {@link #select}. Values are matched without regard to case, like the
+ * {@code equalsIgnoreCase} filters they replace, and the species is derived once from the ID prefix.</p>
+ *
+ * <p>Slots are handed out in the order pets are added, so selected pets come back in catalog order. Removing a
+ * pet leaves an empty slot; once more than half the slots are empty the slots are renumbered.</p>
+ *
+ * <p>The index also records the position of each pet in the list it was built over, so the storage class can
+ * find a pet in that list without a scan. Positions are kept up to date as pets are added; when a pet is
+ * removed from the list by moving the last pet into its place, the storage class reports the move with
+ * {@link #moved}.</p>
+ *
+ * <p>The names and breeds of the indexed pets are also kept in a {@link PetSearchIndex} under the same slot
+ * numbers, for type-ahead searches.</p>
+ *
+ * <p>A {@link PetQuery} is evaluated into a {@link PetView}, a permutation of slot numbers that reads the pets
+ * through the slots instead of copying them. The slots of the last {@value #CACHED_VIEWS} queries are cached,
+ * so switching back to a combination of filters, or sorting a filtered result, does not filter again. A sorted
+ * query reuses the cached result of the same filters in catalog order. The cache is cleared whenever a pet is
+ * added, changed, or removed.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Building the indexes from a list of pets</li>
+ *   <li>Adding, re-indexing, removing, and finding single pets by ID</li>
+ *   <li>Finding the position of a pet in the list the index is built over</li>
+ *   <li>Looking up the bitmap for a species, breed, gender, or adoption status</li>
+ *   <li>Filtering on several criteria at once and turning a bitmap back into pets</li>
+ *   <li>Searching pet names and breeds by the words typed so far</li>
+ *   <li>Evaluating combined, sorted queries into cached views of the pets</li>
+ * </ul>
+ */
+public class PetBitmapIndex {
+
+    private final List<Slot> slots = new ArrayList<>();
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final Map<String, Integer> positionById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet adopted = new BitSet();
+    private final Map<String, BitSet> bySpecies = new HashMap<>();
+    private final Map<String, BitSet> byBreed = new HashMap<>();
+    private final Map<String, BitSet> byGender = new HashMap<>();
+    private PetSearchIndex search = new PetSearchIndex();
+    private Pet[] petsBySlot = new Pet[16];
+
+    static final int CACHED_VIEWS = 16;
+
+    private final Map<PetQuery, int[]> views = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PetQuery, int[]> eldest) {
+            return size() > CACHED_VIEWS;
+        }
+    };
+
+    /**
+     * The pet held in a slot and the values it is indexed under, which may differ from the pet's current
+     * values if it was edited in place and not re-indexed yet.
+     */
+    private static class Slot {
+        final Pet pet;
+        final String species;
+        final String breed;
+        final String gender;
+
+        Slot(Pet pet) {
+            this.pet = pet;
+            this.species = normalize(pet.getSpecies());
+            this.breed = normalize(pet.getBreed());
+            this.gender = normalize(pet.getGender());
+        }
+    }
+
+    /**
+     * Constructs a new {@code PetBitmapIndex} over the given pets.
+     *
+     * @param pets the pets to index
+     */
+    public PetBitmapIndex(List<Pet> pets) {
+        for (Pet pet : pets) {
+            add(pet);
+        }
+    }
+
+    /**
+     * Adds a pet to the indexes, or re-indexes it if a pet with the same ID is already indexed.
+     *
+     * @param pet the pet to add
+     */
+    public void add(Pet pet) {
+        positionById.putIfAbsent(pet.getId(), positionById.size());
+        Integer slot = slotById.get(pet.getId());
+        if (slot != null) {
+            clear(slot);
+        } else {
+            slot = slots.size();
+            slots.add(null);
+            slotById.put(pet.getId(), slot);
+            if (slot == petsBySlot.length) {
+                // Views made earlier keep the old array, which still covers all of their slots
+                petsBySlot = Arrays.copyOf(petsBySlot, slot * 2);
+            }
+        }
+        Slot entry = new Slot(pet);
+        slots.set(slot, entry);
+        petsBySlot[slot] = pet;
+        views.clear();
+        live.set(slot);
+        adopted.set(slot, pet.getAdoptionStat());
+        bitmap(bySpecies, entry.species).set(slot);
+        bitmap(byBreed, entry.breed).set(slot);
+        bitmap(byGender, entry.gender).set(slot);
+        search.set(slot, pet.getName(), pet.getBreed());
+    }
+
+    /**
+     * Updates the adoption bit of an indexed pet.
+     *
+     * @param id the pet ID
+     * @param isAdopted the new adoption status
+     */
+    public void setAdopted(String id, boolean isAdopted) {
+        Integer slot = slotById.get(id);
+        if (slot != null && adopted.get(slot) != isAdopted) {
+            adopted.set(slot, isAdopted);
+            views.clear();
+        }
+    }
+
+    /**
+     * Removes a pet from the indexes.
+     *
+     * @param id the pet ID
+     */
+    public void remove(String id) {
+        positionById.remove(id);
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        clear(slot);
+        search.clear(slot);
+        slots.set(slot, null);
+        live.clear(slot);
+        views.clear();
+        if (slots.size() > 64 && live.cardinality() < slots.size() / 2) {
+            renumber();
+        }
+    }
+
+    /**
+     * Finds a pet in the list the index is built over, in constant time. If the list does not hold the pet at
+     * its recorded position, the list is searched instead.
+     *
+     * @param pets the list, with every change to it reported to this index
+     * @param id the pet ID
+     * @return the position of the pet with that ID, or {@code -1} if it is not indexed
+     */
+    public int positionIn(List<Pet> pets, String id) {
+        Integer position = positionById.get(id);
+        if (position == null) {
+            return -1;
+        }
+        if (position < pets.size() && pets.get(position).getId().equals(id)) {
+            return position;
+        }
+        for (int i = 0; i < pets.size(); i++) {
+            if (pets.get(i).getId().equals(id)) {
+                positionById.put(id, i);
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records that a pet was moved to another position in the list the index is built over, as when the last
+     * pet fills the place of a removed one.
+     *
+     * @param id the ID of the moved pet
+     * @param position its new position
+     */
+    public void moved(String id, int position) {
+        if (positionById.containsKey(id)) {
+            positionById.put(id, position);
+        }
+    }
+
+    /**
+     * Gets the indexed pet with the given ID.
+     *
+     * @param id the pet ID
+     * @return the {@code Pet}, or {@code null} if it is not indexed
+     */
+    public Pet get(String id) {
+        Integer slot = slotById.get(id);
+        return slot == null ? null : slots.get(slot).pet;
+    }
+
+    /**
+     * Gets the number of indexed pets.
+     *
+     * @return the number of pets
+     */
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Gets a bitmap of every indexed pet.
+     *
+     * @return a new bitmap
+     */
+    public BitSet all() {
+        return (BitSet) live.clone();
+    }
+
+    /**
+     * Gets a bitmap of the pets of the given species, such as {@code "Dog"}.
+     *
+     * @param species the species
+     * @return a new bitmap
+     */
+    public BitSet species(String species) {
+        return lookup(bySpecies, species);
+    }
+
+    /**
+     * Gets a bitmap of the pets of the given breed.
+     *
+     * @param breed the breed
+     * @return a new bitmap
+     */
+    public BitSet breed(String breed) {
+        return lookup(byBreed, breed);
+    }
+
+    /**
+     * Gets a bitmap of the pets of the given gender.
+     *
+     * @param gender the gender, such as {@code "Male"}
+     * @return a new bitmap
+     */
+    public BitSet gender(String gender) {
+        return lookup(byGender, gender);
+    }
+
+    /**
+     * Gets a bitmap of the pets with the given adoption status.
+     *
+     * @param isAdopted {@code true} for adopted pets, {@code false} for pets available for adoption
+     * @return a new bitmap
+     */
+    public BitSet adopted(boolean isAdopted) {
+        BitSet result = (BitSet) live.clone();
+        if (isAdopted) {
+            result.and(adopted);
+        } else {
+            result.andNot(adopted);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the pets that match every given criterion. A {@code null} or empty criterion matches every pet.
+     *
+     * @param species the species, or {@code null}
+     * @param breed the breed, or {@code null}
+     * @param gender the gender, or {@code null}
+     * @param isAdopted the adoption status, or {@code null}
+     * @return the matching pets, in catalog order
+     */
+    public List<Pet> filter(String species, String breed, String gender, Boolean isAdopted) {
+        return select(matching(species, breed, gender, isAdopted));
+    }
+
+    /**
+     * Evaluates a query into a view of the matching pets in the query's order. The pets are not copied.
+     *
+     * @param query the query
+     * @return the view
+     */
+    public PetView view(PetQuery query) {
+        return new PetView(query, rows(query), petsBySlot);
+    }
+
+    /**
+     * Gets the pets whose slots are set in the bitmap.
+     *
+     * @param bits a bitmap returned by this index, possibly combined with others
+     * @return the selected pets, in catalog order
+     */
+    public List<Pet> select(BitSet bits) {
+        List<Pet> pets = new ArrayList<>(bits.cardinality());
+        for (int slot = bits.nextSetBit(0); slot >= 0 && slot < slots.size(); slot = bits.nextSetBit(slot + 1)) {
+            Slot entry = slots.get(slot);
+            if (entry != null) {
+                pets.add(entry.pet);
+            }
+        }
+        return pets;
+    }
+
+    /**
+     * Finds the pets whose name or breed has a word starting with each word of the query, best matches first.
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of pets to return
+     * @return the matching pets, in rank order
+     * @see PetSearchIndex#search
+     */
+    public List<Pet> search(String query, int limit) {
+        int[] found = search.search(query, limit);
+        List<Pet> pets = new ArrayList<>(found.length);
+        for (int slot : found) {
+            pets.add(slots.get(slot).pet);
+        }
+        return pets;
+    }
+
+    private int[] rows(PetQuery query) {
+        int[] rows = views.get(query);
+        if (rows != null) {
+            return rows;
+        }
+        if (query.getOrder() != PetQuery.Order.CATALOG) {
+            // Sorts a copy of the cached filter result, which stays in catalog order
+            rows = rows(query.unsorted()).clone();
+            if (query.getOrder() == PetQuery.Order.AGE) {
+                sortByAge(rows);
+            } else {
+                mergeSortById(rows, new int[rows.length], 0, rows.length);
+            }
+        } else {
+            BitSet bits = matching(query.getSpecies(), query.getBreed(), query.getGender(), query.getAdopted());
+            rows = new int[bits.cardinality()];
+            int count = 0;
+            for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+                if (!query.hasAgeRange() || query.allowsAge(slots.get(slot).pet.getAge())) {
+                    rows[count++] = slot;
+                }
+            }
+            if (count < rows.length) {
+                rows = Arrays.copyOf(rows, count);
+            }
+        }
+        views.put(query, rows);
+        return rows;
+    }
+
+    private BitSet matching(String species, String breed, String gender, Boolean isAdopted) {
+        BitSet result = isAdopted == null ? all() : adopted(isAdopted);
+        if (species != null && !species.isEmpty()) {
+            result.and(lookup(bySpecies, species));
+        }
+        if (breed != null && !breed.isEmpty()) {
+            result.and(lookup(byBreed, breed));
+        }
+        if (gender != null && !gender.isEmpty()) {
+            result.and(lookup(byGender, gender));
+        }
+        return result;
+    }
+
+    /**
+     * Sorts slots by the age of their pets, youngest first. Slots of the same age keep their order, which is
+     * catalog order.
+     */
+    private void sortByAge(int[] rows) {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = ((long) slots.get(rows[i]).pet.getAge() << 32) | rows[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) keys[i];
+        }
+    }
+
+    private void mergeSortById(int[] rows, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSortById(rows, scratch, from, middle);
+        mergeSortById(rows, scratch, middle, to);
+        if (compareIds(rows[middle - 1], rows[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compareIds(scratch[left], scratch[right]) <= 0)) {
+                rows[i] = scratch[left++];
+            } else {
+                rows[i] = scratch[right++];
+            }
+        }
+    }
+
+    private int compareIds(int a, int b) {
+        return slots.get(a).pet.getId().compareToIgnoreCase(slots.get(b).pet.getId());
+    }
+
+    private void clear(int slot) {
+        Slot entry = slots.get(slot);
+        unset(bySpecies, entry.species, slot);
+        unset(byBreed, entry.breed, slot);
+        unset(byGender, entry.gender, slot);
+        adopted.clear(slot);
+    }
+
+    private void renumber() {
+        List<Pet> pets = new ArrayList<>(slotById.size());
+        for (Slot entry : slots) {
+            if (entry != null) {
+                pets.add(entry.pet);
+            }
+        }
+        slots.clear();
+        slotById.clear();
+        live.clear();
+        adopted.clear();
+        bySpecies.clear();
+        byBreed.clear();
+        byGender.clear();
+        search = new PetSearchIndex();
+        petsBySlot = new Pet[Math.max(16, pets.size())];
+        for (Pet pet : pets) {
+            add(pet);
+        }
+    }
+
+    private static BitSet lookup(Map<String, BitSet> index, String value) {
+        BitSet bits = index.get(normalize(value));
+        return bits == null ? new BitSet() : (BitSet) bits.clone();
+    }
+
+    private static BitSet bitmap(Map<String, BitSet> index, String value) {
+        return index.computeIfAbsent(value, k -> new BitSet());
+    }
+
+    private static void unset(Map<String, BitSet> index, String value, int slot) {
+        BitSet bits = index.get(value);
+        if (bits != null) {
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                index.remove(value);
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,10 +1,15 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 
 import java.awt.*;
-import java.io.File;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The {@code PetManagerApp} class serves as the main entry point for the pet adoption system application.
@@ -13,183 +18,207 @@ import java.util.List;
  * 
  * <p>This class uses Swing components to create an interactive interface and handles the loading and saving
  * of data for pets, customers, and adoption requests.</p>
+ *
+ * <p>At startup the pets, customers, and adoption requests are loaded at the same time in the background. The
+ * loading screen is shown only while they load, and a breakdown of the startup time is printed once the main
+ * window is up. Only the main menu is built at startup; the login screen, sign-up screen, and admin dashboard
+ * are built when they are first opened, and a customer dashboard is built for each login.</p>
  * 
  * <p>Key functionalities include:</p>
  * <ul>
  *   <li>Initializing the application and loading default data</li>
- *   <li>Setting up the main GUI with a {@code CardLayout} for navigation</li>
- *   <li>Displaying a loading screen during startup</li>
- *   <li>Managing the display and updates of pet data in tables</li>
+ *   <li>Setting up the main GUI with a {@code CardLayout} whose screens are built on first navigation</li>
+ *   <li>Displaying a loading screen while the data loads</li>
  * </ul>
  */
 public class PetManagerApp {
 
     private static JFrame frame;
     private static JPanel mainPanel;
-    private static CardLayout cardLayout;
+    private static LazyCardLayout cardLayout;
 
-    private static List<Pet> animals = PetStorage.loadAnimals();
-    private static List<Customer> customers = CustomerStorage.loadCustomers();
-    private static ArrayList<AdoptionRequest> requests = AdoptionRequestStorage.loadRequests();
-    private static final Admin admin = new Admin("admin", "password");
+    private static List<Pet> animals;
+    private static List<Customer> customers;
+    private static List<AdoptionRequest> requests;
+    private static Admin admin;
+
+    private static final Map<String, Long> startupNanos = new ConcurrentHashMap<>();
 
     /**
      * Constructs a new {@code PetManagerApp} and initializes the application.
-     * Sets up the main GUI, loads data, and displays the main menu.
+     * Sets up the main GUI with the loaded data and displays the main menu. Must be called on the event dispatch
+     * thread after the data has been loaded.
      */
     public PetManagerApp() {
-        
-        showLoadingScreen();
 
         frame = new JFrame("Pet Manager System");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
         frame.setLayout(new BorderLayout());
 
-        cardLayout = new CardLayout();
+        cardLayout = new LazyCardLayout();
         mainPanel = new JPanel(cardLayout);
 
-        // Add all the screens to the CardLayout only once
-        MainMenuPanel mainMenuPanel = new MainMenuPanel(cardLayout, mainPanel);
-        int nextIdNum = customers.stream()
-        .map(Customer::getCustomerId)
-        .map(id -> id.replaceAll("[^0-9]", ""))
-        .mapToInt(s -> s.isEmpty() ? 0 : Integer.parseInt(s))
-        .max()
-        .orElse(0) + 1;
-    
-    String nextCustomerId = String.format("CUST%03d", nextIdNum);
-    
-    SignUpPanel signUpPanel = new SignUpPanel(cardLayout, mainPanel, customers, nextCustomerId);
-    LoginPanel loginPanel = new LoginPanel(cardLayout, mainPanel, customers, animals, requests);
-    AdminPanel adminPanel = new AdminPanel(cardLayout, mainPanel, animals, requests, customers, admin);
-    CustomerPanel customerPanel = new CustomerPanel(cardLayout, mainPanel, null, animals, requests);
-    
-
-        mainPanel.add(mainMenuPanel, "Main Menu");
-        mainPanel.add(adminPanel, "Admin Dashboard");
-        mainPanel.add(customerPanel, "Customer Dashboard");
-        mainPanel.add(loginPanel, "Login Screen");
-        mainPanel.add(signUpPanel, "Sign Up Screen");
+        // Only the main menu is built now; each other screen is built the first time it is opened
+        mainPanel.add(new MainMenuPanel(cardLayout, mainPanel), "Main Menu");
+        cardLayout.register("Admin Dashboard", () -> new AdminPanel(cardLayout, mainPanel, animals, admin));
+        cardLayout.register("Login Screen", () -> new LoginPanel(cardLayout, mainPanel, customers, animals, requests));
+        cardLayout.register("Sign Up Screen", () -> new SignUpPanel(cardLayout, mainPanel, customers));
+        // The customer dashboard is built by the login screen for each customer who logs in
 
         frame.add(mainPanel);
         frame.setVisible(true);
 
-        // Adjust the table columns to match the new order
-        DefaultTableModel animalTableModel = new DefaultTableModel(new String[]{"ID", "Name", "Breed", "Gender", "Age"}, 0);
-        updateTable(animalTableModel);
-
         cardLayout.show(mainPanel, "Main Menu");
     }
 
     /**
-     * Displays a loading screen with a logo during application startup.
-     * The loading screen is shown for 3 seconds before the main GUI is displayed.
+     * Displays a loading screen with a logo while the data loads. The logo is scaled on the calling thread
+     * and the screen is shown on the event dispatch thread.
+     *
+     * @return the loading screen, to be disposed of once the main GUI is shown
+     */
+    private static JWindow showLoadingScreen() {
+        long begin = System.nanoTime();
+        ImageIcon scaledIcon = new ImageIcon(LogoImages.get(900, 800));
+        JWindow[] loadingScreen = new JWindow[1];
+        onEventDispatchThread(() -> {
+            loadingScreen[0] = new JWindow();
+
+            // Create a JLabel to display the scaled image
+            JLabel loadingLabel = new JLabel(scaledIcon, SwingConstants.CENTER);
+            loadingScreen[0].add(loadingLabel);
+
+            loadingScreen[0].setSize(900, 800);
+            loadingScreen[0].setLocationRelativeTo(null);
+            loadingScreen[0].setVisible(true);
+        });
+        startupNanos.put("splash", System.nanoTime() - begin);
+        return loadingScreen[0];
+    }
+
+    /**
+     * The main method serves as the entry point for the application.
+     * It loads the pets, customers, and adoption requests in parallel, saving default data for any store that
+     * is empty, shows the loading screen until they are loaded, and then launches the application.
+     *
+     * @param args command-line arguments (not used)
      */
-    private void showLoadingScreen() {
-        JWindow loadingScreen = new JWindow();
-    
-        // Load the image
-        ImageIcon logoIcon = new ImageIcon("Pet_Manager_App_Logo.png");
-    
-        // Scale the image to fit the loading screen size
-        Image scaledImage = logoIcon.getImage().getScaledInstance(900, 800, Image.SCALE_SMOOTH);
-        ImageIcon scaledIcon = new ImageIcon(scaledImage);
-    
-        // Create a JLabel to display the scaled image
-        JLabel loadingLabel = new JLabel(scaledIcon, SwingConstants.CENTER);
-        loadingScreen.add(loadingLabel);
-    
-        // Set the size of the loading screen to 500x400
-        loadingScreen.setSize(900, 800);
-        loadingScreen.setLocationRelativeTo(null);
-        loadingScreen.setVisible(true);
-    
-        // Wait for 3 seconds
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        CompletableFuture<List<Pet>> loadedPets = loadTimed("pets", PetManagerApp::loadPets);
+        CompletableFuture<List<Customer>> loadedCustomers = loadTimed("customers", PetManagerApp::loadCustomers);
+        CompletableFuture<List<AdoptionRequest>> loadedRequests = loadTimed("requests", AdoptionRequestStorage::loadRequests);
+        CompletableFuture<Image> menuLogo = loadTimed("logo", () -> LogoImages.get(500, 500));
+        CompletableFuture<Void> loaded = CompletableFuture.allOf(loadedPets, loadedCustomers, loadedRequests, menuLogo);
+
+        // Small stores may be loaded before the loading screen could even be drawn
+        JWindow loadingScreen = loaded.isDone() ? null : showLoadingScreen();
+
         try {
-            Thread.sleep(3000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+            animals = loadedPets.join();
+            customers = loadedCustomers.join();
+            requests = new CopyOnWriteArrayList<>(loadedRequests.join());
+            menuLogo.join();
+            // Made after the loads, so it copies the cached pets instead of loading them before they start
+            admin = new Admin("admin", "password");
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+            onEventDispatchThread(() -> JOptionPane.showMessageDialog(null,
+                    "The data could not be loaded: " + e.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+            System.exit(1);
         }
-    
-        // Dispose of the loading screen after the delay
-        loadingScreen.dispose();
+        long loadedAt = System.nanoTime();
+
+        onEventDispatchThread(() -> {
+            new PetManagerApp();
+            if (loadingScreen != null) {
+                loadingScreen.dispose();
+            }
+        });
+        long shownAt = System.nanoTime();
+
+        System.out.println("Startup: pets " + millis(startupNanos.get("pets"))
+                + ", customers " + millis(startupNanos.get("customers"))
+                + ", requests " + millis(startupNanos.get("requests"))
+                + ", logo " + millis(startupNanos.get("logo"))
+                + " (loaded in parallel in " + millis(loadedAt - start) + ")"
+                + ", loading screen " + (loadingScreen == null ? "skipped" : millis(startupNanos.get("splash")))
+                + ", window " + millis(shownAt - loadedAt)
+                + ", total " + millis(shownAt - start)
+                + " [" + animals.size() + " pets, " + customers.size() + " customers, " + requests.size() + " requests]");
     }
-    
 
     /**
-     * Updates the table model with the current list of pets.
-     * Clears the table and repopulates it with pet data.
+     * Loads the pets, saving the default pets first if none are stored.
      *
-     * @param model the {@code DefaultTableModel} to be updated
+     * @return the stored pets
      */
-    private void updateTable(DefaultTableModel model) {
-        model.setRowCount(0);  // Clear the table first
-        for (Pet pet : animals) {
-            model.addRow(new Object[]{pet.getId(), pet.getName(), pet.getBreed(), pet.getGender(), pet.getAge()});
+    private static List<Pet> loadPets() {
+        List<Pet> stored = PetStorage.loadAnimals();
+        if (!stored.isEmpty()) {
+            return stored;
         }
+
+        List<Pet> pets = new ArrayList<>();
+        pets.add(new Pet("D_001", "Max", "Pitbull", 2, "Male"));
+        pets.add(new Pet("C_001", "Whiskers", "Siamese", 3, "Female"));
+        pets.add(new Pet("T_001", "Shelly", "GreenSea", 5, "Female"));
+        pets.add(new Pet("B_001", "Bella", "Beagle", 4, "Female"));
+        pets.add(new Pet("D_002", "Rocky", "Rottweiler", 3, "Male"));
+        pets.add(new Pet("B_002", "Polly", "Parrot", 2, "Female"));
+        pets.add(new Pet("F_001", "Finn", "Goldfish", 1, "Male"));
+        pets.add(new Pet("H_001", "Harry", "Hamster", 2, "Male"));
+        pets.add(new Pet("D_003", "Luna", "Labrador", 3, "Female"));
+        pets.add(new Pet("B_003", "Zoe", "ZebraFinch", 1, "Female"));
+        pets.add(new Pet("L_001", "Gus", "Gecko", 4, "Male"));
+        pets.add(new Pet("B_004", "Kiki", "Cockatiel", 2, "Female"));
+        pets.add(new Pet("C_002", "Mittens", "Persian", 2, "Female"));
+        pets.add(new Pet("D_004", "Buddy", "Golden Retriever", 3, "Male"));
+        pets.add(new Pet("B_005", "Sunny", "Canary", 1, "Male"));
+        pets.add(new Pet("F_002", "Bubbles", "Betta", 1, "Female"));
+        pets.add(new Pet("G_002", "Nibbles", "Guinea Pig", 2, "Female"));
+        pets.add(new Pet("D_005", "Shadow", "German Shepherd", 4, "Male"));
+        pets.add(new Pet("C_003", "Snowball", "Maine Coon", 3, "Female"));
+        pets.add(new Pet("B_006", "Chirpy", "Lovebird", 2, "Male"));
+        pets.add(new Pet("L_002", "Leo", "Chameleon", 3, "Male"));
+        pets.add(new Pet("B_007", "Tweety", "Budgerigar", 1, "Female"));
+        pets.add(new Pet("D_006", "Daisy", "Dalmatian", 5, "Female"));
+        pets.add(new Pet("C_004", "Tiger", "Bengal", 4, "Male"));
+        pets.add(new Pet("T_002", "Speedy", "Snapping Turtle", 6, "Male"));
+        pets.add(new Pet("B_008", "Peaches", "Cockatoo", 3, "Female"));
+        pets.add(new Pet("F_003", "Goldie", "Koi", 2, "Female"));
+        pets.add(new Pet("H_003", "Pip", "Dwarf Hamster", 1, "Male"));
+        pets.add(new Pet("D_007", "Rex", "Doberman", 4, "Male"));
+        pets.add(new Pet("C_005", "Luna", "Russian Blue", 2, "Female"));
+        pets.add(new Pet("B_009", "Sky", "Macaw", 5, "Male"));
+        pets.add(new Pet("L_003", "Spike", "Iguana", 4, "Male"));
+        pets.add(new Pet("B_010", "Coco", "Quaker Parrot", 3, "Female"));
+        pets.add(new Pet("D_008", "Bruno", "Boxer", 3, "Male"));
+        pets.add(new Pet("C_006", "Mochi", "Scottish Fold", 1, "Female"));
+        pets.add(new Pet("T_003", "Tank", "Red-Eared Slider", 7, "Male"));
+        pets.add(new Pet("B_011", "Ruby", "Eclectus Parrot", 4, "Female"));
+        pets.add(new Pet("F_004", "Splash", "Angelfish", 2, "Male"));
+        pets.add(new Pet("H_004", "Fuzzy", "Chinchilla", 3, "Female"));
+        pets.add(new Pet("D_009", "Ace", "Husky", 2, "Male"));
+        pets.add(new Pet("C_007", "Shadow", "Sphynx", 3, "Male"));
+
+        PetStorage.saveAnimals(pets);
+        System.out.println("Initial pets saved to Pets.dat");
+        return PetStorage.loadAnimals();
     }
-    
 
     /**
-     * The main method serves as the entry point for the application.
-     * It initializes default data for pets and customers if no data exists,
-     * and then launches the application.
+     * Loads the customers, saving the default customers first if none are stored.
      *
-     * @param args command-line arguments (not used)
+     * @return the stored customers
      */
-    public static void main(String[] args) {
-        File petFile = new File("Pets.dat");
-        if (!petFile.exists() || PetStorage.loadAnimals().isEmpty()) {
-            List<Pet> pets = new ArrayList<>();
-            pets.add(new Pet("D_001", "Max", "Pitbull", 2, "Male"));
-            pets.add(new Pet("C_001", "Whiskers", "Siamese", 3, "Female"));
-            pets.add(new Pet("T_001", "Shelly", "GreenSea", 5, "Female"));
-            pets.add(new Pet("B_001", "Bella", "Beagle", 4, "Female"));
-            pets.add(new Pet("D_002", "Rocky", "Rottweiler", 3, "Male"));
-            pets.add(new Pet("B_002", "Polly", "Parrot", 2, "Female"));
-            pets.add(new Pet("F_001", "Finn", "Goldfish", 1, "Male"));
-            pets.add(new Pet("H_001", "Harry", "Hamster", 2, "Male"));
-            pets.add(new Pet("D_003", "Luna", "Labrador", 3, "Female"));
-            pets.add(new Pet("B_003", "Zoe", "ZebraFinch", 1, "Female"));
-            pets.add(new Pet("L_001", "Gus", "Gecko", 4, "Male"));
-            pets.add(new Pet("B_004", "Kiki", "Cockatiel", 2, "Female"));
-            pets.add(new Pet("C_002", "Mittens", "Persian", 2, "Female"));
-            pets.add(new Pet("D_004", "Buddy", "Golden Retriever", 3, "Male"));
-            pets.add(new Pet("B_005", "Sunny", "Canary", 1, "Male"));
-            pets.add(new Pet("F_002", "Bubbles", "Betta", 1, "Female"));
-            pets.add(new Pet("G_002", "Nibbles", "Guinea Pig", 2, "Female"));
-            pets.add(new Pet("D_005", "Shadow", "German Shepherd", 4, "Male"));
-            pets.add(new Pet("C_003", "Snowball", "Maine Coon", 3, "Female"));
-            pets.add(new Pet("B_006", "Chirpy", "Lovebird", 2, "Male"));
-            pets.add(new Pet("L_002", "Leo", "Chameleon", 3, "Male"));
-            pets.add(new Pet("B_007", "Tweety", "Budgerigar", 1, "Female"));
-            pets.add(new Pet("D_006", "Daisy", "Dalmatian", 5, "Female"));
-            pets.add(new Pet("C_004", "Tiger", "Bengal", 4, "Male"));
-            pets.add(new Pet("T_002", "Speedy", "Snapping Turtle", 6, "Male"));
-            pets.add(new Pet("B_008", "Peaches", "Cockatoo", 3, "Female"));
-            pets.add(new Pet("F_003", "Goldie", "Koi", 2, "Female"));
-            pets.add(new Pet("H_003", "Pip", "Dwarf Hamster", 1, "Male"));
-            pets.add(new Pet("D_007", "Rex", "Doberman", 4, "Male"));
-            pets.add(new Pet("C_005", "Luna", "Russian Blue", 2, "Female"));
-            pets.add(new Pet("B_009", "Sky", "Macaw", 5, "Male"));
-            pets.add(new Pet("L_003", "Spike", "Iguana", 4, "Male"));
-            pets.add(new Pet("B_010", "Coco", "Quaker Parrot", 3, "Female"));
-            pets.add(new Pet("D_008", "Bruno", "Boxer", 3, "Male"));
-            pets.add(new Pet("C_006", "Mochi", "Scottish Fold", 1, "Female"));
-            pets.add(new Pet("T_003", "Tank", "Red-Eared Slider", 7, "Male"));
-            pets.add(new Pet("B_011", "Ruby", "Eclectus Parrot", 4, "Female"));
-            pets.add(new Pet("F_004", "Splash", "Angelfish", 2, "Male"));
-            pets.add(new Pet("H_004", "Fuzzy", "Chinchilla", 3, "Female"));
-            pets.add(new Pet("D_009", "Ace", "Husky", 2, "Male"));
-            pets.add(new Pet("C_007", "Shadow", "Sphynx", 3, "Male"));
-    
-            PetStorage.saveAnimals(pets);
-            System.out.println("Initial pets saved to Pets.dat");
+    private static List<Customer> loadCustomers() {
+        List<Customer> stored = CustomerStorage.loadCustomers();
+        if (!stored.isEmpty()) {
+            return stored;
         }
 
-    File customerFile = new File("customers.dat");
-    if (!customerFile.exists() || CustomerStorage.loadCustomers().isEmpty()) {
         List<Customer> defaultCustomers = new ArrayList<>();
         defaultCustomers.add(new Customer("CUST001", "Alice", "Female" , "123 Street", "alice@example.com" , "1234567", 2000, "12345" , "Alice" ));
         defaultCustomers.add(new Customer("CUST002", "Bob", "Male", "456 Avenue", "bob@example.com", "2345678", 1995, "54321", "Bob"));
@@ -204,10 +233,44 @@ public class PetManagerApp {
         defaultCustomers.add(new Customer("CUST011", "Karen", "Female", "808 Way", "karen@example.com", "1234567", 1991, "44556", "Karen"));
         CustomerStorage.saveCustomers(defaultCustomers);
         System.out.println("Initial customers saved to customers.dat");
+        return CustomerStorage.loadCustomers();
+    }
+
+    /**
+     * Runs a startup load on a virtual thread and records how long it took.
+     *
+     * @param name the name the time is recorded under
+     * @param loader the load to run
+     * @param <T> the type of the loaded data
+     * @return a future that completes with the loaded data
+     */
+    private static <T> CompletableFuture<T> loadTimed(String name, Callable<T> loader) {
+        return TaskRunner.supply(() -> {
+            long begin = System.nanoTime();
+            T result = loader.call();
+            startupNanos.put(name, System.nanoTime() - begin);
+            return result;
+        });
+    }
+
+    /**
+     * Runs an action on the event dispatch thread and waits for it to finish.
+     *
+     * @param action the action to run
+     */
+    private static void onEventDispatchThread(Runnable action) {
+        try {
+            SwingUtilities.invokeAndWait(action);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String millis(long nanos) {
+        return (nanos / 1_000_000) + " ms";
     }
-    
-    new PetManagerApp();
-}
 
     /**
      * Styles a button with a consistent appearance, including font, background color, and foreground color.
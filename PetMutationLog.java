@@ -0,0 +1,266 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code PetMutationLog} class is an append-only log of single-pet changes that sits next to the
+ * {@code Pets.dat} snapshot. Each change is written as one small sequential record instead of rewriting
+ * the whole catalog, and the log is replayed on top of the snapshot when pets are loaded.
+ *
+ * <p>Every record is framed as {@code [length][crc32][op][payload]} so that a record torn by a crash
+ * is detected and ignored during replay. Replay is idempotent (adds and updates are upserts by pet ID),
+ * which makes it safe to replay a log against a snapshot that already contains some of its changes.</p>
+ *
+ * <p>While a new snapshot is being written in the background, the log is rotated: the records the snapshot
+ * will contain move to a {@code .1} file that is deleted once the snapshot is in place, and new changes go to
+ * a fresh log. Replay reads the rotated file before the current one.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Appending add, update, remove, and adopt records</li>
+ *   <li>Replaying the log on top of a loaded snapshot</li>
+ *   <li>Tracking how many records have accumulated since the last snapshot</li>
+ *   <li>Rotating the log while a new snapshot is written, and truncating it afterwards</li>
+ * </ul>
+ */
+public class PetMutationLog {
+
+    static final byte OP_ADD = 1;
+    static final byte OP_UPDATE = 2;
+    static final byte OP_REMOVE = 3;
+    static final byte OP_ADOPT = 4;
+
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private final File file;
+    private final File rotated;
+    private int recordCount = -1;
+
+    /**
+     * Constructs a new {@code PetMutationLog} backed by the given file.
+     *
+     * @param fileName the name of the log file
+     */
+    public PetMutationLog(String fileName) {
+        this.file = new File(fileName);
+        this.rotated = new File(fileName + ".1");
+    }
+
+    /**
+     * Appends a record for the given operation and pet to the end of the log.
+     *
+     * @param op one of {@code OP_ADD}, {@code OP_UPDATE}, {@code OP_REMOVE} or {@code OP_ADOPT}
+     * @param pet the pet the operation applies to
+     */
+    public synchronized void append(byte op, Pet pet) {
+        int existing = getRecordCount();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream payload = new DataOutputStream(bytes)) {
+            payload.writeByte(op);
+            payload.writeUTF(pet.getId());
+            switch (op) {
+                case OP_ADD, OP_UPDATE -> {
+                    payload.writeUTF(pet.getName());
+                    payload.writeUTF(pet.getBreed());
+                    payload.writeInt(pet.getAge());
+                    payload.writeUTF(pet.getGender());
+                    payload.writeBoolean(pet.getAdoptionStat());
+                }
+                case OP_ADOPT -> payload.writeBoolean(pet.getAdoptionStat());
+                default -> { }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            out.writeInt(record.length);
+            out.writeInt((int) crc.getValue());
+            out.write(record);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        recordCount = existing + 1;
+    }
+
+    /**
+     * Replays every complete record in the log on top of the given pets, keyed by pet ID.
+     * Replay stops at the first truncated or corrupt record.
+     *
+     * @param pets the snapshot contents, keyed by pet ID in catalog order; updated in place
+     * @return the number of records that were applied
+     */
+    public synchronized int replay(LinkedHashMap<String, Pet> pets) {
+        int applied = replay(rotated, pets);
+        int current = replay(file, pets);
+        recordCount = current;
+        return applied + current;
+    }
+
+    private int replay(File file, LinkedHashMap<String, Pet> pets) {
+        int applied = 0;
+        long validLength = 0;
+        if (!file.exists()) {
+            return 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException eof) {
+                    break;
+                }
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(record, pets);
+                applied++;
+                validLength += 8 + length;
+            }
+        } catch (EOFException e) {
+            // A partially written record at the tail is expected after a crash and is ignored.
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        dropTornTail(file, validLength);
+        return applied;
+    }
+
+    private void apply(byte[] record, Map<String, Pet> pets) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte op = in.readByte();
+        String id = in.readUTF();
+        switch (op) {
+            case OP_ADD, OP_UPDATE -> {
+                Pet pet = new Pet(id, in.readUTF(), in.readUTF(), in.readInt(), in.readUTF());
+                pet.setAdoptionStat(in.readBoolean());
+                pets.put(id, pet);
+            }
+            case OP_REMOVE -> pets.remove(id);
+            case OP_ADOPT -> {
+                Pet pet = pets.get(id);
+                boolean adopted = in.readBoolean();
+                if (pet != null) {
+                    pet.setAdoptionStat(adopted);
+                }
+            }
+            default -> throw new IOException("Unknown log operation: " + op);
+        }
+    }
+
+    /**
+     * Gets the number of records appended since the log was last truncated.
+     * The first call walks the record headers of an existing log file to establish the count.
+     *
+     * @return the number of records in the log
+     */
+    public synchronized int getRecordCount() {
+        if (recordCount < 0) {
+            recordCount = countRecords();
+        }
+        return recordCount;
+    }
+
+    private int countRecords() {
+        int count = 0;
+        long validLength = 0;
+        if (!file.exists()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length = in.readInt();
+                in.readInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH || in.skipBytes(length) < length) {
+                    break;
+                }
+                count++;
+                validLength += 8 + length;
+            }
+        } catch (EOFException e) {
+            // End of log reached.
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        dropTornTail(file, validLength);
+        return count;
+    }
+
+    /**
+     * Cuts a partially written record off the end of the log so that later appends are not hidden behind it.
+     *
+     * @param file the log file
+     * @param validLength the length of the log up to the end of the last complete record
+     */
+    private void dropTornTail(File file, long validLength) {
+        if (file.length() <= validLength) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(validLength);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Moves the current records to the rotated file and starts a fresh log. Called when a snapshot that will
+     * contain every logged change is about to be written. If an earlier rotated file was never cleared because
+     * its snapshot failed, the current records are appended to it.
+     */
+    public synchronized void rotate() {
+        try {
+            if (file.exists()) {
+                if (rotated.exists()) {
+                    Files.write(rotated.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+                    Files.delete(file.toPath());
+                } else {
+                    Files.move(file.toPath(), rotated.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            recordCount = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rotate " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Deletes the rotated records. Called once the snapshot that contains them is in place.
+     */
+    public synchronized void clearRotated() {
+        if (rotated.exists() && !rotated.delete()) {
+            System.err.println("Could not delete " + rotated.getName());
+        }
+    }
+
+    /**
+     * Gets the files the log is stored in, for detecting changes made outside this process.
+     *
+     * @return the rotated and the current log file
+     */
+    public File[] getFiles() {
+        return new File[]{rotated, file};
+    }
+}
@@ -0,0 +1,270 @@
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The {@code PetQuery} class describes which pets a pet table shows and in which order: any combination of a
+ * species, breed, gender, adoption status, and age range, followed by a sort order. A query is evaluated by
+ * {@link PetStorage#viewAnimals} into a {@link PetView}.
+ *
+ * <p>Queries are immutable. Each {@code with} method returns a new query with one criterion changed, so filters
+ * picked one after another add up: filtering by breed and then by gender shows the pets of that breed and that
+ * gender. Text criteria are matched without regard to case, and two queries that select the same pets in the
+ * same order are equal, so they can be used as keys for cached results.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Combining filters on species, breed, gender, adoption status, and age</li>
+ *   <li>Choosing the order of the selected pets</li>
+ *   <li>Describing the active filters for display</li>
+ * </ul>
+ */
+public final class PetQuery {
+
+    /**
+     * The order in which a query returns the selected pets.
+     */
+    public enum Order {
+        /** The order the pets were added to the catalog in. */
+        CATALOG,
+        /** Youngest first; pets of the same age keep their catalog order. */
+        AGE,
+        /** By ID, ignoring case. */
+        ID
+    }
+
+    private static final PetQuery ALL = new PetQuery(null, null, null, null, 0, Integer.MAX_VALUE, Order.CATALOG);
+
+    private final String species;
+    private final String breed;
+    private final String gender;
+    private final Boolean adopted;
+    private final int minAge;
+    private final int maxAge;
+    private final Order order;
+
+    private PetQuery(String species, String breed, String gender, Boolean adopted, int minAge, int maxAge, Order order) {
+        this.species = species;
+        this.breed = breed;
+        this.gender = gender;
+        this.adopted = adopted;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.order = order;
+    }
+
+    /**
+     * Gets the query that selects every pet in catalog order.
+     *
+     * @return the unfiltered, unsorted query
+     */
+    public static PetQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Returns a query that also requires the given species, such as {@code "Dog"}.
+     *
+     * @param species the species, or {@code null} or empty to allow any species
+     * @return the new query
+     */
+    public PetQuery withSpecies(String species) {
+        return new PetQuery(normalize(species), breed, gender, adopted, minAge, maxAge, order);
+    }
+
+    /**
+     * Returns a query that also requires the given breed.
+     *
+     * @param breed the breed, or {@code null} or empty to allow any breed
+     * @return the new query
+     */
+    public PetQuery withBreed(String breed) {
+        return new PetQuery(species, normalize(breed), gender, adopted, minAge, maxAge, order);
+    }
+
+    /**
+     * Returns a query that also requires the given gender.
+     *
+     * @param gender the gender, or {@code null} or empty to allow any gender
+     * @return the new query
+     */
+    public PetQuery withGender(String gender) {
+        return new PetQuery(species, breed, normalize(gender), adopted, minAge, maxAge, order);
+    }
+
+    /**
+     * Returns a query that also requires the given adoption status.
+     *
+     * @param adopted {@code true} for adopted pets, {@code false} for available pets, or {@code null} for both
+     * @return the new query
+     */
+    public PetQuery withAdopted(Boolean adopted) {
+        return new PetQuery(species, breed, gender, adopted, minAge, maxAge, order);
+    }
+
+    /**
+     * Returns a query that also requires an age within the given range.
+     *
+     * @param minAge the lowest age allowed
+     * @param maxAge the highest age allowed
+     * @return the new query
+     * @throws IllegalArgumentException if {@code minAge} is greater than {@code maxAge}
+     */
+    public PetQuery withAgeRange(int minAge, int maxAge) {
+        if (minAge > maxAge) {
+            throw new IllegalArgumentException("The lowest age must not be greater than the highest age.");
+        }
+        return new PetQuery(species, breed, gender, adopted, Math.max(0, minAge), maxAge, order);
+    }
+
+    /**
+     * Returns a query that selects the same pets in the given order.
+     *
+     * @param order the order
+     * @return the new query
+     */
+    public PetQuery sortedBy(Order order) {
+        return new PetQuery(species, breed, gender, adopted, minAge, maxAge, Objects.requireNonNull(order));
+    }
+
+    /**
+     * Returns a query that selects the same pets in catalog order.
+     *
+     * @return the new query
+     */
+    public PetQuery unsorted() {
+        return order == Order.CATALOG ? this : sortedBy(Order.CATALOG);
+    }
+
+    /**
+     * Tells whether the query selects fewer than all pets or changes their order.
+     *
+     * @return {@code false} if the query is equal to {@link #all()}
+     */
+    public boolean isRestricted() {
+        return !equals(ALL);
+    }
+
+    /**
+     * Tells whether the query has an age criterion.
+     *
+     * @return {@code true} if some ages are excluded
+     */
+    public boolean hasAgeRange() {
+        return minAge > 0 || maxAge < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Tells whether a pet of the given age is within the query's age range.
+     *
+     * @param age the age
+     * @return {@code true} if the age is allowed
+     */
+    public boolean allowsAge(int age) {
+        return age >= minAge && age <= maxAge;
+    }
+
+    /**
+     * Gets the required species.
+     *
+     * @return the required species, lowercased, or {@code null} if any species is allowed
+     */
+    public String getSpecies() {
+        return species;
+    }
+
+    /**
+     * Gets the required breed.
+     *
+     * @return the required breed, lowercased, or {@code null} if any breed is allowed
+     */
+    public String getBreed() {
+        return breed;
+    }
+
+    /**
+     * Gets the required gender.
+     *
+     * @return the required gender, lowercased, or {@code null} if any gender is allowed
+     */
+    public String getGender() {
+        return gender;
+    }
+
+    /**
+     * Gets the required adoption status.
+     *
+     * @return the required adoption status, or {@code null} if both are allowed
+     */
+    public Boolean getAdopted() {
+        return adopted;
+    }
+
+    /**
+     * Gets the lowest age allowed.
+     *
+     * @return the lowest age allowed
+     */
+    public int getMinAge() {
+        return minAge;
+    }
+
+    /**
+     * Gets the highest age allowed.
+     *
+     * @return the highest age allowed
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Gets the order of the selected pets.
+     *
+     * @return the order of the selected pets
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PetQuery)) {
+            return false;
+        }
+        PetQuery query = (PetQuery) other;
+        return minAge == query.minAge && maxAge == query.maxAge && order == query.order
+                && Objects.equals(species, query.species) && Objects.equals(breed, query.breed)
+                && Objects.equals(gender, query.gender) && Objects.equals(adopted, query.adopted);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(species, breed, gender, adopted, minAge, maxAge, order);
+    }
+
+    /**
+     * Describes the active filters and order, such as {@code "breed labrador, age 2-5, sorted by age"}.
+     *
+     * @return the description, or {@code "all pets"} for an unrestricted query
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (species != null) sb.append(", species ").append(species);
+        if (breed != null) sb.append(", breed ").append(breed);
+        if (gender != null) sb.append(", gender ").append(gender);
+        if (adopted != null) sb.append(adopted ? ", adopted" : ", not adopted");
+        if (hasAgeRange()) {
+            sb.append(", age ").append(minAge).append('-').append(maxAge == Integer.MAX_VALUE ? "" : String.valueOf(maxAge));
+        }
+        if (order != Order.CATALOG) sb.append(", sorted by ").append(order.name().toLowerCase(Locale.ROOT));
+        return sb.length() == 0 ? "all pets" : sb.substring(2);
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,377 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The {@code PetRecordFile} class stores the pet catalog as fixed-width binary records in a memory-mapped file.
+ * Because every record has the same size and layout, a single field of a single pet can be changed in place
+ * (for example, flipping the adoption status is a one-byte write) and records can be decoded one at a time
+ * without Java deserialization.
+ *
+ * <p>The file starts with a {@value #HEADER_SIZE}-byte header (magic, version, record size, record count)
+ * followed by densely packed records of {@value #RECORD_SIZE} bytes. Text fields are stored as UTF-8 with a
+ * one-byte length prefix and must fit in their slot. Removing a pet moves the last record into the freed slot
+ * so that the records stay contiguous.</p>
+ *
+ * <p>This is the {@link RecordStore} engine used for pets in binary storage mode.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Writing a full catalog to a record file</li>
+ *   <li>Reading individual records lazily by slot or by pet ID</li>
+ *   <li>Appending, updating, and removing single records</li>
+ *   <li>Persisting an adoption status change as a single-byte write</li>
+ * </ul>
+ */
+public class PetRecordFile implements RecordStore<Pet> {
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 128;
+
+    private static final int MAGIC = 0x50455452; // "PETR"
+    private static final short VERSION = 1;
+
+    private static final int ADOPTED_OFFSET = 0;
+    private static final int AGE_OFFSET = 1;
+    private static final int ID_OFFSET = 5;
+    private static final int ID_LENGTH = 16;
+    private static final int GENDER_OFFSET = ID_OFFSET + ID_LENGTH;
+    private static final int GENDER_LENGTH = 11;
+    private static final int NAME_OFFSET = GENDER_OFFSET + GENDER_LENGTH;
+    private static final int NAME_LENGTH = 48;
+    private static final int BREED_OFFSET = NAME_OFFSET + NAME_LENGTH;
+    private static final int BREED_LENGTH = RECORD_SIZE - BREED_OFFSET;
+
+    private final File file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int count;
+    private Map<String, Integer> slotsById;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    private PetRecordFile(File file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        long length = channel.size();
+        if (length < HEADER_SIZE) {
+            map(HEADER_SIZE + 64L * RECORD_SIZE);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, VERSION);
+            buffer.putShort(6, (short) RECORD_SIZE);
+            writeCount(0);
+        } else {
+            map(length);
+            if (buffer.getInt(0) != MAGIC || buffer.getShort(6) != RECORD_SIZE) {
+                throw new IOException("Not a pet record file");
+            }
+            count = buffer.getInt(8);
+        }
+    }
+
+    /**
+     * Opens a record file, creating an empty one if it does not exist.
+     *
+     * @param file the record file
+     * @return the opened {@code PetRecordFile}
+     * @throws IOException if the file cannot be opened or is not a pet record file
+     */
+    public static PetRecordFile open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new PetRecordFile(file, channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the contents of the record file with the given pets.
+     *
+     * @param pets the pets to write
+     */
+    @Override
+    public synchronized void saveAll(List<Pet> pets) {
+        // Every pet is checked before the first record is overwritten, so a pet that does not fit leaves the
+        // file as it was
+        for (Pet pet : pets) {
+            encode(pet);
+        }
+        ensureCapacity(pets.size());
+        for (int slot = 0; slot < pets.size(); slot++) {
+            encode(slot, pets.get(slot));
+        }
+        writeCount(pets.size());
+        slotsById = null;
+        buffer.force();
+    }
+
+    /**
+     * Decodes every record.
+     *
+     * @return a new list holding all stored pets
+     */
+    @Override
+    public synchronized List<Pet> loadAll() {
+        List<Pet> pets = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            pets.add(get(slot));
+        }
+        return pets;
+    }
+
+    @Override
+    public synchronized void forEach(Consumer<? super Pet> action) {
+        for (int slot = 0; slot < count; slot++) {
+            action.accept(get(slot));
+        }
+    }
+
+    /**
+     * Gets the number of pets stored in the file.
+     *
+     * @return the number of records
+     */
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Decodes the pet stored in the given slot.
+     *
+     * @param slot the record slot, from {@code 0} to {@code size() - 1}
+     * @return a new {@code Pet} holding the record's values
+     */
+    public synchronized Pet get(int slot) {
+        if (slot < 0 || slot >= count) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " of " + count);
+        }
+        int base = offset(slot);
+        Pet pet = new Pet(readString(base + ID_OFFSET), readString(base + NAME_OFFSET),
+                readString(base + BREED_OFFSET), buffer.getInt(base + AGE_OFFSET), readString(base + GENDER_OFFSET));
+        pet.setAdoptionStat(buffer.get(base + ADOPTED_OFFSET) != 0);
+        return pet;
+    }
+
+    /**
+     * Decodes the pets in the given slots only, without reading the rest of the file.
+     *
+     * @param offset the first slot
+     * @param count the maximum number of pets to decode
+     * @return a new list holding the pets from slot {@code offset}
+     */
+    @Override
+    public synchronized List<Pet> loadRange(int offset, int count) {
+        int from = Math.min(Math.max(0, offset), this.count);
+        int to = (int) Math.min(this.count, (long) from + Math.max(0, count));
+        List<Pet> pets = new ArrayList<>(to - from);
+        for (int slot = from; slot < to; slot++) {
+            pets.add(get(slot));
+        }
+        return pets;
+    }
+
+    /**
+     * Finds the pet with the given ID.
+     *
+     * @param id the pet ID
+     * @return the decoded {@code Pet}, or {@code null} if no record has that ID
+     */
+    @Override
+    public synchronized Pet get(String id) {
+        Integer slot = slots().get(id);
+        return slot == null ? null : get(slot);
+    }
+
+    /**
+     * Returns a read-only list view that decodes each record only when it is accessed.
+     *
+     * @return a lazy {@code List<Pet>} backed by this file
+     */
+    public List<Pet> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Pet get(int index) {
+                return PetRecordFile.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return PetRecordFile.this.size();
+            }
+        };
+    }
+
+    /**
+     * Writes the pet into the slot of the record with the same ID, or appends it if there is none.
+     *
+     * @param pet the pet to store
+     */
+    @Override
+    public synchronized void put(Pet pet) {
+        Integer slot = slots().get(pet.getId());
+        if (slot == null) {
+            slot = count;
+            ensureCapacity(count + 1);
+            encode(slot, pet);
+            slotsById.put(pet.getId(), slot);
+            writeCount(count + 1);
+            buffer.force(0, HEADER_SIZE);
+        } else {
+            encode(slot, pet);
+        }
+        buffer.force(offset(slot), RECORD_SIZE);
+    }
+
+    /**
+     * Updates the adoption status of a pet in place with a single-byte write.
+     *
+     * @param id the pet ID
+     * @param adopted the new adoption status
+     * @return {@code true} if a record with that ID exists, {@code false} otherwise
+     */
+    public synchronized boolean setAdopted(String id, boolean adopted) {
+        Integer slot = slots().get(id);
+        if (slot == null) {
+            return false;
+        }
+        int index = offset(slot) + ADOPTED_OFFSET;
+        buffer.put(index, (byte) (adopted ? 1 : 0));
+        buffer.force(index, 1);
+        return true;
+    }
+
+    /**
+     * Removes the pet with the given ID by moving the last record into its slot.
+     *
+     * @param id the pet ID
+     * @return {@code true} if a record was removed, {@code false} otherwise
+     */
+    @Override
+    public synchronized boolean remove(String id) {
+        Integer slot = slots().remove(id);
+        if (slot == null) {
+            return false;
+        }
+        int last = count - 1;
+        if (slot != last) {
+            byte[] moved = new byte[RECORD_SIZE];
+            buffer.get(offset(last), moved);
+            buffer.put(offset(slot), moved);
+            slotsById.put(readString(offset(slot) + ID_OFFSET), slot);
+            buffer.force(offset(slot), RECORD_SIZE);
+        }
+        writeCount(last);
+        buffer.force(0, HEADER_SIZE);
+        return true;
+    }
+
+    @Override
+    public boolean supportsPointWrites() {
+        return true;
+    }
+
+    @Override
+    public File[] getFiles() {
+        return new File[]{file};
+    }
+
+    /**
+     * Releases the mapping's file handle.
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private Map<String, Integer> slots() {
+        if (slotsById == null) {
+            slotsById = new HashMap<>(Math.max(16, count * 2));
+            for (int slot = 0; slot < count; slot++) {
+                slotsById.put(readString(offset(slot) + ID_OFFSET), slot);
+            }
+        }
+        return slotsById;
+    }
+
+    /**
+     * Writes a pet into a slot with a single copy of its encoded record, so a pet that does not fit never leaves
+     * a half-written record behind.
+     */
+    private void encode(int slot, Pet pet) {
+        buffer.put(offset(slot), encode(pet).array(), 0, RECORD_SIZE);
+    }
+
+    /**
+     * Encodes a pet into the scratch record.
+     *
+     * @throws IllegalArgumentException if a text field does not fit in its slot
+     */
+    private ByteBuffer encode(Pet pet) {
+        Arrays.fill(record.array(), (byte) 0);
+        record.put(ADOPTED_OFFSET, (byte) (pet.getAdoptionStat() ? 1 : 0));
+        record.putInt(AGE_OFFSET, pet.getAge());
+        writeString(ID_OFFSET, ID_LENGTH, pet.getId(), "ID");
+        writeString(GENDER_OFFSET, GENDER_LENGTH, pet.getGender(), "gender");
+        writeString(NAME_OFFSET, NAME_LENGTH, pet.getName(), "name");
+        writeString(BREED_OFFSET, BREED_LENGTH, pet.getBreed(), "breed");
+        return record;
+    }
+
+    private void writeString(int index, int width, String value, String field) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > width - 1) {
+            throw new IllegalArgumentException("Pet " + field + " \"" + value + "\" is longer than "
+                    + (width - 1) + " bytes and does not fit in a binary record");
+        }
+        record.put(index, (byte) bytes.length);
+        record.put(index + 1, bytes);
+    }
+
+    private String readString(int index) {
+        int length = buffer.get(index) & 0xFF;
+        byte[] bytes = new byte[length];
+        buffer.get(index + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeCount(int newCount) {
+        count = newCount;
+        buffer.putInt(8, newCount);
+    }
+
+    private void ensureCapacity(int records) {
+        long needed = offset(records);
+        if (needed > buffer.capacity()) {
+            try {
+                map(Math.max(needed, buffer.capacity() * 2L));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not grow pet record file", e);
+            }
+        }
+    }
+
+    private void map(long length) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,332 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The {@code PetSearchIndex} class answers type-ahead searches over pet names and breeds for the
+ * {@link PetBitmapIndex}, which keeps it in step with the pets it indexes and shares its slot numbers.
+ *
+ * <p>Names and breeds are normalized (lowercased, accents removed) and split into words. Each distinct word is a
+ * term in a sorted dictionary that lists the slots of the pets using it, so the words starting with what has been
+ * typed so far form one contiguous range of the dictionary, like a subtree of a trie. A query of several words
+ * matches the pets that have a word starting with each of them.</p>
+ *
+ * <p>Matches are ranked by how much of the word has been typed: exact words first, then shorter completions
+ * before longer ones, and name matches before breed matches for the same word. Ranking stops as soon as the
+ * requested number of matches has been found, so a keystroke costs time in proportion to the number of matching
+ * dictionary words and results, not to the number of pets.</p>
+ *
+ * <p>Changing or removing a pet leaves its old entries in the slot lists; they are skipped during searches and
+ * dropped once they outnumber the live entries.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Indexing, re-indexing, and removing the name and breed of a slot</li>
+ *   <li>Finding the best-ranked slots whose words start with the words of a query</li>
+ * </ul>
+ */
+public class PetSearchIndex {
+
+    private static final int SMALL_RESULT = 64;
+
+    private final Map<String, Term> byWord = new HashMap<>();
+    private final TreeMap<String, Term> terms = new TreeMap<>();
+    private final List<Term[]> names = new ArrayList<>();
+    private final List<Term[]> breeds = new ArrayList<>();
+    private long liveEntries;
+    private long staleEntries;
+
+    /**
+     * A dictionary word and the slots whose names and whose breeds it was indexed for. A slot stays in a list
+     * after the pet stops using the word, so every entry is checked against the slot's current words.
+     */
+    private static class Term {
+        final String word;
+        final Postings names = new Postings();
+        final Postings breeds = new Postings();
+
+        Term(String word) {
+            this.word = word;
+        }
+
+        int size() {
+            return names.size + breeds.size;
+        }
+    }
+
+    /**
+     * A growable list of slot numbers.
+     */
+    private static class Postings {
+        int[] slots = new int[2];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    /**
+     * Indexes the name and breed of a slot, replacing what was indexed for it before.
+     *
+     * @param slot the slot number
+     * @param name the pet's name
+     * @param breed the pet's breed
+     */
+    public void set(int slot, String name, String breed) {
+        while (names.size() <= slot) {
+            names.add(null);
+            breeds.add(null);
+        }
+        Term[] oldName = names.get(slot);
+        Term[] oldBreed = breeds.get(slot);
+        Term[] newName = terms(name);
+        Term[] newBreed = terms(breed);
+        names.set(slot, newName);
+        breeds.set(slot, newBreed);
+        link(newName, oldName, slot, true);
+        link(newBreed, oldBreed, slot, false);
+        unlink(oldName, newName);
+        unlink(oldBreed, newBreed);
+        compactIfStale();
+    }
+
+    /**
+     * Removes a slot from the index.
+     *
+     * @param slot the slot number
+     */
+    public void clear(int slot) {
+        if (slot >= names.size() || names.get(slot) == null) {
+            return;
+        }
+        Term[] oldName = names.get(slot);
+        Term[] oldBreed = breeds.get(slot);
+        names.set(slot, null);
+        breeds.set(slot, null);
+        unlink(oldName, null);
+        unlink(oldBreed, null);
+        compactIfStale();
+    }
+
+    /**
+     * Finds the slots whose name or breed has a word starting with each word of the query, best matches first.
+     * An empty query matches nothing.
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of slots to return
+     * @return the matching slots, in rank order
+     */
+    public int[] search(String query, int limit) {
+        String[] words = words(query);
+        if (words.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        // Drive the search with the query word that has the fewest candidate entries.
+        List<Term> driver = null;
+        long driverSize = Long.MAX_VALUE;
+        int driverWord = -1;
+        for (int i = 0; i < words.length; i++) {
+            List<Term> completions = completions(words[i]);
+            long size = 0;
+            for (Term term : completions) {
+                size += term.size();
+            }
+            if (size < driverSize) {
+                driver = completions;
+                driverSize = size;
+                driverWord = i;
+            }
+        }
+        if (driverSize == 0) {
+            return new int[0];
+        }
+        driver.sort(Comparator.comparingInt((Term term) -> term.word.length()).thenComparing(term -> term.word));
+
+        int[] found = new int[Math.min(limit, SMALL_RESULT)];
+        int count = 0;
+        Set<Integer> seen = null;
+        for (Term term : driver) {
+            // Name matches of this word rank before breed matches of it.
+            for (int pass = 0; pass < 2 && count < limit; pass++) {
+                Postings postings = pass == 0 ? term.names : term.breeds;
+                for (int i = 0; i < postings.size && count < limit; i++) {
+                    int slot = postings.slots[i];
+                    Term[] field = pass == 0 ? names.get(slot) : breeds.get(slot);
+                    if (contains(field, term) && !(pass == 1 && contains(names.get(slot), term))
+                            && matchesOthers(slot, words, driverWord)
+                            && (seen != null ? seen.add(slot) : !contains(found, count, slot))) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, (int) Math.min(limit, 2L * count));
+                        }
+                        found[count++] = slot;
+                        if (seen == null && count == SMALL_RESULT) {
+                            seen = new HashSet<>();
+                            for (int j = 0; j < count; j++) {
+                                seen.add(found[j]);
+                            }
+                        }
+                    }
+                }
+            }
+            if (count == limit) {
+                break;
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Splits a name or breed into normalized words.
+     *
+     * @param text the text
+     * @return the words, lowercased and without accents
+     */
+    static String[] words(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        String normalized = text;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7f) {
+                normalized = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+                break;
+            }
+        }
+        List<String> words = new ArrayList<>(2);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(normalized.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private boolean matchesOthers(int slot, String[] words, int skip) {
+        for (int i = 0; i < words.length; i++) {
+            if (i != skip && !startsAny(names.get(slot), words[i]) && !startsAny(breeds.get(slot), words[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Term> completions(String prefix) {
+        NavigableMap<String, Term> range = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        return new ArrayList<>(range.values());
+    }
+
+    private Term[] terms(String text) {
+        String[] words = words(text);
+        Term[] result = new Term[words.length];
+        int count = 0;
+        for (String word : words) {
+            Term term = byWord.get(word);
+            if (term == null) {
+                term = new Term(word);
+                byWord.put(word, term);
+                terms.put(word, term);
+            }
+            if (!contains(result, count, term)) {
+                result[count++] = term;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private void link(Term[] field, Term[] old, int slot, boolean name) {
+        for (Term term : field) {
+            if (!contains(old, term)) {
+                (name ? term.names : term.breeds).add(slot);
+                liveEntries++;
+            }
+        }
+    }
+
+    private void unlink(Term[] old, Term[] field) {
+        if (old == null) {
+            return;
+        }
+        for (Term term : old) {
+            if (!contains(field, term)) {
+                liveEntries--;
+                staleEntries++;
+            }
+        }
+    }
+
+    private void compactIfStale() {
+        if (staleEntries < 1024 || staleEntries < liveEntries) {
+            return;
+        }
+        for (Term term : terms.values()) {
+            term.names.size = 0;
+            term.breeds.size = 0;
+        }
+        for (int slot = 0; slot < names.size(); slot++) {
+            if (names.get(slot) == null) {
+                continue;
+            }
+            for (Term term : names.get(slot)) {
+                term.names.add(slot);
+            }
+            for (Term term : breeds.get(slot)) {
+                term.breeds.add(slot);
+            }
+        }
+        terms.values().removeIf(term -> term.size() == 0);
+        byWord.values().removeIf(term -> term.size() == 0);
+        staleEntries = 0;
+    }
+
+    private static boolean startsAny(Term[] field, String prefix) {
+        if (field != null) {
+            for (Term term : field) {
+                if (term.word.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(Term[] field, Term term) {
+        return field != null && contains(field, field.length, term);
+    }
+
+    private static boolean contains(Term[] field, int length, Term term) {
+        for (int i = 0; i < length; i++) {
+            if (field[i] == term) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] slots, int length, int slot) {
+        for (int i = 0; i < length; i++) {
+            if (slots[i] == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
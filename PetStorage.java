@@ -1,54 +1,198 @@
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The {@code PetStorage} class is responsible for handling the storage and retrieval of pet data
  * in the pet adoption system. It provides methods to save, load, add, and remove pets using file-based storage.
- * 
- * <p>This class uses serialization to persist pet data to a file and retrieve it when needed.</p>
- * 
+ *
+ * <p>This class uses serialization to persist a snapshot of the pet list to a file. Changes to a single pet
+ * are appended to a {@link PetMutationLog} instead of rewriting the snapshot, and the log is folded into a
+ * new snapshot once it grows past {@code CHECKPOINT_INTERVAL} records. Snapshots are written by the
+ * {@link StorageWriter} thread, so saving never blocks the caller on a full rewrite of the file.</p>
+ *
+ * <p>Other {@link RecordStore} engines write single-pet changes directly to the store. When started with
+ * {@code -Dpetmanager.storage=binary}, pets are kept as fixed-width records in a memory-mapped
+ * {@link PetRecordFile}; with {@code -Dpetmanager.storage=btree} they are kept in a {@link BTreeStore} keyed
+ * by pet ID. An existing {@code Pets.dat} and its log are imported the first time such a store is opened.</p>
+ *
+ * <p>Loaded pets are kept in the {@link StorageCache}, so repeated loads do not touch the disk until the
+ * files change. A {@link PetBitmapIndex} over the cached pets is kept alongside them and updated with every
+ * single-pet change, so the catalog can be filtered by species, breed, gender, and adoption status without
+ * scanning it, and searched by the words of their names and breeds as they are typed. The index also locates
+ * each pet in the cached list, so applying a single-pet change takes constant time however many pets are
+ * stored; a removed pet's place in the list is taken by the last pet.</p>
+ *
+ * <p>Every single-pet change is published to {@link StorageEvents} once it is in the cache, so open tables can
+ * update the pet's row. Saving a whole list publishes nothing.</p>
+ *
  * <p>Key functionalities include:</p>
  * <ul>
  *   <li>Saving the list of pets to a file</li>
  *   <li>Loading the list of pets from a file</li>
  *   <li>Adding a new pet to the storage</li>
- *   <li>Removing a pet from the storage</li>
+ *   <li>Updating or removing a pet in the storage</li>
  *   <li>Loading only pets that are available for adoption</li>
+ *   <li>Loading one page of pets at a time for paged tables</li>
+ *   <li>Filtering pets by species, breed, gender, and adoption status</li>
+ *   <li>Searching pets by name and breed for type-ahead</li>
+ *   <li>Assigning new pet IDs from an {@link IdSequence} per ID prefix</li>
+ *   <li>Publishing each single-pet change to {@link StorageEvents}</li>
  * </ul>
  */
 public class PetStorage {
 
     private static final String FILE_NAME = "Pets.dat";
+    private static final String LOG_FILE_NAME = "Pets.log";
+    private static final String RECORD_FILE_NAME = "Pets.rec";
+    private static final int CHECKPOINT_INTERVAL = 500;
+    private static final String CACHE_KEY = "pets";
+
+    private static final SerializedFileStore<Pet> snapshots = new SerializedFileStore<>(FILE_NAME, Pet::getId, BinaryCodec.PETS);
+    private static final PetMutationLog log = new PetMutationLog(LOG_FILE_NAME);
+    private static RecordStore<Pet> store;
 
     /**
-     * Saves the list of pets to the storage file.
+     * Saves the list of pets as a new snapshot. The list becomes the cached pet list immediately; the snapshot
+     * is written in the background and the mutation log is cleared once it is in place. With a store that
+     * supports point writes the records are written before this method returns.
      *
      * @param animals the {@code List<Pet>} to be saved
+     * @return a future that completes when the snapshot is on disk
      */
-    public static void saveAnimals(List<Pet> animals) {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-            out.writeObject(animals);
-        } catch (IOException e) {
-            e.printStackTrace();
+    public static synchronized CompletableFuture<Void> saveAnimals(List<Pet> animals) {
+        RecordStore<Pet> store = store();
+        if (store.supportsPointWrites()) {
+            store.saveAll(animals);
+            StorageCache.put(CACHE_KEY, animals, files());
+            return StorageWriter.completed();
         }
+        StorageCache.put(CACHE_KEY, animals, files());
+        StorageCache.markDirty(CACHE_KEY);
+        return StorageWriter.submit(FILE_NAME, PetStorage::writeSnapshot);
     }
 
     /**
-     * Loads the list of pets from the storage file.
-     * If the file does not exist or cannot be read, an empty list is returned.
+     * Writes the cached pet list as a new snapshot. Runs on the {@link StorageWriter} thread.
+     * The log is rotated under the class lock together with taking the list, so the rotated records are exactly
+     * the ones the snapshot contains; changes made while the file is written go to the new log.
+     */
+    private static void writeSnapshot() {
+        List<Pet> animals;
+        synchronized (PetStorage.class) {
+            animals = StorageCache.takeForWrite(CACHE_KEY);
+            if (animals == null) {
+                return;
+            }
+            log.rotate();
+            StorageCache.restamp(CACHE_KEY, files());
+        }
+        snapshots.saveAll(animals);
+        synchronized (PetStorage.class) {
+            log.clearRotated();
+            StorageCache.markWritten(CACHE_KEY);
+            StorageCache.restamp(CACHE_KEY, files());
+        }
+    }
+
+    /**
+     * Loads the list of pets from the storage file and replays any logged changes on top of it.
+     * If the file does not exist or cannot be read, the log is replayed onto an empty list.
      *
      * @return a {@code List<Pet>} containing all pets loaded from the file
      */
-    public static List<Pet> loadAnimals() {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-            @SuppressWarnings("unchecked")
-            List<Pet> animals = (List<Pet>) in.readObject();
-            return animals;
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
+    public static synchronized List<Pet> loadAnimals() {
+        return StorageCache.get(CACHE_KEY, PetStorage::loadFromDisk, files());
+    }
+
+    private static List<Pet> loadFromDisk() {
+        RecordStore<Pet> store = store();
+        return store.supportsPointWrites() ? store.loadAll() : loadSnapshot();
+    }
+
+    /**
+     * Loads the list of pets without decoding them up front. In binary storage mode the returned read-only
+     * list decodes each record from the mapped file when it is accessed; otherwise it is the fully loaded list.
+     *
+     * @return a {@code List<Pet>} view of all stored pets
+     */
+    public static synchronized List<Pet> loadAnimalsLazily() {
+        if (store() instanceof PetRecordFile records) {
+            return records.asList();
         }
+        return loadAnimals();
+    }
+
+    /**
+     * Tells whether the pets can be read a page at a time without loading the whole catalog, which is the case
+     * with a store that supports point writes.
+     *
+     * @return {@code true} if {@link #countAnimals} and {@link #loadPage} read only what they return
+     */
+    public static synchronized boolean supportsPaging() {
+        return store().supportsPointWrites();
+    }
+
+    /**
+     * Gets the number of stored pets. With a store that supports point writes the count comes from the store
+     * without loading the pets.
+     *
+     * @return the number of pets
+     */
+    public static synchronized int countAnimals() {
+        RecordStore<Pet> store = store();
+        if (store.supportsPointWrites()) {
+            return store.size();
+        }
+        return StorageCache.view(CACHE_KEY, PetStorage::loadFromDisk, files()).size();
+    }
+
+    /**
+     * Loads one page of pets, in catalog order. With a store that supports point writes only the pets on the
+     * page are read from the store, so the cost of a page does not depend on the size of the catalog; if the pets
+     * are already cached, the cached pets are returned in place of the decoded ones so that changes still waiting
+     * for the {@link StorageWriter} are shown.
+     *
+     * @param offset the position of the first pet on the page
+     * @param count the maximum number of pets on the page
+     * @return a new list holding the pets on the page, which is shorter than {@code count} at the end
+     */
+    public static synchronized List<Pet> loadPage(int offset, int count) {
+        RecordStore<Pet> store = store();
+        if (store.supportsPointWrites()) {
+            List<Pet> page = store.loadRange(offset, count);
+            PetBitmapIndex index = (PetBitmapIndex) StorageCache.getAttachment(CACHE_KEY);
+            if (index != null) {
+                for (int i = 0; i < page.size(); i++) {
+                    Pet cached = index.get(page.get(i).getId());
+                    if (cached != null) {
+                        page.set(i, cached);
+                    }
+                }
+            }
+            return page;
+        }
+        List<Pet> animals = StorageCache.view(CACHE_KEY, PetStorage::loadFromDisk, files());
+        int from = Math.min(Math.max(0, offset), animals.size());
+        return new ArrayList<>(animals.subList(from, (int) Math.min(animals.size(), (long) from + Math.max(0, count))));
+    }
+
+    private static List<Pet> loadSnapshot() {
+        List<Pet> snapshot = snapshots.loadAll();
+
+        LinkedHashMap<String, Pet> byId = new LinkedHashMap<>();
+        for (Pet pet : snapshot) {
+            byId.put(pet.getId(), pet);
+        }
+        if (log.replay(byId) == 0 && byId.size() == snapshot.size()) {
+            return snapshot;
+        }
+        return new ArrayList<>(byId.values());
     }
 
     /**
@@ -69,27 +213,298 @@ public class PetStorage {
         return loadedAnimals;
     }
 
+    /**
+     * Finds the stored pets that match every given criterion, using the bitmap index. Text criteria are
+     * matched without regard to case. A {@code null} or empty criterion matches every pet.
+     *
+     * @param species the species, such as {@code "Dog"}, or {@code null}
+     * @param breed the breed, or {@code null}
+     * @param gender the gender, or {@code null}
+     * @param adopted the adoption status, or {@code null}
+     * @return a {@code List<Pet>} of the matching pets, in catalog order
+     */
+    public static synchronized List<Pet> filterAnimals(String species, String breed, String gender, Boolean adopted) {
+        return index().filter(species, breed, gender, adopted);
+    }
+
+    /**
+     * Evaluates a query over the stored pets into a view that reads the matching pets in the query's order
+     * without copying them. Results are cached per query until the stored pets change.
+     *
+     * @param query the filters and order
+     * @return a {@code PetView} of the matching pets
+     */
+    public static synchronized PetView viewAnimals(PetQuery query) {
+        return index().view(query);
+    }
+
+    /**
+     * Searches the stored pets by the words of their names and breeds, for type-ahead. Each word of the query
+     * must start a word of the pet's name or breed; case and accents are ignored.
+     *
+     * @param query the text typed so far
+     * @param limit the maximum number of pets to return
+     * @return the matching pets, best matches first
+     */
+    public static synchronized List<Pet> searchAnimals(String query, int limit) {
+        return index().search(query, limit);
+    }
+
     /**
      * Adds a new pet to the storage.
-     * The pet is added to the existing list of pets, and the updated list is saved to the file.
+     * The pet is appended to the mutation log; the snapshot file is not rewritten.
      *
      * @param newPet the {@code Pet} object to be added
      */
     public static void addAnimal(Pet newPet) {
-        List<Pet> animals = loadAnimals();
-        animals.add(newPet);
-        saveAnimals(animals);
+        persist(PetMutationLog.OP_ADD, newPet);
+    }
+
+    /**
+     * Persists the current details of an existing pet.
+     * The new details are appended to the mutation log; the snapshot file is not rewritten.
+     *
+     * @param pet the {@code Pet} object whose details changed
+     */
+    public static void updateAnimal(Pet pet) {
+        persist(PetMutationLog.OP_UPDATE, pet);
+    }
+
+    /**
+     * Persists the adoption status of an existing pet.
+     * In binary storage mode this is a single-byte write to the pet's record.
+     *
+     * @param pet the {@code Pet} object whose adoption status changed
+     */
+    public static void updateAdoptionStatus(Pet pet) {
+        persist(PetMutationLog.OP_ADOPT, pet);
     }
 
     /**
      * Removes a pet from the storage by its ID.
-     * The pet is removed from the existing list of pets, and the updated list is saved to the file.
+     * The removal is appended to the mutation log; the snapshot file is not rewritten.
      *
      * @param aniID the {@code Pet} object to be removed
      */
     public static void removeAnimal(Pet aniID) {
-        List<Pet> animals = loadAnimals();
-        animals.removeIf(Pet -> Pet.getId().equals(aniID.getId()));
-        saveAnimals(animals);
+        persist(PetMutationLog.OP_REMOVE, aniID);
+    }
+
+    /**
+     * Folds the mutation log into a new snapshot of the pet list. The snapshot is written in the background;
+     * repeated calls before it is written result in a single write.
+     *
+     * @return a future that completes when the snapshot is on disk
+     */
+    public static synchronized CompletableFuture<Void> checkpoint() {
+        if (store().supportsPointWrites()) {
+            return StorageWriter.completed();
+        }
+        StorageCache.view(CACHE_KEY, PetStorage::loadFromDisk, files());
+        StorageCache.markDirty(CACHE_KEY);
+        return StorageWriter.submit(FILE_NAME, PetStorage::writeSnapshot);
+    }
+
+    /**
+     * Assigns a new pet ID with the given species prefix, such as {@code "D_010"} for the prefix {@code "D"}.
+     * Every call returns a different ID, also across restarts, without looking through the stored pets.
+     *
+     * @param prefix the species prefix of the ID, the part before the underscore
+     * @return an unused pet ID
+     */
+    public static String nextAnimalId(String prefix) {
+        String idPrefix = prefix + "_";
+        return IdSequence.forPrefix(idPrefix, 3, () -> IdSequence.highestNumber(
+                loadAnimals().stream().map(Pet::getId)::iterator, idPrefix)).nextId();
+    }
+
+    /**
+     * Finds a stored pet by its ID using the bitmap index.
+     *
+     * @param id the pet ID
+     * @return the {@code Pet}, or {@code null} if there is none
+     */
+    public static synchronized Pet findAnimal(String id) {
+        return index().get(id);
+    }
+
+    /**
+     * Finds the stored pets with the given IDs in one lookup.
+     *
+     * @param ids the pet IDs
+     * @return a map from ID to {@code Pet} holding only the IDs that were found
+     */
+    public static synchronized Map<String, Pet> findAnimals(Collection<String> ids) {
+        PetBitmapIndex index = index();
+        Map<String, Pet> found = new HashMap<>(Math.max(16, ids.size() * 4 / 3 + 1));
+        for (String id : ids) {
+            Pet pet = index.get(id);
+            if (pet != null) {
+                found.put(id, pet);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Records an adoption status change that the caller has already made on a stored pet, for example with
+     * {@link Pet#compareAndSetAdoptionStat}, and returns the write that persists it, so the caller can put it in
+     * one batch with other writes. Until the write runs the change is only in the cache.
+     *
+     * @param pet the {@code Pet} object whose adoption status changed
+     * @return the write that appends the change to the log or the store
+     */
+    static synchronized Runnable stageAdoptionStatus(Pet pet) {
+        applyToCache(index(), PetMutationLog.OP_ADOPT, pet);
+        StorageEvents.publish(StorageEvents.Type.PET_UPDATED, pet);
+        return () -> writeStaged(PetMutationLog.OP_ADOPT, pet);
+    }
+
+    private static synchronized void writeStaged(byte op, Pet pet) {
+        write(op, pet);
+        StorageCache.restamp(CACHE_KEY, files());
+        checkpointIfDue();
+    }
+
+    private static synchronized void persist(byte op, Pet pet) {
+        PetBitmapIndex index = index(); // Before the write, which would make the cached list look stale
+        write(op, pet);
+        applyToCache(index, op, pet);
+        StorageEvents.publish(switch (op) {
+            case PetMutationLog.OP_ADD -> StorageEvents.Type.PET_ADDED;
+            case PetMutationLog.OP_REMOVE -> StorageEvents.Type.PET_REMOVED;
+            default -> StorageEvents.Type.PET_UPDATED;
+        }, pet);
+        checkpointIfDue();
+    }
+
+    private static void checkpointIfDue() {
+        if (!store().supportsPointWrites() && log.getRecordCount() >= CHECKPOINT_INTERVAL) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Writes a single-pet change to the store, or appends it to the mutation log.
+     *
+     * @param op the mutation log operation
+     * @param pet the pet the operation applies to
+     */
+    private static synchronized void write(byte op, Pet pet) {
+        RecordStore<Pet> store = store();
+        if (store.supportsPointWrites()) {
+            switch (op) {
+                case PetMutationLog.OP_REMOVE -> store.remove(pet.getId());
+                case PetMutationLog.OP_ADOPT -> {
+                    if (!(store instanceof PetRecordFile records) || !records.setAdopted(pet.getId(), pet.getAdoptionStat())) {
+                        store.put(pet);
+                    }
+                }
+                default -> store.put(pet);
+            }
+            return;
+        }
+        log.append(op, pet);
+    }
+
+    /**
+     * Applies a persisted single-pet change to the cached pet list and keeps its bitmap index in step.
+     *
+     * @param index the index over the cached list
+     * @param op the mutation log operation that was persisted
+     * @param pet the pet the operation applies to
+     */
+    private static void applyToCache(PetBitmapIndex index, byte op, Pet pet) {
+        StorageCache.update(CACHE_KEY, (List<Pet> cached) -> apply(cached, index, op, pet), files());
+        StorageCache.attach(CACHE_KEY, index);
+    }
+
+    /**
+     * Gets the bitmap index over the current pet list, building it if the list was reloaded since it was last built.
+     *
+     * @return the {@code PetBitmapIndex} for the cached pets
+     */
+    private static synchronized PetBitmapIndex index() {
+        List<Pet> animals = StorageCache.view(CACHE_KEY, PetStorage::loadFromDisk, files());
+        PetBitmapIndex index = (PetBitmapIndex) StorageCache.getAttachment(CACHE_KEY);
+        if (index == null) {
+            index = new PetBitmapIndex(animals);
+            StorageCache.attach(CACHE_KEY, index);
+        }
+        return index;
+    }
+
+    /**
+     * Applies a persisted single-pet change to a cached pet list and to the bitmap index over it. The pet is
+     * found through the index, and a removed pet is replaced by the last pet in the list, so no change scans
+     * or shifts the list.
+     *
+     * @param cached the cached list of pets
+     * @param index the index over the cached list
+     * @param op the mutation log operation that was persisted
+     * @param pet the pet the operation applies to
+     */
+    private static void apply(List<Pet> cached, PetBitmapIndex index, byte op, Pet pet) {
+        int position = index.positionIn(cached, pet.getId());
+        switch (op) {
+            case PetMutationLog.OP_REMOVE -> {
+                if (position >= 0) {
+                    Pet last = cached.remove(cached.size() - 1);
+                    if (position < cached.size()) {
+                        cached.set(position, last);
+                        index.moved(last.getId(), position);
+                    }
+                }
+                index.remove(pet.getId());
+            }
+            case PetMutationLog.OP_ADOPT -> {
+                if (position >= 0) {
+                    cached.get(position).setAdoptionStat(pet.getAdoptionStat());
+                }
+                index.setAdopted(pet.getId(), pet.getAdoptionStat());
+            }
+            default -> {
+                if (position >= 0) {
+                    cached.set(position, pet);
+                } else {
+                    cached.add(pet);
+                    position = cached.size() - 1;
+                }
+                index.add(pet);
+                index.moved(pet.getId(), position);
+            }
+        }
+    }
+
+    private static File[] files() {
+        RecordStore<Pet> store = store();
+        if (store.supportsPointWrites()) {
+            return store.getFiles();
+        }
+        File[] logFiles = log.getFiles();
+        return new File[]{new File(FILE_NAME), logFiles[0], logFiles[1]};
+    }
+
+    /**
+     * Opens the configured store on first use. A newly created binary or B+tree store is filled from an
+     * existing {@code Pets.dat} snapshot and its log.
+     *
+     * @return the open {@code RecordStore}
+     */
+    private static synchronized RecordStore<Pet> store() {
+        if (store == null) {
+            if (RecordStores.BINARY.equals(RecordStores.engine())) {
+                try {
+                    store = RecordStores.importIfEmpty(PetRecordFile.open(new File(RECORD_FILE_NAME)),
+                            new File(FILE_NAME), PetStorage::loadSnapshot);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    store = snapshots;
+                }
+            } else {
+                store = RecordStores.open("Pets", Pet::getId, BinaryCodec.PETS, PetStorage::loadSnapshot);
+            }
+        }
+        return store;
     }
-}
\ No newline at end of file
+}
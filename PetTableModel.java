@@ -0,0 +1,282 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code PetTableModel} class shows a list of pets in a {@code JTable} by reading each cell straight from the
+ * {@link Pet} in the list, instead of copying every pet into a row of a {@code DefaultTableModel}.
+ *
+ * <p>The model wraps the list it is given, such as the list of stored pets or the result of a filter, without
+ * copying it. Showing another list replaces the wrapped list and fires one data-changed event. Adding, removing,
+ * or changing a single pet updates the wrapped list and fires an event for that row only, so the table repaints
+ * the changed row and nothing else. A batch of {@link StorageEvents} changes is applied with one event for the
+ * rows it changed and one for the rows it added.</p>
+ *
+ * <p>Like every Swing model it must only be used on the event dispatch thread.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Choosing which pet details are shown as columns</li>
+ *   <li>Switching the table to another list of pets</li>
+ *   <li>Adding, removing, and updating single rows</li>
+ *   <li>Applying a batch of storage changes with a single table event</li>
+ *   <li>Finding the row of a pet by its ID</li>
+ * </ul>
+ */
+public class PetTableModel extends AbstractTableModel {
+
+    /**
+     * A pet detail that can be shown as a column.
+     */
+    public enum Column {
+        ID("ID", String.class),
+        NAME("Name", String.class),
+        BREED("Breed", String.class),
+        GENDER("Gender", String.class),
+        AGE("Age", Integer.class),
+        ADOPTED("Adopted", String.class);
+
+        private final String title;
+        private final Class<?> type;
+
+        Column(String title, Class<?> type) {
+            this.title = title;
+            this.type = type;
+        }
+
+        String getTitle() {
+            return title;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        Object valueOf(Pet pet) {
+            return switch (this) {
+                case ID -> pet.getId();
+                case NAME -> pet.getName();
+                case BREED -> pet.getBreed();
+                case GENDER -> pet.getGender();
+                case AGE -> pet.getAge();
+                case ADOPTED -> pet.getAdoptionStat() ? "Yes" : "No";
+            };
+        }
+    }
+
+    private final Column[] columns;
+    private List<Pet> pets;
+    private Map<String, Integer> rowById;
+
+    /**
+     * Constructs a new {@code PetTableModel} showing the given pets with the given columns.
+     *
+     * @param pets the list of pets to show; it is wrapped, not copied, and must be modifiable if single rows
+     *             are added or removed
+     * @param columns the columns to show, in order
+     */
+    public PetTableModel(List<Pet> pets, Column... columns) {
+        this.pets = pets;
+        this.columns = columns.clone();
+    }
+
+    @Override
+    public int getRowCount() {
+        return pets.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column].getTitle();
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns[column].getType();
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columns[column].valueOf(pets.get(row));
+    }
+
+    /**
+     * Gets the list of pets currently shown.
+     *
+     * @return the wrapped list
+     */
+    public List<Pet> getPets() {
+        return pets;
+    }
+
+    /**
+     * Gets the pet shown in the given row.
+     *
+     * @param row the row index
+     * @return the {@code Pet} in that row
+     */
+    public Pet getPetAt(int row) {
+        return pets.get(row);
+    }
+
+    /**
+     * Shows another list of pets.
+     *
+     * @param pets the list of pets to show; it is wrapped, not copied
+     */
+    public void setPets(List<Pet> pets) {
+        this.pets = pets;
+        rowById = null;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Sorts the pets currently shown.
+     *
+     * @param order the order to sort the pets in
+     */
+    public void sort(Comparator<? super Pet> order) {
+        pets.sort(order);
+        rowById = null;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Finds the row showing the pet with the given ID.
+     *
+     * @param id the pet ID
+     * @return the row index, or -1 if the pet is not shown
+     */
+    public int rowOf(String id) {
+        if (rowById == null) {
+            rowById = new HashMap<>(Math.max(16, pets.size() * 4 / 3 + 1));
+            for (int row = 0; row < pets.size(); row++) {
+                rowById.put(pets.get(row).getId(), row);
+            }
+        }
+        Integer row = rowById.get(id);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Adds a pet as the last row.
+     *
+     * @param pet the pet to add
+     */
+    public void addPet(Pet pet) {
+        int row = pets.size();
+        pets.add(pet);
+        if (rowById != null) {
+            rowById.put(pet.getId(), row);
+        }
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * Removes the row showing the pet with the given ID, if it is shown.
+     *
+     * @param id the pet ID
+     * @return {@code true} if a row was removed
+     */
+    public boolean removePet(String id) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return false;
+        }
+        pets.remove(row);
+        rowById = null;
+        fireTableRowsDeleted(row, row);
+        return true;
+    }
+
+    /**
+     * Shows the given pet in place of the shown pet with the same ID, if there is one.
+     *
+     * @param pet the new version of the pet
+     * @return {@code true} if a row was updated
+     */
+    public boolean updatePet(Pet pet) {
+        int row = rowOf(pet.getId());
+        if (row < 0) {
+            return false;
+        }
+        if (pets.get(row) != pet) {
+            pets.set(row, pet);
+        }
+        fireTableRowsUpdated(row, row);
+        return true;
+    }
+
+    /**
+     * Applies the pet changes in a batch of storage changes to the wrapped list: added pets are appended,
+     * updated pets replace the shown pet with the same ID, and removed pets are dropped. Changes to pets that
+     * are not shown, other than additions, are ignored. The table is told about the whole batch at once, so it
+     * is repainted once however many pets changed.
+     *
+     * @param changes the storage changes, in the order they were made
+     */
+    public void applyChanges(List<StorageEvents.Change> changes) {
+        int firstAdded = pets.size();
+        int firstUpdated = Integer.MAX_VALUE;
+        int lastUpdated = -1;
+        Set<String> removed = new HashSet<>();
+        for (StorageEvents.Change change : changes) {
+            Pet pet = change.getPet();
+            if (pet == null) {
+                continue;
+            }
+            String id = pet.getId();
+            if (change.getType() == StorageEvents.Type.PET_REMOVED) {
+                removed.add(id);
+                continue;
+            }
+            removed.remove(id);
+            int row = rowOf(id);
+            if (row >= 0) {
+                if (pets.get(row) != pet) {
+                    pets.set(row, pet);
+                }
+                if (row < firstAdded) {
+                    firstUpdated = Math.min(firstUpdated, row);
+                    lastUpdated = Math.max(lastUpdated, row);
+                }
+            } else if (change.getType() == StorageEvents.Type.PET_ADDED) {
+                rowById.put(id, pets.size());
+                pets.add(pet);
+            }
+        }
+        if (!removed.isEmpty() && pets.removeIf(pet -> removed.contains(pet.getId()))) {
+            // Rows shifted, so the whole table is redrawn
+            rowById = null;
+            fireTableDataChanged();
+            return;
+        }
+        if (lastUpdated >= 0) {
+            fireTableRowsUpdated(firstUpdated, lastUpdated);
+        }
+        if (pets.size() > firstAdded) {
+            fireTableRowsInserted(firstAdded, pets.size() - 1);
+        }
+    }
+
+    /**
+     * Repaints the row of a pet whose details were changed in place, such as its adoption status.
+     *
+     * @param id the pet ID
+     */
+    public void petChanged(String id) {
+        int row = rowOf(id);
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The {@code PetView} class is the result of a {@link PetQuery}: the selected pets, in the query's order, as a
+ * read-only list that a {@link PetTableModel} can show directly.
+ *
+ * <p>A view holds no copy of the pets. It is a permutation of slot numbers into the pet slots of the
+ * {@link PetBitmapIndex} that evaluated it, and each {@link #get} looks the pet up through its slot. The
+ * catalog is never copied or reordered to show a view, and several views can share it at once.</p>
+ *
+ * <p>A view shows the pets that matched when it was made. A pet edited afterwards is shown with its new details
+ * in its old position, and a removed pet is still shown, until the query is run again; the index drops its
+ * cached results whenever the catalog changes, so running the query again reflects the change.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Reading the selected pets by position without copying them</li>
+ *   <li>Getting the query the view was made for</li>
+ * </ul>
+ */
+public class PetView extends AbstractList<Pet> implements RandomAccess {
+
+    private final PetQuery query;
+    private final int[] rows;
+    private final Pet[] pets;
+
+    /**
+     * Constructs a new {@code PetView}.
+     *
+     * @param query the query the view was made for
+     * @param rows the selected slots, in the query's order; not copied and must not be changed
+     * @param pets the pets by slot; not copied
+     */
+    PetView(PetQuery query, int[] rows, Pet[] pets) {
+        this.query = query;
+        this.rows = rows;
+        this.pets = pets;
+    }
+
+    @Override
+    public Pet get(int index) {
+        Objects.checkIndex(index, rows.length);
+        return pets[rows[index]];
+    }
+
+    @Override
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Gets the query the view was made for.
+     *
+     * @return the query
+     */
+    public PetQuery getQuery() {
+        return query;
+    }
+}
@@ -0,0 +1,66 @@
+import java.io.*;
+
+/**
+ * The {@code RecordCodec} interface converts records to and from the bytes a {@link RecordStore} engine
+ * keeps on disk.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Encoding a record to bytes</li>
+ *   <li>Decoding a record from bytes</li>
+ *   <li>Providing a codec based on Java serialization</li>
+ * </ul>
+ *
+ * @param <V> the record type
+ */
+public interface RecordCodec<V> {
+
+    /**
+     * Encodes a record.
+     *
+     * @param value the record
+     * @return the encoded bytes
+     */
+    byte[] encode(V value);
+
+    /**
+     * Decodes a record.
+     *
+     * @param bytes bytes produced by {@link #encode}
+     * @return the record
+     */
+    V decode(byte[] bytes);
+
+    /**
+     * Returns a codec that stores each record with Java serialization.
+     *
+     * @param <V> the record type, which must be {@code Serializable}
+     * @return the serialization codec
+     */
+    static <V> RecordCodec<V> serialization() {
+        return new RecordCodec<>() {
+            @Override
+            public byte[] encode(V value) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return bytes.toByteArray();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V decode(byte[] bytes) {
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (V) in.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The {@code RecordStore} interface is the storage engine behind {@code PetStorage}, {@code CustomerStorage}
+ * and {@code AdoptionRequestStorage}. A store holds records of one type, each identified by a string key that
+ * the store derives from the record.
+ *
+ * <p>Engines either keep the whole list in one file, in which case every change rewrites the file and the
+ * storage classes batch those rewrites, or they support point writes, in which case the storage classes
+ * write each change to the store as it happens. {@link RecordStores#open} chooses the engine.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Loading and replacing all records</li>
+ *   <li>Reading, writing, and removing a single record by key</li>
+ *   <li>Writing a batch of records at once</li>
+ *   <li>Visiting every record without building a list</li>
+ *   <li>Loading one page of records by position</li>
+ * </ul>
+ *
+ * @param <V> the record type
+ */
+public interface RecordStore<V> extends AutoCloseable {
+
+    /**
+     * Loads every record.
+     *
+     * @return a new modifiable list holding all records
+     */
+    List<V> loadAll();
+
+    /**
+     * Replaces every record with the given ones.
+     *
+     * @param values the records to store
+     * @throws java.io.UncheckedIOException if the records cannot be written
+     */
+    void saveAll(List<V> values);
+
+    /**
+     * Reads the record with the given key.
+     *
+     * @param key the record key
+     * @return the record, or {@code null} if there is none
+     */
+    V get(String key);
+
+    /**
+     * Writes a record, replacing any record with the same key.
+     *
+     * @param value the record to write
+     */
+    void put(V value);
+
+    /**
+     * Writes several records, replacing any records with the same keys.
+     *
+     * @param values the records to write
+     */
+    default void putAll(List<V> values) {
+        for (V value : values) {
+            put(value);
+        }
+    }
+
+    /**
+     * Removes the record with the given key.
+     *
+     * @param key the record key
+     * @return {@code true} if a record was removed, {@code false} otherwise
+     */
+    boolean remove(String key);
+
+    /**
+     * Passes every record to the given action, in the store's order.
+     *
+     * @param action the action to run for each record
+     */
+    void forEach(Consumer<? super V> action);
+
+    /**
+     * Loads the records at the given positions in the store's order, such as one page of a table. Engines that
+     * can reach a position without decoding the records before it override this; the default loads every record.
+     *
+     * @param offset the position of the first record to load
+     * @param count the maximum number of records to load
+     * @return a new list holding the records from {@code offset}, which is shorter than {@code count} at the end
+     */
+    default List<V> loadRange(int offset, int count) {
+        List<V> all = loadAll();
+        int from = Math.min(Math.max(0, offset), all.size());
+        return new ArrayList<>(all.subList(from, (int) Math.min(all.size(), (long) from + Math.max(0, count))));
+    }
+
+    /**
+     * Gets the number of stored records.
+     *
+     * @return the record count
+     */
+    int size();
+
+    /**
+     * Tells whether single-record writes are cheap. When they are not, callers should change their
+     * in-memory list and save it as a whole instead of calling {@link #put} or {@link #remove}.
+     *
+     * @return {@code true} if {@code put} and {@code remove} touch only the affected record
+     */
+    boolean supportsPointWrites();
+
+    /**
+     * Gets the files the records are kept in, for detecting changes made outside this process.
+     *
+     * @return the backing files
+     */
+    File[] getFiles();
+
+    /**
+     * Releases any open file handles.
+     *
+     * @throws IOException if a file cannot be closed
+     */
+    @Override
+    void close() throws IOException;
+}
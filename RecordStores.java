@@ -0,0 +1,95 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The {@code RecordStores} class chooses the {@link RecordStore} engine used by the storage classes.
+ *
+ * <p>The engine is selected with the {@code petmanager.storage} system property. {@code btree} stores each
+ * record type in a {@link BTreeStore} ({@code <name>.db}); any other value keeps the original
+ * {@link SerializedFileStore} ({@code <name>.dat}). When a B+tree store is opened empty next to an existing
+ * {@code .dat} file, the records in that file are imported into it. Both engines encode records with the
+ * record type's {@link BinaryCodec}.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Reporting the configured storage engine</li>
+ *   <li>Opening the store for a record type with the configured engine</li>
+ *   <li>Importing records from the original file format into a new store</li>
+ * </ul>
+ */
+public class RecordStores {
+
+    static final String SERIALIZED = "serialized";
+    static final String BINARY = "binary";
+    static final String BTREE = "btree";
+
+    private static final String ENGINE = System.getProperty("petmanager.storage", SERIALIZED).toLowerCase(Locale.ROOT);
+
+    /**
+     * Gets the configured storage engine name.
+     *
+     * @return {@code "serialized"}, {@code "binary"}, {@code "btree"}, or another configured value
+     */
+    public static String engine() {
+        return ENGINE;
+    }
+
+    /**
+     * Opens the store for a record type with the configured engine, importing from the original
+     * {@code .dat} file if the store is new.
+     *
+     * @param name the base file name, such as {@code "customers"}
+     * @param keyOf derives the key of a record
+     * @param codec the binary format for the records
+     * @param <V> the record type
+     * @return the opened store
+     */
+    public static <V> RecordStore<V> open(String name, Function<V, String> keyOf, BinaryCodec<V> codec) {
+        return open(name, keyOf, codec, new SerializedFileStore<>(name + ".dat", keyOf, codec)::loadAll);
+    }
+
+    /**
+     * Opens the store for a record type with the configured engine. If the B+tree file cannot be opened, the
+     * error is printed and the original file format is used instead.
+     *
+     * @param name the base file name, such as {@code "customers"}
+     * @param keyOf derives the key of a record
+     * @param codec the binary format for the records
+     * @param legacy loads the records from the original {@code .dat} file, for importing into a new store
+     * @param <V> the record type
+     * @return the opened store
+     */
+    public static <V> RecordStore<V> open(String name, Function<V, String> keyOf, BinaryCodec<V> codec,
+                                          Supplier<? extends List<V>> legacy) {
+        if (BTREE.equals(ENGINE)) {
+            RecordCodec<V> recordCodec = BinaryCodec.ENABLED ? codec : RecordCodec.serialization();
+            try {
+                return importIfEmpty(BTreeStore.open(new File(name + ".db"), keyOf, recordCodec),
+                        new File(name + ".dat"), legacy);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return new SerializedFileStore<>(name + ".dat", keyOf, codec);
+    }
+
+    /**
+     * Imports the records from a file in the original format if the store is still empty.
+     *
+     * @param store the newly opened store
+     * @param legacyFile the original {@code .dat} file
+     * @param legacy loads the records from the original file
+     * @param <V> the record type
+     * @return the store
+     */
+    static <V> RecordStore<V> importIfEmpty(RecordStore<V> store, File legacyFile, Supplier<? extends List<V>> legacy) {
+        if (store.size() == 0 && legacyFile.exists()) {
+            store.saveAll(legacy.get());
+        }
+        return store;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * The {@code RequestStatus} enum lists the states of an adoption request and the moves allowed between them.
+ *
+ * <p>A request starts out {@link #PENDING} and is decided exactly once, becoming {@link #APPROVED} or
+ * {@link #DENIED}. A decided request can no longer change status; it can only be removed. Each status has a
+ * label, used wherever a status is shown or written as text, and a one-byte code used in the binary storage
+ * formats.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Checking whether a status change or a removal is allowed</li>
+ *   <li>Converting a status to and from its label and its byte code</li>
+ * </ul>
+ */
+public enum RequestStatus {
+
+    PENDING("Pending", 0),
+    APPROVED("Approved", 1),
+    DENIED("Denied", 2);
+
+    private static final RequestStatus[] BY_CODE = values();
+
+    private final String label;
+    private final byte code;
+
+    RequestStatus(String label, int code) {
+        this.label = label;
+        this.code = (byte) code;
+    }
+
+    /**
+     * Gets the label of the status, such as {@code "Pending"}.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the one-byte code of the status used in the binary storage formats.
+     *
+     * @return the code
+     */
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Checks whether the request has been approved or denied.
+     *
+     * @return {@code true} if the status is final, {@code false} if the request is still pending
+     */
+    public boolean isDecided() {
+        return this != PENDING;
+    }
+
+    /**
+     * Checks whether a request with this status may change to the given status.
+     * Only a pending request may change, and only to a decision.
+     *
+     * @param next the new status
+     * @return {@code true} if the change is allowed, {@code false} otherwise
+     */
+    public boolean canBecome(RequestStatus next) {
+        return this == PENDING && next != null && next.isDecided();
+    }
+
+    /**
+     * Finds the status with the given label. Labels are matched exactly.
+     *
+     * @param label the label, such as {@code "Approved"}
+     * @return the matching status
+     * @throws IllegalArgumentException if no status has that label
+     */
+    public static RequestStatus fromLabel(String label) {
+        for (RequestStatus status : BY_CODE) {
+            if (status.label.equals(label)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("unknown status \"" + label + "\"");
+    }
+
+    /**
+     * Finds the status with the given byte code.
+     *
+     * @param code the code
+     * @return the matching status
+     * @throws IllegalArgumentException if no status has that code
+     */
+    public static RequestStatus fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("unknown status code " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Returns the label of the status.
+     *
+     * @return the label
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
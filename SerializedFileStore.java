@@ -0,0 +1,177 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The {@code SerializedFileStore} class is the original storage engine: the whole record list is serialized
+ * to a single {@code .dat} file. Reads decode the whole file and writes rewrite it, so the storage classes
+ * keep the list in memory and save it as a whole.
+ *
+ * <p>Given a {@link BinaryCodec}, the list is written in that compact format and files in either format are
+ * read; otherwise it is written with Java serialization.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Reading and writing the whole record list</li>
+ *   <li>Single-record operations implemented as read, modify, and rewrite</li>
+ * </ul>
+ *
+ * @param <V> the record type
+ */
+public class SerializedFileStore<V> implements RecordStore<V> {
+
+    private final String fileName;
+    private final Function<V, String> keyOf;
+    private final BinaryCodec<V> codec;
+
+    /**
+     * Constructs a new {@code SerializedFileStore} that uses Java serialization.
+     *
+     * @param fileName the file holding the serialized list
+     * @param keyOf derives the key of a record
+     */
+    public SerializedFileStore(String fileName, Function<V, String> keyOf) {
+        this(fileName, keyOf, null);
+    }
+
+    /**
+     * Constructs a new {@code SerializedFileStore}.
+     *
+     * @param fileName the file holding the serialized list
+     * @param keyOf derives the key of a record
+     * @param codec the binary format to write, or {@code null} to write Java serialization
+     */
+    public SerializedFileStore(String fileName, Function<V, String> keyOf, BinaryCodec<V> codec) {
+        this.fileName = fileName;
+        this.keyOf = keyOf;
+        this.codec = codec;
+    }
+
+    /**
+     * Loads the list from the file. If the file does not exist or cannot be read, an empty list is returned.
+     *
+     * @return the stored records
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<V> loadAll() {
+        if (!new File(fileName).exists()) {
+            return new ArrayList<>();
+        }
+        if (codec != null) {
+            try (InputStream in = new FileInputStream(fileName)) {
+                return codec.readAll(in);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            return new ArrayList<>((List<V>) in.readObject());
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Writes the list to a temporary file and moves it over the storage file.
+     *
+     * @param values the records to store
+     */
+    @Override
+    public void saveAll(List<V> values) {
+        if (codec != null && BinaryCodec.ENABLED) {
+            StorageWriter.replaceFile(fileName, out -> codec.writeAll(values, out));
+        } else {
+            StorageWriter.writeObjectFile(fileName, new ArrayList<>(values));
+        }
+    }
+
+    @Override
+    public V get(String key) {
+        for (V value : loadAll()) {
+            if (keyOf.apply(value).equals(key)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void put(V value) {
+        List<V> values = loadAll();
+        String key = keyOf.apply(value);
+        for (int i = 0; i < values.size(); i++) {
+            if (keyOf.apply(values.get(i)).equals(key)) {
+                values.set(i, value);
+                saveAll(values);
+                return;
+            }
+        }
+        values.add(value);
+        saveAll(values);
+    }
+
+    /**
+     * Writes several records with a single rewrite of the file.
+     *
+     * @param values the records to write
+     */
+    @Override
+    public void putAll(List<V> values) {
+        List<V> stored = loadAll();
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < stored.size(); i++) {
+            positions.putIfAbsent(keyOf.apply(stored.get(i)), i);
+        }
+        for (V value : values) {
+            Integer position = positions.get(keyOf.apply(value));
+            if (position == null) {
+                positions.put(keyOf.apply(value), stored.size());
+                stored.add(value);
+            } else {
+                stored.set(position, value);
+            }
+        }
+        saveAll(stored);
+    }
+
+    @Override
+    public boolean remove(String key) {
+        List<V> values = loadAll();
+        if (!values.removeIf(value -> keyOf.apply(value).equals(key))) {
+            return false;
+        }
+        saveAll(values);
+        return true;
+    }
+
+    @Override
+    public void forEach(Consumer<? super V> action) {
+        loadAll().forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return loadAll().size();
+    }
+
+    @Override
+    public boolean supportsPointWrites() {
+        return false;
+    }
+
+    @Override
+    public File[] getFiles() {
+        return new File[]{new File(fileName)};
+    }
+
+    @Override
+    public void close() {
+    }
+}
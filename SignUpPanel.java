@@ -1,7 +1,6 @@
 import javax.swing.*;
 import java.awt.*;
 import java.util.List;
-import java.util.ArrayList;
 
 /**
  * The {@code SignUpPanel} class represents the graphical user interface (GUI) for the sign-up screen
@@ -11,10 +10,10 @@ import java.util.ArrayList;
  * 
  * <p>Key functionalities include:</p>
  * <ul>
- *   <li>Displaying an auto-assigned customer ID</li>
+ *   <li>Assigning a new customer ID from the customer {@link IdSequence} on sign-up</li>
  *   <li>Collecting user input for personal details such as name, gender, address, email, etc.</li>
  *   <li>Validating user input and creating a new customer account</li>
- *   <li>Saving the new customer to the storage</li>
+ *   <li>Saving the new customer to the storage in the background</li>
  *   <li>Navigating back to the main menu</li>
  * </ul>
  */
@@ -23,30 +22,28 @@ public class SignUpPanel extends JPanel {
     private CardLayout layout;
     private JPanel parent;
     private List<Customer> customers;
-    private String autoAssignedId;
 
     /**
-     * Constructs a new {@code SignUpPanel} with the specified layout, parent panel, customer list, and auto-assigned ID.
+     * Constructs a new {@code SignUpPanel} with the specified layout, parent panel, and customer list.
      * Initializes the sign-up interface with input fields, buttons, and validation logic.
+     * Each successful sign-up is given a new customer ID.
      *
      * @param layout the {@code CardLayout} used for navigating between panels
      * @param parent the parent {@code JPanel} containing this panel
      * @param customers the list of existing customers
-     * @param autoAssignedId the auto-assigned ID for the new customer
      */
-    public SignUpPanel(CardLayout layout, JPanel parent, List<Customer> customers, String autoAssignedId) {
+    public SignUpPanel(CardLayout layout, JPanel parent, List<Customer> customers) {
         this.layout = layout;
         this.parent = parent;
         this.customers = customers;
-        this.autoAssignedId = autoAssignedId;
 
         setLayout(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(10, 10, 10, 10);
         gbc.anchor = GridBagConstraints.WEST;
 
-        // Display Auto-Assigned Customer ID as a Label
-        JLabel idLabel = new JLabel("Customer ID: " + autoAssignedId);
+        // The customer ID is assigned when the sign-up succeeds
+        JLabel idLabel = new JLabel("Customer ID: assigned on sign-up");
         idLabel.setFont(new Font("Arial", Font.BOLD, 14));
         gbc.gridx = 0;
         gbc.gridy = 0;
@@ -88,24 +85,46 @@ public class SignUpPanel extends JPanel {
         add(backButton, gbc);
 
         signUpButton.addActionListener(e -> {
+            String name = nameField.getText();
+            String gender = genderField.getText();
+            String address = addressField.getText();
+            String email = emailField.getText();
+            String phone = phoneField.getText();
+            String username = usernameField.getText();
+            String password = new String(passwordField.getPassword());
+            int birthYear;
             try {
-                String name = nameField.getText();
-                String gender = genderField.getText();
-                String address = addressField.getText();
-                String email = emailField.getText();
-                String phone = phoneField.getText();
-                int birthYear = Integer.parseInt(birthYearField.getText());
-                String username = usernameField.getText();
-                String password = new String(passwordField.getPassword());
-
-                Customer newCustomer = new Customer(autoAssignedId, name, gender, address, email, phone, birthYear, password, username);
-                customers.add(newCustomer);
-                CustomerStorage.saveCustomers(new ArrayList<>(customers));
-                JOptionPane.showMessageDialog(this, "Sign-up successful. Please log in.");
-                layout.show(parent, "Login Screen");
-            } catch (Exception ex) {
+                birthYear = Integer.parseInt(birthYearField.getText());
+            } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Please ensure all fields are correctly filled.");
+                return;
             }
+
+            // The checks, the new ID, and the write run in the background
+            TaskRunner.run(() -> {
+                if (CustomerStorage.getCustomerByUsername(username) != null) {
+                    throw new IllegalStateException("That username is already taken.");
+                }
+                if (CustomerStorage.getCustomerByEmail(email) != null) {
+                    throw new IllegalStateException("An account with that email already exists.");
+                }
+                Customer newCustomer = new Customer(CustomerStorage.nextCustomerId(), name, gender, address, email, phone, birthYear, password, username);
+                if (!CustomerStorage.addCustomer(newCustomer)) {
+                    throw new IllegalStateException("That username or email is already registered.");
+                }
+                return newCustomer;
+            }, newCustomer -> {
+                customers.add(newCustomer);
+                JOptionPane.showMessageDialog(this, "Sign-up successful. Your customer ID is " + newCustomer.getCustomerId() + ". Please log in.");
+                layout.show(parent, "Login Screen");
+            }, ex -> {
+                if (ex instanceof IllegalStateException) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage());
+                } else {
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "Please ensure all fields are correctly filled.");
+                }
+            });
         });
 
         backButton.addActionListener(e -> layout.show(parent, "Main Menu"));
@@ -0,0 +1,301 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The {@code StorageCache} class is a process-wide read-through cache for the decoded lists held by
+ * {@code PetStorage}, {@code CustomerStorage} and {@code AdoptionRequestStorage}.
+ *
+ * <p>Each entry remembers the modification time and size of the files it was decoded from. A read first
+ * compares that signature with the files on disk and only calls the loader again if a file changed outside
+ * the storage classes. Writes made through the storage classes update or replace the entry directly.
+ * An entry that is marked dirty holds changes the {@link StorageWriter} has not written yet, so it is trusted
+ * without looking at the files until the write that took it has finished. Keeping the entry dirty while its
+ * file is being replaced matters: otherwise a read during the write would see a changed file, reload it, and
+ * lose any change made in memory that has not reached the disk yet.</p>
+ *
+ * <p>Lists are loaded outside the lock that guards the cache, so the pet, customer, and request lists can be
+ * loaded at the same time, for example during startup; only loads of the same list wait for each other.</p>
+ *
+ * <p>The cached list itself is never handed out: {@link #get} returns a copy of the list (the elements are
+ * shared) so callers may add to or remove from it freely, and {@link #view} returns a read-only view for
+ * callers that only look.</p>
+ *
+ * <p>{@link #update} changes the cached list in place, so a view shows those changes as they are made. Each
+ * list is only updated by the storage class that owns its key, while it holds its own class lock, so a view
+ * may only be read while holding that same lock; reading it on another thread, such as the event dispatch
+ * thread, can fail with a {@code ConcurrentModificationException}. The storage classes therefore only use
+ * views inside their synchronized methods and hand out copies. {@link #get} takes its copy under the cache
+ * lock, so it is safe from any thread.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Returning cached lists while their backing files are unchanged</li>
+ *   <li>Replacing, updating, or invalidating entries when the storage classes write</li>
+ *   <li>Holding a derived structure, such as an index, alongside each entry</li>
+ *   <li>Counting cache hits and misses</li>
+ * </ul>
+ */
+public class StorageCache {
+
+    private static final Map<String, Entry> entries = new HashMap<>();
+    private static final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+    private static long hits;
+    private static long misses;
+
+    private static class Entry {
+        final List<Object> values;
+        long[] signature;
+        Object attachment;
+        boolean dirty;
+        long dirtyCount;
+        long takenAt = -1;
+
+        Entry(List<Object> values, long[] signature) {
+            this.values = values;
+            this.signature = signature;
+        }
+    }
+
+    /**
+     * Returns a modifiable copy of the cached list for the given key, loading it first if it is missing or stale.
+     * The copy is taken under the cache lock, so it may be called from any thread.
+     *
+     * @param key the cache key
+     * @param loader loads the list from disk on a miss
+     * @param files the files the list is decoded from
+     * @param <T> the element type
+     * @return a new list holding the cached elements
+     */
+    public static <T> List<T> get(String key, Supplier<? extends List<T>> loader, File... files) {
+        List<T> view = view(key, loader, files);
+        synchronized (StorageCache.class) {
+            return new ArrayList<>(view);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the cached list for the given key, loading it first if it is missing or stale.
+     * The view is only valid while the caller holds the lock of the storage class that owns the key, since that
+     * class updates the list in place; use {@link #get} for a list to keep or to read on another thread.
+     *
+     * @param key the cache key
+     * @param loader loads the list from disk on a miss
+     * @param files the files the list is decoded from
+     * @param <T> the element type
+     * @return an unmodifiable view of the cached elements
+     */
+    public static <T> List<T> view(String key, Supplier<? extends List<T>> loader, File... files) {
+        synchronized (StorageCache.class) {
+            List<T> cached = cachedView(key, files);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+        }
+        // The loader runs outside the cache lock so that different lists load in parallel, and under a lock for
+        // its key so that one list is not loaded twice at once.
+        synchronized (loadLocks.computeIfAbsent(key, k -> new Object())) {
+            Entry stale;
+            long[] signature;
+            synchronized (StorageCache.class) {
+                List<T> cached = cachedView(key, files);
+                if (cached != null) {
+                    hits++;
+                    return cached;
+                }
+                misses++;
+                stale = entries.get(key);
+                signature = signature(files);
+            }
+            List<T> loaded = loader.get();
+            synchronized (StorageCache.class) {
+                // A list written by the storage class while this one loaded is newer than what was read
+                Entry current = entries.get(key);
+                if (current == stale || current == null) {
+                    entries.put(key, new Entry(new ArrayList<>(loaded), signature));
+                }
+                return cachedView(key);
+            }
+        }
+    }
+
+    /**
+     * Replaces the cached list for the given key after the storage class has written it to disk.
+     *
+     * @param key the cache key
+     * @param values the list that was written
+     * @param files the files the list was written to
+     * @param <T> the element type
+     */
+    public static synchronized <T> void put(String key, List<T> values, File... files) {
+        Entry previous = entries.get(key);
+        Entry entry = new Entry(new ArrayList<>(values), signature(files));
+        entry.dirty = previous != null && previous.dirty;
+        entries.put(key, entry);
+    }
+
+    /**
+     * Applies a change made by the storage class to the cached list, if one is cached.
+     * The entry's attachment is dropped because it no longer describes the list. The caller must hold the lock
+     * of the storage class that owns the key, so that no view of the list is being read meanwhile.
+     *
+     * @param key the cache key
+     * @param change applies the change to the cached list
+     * @param files the files backing the list
+     * @param <T> the element type
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <T> void update(String key, Consumer<List<T>> change, File... files) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            change.accept((List<T>) entry.values);
+            entry.signature = signature(files);
+            entry.attachment = null;
+        }
+    }
+
+    /**
+     * Marks the cached list for the given key as holding changes that are not on disk yet.
+     *
+     * @param key the cache key
+     */
+    public static synchronized void markDirty(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.dirty = true;
+            entry.dirtyCount++;
+        }
+    }
+
+    /**
+     * Takes a copy of the cached list for the given key so it can be written to disk. The entry stays dirty until
+     * {@link #markWritten} reports that the write finished.
+     *
+     * @param key the cache key
+     * @param <T> the element type
+     * @return a copy of the cached list, or {@code null} if nothing is cached
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <T> List<T> takeForWrite(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.takenAt = entry.dirtyCount;
+        return new ArrayList<>((List<T>) entry.values);
+    }
+
+    /**
+     * Clears the dirty mark of the entry for the given key after the list taken by {@link #takeForWrite} has been
+     * written, unless the entry was marked dirty again or replaced since it was taken.
+     *
+     * @param key the cache key
+     */
+    public static synchronized void markWritten(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.takenAt == entry.dirtyCount) {
+            entry.dirty = false;
+        }
+    }
+
+    /**
+     * Records the current state of the backing files after the storage class has written them,
+     * keeping the cached list and its attachment.
+     *
+     * @param key the cache key
+     * @param files the files backing the list
+     */
+    public static synchronized void restamp(String key, File... files) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.signature = signature(files);
+        }
+    }
+
+    /**
+     * Gets the structure attached to the cached list for the given key. Attachments are dropped whenever the
+     * list is reloaded, replaced, or updated, so a non-null result always describes the current list.
+     *
+     * @param key the cache key
+     * @return the attachment, or {@code null} if there is none
+     */
+    public static synchronized Object getAttachment(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.attachment;
+    }
+
+    /**
+     * Attaches a structure derived from the cached list for the given key, such as an index over it.
+     *
+     * @param key the cache key
+     * @param attachment the derived structure
+     */
+    public static synchronized void attach(String key, Object attachment) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.attachment = attachment;
+        }
+    }
+
+    /**
+     * Drops the cached list for the given key so the next read loads it from disk.
+     *
+     * @param key the cache key
+     */
+    public static synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Gets the number of reads served from the cache.
+     *
+     * @return the hit count
+     */
+    public static synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of reads that had to load from disk.
+     *
+     * @return the miss count
+     */
+    public static synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns a short summary of the cache hit and miss counts.
+     *
+     * @return the cache statistics as text
+     */
+    public static synchronized String getStats() {
+        return "Storage cache: " + hits + " hits, " + misses + " misses, " + entries.size() + " entries";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> cachedView(String key, File... files) {
+        Entry entry = entries.get(key);
+        if (entry == null || (files.length > 0 && !entry.dirty && !Arrays.equals(entry.signature, signature(files)))) {
+            return null;
+        }
+        return Collections.unmodifiableList((List<T>) entry.values);
+    }
+
+    private static long[] signature(File... files) {
+        long[] signature = new long[files.length * 2];
+        for (int i = 0; i < files.length; i++) {
+            signature[2 * i] = files[i].lastModified();
+            signature[2 * i + 1] = files[i].exists() ? files[i].length() : -1;
+        }
+        return signature;
+    }
+}
@@ -0,0 +1,200 @@
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@code StorageEvents} class publishes the changes made to the stored pets, adoption requests, and
+ * customers, so that the panels showing them can update the affected rows instead of reloading every table
+ * after each action.
+ *
+ * <p>{@link PetStorage}, {@link AdoptionRequestStorage}, and {@link CustomerStorage} publish a {@link Change}
+ * as soon as a change is visible in memory, on whichever thread made it. Changes are not delivered one by one:
+ * the first change starts a frame of {@value #FRAME_MILLIS} ms, the changes published until it ends are
+ * collected, and then they are passed to each listener on the event dispatch thread as one list, in the order
+ * they were made. A burst of changes, such as a bulk approval of a thousand requests, therefore reaches the
+ * listeners in one batch per frame, which they can apply with a single table event and repaint.</p>
+ *
+ * <p>Changes are only collected while at least one listener is registered, so storage used without a user
+ * interface does not queue them.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Registering and removing listeners for storage changes</li>
+ *   <li>Publishing typed changes from any thread</li>
+ *   <li>Delivering the changes made in each frame as one batch on the event dispatch thread</li>
+ * </ul>
+ */
+public class StorageEvents {
+
+    /**
+     * The kind of change made to the storage.
+     */
+    public enum Type {
+        /** A pet was added; {@link Change#getPet()} is the new pet. */
+        PET_ADDED,
+        /** A pet's details or adoption status changed; {@link Change#getPet()} is the pet as it is now. */
+        PET_UPDATED,
+        /** A pet was removed; {@link Change#getPet()} is the removed pet. */
+        PET_REMOVED,
+        /** An adoption request was added or replaced; {@link Change#getRequest()} is the new request. */
+        REQUEST_ADDED,
+        /** An adoption request was approved or denied; {@link Change#getRequest()} is the request. */
+        REQUEST_STATUS_CHANGED,
+        /** An adoption request was removed or withdrawn; {@link Change#getRequest()} is the removed request. */
+        REQUEST_REMOVED,
+        /** A customer signed up; {@link Change#getCustomer()} is the new customer. */
+        CUSTOMER_ADDED
+    }
+
+    /**
+     * A single change to the storage.
+     */
+    public static final class Change {
+        private final Type type;
+        private final Object subject;
+
+        private Change(Type type, Object subject) {
+            this.type = type;
+            this.subject = subject;
+        }
+
+        /**
+         * Gets the kind of change.
+         *
+         * @return the kind of change
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Gets the pet that changed.
+         *
+         * @return the pet, or {@code null} if the change is not to a pet
+         */
+        public Pet getPet() {
+            return subject instanceof Pet pet ? pet : null;
+        }
+
+        /**
+         * Gets the adoption request that changed.
+         *
+         * @return the request, or {@code null} if the change is not to a request
+         */
+        public AdoptionRequest getRequest() {
+            return subject instanceof AdoptionRequest request ? request : null;
+        }
+
+        /**
+         * Gets the customer that changed.
+         *
+         * @return the customer, or {@code null} if the change is not to a customer
+         */
+        public Customer getCustomer() {
+            return subject instanceof Customer customer ? customer : null;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + subject;
+        }
+    }
+
+    /**
+     * Receives the changes made to the storage, on the event dispatch thread.
+     */
+    public interface Listener {
+
+        /**
+         * Called with the changes made since the previous call, in the order they were made.
+         *
+         * @param changes the changes; the list is read-only
+         */
+        void storageChanged(List<Change> changes);
+    }
+
+    static final int FRAME_MILLIS = 16;
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static final List<Change> pending = new ArrayList<>();
+    private static final Timer frame = new Timer(FRAME_MILLIS, e -> deliver());
+
+    static {
+        frame.setRepeats(false);
+    }
+
+    /**
+     * Registers a listener for storage changes.
+     *
+     * @param listener the listener to add
+     */
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener, so it receives no further changes.
+     *
+     * @param listener the listener to remove
+     */
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tells whether any change in a batch is to a pet.
+     *
+     * @param changes the batch of changes
+     * @return {@code true} if a pet was added, updated, or removed
+     */
+    public static boolean hasPetChanges(List<Change> changes) {
+        for (Change change : changes) {
+            if (change.getPet() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publishes a change. It is delivered to the listeners on the event dispatch thread at the end of the
+     * current frame, together with the other changes published in it.
+     *
+     * @param type the kind of change
+     * @param subject the pet, request, or customer that changed
+     */
+    static void publish(Type type, Object subject) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        synchronized (pending) {
+            pending.add(new Change(type, subject));
+            if (pending.size() > 1) {
+                // The frame has already started and its delivery will include this change
+                return;
+            }
+        }
+        frame.start();
+    }
+
+    private static void deliver() {
+        List<Change> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                // Delivered with the previous frame
+                return;
+            }
+            batch = Collections.unmodifiableList(new ArrayList<>(pending));
+            pending.clear();
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.storageChanged(batch);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code StorageWriter} class runs storage file writes on a background thread so that Swing listeners
+ * never wait for a file to be rewritten.
+ *
+ * <p>Writes are submitted under a key, normally the name of the file they rewrite. Each write rewrites the
+ * whole file from the latest in-memory state, so when several writes for the same key are submitted before
+ * the writer gets to them only one of them runs (group commit). A batch is committed once the first write in
+ * it has waited {@code petmanager.commitDelayMs} milliseconds (default {@value #DEFAULT_COMMIT_DELAY_MS}) or
+ * {@code petmanager.commitBatchSize} writes (default {@value #DEFAULT_BATCH_SIZE}) have been submitted,
+ * whichever comes first.</p>
+ *
+ * <p>Every submission returns a future that completes once the data it covers is on disk. Pending writes are
+ * flushed by a shutdown hook when the application exits.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Submitting a write and receiving a completion future</li>
+ *   <li>Coalescing bursts of writes to the same file into one commit</li>
+ *   <li>Flushing all pending writes on demand and on shutdown</li>
+ * </ul>
+ */
+public class StorageWriter {
+
+    static final long DEFAULT_COMMIT_DELAY_MS = 25;
+    static final int DEFAULT_BATCH_SIZE = 64;
+
+    private static final long COMMIT_DELAY_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("petmanager.commitDelayMs", DEFAULT_COMMIT_DELAY_MS));
+    private static final int BATCH_SIZE = Integer.getInteger("petmanager.commitBatchSize", DEFAULT_BATCH_SIZE);
+
+    private static final Object lock = new Object();
+    private static LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private static List<Pending> inFlight = new ArrayList<>();
+    private static int submittedInBatch;
+    private static long batchStartedAt;
+    private static boolean flushRequested;
+    private static Thread worker;
+
+    /**
+     * Writes the content of a file.
+     */
+    interface FileContent {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static class Pending {
+        Runnable write;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+    }
+
+    /**
+     * Queues a write. If a write with the same key is already queued and has not started, it is replaced by
+     * this one and both callers share the same completion future.
+     *
+     * @param key identifies the file the write rewrites
+     * @param write rewrites the file from the latest in-memory state
+     * @return a future that completes when the write has finished, or completes exceptionally if it failed
+     */
+    public static CompletableFuture<Void> submit(String key, Runnable write) {
+        synchronized (lock) {
+            startWorker();
+            Pending entry = pending.get(key);
+            if (entry == null) {
+                entry = new Pending();
+                pending.put(key, entry);
+            }
+            entry.write = write;
+            if (submittedInBatch++ == 0) {
+                batchStartedAt = System.nanoTime();
+            }
+            lock.notifyAll();
+            return entry.done;
+        }
+    }
+
+    /**
+     * Commits every queued write immediately and waits until all queued and running writes have finished.
+     */
+    public static void flush() {
+        List<CompletableFuture<Void>> waits = new ArrayList<>();
+        synchronized (lock) {
+            for (Pending entry : pending.values()) {
+                waits.add(entry.done);
+            }
+            for (Pending entry : inFlight) {
+                waits.add(entry.done);
+            }
+            flushRequested = true;
+            lock.notifyAll();
+        }
+        for (CompletableFuture<Void> wait : waits) {
+            try {
+                wait.join();
+            } catch (RuntimeException e) {
+                // The failure has already been reported by the writer thread.
+            }
+        }
+    }
+
+    private static void startWorker() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(StorageWriter::run, "storage-writer");
+        worker.setDaemon(true);
+        worker.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(StorageWriter::flush, "storage-writer-flush"));
+    }
+
+    private static void run() {
+        while (true) {
+            List<Pending> batch;
+            synchronized (lock) {
+                try {
+                    while (pending.isEmpty()) {
+                        flushRequested = false;
+                        lock.wait();
+                    }
+                    long remaining;
+                    while (!flushRequested && submittedInBatch < BATCH_SIZE
+                            && (remaining = batchStartedAt + COMMIT_DELAY_NANOS - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending = new LinkedHashMap<>();
+                inFlight = batch;
+                submittedInBatch = 0;
+                flushRequested = false;
+            }
+
+            for (Pending entry : batch) {
+                try {
+                    entry.write.run();
+                    entry.done.complete(null);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    entry.done.completeExceptionally(e);
+                }
+            }
+
+            synchronized (lock) {
+                inFlight = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of writes that are queued and have not started yet.
+     *
+     * @return the number of queued writes
+     */
+    public static int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Serializes an object to a temporary file and moves it over the target file, so readers never see a
+     * partially written file.
+     *
+     * @param fileName the target file
+     * @param value the object to serialize
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    static void writeObjectFile(String fileName, Object value) {
+        replaceFile(fileName, stream -> {
+            ObjectOutputStream out = new ObjectOutputStream(stream);
+            out.writeObject(value);
+            out.flush();
+        });
+    }
+
+    /**
+     * Writes the content to a temporary file and moves it over the target file, so readers never see a
+     * partially written file.
+     *
+     * @param fileName the target file
+     * @param content writes the file content to a buffered stream
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    static void replaceFile(String fileName, FileContent content) {
+        File tmp = new File(fileName + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+            content.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + fileName, e);
+        }
+        try {
+            Files.move(tmp.toPath(), new File(fileName).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replace " + fileName, e);
+        }
+    }
+
+    /**
+     * Returns a completed future, for storage operations that had nothing to write.
+     *
+     * @return a future that is already complete
+     */
+    static CompletableFuture<Void> completed() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,259 @@
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * The {@code TaskRunner} class runs storage calls and report building away from the Swing event dispatch thread,
+ * so that listeners only start work and render its result and the user interface never waits for a file or a
+ * scan over a large list.
+ *
+ * <p>Each task runs on its own virtual thread. When it finishes, its result is passed to the success callback,
+ * or its exception to the failure callback, on the event dispatch thread, like {@code SwingWorker.done}. The
+ * default failure callback shows the message of an {@code IllegalArgumentException} or
+ * {@code IllegalStateException} to the user, the way the panels report rejected actions, and prints any other
+ * exception before reporting it.</p>
+ *
+ * <p>A task can be cancelled; neither callback runs afterwards. Its thread is not interrupted, because an interrupt
+ * during a read or write on a {@code FileChannel} closes the channel for every later caller and can leave a page
+ * half-written; work that runs for long should check {@link Progress#isCancelled} and stop. Tasks started with
+ * {@link #runWithProgress} can report progress, which is delivered to a listener on the event dispatch thread.
+ * Reports made faster than the event dispatch thread handles them are merged, so only the latest one is shown.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Running work on a virtual thread and completing it on the event dispatch thread</li>
+ *   <li>Running work on a virtual thread whose result is waited for or combined</li>
+ *   <li>Cancelling a running task</li>
+ *   <li>Reporting progress from a running task</li>
+ * </ul>
+ */
+public class TaskRunner {
+
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Work that can report its progress and check whether it has been cancelled.
+     *
+     * @param <T> the type of the result
+     */
+    public interface Work<T> {
+        T run(Progress progress) throws Exception;
+    }
+
+    /**
+     * Lets running work report progress and notice cancellation.
+     */
+    public interface Progress {
+
+        /**
+         * Reports how far the work has got.
+         *
+         * @param done the number of steps finished
+         * @param total the total number of steps
+         * @param message a description of the current step, or {@code null}
+         */
+        void update(int done, int total, String message);
+
+        /**
+         * Tells whether the task has been cancelled, so long-running work can stop early.
+         *
+         * @return {@code true} if the task has been cancelled
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Receives progress reports on the event dispatch thread.
+     */
+    public interface ProgressListener {
+        void progressed(int done, int total, String message);
+    }
+
+    /**
+     * A running or finished task.
+     *
+     * @param <T> the type of the result
+     */
+    public static final class Task<T> implements Progress {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicReference<Object[]> pendingProgress = new AtomicReference<>();
+        private final ProgressListener listener;
+        private volatile boolean cancelled;
+
+        private Task(ProgressListener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Cancels the task, so neither its success nor its failure callback runs. The work is not interrupted: it
+         * runs on until it finishes or notices {@link #isCancelled}, and changes it has already made are not undone.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Tells whether the work has finished, successfully or not.
+         *
+         * @return {@code true} if the work has finished
+         */
+        public boolean isDone() {
+            return result.isDone();
+        }
+
+        /**
+         * Gets a future that completes with the result of the work, on the thread that ran it. Waiting for it on
+         * the event dispatch thread defeats the purpose of the task.
+         *
+         * @return the future result
+         */
+        public CompletableFuture<T> future() {
+            return result;
+        }
+
+        @Override
+        public void update(int done, int total, String message) {
+            if (listener == null || cancelled) {
+                return;
+            }
+            if (pendingProgress.getAndSet(new Object[]{done, total, message}) == null) {
+                SwingUtilities.invokeLater(() -> {
+                    Object[] latest = pendingProgress.getAndSet(null);
+                    if (latest != null && !cancelled) {
+                        listener.progressed((Integer) latest[0], (Integer) latest[1], (String) latest[2]);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Runs work on a virtual thread and passes its result to a callback on the event dispatch thread. Failures
+     * are reported with the default failure callback.
+     *
+     * @param work the work to run
+     * @param onSuccess receives the result on the event dispatch thread
+     * @param <T> the type of the result
+     * @return the task
+     */
+    public static <T> Task<T> run(Callable<T> work, Consumer<? super T> onSuccess) {
+        return run(work, onSuccess, TaskRunner::reportFailure);
+    }
+
+    /**
+     * Runs work on a virtual thread and passes its result or exception to a callback on the event dispatch
+     * thread.
+     *
+     * @param work the work to run
+     * @param onSuccess receives the result on the event dispatch thread
+     * @param onFailure receives the exception thrown by the work on the event dispatch thread
+     * @param <T> the type of the result
+     * @return the task
+     */
+    public static <T> Task<T> run(Callable<T> work, Consumer<? super T> onSuccess, Consumer<? super Throwable> onFailure) {
+        return runWithProgress(progress -> work.call(), null, onSuccess, onFailure);
+    }
+
+    /**
+     * Runs work on a virtual thread without a callback on the event dispatch thread, for work whose result is
+     * combined with other work or waited for, such as the loads made during startup.
+     *
+     * @param work the work to run
+     * @param <T> the type of the result
+     * @return a future that completes with the result of the work, on the thread that ran it
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.submit(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs work that has no result on a virtual thread and then runs a callback on the event dispatch thread.
+     * Failures are reported with the default failure callback.
+     *
+     * @param work the work to run
+     * @param onSuccess runs on the event dispatch thread after the work
+     * @return the task
+     */
+    public static Task<Void> execute(Runnable work, Runnable onSuccess) {
+        return run(() -> {
+            work.run();
+            return null;
+        }, result -> onSuccess.run());
+    }
+
+    /**
+     * Runs work that reports progress on a virtual thread and passes its result or exception to a callback on
+     * the event dispatch thread.
+     *
+     * @param work the work to run
+     * @param listener receives progress reports on the event dispatch thread, or {@code null}
+     * @param onSuccess receives the result on the event dispatch thread
+     * @param onFailure receives the exception thrown by the work on the event dispatch thread
+     * @param <T> the type of the result
+     * @return the task
+     */
+    public static <T> Task<T> runWithProgress(Work<T> work, ProgressListener listener,
+                                              Consumer<? super T> onSuccess, Consumer<? super Throwable> onFailure) {
+        Task<T> task = new Task<>(listener);
+        executor.submit(() -> {
+            try {
+                task.result.complete(work.run(task));
+            } catch (Throwable e) {
+                task.result.completeExceptionally(e);
+            }
+        });
+        task.result.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (task.cancelled) {
+                return;
+            }
+            if (error == null) {
+                onSuccess.accept(value);
+            } else {
+                onFailure.accept(unwrap(error));
+            }
+        }));
+        return task;
+    }
+
+    /**
+     * Reports a failed task to the user. Rejected actions are shown with their message; any other exception is
+     * printed and reported as an error.
+     *
+     * @param error the exception thrown by the work
+     */
+    public static void reportFailure(Throwable error) {
+        if (error instanceof IllegalArgumentException || error instanceof IllegalStateException) {
+            JOptionPane.showMessageDialog(null, error.getMessage());
+            return;
+        }
+        error.printStackTrace();
+        JOptionPane.showMessageDialog(null, "The operation failed: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
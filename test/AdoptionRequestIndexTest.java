@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code AdoptionRequestIndexTest} class checks that {@link AdoptionRequestIndex} finds requests by customer,
+ * by pet, and by status as they are added, decided, and removed, and that it finds a request's position in a list
+ * held in indexing order.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Looking up requests by customer, by pet, by status, and by customer and pet together</li>
+ *   <li>Moving a request to the bucket of its new status</li>
+ *   <li>Keeping the status counts exact when a status change is reported late or not at all</li>
+ *   <li>Tracking requests by identity rather than by value</li>
+ *   <li>Finding positions by binary search, and by a scan when the list is not in indexing order</li>
+ * </ul>
+ */
+public class AdoptionRequestIndexTest {
+
+    public static void main(String[] args) {
+        TestSupport.run("lookups", AdoptionRequestIndexTest::findsRequests);
+        TestSupport.run("status buckets", AdoptionRequestIndexTest::movesRequestsBetweenStatuses);
+        TestSupport.run("status counts", AdoptionRequestIndexTest::countsRequestsByStatus);
+        TestSupport.run("identity", AdoptionRequestIndexTest::tracksRequestsByIdentity);
+        TestSupport.run("positions", AdoptionRequestIndexTest::findsPositions);
+        TestSupport.finish();
+    }
+
+    private static void findsRequests() {
+        List<AdoptionRequest> requests = requests();
+        AdoptionRequestIndex index = new AdoptionRequestIndex(requests);
+
+        TestSupport.checkEquals(List.of(requests.get(0), requests.get(1)), index.getByCustomer("CUST001"),
+                "requests of CUST001");
+        TestSupport.checkEquals(List.of(requests.get(0), requests.get(2), requests.get(4)), index.getByAnimal("D_001"),
+                "requests for D_001");
+        TestSupport.checkEquals(List.of(), index.getByCustomer("CUST999"), "requests of an unknown customer");
+        TestSupport.checkEquals(requests.get(3), index.find("CUST002", "D_003"), "request of CUST002 for D_003");
+        TestSupport.checkEquals(null, index.find("CUST002", "D_002"), "request that was not made");
+
+        index.remove(requests.get(2));
+        TestSupport.checkEquals(List.of(requests.get(3)), index.getByCustomer("CUST002"),
+                "requests of CUST002 after a removal");
+        TestSupport.checkEquals(List.of(requests.get(0), requests.get(4)), index.getByAnimal("D_001"),
+                "requests for D_001 after a removal");
+        TestSupport.checkEquals(null, index.find("CUST002", "D_001"), "removed request");
+    }
+
+    private static void movesRequestsBetweenStatuses() {
+        List<AdoptionRequest> requests = requests();
+        AdoptionRequestIndex index = new AdoptionRequestIndex(requests);
+        TestSupport.checkEquals(requests, index.getByStatus(RequestStatus.PENDING), "pending requests");
+
+        index.changeStatus(requests.get(2), RequestStatus.APPROVED);
+        index.changeStatus(requests.get(4), RequestStatus.DENIED);
+        TestSupport.checkEquals(RequestStatus.APPROVED.name(), requests.get(2).getStatus().name(), "request status");
+        TestSupport.checkEquals(List.of(requests.get(0), requests.get(1), requests.get(3)),
+                index.getByStatus(RequestStatus.PENDING), "pending requests after deciding two");
+        TestSupport.checkEquals(List.of(requests.get(2)), index.getByStatus(RequestStatus.APPROVED),
+                "approved requests");
+        TestSupport.checkEquals(List.of(requests.get(4)), index.getByStatus(RequestStatus.DENIED), "denied requests");
+
+        index.remove(requests.get(2));
+        TestSupport.checkEquals(List.of(), index.getByStatus(RequestStatus.APPROVED),
+                "approved requests after removing the approved one");
+    }
+
+    private static void countsRequestsByStatus() {
+        List<AdoptionRequest> requests = requests();
+        AdoptionRequestIndex index = new AdoptionRequestIndex(requests);
+        checkCounts(index, 5, 0, 0);
+
+        index.changeStatus(requests.get(0), RequestStatus.APPROVED);
+        TestSupport.checkThrows(IllegalStateException.class,
+                () -> index.changeStatus(requests.get(0), RequestStatus.DENIED));
+        checkCounts(index, 4, 1, 0);
+
+        // A status changed on the request is only moved once it is reported
+        AdoptionRequest decided = requests.get(1);
+        TestSupport.check(decided.compareAndSetStatus(decided.getVersion(), RequestStatus.DENIED), "request denied");
+        checkCounts(index, 4, 1, 0);
+        TestSupport.checkEquals(List.of(requests.get(1), requests.get(2), requests.get(3), requests.get(4)),
+                index.getByStatus(RequestStatus.PENDING), "pending requests before the change is reported");
+        index.statusChanged(decided);
+        index.statusChanged(decided);
+        checkCounts(index, 3, 1, 1);
+
+        // A request removed before its change was reported leaves the bucket it was indexed under
+        AdoptionRequest unreported = requests.get(2);
+        unreported.transitionTo(RequestStatus.APPROVED);
+        index.remove(unreported);
+        checkCounts(index, 2, 1, 1);
+        TestSupport.checkEquals(List.of(requests.get(0)), index.getByStatus(RequestStatus.APPROVED),
+                "approved requests");
+
+        index.add(new AdoptionRequest("CUST004", "D_004"));
+        checkCounts(index, 3, 1, 1);
+    }
+
+    private static void tracksRequestsByIdentity() {
+        List<AdoptionRequest> requests = requests();
+        AdoptionRequestIndex index = new AdoptionRequestIndex(requests);
+        AdoptionRequest lookalike = new AdoptionRequest("CUST001", "D_001");
+        TestSupport.check(index.contains(requests.get(0)), "indexed request");
+        TestSupport.check(!index.contains(lookalike), "request with the same IDs");
+
+        // Adding an indexed request again does not index it twice
+        index.add(requests.get(0));
+        TestSupport.checkEquals(5, index.getByStatus(RequestStatus.PENDING).size(), "pending requests");
+
+        index.remove(lookalike);
+        TestSupport.check(index.contains(requests.get(0)), "indexed request after removing a lookalike");
+        index.remove(requests.get(0));
+        TestSupport.check(!index.contains(requests.get(0)), "removed request");
+    }
+
+    private static void findsPositions() {
+        List<AdoptionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(new AdoptionRequest(String.format("CUST%03d", i), "D_" + (i % 7)));
+        }
+        AdoptionRequestIndex index = new AdoptionRequestIndex(requests);
+        for (int i = 0; i < requests.size(); i++) {
+            TestSupport.checkEquals(i, index.positionIn(requests, requests.get(i)), "position of request " + i);
+        }
+
+        // Removing requests keeps the list in indexing order
+        for (int i = requests.size() - 1; i >= 0; i -= 3) {
+            index.remove(requests.remove(i));
+        }
+        AdoptionRequest added = new AdoptionRequest("CUST100", "D_0");
+        requests.add(added);
+        index.add(added);
+        for (int i = 0; i < requests.size(); i++) {
+            TestSupport.checkEquals(i, index.positionIn(requests, requests.get(i)), "position after removals");
+        }
+        TestSupport.checkEquals(-1, index.positionIn(requests, new AdoptionRequest("CUST001", "D_1")),
+                "position of a request that is not indexed");
+
+        // A list holding a request the index does not know is scanned
+        List<AdoptionRequest> mixed = new ArrayList<>(requests);
+        mixed.add(0, new AdoptionRequest("CUST999", "D_9"));
+        TestSupport.checkEquals(41, index.positionIn(mixed, requests.get(40)), "position in a list with a stranger");
+    }
+
+    private static void checkCounts(AdoptionRequestIndex index, long pending, long approved, long denied) {
+        TestSupport.checkEquals(pending, index.countByStatus(RequestStatus.PENDING), "pending count");
+        TestSupport.checkEquals(approved, index.countByStatus(RequestStatus.APPROVED), "approved count");
+        TestSupport.checkEquals(denied, index.countByStatus(RequestStatus.DENIED), "denied count");
+        for (RequestStatus status : RequestStatus.values()) {
+            TestSupport.checkEquals(index.countByStatus(status), (long) index.getByStatus(status).size(),
+                    "requests listed as " + status.name());
+        }
+    }
+
+    /**
+     * Returns five pending requests: two by CUST001, two by CUST002, and one by CUST003, three of them for D_001.
+     */
+    private static List<AdoptionRequest> requests() {
+        List<AdoptionRequest> requests = new ArrayList<>();
+        requests.add(new AdoptionRequest("CUST001", "D_001"));
+        requests.add(new AdoptionRequest("CUST001", "D_002"));
+        requests.add(new AdoptionRequest("CUST002", "D_001"));
+        requests.add(new AdoptionRequest("CUST002", "D_003"));
+        requests.add(new AdoptionRequest("CUST003", "D_001"));
+        return requests;
+    }
+}
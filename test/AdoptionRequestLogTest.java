@@ -0,0 +1,184 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code AdoptionRequestLogTest} class checks that {@link AdoptionRequestLog} replays its records on top of
+ * a snapshot, and that a log cut short or damaged by a crash is recovered up to its last complete record.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Replaying adds, status changes, and tombstones in order</li>
+ *   <li>Replaying records the snapshot already contains without duplicating requests</li>
+ *   <li>Dropping a torn tail and appending after it</li>
+ *   <li>Stopping at a record whose checksum does not match</li>
+ *   <li>Replaying the rotated log before the current one</li>
+ *   <li>Replaying records that stored the status as a label</li>
+ * </ul>
+ */
+public class AdoptionRequestLogTest {
+
+    private static final String FILE_NAME = "requests.log";
+
+    public static void main(String[] args) {
+        TestSupport.run("replay in order", AdoptionRequestLogTest::replaysInOrder);
+        TestSupport.run("replay over snapshot", AdoptionRequestLogTest::replaysOverSnapshot);
+        TestSupport.run("torn tail", AdoptionRequestLogTest::dropsTornTail);
+        TestSupport.run("corrupt record", AdoptionRequestLogTest::stopsAtCorruptRecord);
+        TestSupport.run("rotated log", AdoptionRequestLogTest::replaysRotatedLogFirst);
+        TestSupport.run("label status records", AdoptionRequestLogTest::replaysLabelRecords);
+        TestSupport.finish();
+    }
+
+    private static void replaysInOrder() {
+        AdoptionRequestLog log = freshLog();
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST001", "D_001", RequestStatus.PENDING));
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST002", "D_001", RequestStatus.PENDING));
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST001", "C_002", RequestStatus.PENDING));
+        log.append(AdoptionRequestLog.OP_STATUS, request("CUST001", "D_001", RequestStatus.APPROVED));
+        log.append(AdoptionRequestLog.OP_REMOVE, request("CUST002", "D_001", RequestStatus.PENDING));
+        TestSupport.checkEquals(5, log.getRecordCount(), "record count");
+        TestSupport.checkEquals(2, log.getGarbageCount(), "garbage count");
+
+        LinkedHashMap<String, AdoptionRequest> requests = new LinkedHashMap<>();
+        TestSupport.checkEquals(5, new AdoptionRequestLog(FILE_NAME).replay(requests), "records applied");
+        TestSupport.checkEquals(List.of("CUST001/D_001/APPROVED", "CUST001/C_002/PENDING"), describe(requests),
+                "replayed requests");
+    }
+
+    private static void replaysOverSnapshot() {
+        AdoptionRequestLog log = freshLog();
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST001", "D_001", RequestStatus.PENDING));
+        log.append(AdoptionRequestLog.OP_STATUS, request("CUST001", "D_001", RequestStatus.DENIED));
+        log.append(AdoptionRequestLog.OP_STATUS, request("CUST009", "D_009", RequestStatus.APPROVED));
+
+        LinkedHashMap<String, AdoptionRequest> requests = new LinkedHashMap<>();
+        put(requests, request("CUST000", "B_000", RequestStatus.PENDING));
+        put(requests, request("CUST001", "D_001", RequestStatus.PENDING));
+        AdoptionRequest snapshotCopy = requests.get(AdoptionRequestLog.key("CUST001", "D_001"));
+        new AdoptionRequestLog(FILE_NAME).replay(requests);
+
+        // The status change for a request that is not stored is ignored, and the stored one is changed in place
+        TestSupport.checkEquals(List.of("CUST000/B_000/PENDING", "CUST001/D_001/DENIED"), describe(requests),
+                "replayed requests");
+        TestSupport.check(requests.get(AdoptionRequestLog.key("CUST001", "D_001")) == snapshotCopy,
+                "the snapshot's request is updated, not replaced");
+    }
+
+    private static void dropsTornTail() throws IOException {
+        AdoptionRequestLog log = freshLog();
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST001", "D_001", RequestStatus.PENDING));
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST002", "D_002", RequestStatus.PENDING));
+        File file = new File(FILE_NAME);
+        long complete = file.length();
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST003", "D_003", RequestStatus.PENDING));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 3);
+        }
+
+        AdoptionRequestLog reopened = new AdoptionRequestLog(FILE_NAME);
+        LinkedHashMap<String, AdoptionRequest> requests = new LinkedHashMap<>();
+        TestSupport.checkEquals(2, reopened.replay(requests), "records applied");
+        TestSupport.checkEquals(complete, file.length(), "log length after the torn record is dropped");
+
+        // A record appended after recovery is not hidden behind the torn one
+        reopened.append(AdoptionRequestLog.OP_ADD, request("CUST004", "D_004", RequestStatus.PENDING));
+        requests.clear();
+        TestSupport.checkEquals(3, new AdoptionRequestLog(FILE_NAME).replay(requests), "records applied");
+        TestSupport.checkEquals(List.of("CUST001/D_001/PENDING", "CUST002/D_002/PENDING", "CUST004/D_004/PENDING"),
+                describe(requests), "replayed requests");
+    }
+
+    private static void stopsAtCorruptRecord() throws IOException {
+        AdoptionRequestLog log = freshLog();
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST001", "D_001", RequestStatus.PENDING));
+        File file = new File(FILE_NAME);
+        long first = file.length();
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST002", "D_002", RequestStatus.PENDING));
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST003", "D_003", RequestStatus.PENDING));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Flip a byte in the payload of the second record
+            raf.seek(first + 10);
+            int b = raf.read();
+            raf.seek(first + 10);
+            raf.write(b ^ 0xFF);
+        }
+
+        LinkedHashMap<String, AdoptionRequest> requests = new LinkedHashMap<>();
+        TestSupport.checkEquals(1, new AdoptionRequestLog(FILE_NAME).replay(requests), "records applied");
+        TestSupport.checkEquals(List.of("CUST001/D_001/PENDING"), describe(requests), "replayed requests");
+        TestSupport.checkEquals(first, file.length(), "log length after the corrupt records are dropped");
+    }
+
+    private static void replaysRotatedLogFirst() {
+        AdoptionRequestLog log = freshLog();
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST001", "D_001", RequestStatus.PENDING));
+        log.rotate();
+        log.append(AdoptionRequestLog.OP_STATUS, request("CUST001", "D_001", RequestStatus.APPROVED));
+        TestSupport.check(new File(FILE_NAME + ".1").exists(), "rotated log exists");
+
+        LinkedHashMap<String, AdoptionRequest> requests = new LinkedHashMap<>();
+        TestSupport.checkEquals(2, new AdoptionRequestLog(FILE_NAME).replay(requests), "records applied");
+        TestSupport.checkEquals(List.of("CUST001/D_001/APPROVED"), describe(requests), "replayed requests");
+
+        log.clearRotated();
+        TestSupport.check(!new File(FILE_NAME + ".1").exists(), "rotated log removed once its snapshot is written");
+    }
+
+    private static void replaysLabelRecords() throws IOException {
+        freshLog();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(FILE_NAME))) {
+            writeLabelRecord(out, AdoptionRequestLog.OP_ADD, "CUST001", "D_001", RequestStatus.PENDING);
+            writeLabelRecord(out, AdoptionRequestLog.OP_STATUS, "CUST001", "D_001", RequestStatus.APPROVED);
+        }
+        LinkedHashMap<String, AdoptionRequest> requests = new LinkedHashMap<>();
+        TestSupport.checkEquals(2, new AdoptionRequestLog(FILE_NAME).replay(requests), "records applied");
+        TestSupport.checkEquals(List.of("CUST001/D_001/APPROVED"), describe(requests), "replayed requests");
+    }
+
+    /**
+     * Writes a record the way the log did when the status was stored as its label.
+     */
+    private static void writeLabelRecord(DataOutputStream out, byte op, String customerId, String animalId,
+                                         RequestStatus status) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream payload = new DataOutputStream(bytes)) {
+            payload.writeByte(op);
+            payload.writeUTF(customerId);
+            payload.writeUTF(animalId);
+            payload.writeUTF(status.getLabel());
+        }
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        out.writeInt(record.length);
+        out.writeInt((int) crc.getValue());
+        out.write(record);
+    }
+
+    private static AdoptionRequestLog freshLog() {
+        new File(FILE_NAME).delete();
+        new File(FILE_NAME + ".1").delete();
+        return new AdoptionRequestLog(FILE_NAME);
+    }
+
+    private static AdoptionRequest request(String customerId, String animalId, RequestStatus status) {
+        AdoptionRequest request = new AdoptionRequest(customerId, animalId);
+        request.setStatus(status);
+        return request;
+    }
+
+    private static void put(LinkedHashMap<String, AdoptionRequest> requests, AdoptionRequest request) {
+        requests.put(AdoptionRequestLog.key(request.getCustomerId(), request.getAnimalID()), request);
+    }
+
+    private static List<String> describe(LinkedHashMap<String, AdoptionRequest> requests) {
+        List<String> described = new ArrayList<>();
+        for (AdoptionRequest request : requests.values()) {
+            described.add(request.getCustomerId() + "/" + request.getAnimalID() + "/" + request.getStatus().name());
+        }
+        return described;
+    }
+}
@@ -0,0 +1,73 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code AdoptionRequestMigrationTest} class checks that switching to the B+tree engine imports the adoption
+ * requests as they were last changed: the snapshot file with the log and the rotated log replayed on top of it.
+ * The engine is read once per process, so the whole migration is a single case.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Importing the snapshot with adds, status changes, and tombstones from both logs applied</li>
+ *   <li>Folding the logs into the snapshot and clearing them after the import</li>
+ *   <li>Writing later changes to the B+tree store instead of the log</li>
+ * </ul>
+ */
+public class AdoptionRequestMigrationTest {
+
+    public static void main(String[] args) {
+        TestSupport.run("import snapshot and log", AdoptionRequestMigrationTest::importsSnapshotAndLog);
+        StorageWriter.flush();
+        TestSupport.finish();
+    }
+
+    private static void importsSnapshotAndLog() {
+        List<AdoptionRequest> snapshot = new ArrayList<>();
+        snapshot.add(request("CUST001", "D_001", RequestStatus.PENDING));
+        snapshot.add(request("CUST002", "D_002", RequestStatus.PENDING));
+        snapshot.add(request("CUST003", "D_003", RequestStatus.DENIED));
+        new SerializedFileStore<>("adoption_requests.dat", AdoptionRequestMigrationTest::key, BinaryCodec.REQUESTS)
+                .saveAll(snapshot);
+
+        AdoptionRequestLog log = new AdoptionRequestLog("adoption_requests.log");
+        log.append(AdoptionRequestLog.OP_STATUS, request("CUST001", "D_001", RequestStatus.APPROVED));
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST004", "D_004", RequestStatus.PENDING));
+        log.rotate();
+        log.append(AdoptionRequestLog.OP_REMOVE, request("CUST003", "D_003", RequestStatus.DENIED));
+        log.append(AdoptionRequestLog.OP_ADD, request("CUST005", "D_005", RequestStatus.PENDING));
+
+        System.setProperty("petmanager.storage", RecordStores.BTREE);
+        List<String> expected = List.of("CUST001/D_001/APPROVED", "CUST002/D_002/PENDING", "CUST004/D_004/PENDING",
+                "CUST005/D_005/PENDING");
+        TestSupport.checkEquals(expected, describe(AdoptionRequestStorage.loadRequests()), "imported requests");
+        TestSupport.check(new File("adoption_requests.db").exists(), "B+tree store created");
+        TestSupport.check(!new File("adoption_requests.log").exists(), "log cleared");
+        TestSupport.check(!new File("adoption_requests.log.1").exists(), "rotated log cleared");
+        TestSupport.checkEquals(expected, describe(new SerializedFileStore<>("adoption_requests.dat",
+                AdoptionRequestMigrationTest::key, BinaryCodec.REQUESTS).loadAll()), "snapshot after folding the log");
+        TestSupport.checkEquals(3L, AdoptionRequestStorage.countRequests(RequestStatus.PENDING), "pending count");
+
+        AdoptionRequestStorage.addRequest(new AdoptionRequest("CUST006", "D_006"));
+        TestSupport.check(!new File("adoption_requests.log").exists(), "later changes are not logged");
+        TestSupport.check(AdoptionRequestStorage.findRequest("CUST006", "D_006") != null, "request added after import");
+    }
+
+    private static AdoptionRequest request(String customerId, String animalId, RequestStatus status) {
+        AdoptionRequest request = new AdoptionRequest(customerId, animalId);
+        request.setStatus(status);
+        return request;
+    }
+
+    private static String key(AdoptionRequest request) {
+        return AdoptionRequestLog.key(request.getCustomerId(), request.getAnimalID());
+    }
+
+    private static List<String> describe(List<AdoptionRequest> requests) {
+        List<String> described = new ArrayList<>();
+        for (AdoptionRequest request : requests) {
+            described.add(request.getCustomerId() + "/" + request.getAnimalID() + "/" + request.getStatus().name());
+        }
+        return described;
+    }
+}
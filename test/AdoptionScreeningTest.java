@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code AdoptionScreeningTest} class checks that {@link AdoptionScreening} puts every pending request in
+ * exactly one outcome, in the documented order of precedence, and keeps the order of the requests within each
+ * outcome, however the parallel pass splits the work.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Telling unavailable pets, ineligible customers, and conflicts apart</li>
+ *   <li>Only counting requests that passed the other checks as conflicting</li>
+ *   <li>Screening a large batch the same way as checking each request in turn</li>
+ *   <li>Screening the stored pending requests without changing them</li>
+ * </ul>
+ */
+public class AdoptionScreeningTest {
+
+    private static final int YEAR = 2030;
+
+    public static void main(String[] args) {
+        TestSupport.run("outcomes", AdoptionScreeningTest::sortsRequestsIntoOutcomes);
+        TestSupport.run("large batch", AdoptionScreeningTest::screensLargeBatch);
+        TestSupport.run("stored requests", AdoptionScreeningTest::screensStoredPendingRequests);
+        StorageWriter.flush();
+        TestSupport.finish();
+    }
+
+    private static void sortsRequestsIntoOutcomes() {
+        String adult = addCustomer("Adult", YEAR - 30);
+        String young = addCustomer("Young", YEAR - 20);
+        String justAdult = addCustomer("JustAdult", YEAR - 21);
+        addPet("D_001", false);
+        addPet("D_002", true);
+        addPet("D_003", false);
+        addPet("D_004", false);
+
+        List<AdoptionRequest> pending = List.of(
+                new AdoptionRequest(adult, "D_001"),
+                new AdoptionRequest(young, "D_001"),
+                new AdoptionRequest(young, "D_002"),
+                new AdoptionRequest(adult, "D_999"),
+                new AdoptionRequest("CUST999", "D_003"),
+                new AdoptionRequest(adult, "D_004"),
+                new AdoptionRequest(justAdult, "D_004"));
+        AdoptionScreening.Result result = AdoptionScreening.screen(pending, YEAR);
+
+        // D_001 has one request that passed, so it does not conflict with the ineligible one
+        TestSupport.checkEquals(List.of(pending.get(0)), result.get(AdoptionScreening.Outcome.AUTO_APPROVABLE),
+                "auto-approvable requests");
+        TestSupport.checkEquals(List.of(pending.get(1), pending.get(4)),
+                result.get(AdoptionScreening.Outcome.INELIGIBLE), "ineligible requests");
+        TestSupport.checkEquals(List.of(pending.get(2), pending.get(3)),
+                result.get(AdoptionScreening.Outcome.PET_UNAVAILABLE), "requests for unavailable pets");
+        TestSupport.checkEquals(List.of(pending.get(5), pending.get(6)),
+                result.get(AdoptionScreening.Outcome.CONFLICTING), "conflicting requests");
+        TestSupport.checkEquals(YEAR, result.getYear(), "year");
+        TestSupport.checkThrows(UnsupportedOperationException.class,
+                () -> result.get(AdoptionScreening.Outcome.CONFLICTING).clear());
+
+        AdoptionScreening.Result empty = AdoptionScreening.screen(List.of(), YEAR);
+        for (AdoptionScreening.Outcome outcome : AdoptionScreening.Outcome.values()) {
+            TestSupport.checkEquals(0, empty.count(outcome), outcome.name() + " requests of an empty batch");
+        }
+    }
+
+    private static void screensLargeBatch() {
+        List<String> customers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            customers.add(addCustomer("Batch" + i, YEAR - 15 - i));
+        }
+        for (int i = 0; i < 300; i++) {
+            addPet(String.format("C_%03d", i), i % 7 == 0);
+        }
+        List<AdoptionRequest> pending = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            pending.add(new AdoptionRequest(customers.get((i * 13) % customers.size()),
+                    String.format("C_%03d", (i * 31) % 320)));
+        }
+
+        AdoptionScreening.Result result = AdoptionScreening.screen(pending, YEAR);
+        Map<AdoptionScreening.Outcome, List<AdoptionRequest>> expected = screenInTurn(pending);
+        int total = 0;
+        for (AdoptionScreening.Outcome outcome : AdoptionScreening.Outcome.values()) {
+            TestSupport.checkEquals(expected.get(outcome), result.get(outcome), outcome.name() + " requests");
+            total += result.count(outcome);
+        }
+        TestSupport.checkEquals(pending.size(), total, "screened requests");
+    }
+
+    private static void screensStoredPendingRequests() {
+        String customer = addCustomer("Stored", YEAR - 40);
+        addPet("B_001", false);
+        addPet("B_002", false);
+        AdoptionRequestStorage.addRequest(new AdoptionRequest(customer, "B_001"));
+        AdoptionRequestStorage.addRequest(new AdoptionRequest(customer, "B_002"));
+        AdoptionService.deny(customer, "B_002");
+
+        AdoptionScreening.Result result = AdoptionScreening.screenPending();
+        TestSupport.checkEquals(1, result.count(AdoptionScreening.Outcome.AUTO_APPROVABLE), "screened requests");
+        TestSupport.checkEquals("B_001", result.get(AdoptionScreening.Outcome.AUTO_APPROVABLE).get(0).getAnimalID(),
+                "screened pet");
+        TestSupport.checkEquals(RequestStatus.PENDING.name(),
+                AdoptionRequestStorage.findRequest(customer, "B_001").getStatus().name(), "status after screening");
+        TestSupport.check(!PetStorage.findAnimal("B_001").getAdoptionStat(), "pet after screening");
+    }
+
+    /**
+     * Applies the documented checks to each request in turn, as the expected result of screening.
+     */
+    private static Map<AdoptionScreening.Outcome, List<AdoptionRequest>> screenInTurn(List<AdoptionRequest> pending) {
+        Map<AdoptionScreening.Outcome, List<AdoptionRequest>> byOutcome = new HashMap<>();
+        for (AdoptionScreening.Outcome outcome : AdoptionScreening.Outcome.values()) {
+            byOutcome.put(outcome, new ArrayList<>());
+        }
+        Map<String, Integer> passedPerPet = new HashMap<>();
+        List<AdoptionRequest> passed = new ArrayList<>();
+        for (AdoptionRequest request : pending) {
+            Pet pet = PetStorage.findAnimal(request.getAnimalID());
+            Customer customer = CustomerStorage.getCustomerById(request.getCustomerId());
+            if (pet == null || pet.getAdoptionStat()) {
+                byOutcome.get(AdoptionScreening.Outcome.PET_UNAVAILABLE).add(request);
+            } else if (customer == null || !customer.isEligibleToAdopt(YEAR)) {
+                byOutcome.get(AdoptionScreening.Outcome.INELIGIBLE).add(request);
+            } else {
+                passed.add(request);
+                passedPerPet.merge(request.getAnimalID(), 1, Integer::sum);
+            }
+        }
+        for (AdoptionRequest request : passed) {
+            byOutcome.get(passedPerPet.get(request.getAnimalID()) > 1
+                    ? AdoptionScreening.Outcome.CONFLICTING : AdoptionScreening.Outcome.AUTO_APPROVABLE).add(request);
+        }
+        return byOutcome;
+    }
+
+    private static String addCustomer(String name, int birthYear) {
+        Customer customer = new Customer(CustomerStorage.nextCustomerId(), name, "Female", "1 Main Street",
+                name + "@example.com", "555-1000", birthYear, "secret", name.toLowerCase());
+        TestSupport.check(CustomerStorage.addCustomer(customer), "customer " + name + " added");
+        return customer.getCustomerId();
+    }
+
+    private static void addPet(String id, boolean adopted) {
+        Pet pet = new Pet(id, "Pet " + id, "Labrador", 2, "Male");
+        pet.setAdoptionStat(adopted);
+        PetStorage.addAnimal(pet);
+    }
+}
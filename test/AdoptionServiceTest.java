@@ -0,0 +1,315 @@
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code AdoptionServiceTest} class checks that {@link AdoptionService} lets exactly one of several admins
+ * deciding at the same time win, and that the request counts and lists stay in step while approvals race with
+ * withdrawals and removals.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Approving competing requests for the same pet from many threads</li>
+ *   <li>Approving the same request from many threads</li>
+ *   <li>Approving requests for different pets at once</li>
+ *   <li>Approving requests while they are withdrawn or removed</li>
+ *   <li>Rejecting the approval of a withdrawn request</li>
+ *   <li>Releasing a pet that was changed and saved between claiming it and claiming its request</li>
+ *   <li>Approving and denying by customer and pet, and rejecting decisions that are not allowed</li>
+ * </ul>
+ */
+public class AdoptionServiceTest {
+
+    private static final int THREADS = 16;
+
+    public static void main(String[] args) {
+        TestSupport.run("competing requests for one pet", AdoptionServiceTest::approvesOneRequestPerPet);
+        TestSupport.run("same request from many threads", AdoptionServiceTest::approvesSameRequestOnce);
+        TestSupport.run("different pets", AdoptionServiceTest::approvesDifferentPets);
+        TestSupport.run("approve while withdrawing", AdoptionServiceTest::approvesWhileWithdrawing);
+        TestSupport.run("approve while removing", AdoptionServiceTest::approvesWhileRemoving);
+        TestSupport.run("withdrawn request", AdoptionServiceTest::rejectsWithdrawnRequest);
+        TestSupport.run("pet changed between claims", AdoptionServiceTest::releasesPetChangedBetweenClaims);
+        TestSupport.run("decisions by key", AdoptionServiceTest::decidesByCustomerAndPet);
+        TestSupport.run("rejected decisions", AdoptionServiceTest::rejectsDisallowedDecisions);
+        StorageWriter.flush();
+        TestSupport.finish();
+    }
+
+    private static void approvesOneRequestPerPet() throws Exception {
+        Pet pet = addPet("D_100");
+        List<AdoptionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            requests.add(addRequest(addCustomer("A" + i).getCustomerId(), pet.getId()));
+        }
+
+        List<Callable<Void>> approvals = new ArrayList<>();
+        for (AdoptionRequest request : requests) {
+            approvals.add(() -> {
+                AdoptionService.approve(request);
+                return null;
+            });
+        }
+        TestSupport.checkEquals(1, runTogether(approvals), "approvals that succeeded");
+        TestSupport.check(pet.getAdoptionStat(), "pet adopted");
+
+        int approved = 0;
+        for (AdoptionRequest request : requests) {
+            if (request.getStatus() == RequestStatus.APPROVED) {
+                approved++;
+            } else {
+                TestSupport.checkEquals(RequestStatus.PENDING.name(), request.getStatus().name(),
+                        "status of a losing request");
+            }
+        }
+        TestSupport.checkEquals(1, approved, "approved requests");
+        checkCounts();
+    }
+
+    private static void approvesSameRequestOnce() throws Exception {
+        Pet pet = addPet("D_200");
+        Customer customer = addCustomer("B");
+        AdoptionRequest request = addRequest(customer.getCustomerId(), pet.getId());
+
+        List<Callable<Void>> approvals = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            approvals.add(() -> {
+                AdoptionService.approve(customer.getCustomerId(), pet.getId());
+                return null;
+            });
+        }
+        TestSupport.checkEquals(1, runTogether(approvals), "approvals that succeeded");
+        TestSupport.checkEquals(RequestStatus.APPROVED.name(), request.getStatus().name(), "request status");
+        TestSupport.check(pet.getAdoptionStat(), "pet adopted");
+        checkCounts();
+    }
+
+    private static void approvesDifferentPets() throws Exception {
+        List<Callable<Void>> approvals = new ArrayList<>();
+        List<AdoptionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Pet pet = addPet(String.format("D_3%02d", i));
+            AdoptionRequest request = addRequest(addCustomer("C" + i).getCustomerId(), pet.getId());
+            requests.add(request);
+            approvals.add(() -> {
+                AdoptionService.approve(request);
+                return null;
+            });
+        }
+        TestSupport.checkEquals(THREADS, runTogether(approvals), "approvals that succeeded");
+        for (AdoptionRequest request : requests) {
+            TestSupport.checkEquals(RequestStatus.APPROVED.name(), request.getStatus().name(),
+                    "status of " + request.getAnimalID());
+            TestSupport.check(PetStorage.findAnimal(request.getAnimalID()).getAdoptionStat(),
+                    request.getAnimalID() + " adopted");
+        }
+        checkCounts();
+    }
+
+    private static void approvesWhileWithdrawing() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            Pet pet = addPet(String.format("D_4%02d", i));
+            AdoptionRequest request = addRequest(addCustomer("E" + i).getCustomerId(), pet.getId());
+            List<Callable<Void>> race = List.of(
+                    () -> {
+                        AdoptionService.approve(request);
+                        return null;
+                    },
+                    () -> {
+                        AdoptionRequestStorage.withdrawRequest(request);
+                        return null;
+                    });
+            TestSupport.check(runTogether(race) >= 1, "one of the approval and the withdrawal succeeded");
+            if (AdoptionRequestStorage.isStored(request)) {
+                TestSupport.checkEquals(RequestStatus.APPROVED.name(), request.getStatus().name(),
+                        "status of a request that was not withdrawn");
+            }
+        }
+        checkCounts();
+    }
+
+    private static void approvesWhileRemoving() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            Pet pet = addPet(String.format("D_5%02d", i));
+            AdoptionRequest decided = addRequest(addCustomer("F" + i).getCustomerId(), pet.getId());
+            AdoptionService.deny(decided.getCustomerId(), pet.getId());
+            AdoptionRequest pending = addRequest(addCustomer("G" + i).getCustomerId(), pet.getId());
+            List<Callable<Void>> race = List.of(
+                    () -> {
+                        AdoptionService.approve(pending);
+                        return null;
+                    },
+                    () -> {
+                        AdoptionRequestStorage.removeRequest(decided);
+                        return null;
+                    });
+            TestSupport.checkEquals(2, runTogether(race), "operations that succeeded");
+            TestSupport.check(!AdoptionRequestStorage.isStored(decided), "denied request removed");
+            TestSupport.checkEquals(RequestStatus.APPROVED.name(), pending.getStatus().name(),
+                    "status of the approved request");
+        }
+        checkCounts();
+    }
+
+    private static void rejectsWithdrawnRequest() throws Exception {
+        Pet pet = addPet("D_600");
+        AdoptionRequest request = addRequest(addCustomer("H").getCustomerId(), pet.getId());
+        AdoptionRequestStorage.withdrawRequest(request);
+        TestSupport.checkThrows(IllegalStateException.class, () -> AdoptionService.approve(request));
+        TestSupport.checkEquals(RequestStatus.PENDING.name(), request.getStatus().name(), "request status");
+        TestSupport.check(!pet.getAdoptionStat(), "pet still available");
+        checkCounts();
+    }
+
+    private static void releasesPetChangedBetweenClaims() throws Exception {
+        Pet pet = addPet("D_700");
+        String customerId = addCustomer("I").getCustomerId();
+        // Another admin edits and saves the claimed pet, then decides the request, just before this approval
+        // claims the request
+        AdoptionRequest request = new AdoptionRequest(customerId, pet.getId()) {
+            @Override
+            public boolean compareAndSetStatus(int expectedVersion, RequestStatus next) {
+                if (next == RequestStatus.APPROVED && getStatus() == RequestStatus.PENDING) {
+                    pet.setName("Renamed");
+                    PetStorage.updateAnimal(pet);
+                    AdoptionService.deny(getCustomerId(), getAnimalID());
+                }
+                return super.compareAndSetStatus(expectedVersion, next);
+            }
+        };
+        AdoptionRequestStorage.addRequest(request);
+
+        TestSupport.checkThrows(IllegalStateException.class, () -> AdoptionService.approve(request));
+        TestSupport.check(!pet.getAdoptionStat(), "pet released in memory");
+        TestSupport.check(pet.isAvalibleForAdoption(), "pet available again");
+
+        StorageWriter.flush();
+        StorageCache.invalidate("pets");
+        Pet stored = PetStorage.findAnimal(pet.getId());
+        TestSupport.check(stored != pet, "pet read back from disk");
+        TestSupport.checkEquals("Renamed", stored.getName(), "stored name");
+        TestSupport.check(!stored.getAdoptionStat(), "pet released on disk");
+        TestSupport.checkEquals(RequestStatus.DENIED.name(), request.getStatus().name(), "request status");
+        checkCounts();
+    }
+
+    private static void decidesByCustomerAndPet() throws Exception {
+        Pet pet = addPet("D_800");
+        String approved = addCustomer("J").getCustomerId();
+        String denied = addCustomer("K").getCustomerId();
+        AdoptionRequest approvedRequest = addRequest(approved, pet.getId());
+        AdoptionRequest deniedRequest = addRequest(denied, pet.getId());
+
+        AdoptionService.deny(denied, pet.getId()).get(30, TimeUnit.SECONDS);
+        TestSupport.checkEquals(RequestStatus.DENIED.name(), deniedRequest.getStatus().name(), "denied request");
+        TestSupport.check(!pet.getAdoptionStat(), "pet available after a denial");
+
+        AdoptionService.approve(approved, pet.getId()).get(30, TimeUnit.SECONDS);
+        TestSupport.checkEquals(RequestStatus.APPROVED.name(), approvedRequest.getStatus().name(), "approved request");
+        TestSupport.check(pet.getAdoptionStat(), "pet adopted");
+
+        // A walk-in adoption has no request to approve
+        Pet walkIn = addPet("D_801");
+        AdoptionService.approve(addCustomer("L").getCustomerId(), walkIn.getId()).get(30, TimeUnit.SECONDS);
+        StorageCache.invalidate("pets");
+        TestSupport.check(PetStorage.findAnimal(pet.getId()).getAdoptionStat(), "approved pet adopted on disk");
+        TestSupport.check(PetStorage.findAnimal(walkIn.getId()).getAdoptionStat(), "walk-in pet adopted on disk");
+        checkCounts();
+    }
+
+    private static void rejectsDisallowedDecisions() {
+        Pet pet = addPet("D_900");
+        String customerId = addCustomer("M").getCustomerId();
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> AdoptionService.approve(customerId, "D_999"));
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> AdoptionService.approve("CUST999", pet.getId()));
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> AdoptionService.deny(customerId, pet.getId()));
+
+        Customer young = new Customer(CustomerStorage.nextCustomerId(), "Young", "Female", "1 Main Street",
+                "young@example.com", "555-1000", Year.now().getValue() - 18, "secret", "young");
+        TestSupport.check(CustomerStorage.addCustomer(young), "young customer added");
+        AdoptionRequest youngRequest = addRequest(young.getCustomerId(), pet.getId());
+        TestSupport.checkThrows(IllegalStateException.class, () -> AdoptionService.approve(youngRequest));
+        TestSupport.check(!pet.getAdoptionStat(), "pet available after an ineligible approval");
+        TestSupport.checkEquals(RequestStatus.PENDING.name(), youngRequest.getStatus().name(),
+                "request after an ineligible approval");
+
+        AdoptionRequest request = addRequest(customerId, pet.getId());
+        AdoptionService.deny(customerId, pet.getId());
+        TestSupport.checkThrows(IllegalStateException.class, () -> AdoptionService.deny(customerId, pet.getId()));
+        TestSupport.checkThrows(IllegalStateException.class, () -> AdoptionService.approve(request));
+        TestSupport.check(!pet.getAdoptionStat(), "pet available after approving a denied request");
+
+        Pet adopted = addPet("D_901");
+        AdoptionService.approve(addCustomer("N").getCustomerId(), adopted.getId());
+        AdoptionRequest late = addRequest(customerId, adopted.getId());
+        TestSupport.checkThrows(IllegalStateException.class, () -> AdoptionService.approve(late));
+        TestSupport.checkEquals(RequestStatus.PENDING.name(), late.getStatus().name(), "request for an adopted pet");
+        checkCounts();
+    }
+
+    /**
+     * Starts the tasks at the same moment, waits for all of them, and counts those that succeeded. A task may
+     * only fail with the {@code IllegalStateException} the service and storage use to reject a decision.
+     */
+    private static int runTogether(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Callable<Void> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        task.call();
+                        succeeded.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        // Rejected because another task won
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return succeeded.get();
+    }
+
+    /**
+     * Checks that the lock-free status counters agree with the requests stored under each status.
+     */
+    private static void checkCounts() {
+        for (RequestStatus status : RequestStatus.values()) {
+            List<AdoptionRequest> requests = AdoptionRequestStorage.getRequestsByStatus(status);
+            TestSupport.checkEquals((long) requests.size(), AdoptionRequestStorage.countRequests(status),
+                    "count of " + status.name() + " requests");
+            for (AdoptionRequest request : requests) {
+                TestSupport.checkEquals(status.name(), request.getStatus().name(),
+                        "status of a request listed as " + status.name());
+            }
+        }
+    }
+
+    private static Pet addPet(String id) {
+        PetStorage.addAnimal(new Pet(id, "Pet " + id, "Labrador", 2, "Male"));
+        return PetStorage.findAnimal(id);
+    }
+
+    private static Customer addCustomer(String name) {
+        Customer customer = new Customer(CustomerStorage.nextCustomerId(), name, "Female", "1 Main Street",
+                name + "@example.com", "555-1000", 1980, "secret", name.toLowerCase());
+        TestSupport.check(CustomerStorage.addCustomer(customer), "customer " + name + " added");
+        return customer;
+    }
+
+    private static AdoptionRequest addRequest(String customerId, String petId) {
+        AdoptionRequestStorage.addRequest(new AdoptionRequest(customerId, petId));
+        return AdoptionRequestStorage.findRequest(customerId, petId);
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code BTreeStoreTest} class checks that {@link BTreeStore} keeps its records through page splits,
+ * removals, rebuilds, and reopening, and that a write-back interrupted by a crash is finished or discarded from
+ * its journal when the store is opened again.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Inserting in random order until leaves and inner pages split</li>
+ *   <li>Reading records by key, in key order, and by position</li>
+ *   <li>Reopening a store and rebuilding it with {@code saveAll}</li>
+ *   <li>Replaying a complete journal and discarding a torn one</li>
+ * </ul>
+ */
+public class BTreeStoreTest {
+
+    private static final File FILE = new File("records.db");
+    private static final File JOURNAL = new File("records.db.journal");
+    private static final int RECORDS = 5000;
+
+    // The journal layout written by BTreeStore.flush: [magic][count], count x [page][page image], [crc32]
+    private static final int JOURNAL_MAGIC = 0x504A524E;
+    private static final int PAGE_SIZE = 8192;
+
+    private static final RecordCodec<String> CODEC = new RecordCodec<>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    public static void main(String[] args) {
+        TestSupport.run("insert and split", BTreeStoreTest::insertsAndSplits);
+        TestSupport.run("remove", BTreeStoreTest::removes);
+        TestSupport.run("reopen", BTreeStoreTest::reopens);
+        TestSupport.run("saveAll", BTreeStoreTest::rebuildsWithSaveAll);
+        TestSupport.run("complete journal", BTreeStoreTest::replaysCompleteJournal);
+        TestSupport.run("torn journal", BTreeStoreTest::discardsTornJournal);
+        TestSupport.run("not a store", BTreeStoreTest::rejectsOtherFiles);
+        TestSupport.finish();
+    }
+
+    private static void insertsAndSplits() throws IOException {
+        try (BTreeStore<String> store = freshStore()) {
+            List<Integer> order = shuffled(RECORDS);
+            for (int i : order) {
+                store.put(record(i, "a"));
+            }
+            TestSupport.checkEquals(RECORDS, store.size(), "size");
+            TestSupport.check(FILE.length() > 10L * PAGE_SIZE, "records spread over many pages");
+            for (int i = 0; i < RECORDS; i++) {
+                TestSupport.checkEquals(record(i, "a"), store.get(key(i)), "record " + i);
+            }
+            TestSupport.checkEquals(null, store.get("missing"), "missing key");
+            checkInOrder(store.loadAll(), RECORDS, "a");
+            List<String> page = store.loadRange(1234, 10);
+            TestSupport.checkEquals(10, page.size(), "range size");
+            TestSupport.checkEquals(record(1234, "a"), page.get(0), "first record of the range");
+            TestSupport.checkEquals(record(1243, "a"), page.get(9), "last record of the range");
+
+            // Replacing a record keeps the size
+            store.put(record(42, "b"));
+            TestSupport.checkEquals(RECORDS, store.size(), "size after replacing");
+            TestSupport.checkEquals(record(42, "b"), store.get(key(42)), "replaced record");
+        }
+        TestSupport.check(!JOURNAL.exists(), "journal removed on close");
+    }
+
+    private static void removes() throws IOException {
+        try (BTreeStore<String> store = freshStore()) {
+            for (int i = 0; i < RECORDS; i++) {
+                store.put(record(i, "a"));
+            }
+            for (int i = 0; i < RECORDS; i += 2) {
+                TestSupport.check(store.remove(key(i)), "removed " + i);
+            }
+            TestSupport.check(!store.remove(key(0)), "second removal of the same key");
+            TestSupport.checkEquals(RECORDS / 2, store.size(), "size");
+            List<String> all = store.loadAll();
+            TestSupport.checkEquals(RECORDS / 2, all.size(), "records left");
+            for (int i = 0; i < all.size(); i++) {
+                TestSupport.checkEquals(record(2 * i + 1, "a"), all.get(i), "record left at " + i);
+            }
+        }
+    }
+
+    private static void reopens() throws IOException {
+        try (BTreeStore<String> store = freshStore()) {
+            for (int i : shuffled(RECORDS)) {
+                store.put(record(i, "a"));
+            }
+        }
+        try (BTreeStore<String> store = open()) {
+            TestSupport.checkEquals(RECORDS, store.size(), "size after reopening");
+            checkInOrder(store.loadAll(), RECORDS, "a");
+            store.put(record(RECORDS, "a"));
+        }
+        try (BTreeStore<String> store = open()) {
+            TestSupport.checkEquals(RECORDS + 1, store.size(), "size after reopening twice");
+            TestSupport.checkEquals(record(RECORDS, "a"), store.get(key(RECORDS)), "record added after reopening");
+        }
+    }
+
+    private static void rebuildsWithSaveAll() throws IOException {
+        try (BTreeStore<String> store = freshStore()) {
+            for (int i = 0; i < RECORDS; i++) {
+                store.put(record(i, "a"));
+            }
+            List<String> replacement = new ArrayList<>();
+            for (int i : shuffled(RECORDS / 2)) {
+                replacement.add(record(i, "b"));
+            }
+            store.saveAll(replacement);
+            TestSupport.checkEquals(RECORDS / 2, store.size(), "size after saveAll");
+            TestSupport.checkEquals(null, store.get(key(RECORDS - 1)), "record not in the new list");
+            checkInOrder(store.loadAll(), RECORDS / 2, "b");
+
+            // The store keeps working on the rebuilt file
+            store.put(record(RECORDS, "b"));
+        }
+        TestSupport.check(!new File(FILE.getPath() + ".tmp").exists(), "temporary file moved into place");
+        try (BTreeStore<String> store = open()) {
+            TestSupport.checkEquals(RECORDS / 2 + 1, store.size(), "size after reopening");
+            TestSupport.checkEquals(record(RECORDS, "b"), store.get(key(RECORDS)), "record added after saveAll");
+        }
+    }
+
+    private static void replaysCompleteJournal() throws IOException {
+        File before = new File("before.db");
+        writeStateWithCrash(before);
+
+        // The journal was forced but none of its pages reached the store
+        try (BTreeStore<String> store = open()) {
+            TestSupport.checkEquals(RECORDS, store.size(), "size after replaying the journal");
+            checkInOrder(store.loadAll(), RECORDS, "a");
+        }
+        TestSupport.check(!JOURNAL.exists() || JOURNAL.length() == 0, "journal emptied after replay");
+    }
+
+    private static void discardsTornJournal() throws IOException {
+        File before = new File("before.db");
+        writeStateWithCrash(before);
+        try (RandomAccessFile raf = new RandomAccessFile(JOURNAL, "rw")) {
+            raf.setLength(raf.length() - 100);
+        }
+
+        // The journal never completed, so the store was not touched and still holds the earlier records
+        try (BTreeStore<String> store = open()) {
+            TestSupport.checkEquals(RECORDS / 2, store.size(), "size after discarding the journal");
+            checkInOrder(store.loadAll(), RECORDS / 2, "a");
+        }
+        TestSupport.check(!JOURNAL.exists() || JOURNAL.length() == 0, "journal emptied after discarding it");
+    }
+
+    private static void rejectsOtherFiles() throws IOException {
+        freshStore().close();
+        Files.write(FILE.toPath(), new byte[PAGE_SIZE * 2]);
+        TestSupport.checkThrows(IOException.class, BTreeStoreTest::open);
+    }
+
+    /**
+     * Leaves the store as a crash would after a write-back journaled every page of a store holding all records,
+     * when the store itself still holds only the first half.
+     */
+    private static void writeStateWithCrash(File before) throws IOException {
+        try (BTreeStore<String> store = freshStore()) {
+            for (int i = 0; i < RECORDS / 2; i++) {
+                store.put(record(i, "a"));
+            }
+        }
+        Files.copy(FILE.toPath(), before.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try (BTreeStore<String> store = open()) {
+            for (int i = RECORDS / 2; i < RECORDS; i++) {
+                store.put(record(i, "a"));
+            }
+        }
+        byte[] after = Files.readAllBytes(FILE.toPath());
+        int pages = after.length / PAGE_SIZE;
+        ByteBuffer journal = ByteBuffer.allocate(8 + pages * (4 + PAGE_SIZE) + 8);
+        journal.putInt(JOURNAL_MAGIC).putInt(pages);
+        for (int page = 0; page < pages; page++) {
+            journal.putInt(page).put(after, page * PAGE_SIZE, PAGE_SIZE);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(journal.array(), 0, journal.position());
+        journal.putLong(crc.getValue());
+        Files.write(JOURNAL.toPath(), journal.array());
+        Files.move(before.toPath(), FILE.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static BTreeStore<String> freshStore() throws IOException {
+        Files.deleteIfExists(FILE.toPath());
+        Files.deleteIfExists(JOURNAL.toPath());
+        return open();
+    }
+
+    private static BTreeStore<String> open() throws IOException {
+        return BTreeStore.open(FILE, BTreeStoreTest::keyOf, CODEC);
+    }
+
+    private static String key(int i) {
+        return String.format("K%06d", i);
+    }
+
+    private static String keyOf(String record) {
+        return record.substring(0, record.indexOf(':'));
+    }
+
+    private static String record(int i, String version) {
+        return key(i) + ":" + version + ":" + "x".repeat(40);
+    }
+
+    private static List<Integer> shuffled(int count) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(7));
+        return order;
+    }
+
+    private static void checkInOrder(List<String> records, int count, String version) {
+        TestSupport.checkEquals(count, records.size(), "record count");
+        for (int i = 0; i < count; i++) {
+            TestSupport.checkEquals(record(i, version), records.get(i), "record " + i + " in key order");
+        }
+    }
+}
@@ -0,0 +1,215 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code BinaryCodecTest} class checks that {@link BinaryCodec} reads back what it writes, and that it
+ * still reads the files written before the current format: version 1 request files, which stored the status
+ * as a shared label, and files written with Java serialization.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Round-tripping pet, customer, and request lists and single records</li>
+ *   <li>Reading version 1 request lists and records</li>
+ *   <li>Reading lists and records written with Java serialization</li>
+ *   <li>Rejecting corrupt record counts and string lengths without allocating for them</li>
+ * </ul>
+ */
+public class BinaryCodecTest {
+
+    public static void main(String[] args) {
+        TestSupport.run("pets round-trip", BinaryCodecTest::petsRoundTrip);
+        TestSupport.run("customers round-trip", BinaryCodecTest::customersRoundTrip);
+        TestSupport.run("requests round-trip", BinaryCodecTest::requestsRoundTrip);
+        TestSupport.run("single records round-trip", BinaryCodecTest::singleRecordsRoundTrip);
+        TestSupport.run("version 1 request list", BinaryCodecTest::readsVersion1RequestList);
+        TestSupport.run("version 1 request record", BinaryCodecTest::readsVersion1RequestRecord);
+        TestSupport.run("Java serialization fallback", BinaryCodecTest::readsJavaSerialization);
+        TestSupport.run("wrong record type", BinaryCodecTest::rejectsOtherRecordType);
+        TestSupport.run("corrupt counts and lengths", BinaryCodecTest::rejectsCorruptCounts);
+        TestSupport.finish();
+    }
+
+    private static void petsRoundTrip() throws IOException {
+        List<Pet> pets = pets();
+        List<Pet> read = BinaryCodec.PETS.readAll(new ByteArrayInputStream(writeAll(BinaryCodec.PETS, pets)));
+        TestSupport.checkEquals(pets.size(), read.size(), "pet count");
+        for (int i = 0; i < pets.size(); i++) {
+            checkPet(pets.get(i), read.get(i));
+        }
+    }
+
+    private static void customersRoundTrip() throws IOException {
+        Customer customer = new Customer("CUST001", "Ann Lee", "Female", "1 Main Street", "ann@example.com",
+                "555-1000", 1980, "secret", "ann");
+        customer.addAdoptedPet("D_001");
+        customer.addAdoptedPet("C_002");
+        Customer other = new Customer("CUST002", "Bob", "Male", null, "bob@example.com", "555-2000", 1990,
+                "pw", "bob");
+        List<Customer> read = BinaryCodec.CUSTOMERS.readAll(
+                new ByteArrayInputStream(writeAll(BinaryCodec.CUSTOMERS, List.of(customer, other))));
+        TestSupport.checkEquals(2, read.size(), "customer count");
+        checkCustomer(customer, read.get(0));
+        checkCustomer(other, read.get(1));
+    }
+
+    private static void requestsRoundTrip() throws IOException {
+        List<AdoptionRequest> requests = requests();
+        List<AdoptionRequest> read = BinaryCodec.REQUESTS.readAll(
+                new ByteArrayInputStream(writeAll(BinaryCodec.REQUESTS, requests)));
+        TestSupport.checkEquals(requests.size(), read.size(), "request count");
+        for (int i = 0; i < requests.size(); i++) {
+            checkRequest(requests.get(i), read.get(i));
+        }
+    }
+
+    private static void singleRecordsRoundTrip() {
+        for (Pet pet : pets()) {
+            checkPet(pet, BinaryCodec.PETS.decode(BinaryCodec.PETS.encode(pet)));
+        }
+        for (AdoptionRequest request : requests()) {
+            checkRequest(request, BinaryCodec.REQUESTS.decode(BinaryCodec.REQUESTS.encode(request)));
+        }
+    }
+
+    private static void readsVersion1RequestList() throws IOException {
+        List<AdoptionRequest> requests = requests();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.Output out = new BinaryCodec.Output(bytes);
+        out.data.writeInt(BinaryCodec.MAGIC);
+        out.data.writeByte(1);
+        out.data.writeByte('R');
+        out.writeVarInt(requests.size());
+        for (AdoptionRequest request : requests) {
+            out.writeShared(request.getCustomerId());
+            out.writeString(request.getAnimalID());
+            out.writeShared(request.getStatus().getLabel());
+        }
+        out.data.flush();
+
+        List<AdoptionRequest> read = BinaryCodec.REQUESTS.readAll(new ByteArrayInputStream(bytes.toByteArray()));
+        TestSupport.checkEquals(requests.size(), read.size(), "request count");
+        for (int i = 0; i < requests.size(); i++) {
+            checkRequest(requests.get(i), read.get(i));
+        }
+    }
+
+    private static void readsVersion1RequestRecord() throws IOException {
+        AdoptionRequest request = new AdoptionRequest("CUST007", "R_003");
+        request.setStatus(RequestStatus.DENIED);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.Output out = new BinaryCodec.Output(bytes);
+        out.dictionary = null;
+        out.data.writeByte(1);
+        out.writeShared(request.getCustomerId());
+        out.writeString(request.getAnimalID());
+        out.writeShared(request.getStatus().getLabel());
+        out.data.flush();
+
+        checkRequest(request, BinaryCodec.REQUESTS.decode(bytes.toByteArray()));
+    }
+
+    private static void readsJavaSerialization() throws IOException {
+        List<Pet> pets = pets();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new ArrayList<>(pets));
+        }
+        List<Pet> read = BinaryCodec.PETS.readAll(new ByteArrayInputStream(bytes.toByteArray()));
+        TestSupport.checkEquals(pets.size(), read.size(), "pet count");
+        for (int i = 0; i < pets.size(); i++) {
+            checkPet(pets.get(i), read.get(i));
+        }
+
+        Pet pet = pets.get(0);
+        checkPet(pet, BinaryCodec.PETS.decode(RecordCodec.<Pet>serialization().encode(pet)));
+    }
+
+    private static void rejectsOtherRecordType() throws IOException {
+        byte[] pets = writeAll(BinaryCodec.PETS, pets());
+        TestSupport.checkThrows(IOException.class,
+                () -> BinaryCodec.REQUESTS.readAll(new ByteArrayInputStream(pets)));
+    }
+
+    private static void rejectsCorruptCounts() throws IOException {
+        // A count of 2^31 - 1 with no records after it, a negative count, and a string claiming 2^31 - 1 bytes
+        byte[] hugeCount = header('R', 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+        byte[] negativeCount = header('R', 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+        byte[] hugeString = header('P', 0x01, 0xFF, 0xFF, 0xFF, 0xFF, 0x07, 'x');
+        TestSupport.checkThrows(IOException.class,
+                () -> BinaryCodec.REQUESTS.readAll(new ByteArrayInputStream(hugeCount)));
+        TestSupport.checkThrows(IOException.class,
+                () -> BinaryCodec.REQUESTS.readAll(new ByteArrayInputStream(negativeCount)));
+        TestSupport.checkThrows(IOException.class,
+                () -> BinaryCodec.PETS.readAll(new ByteArrayInputStream(hugeString)));
+    }
+
+    private static byte[] header(char type, int... body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BinaryCodec.MAGIC);
+        out.writeByte(BinaryCodec.VERSION);
+        out.writeByte(type);
+        for (int b : body) {
+            out.writeByte(b);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static <V> byte[] writeAll(BinaryCodec<V> codec, List<V> values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.writeAll(values, bytes);
+        return bytes.toByteArray();
+    }
+
+    private static List<Pet> pets() {
+        List<Pet> pets = new ArrayList<>();
+        pets.add(new Pet("D_001", "Rex", "Labrador", 3, "Male"));
+        pets.add(new Pet("C_002", "Mia", "Siamese", 0, "Female"));
+        pets.add(new Pet("D_003", "Bruno", "Labrador", 200, "Male"));
+        pets.add(new Pet("B_004", "Kiwi éè", null, 1, "Female"));
+        pets.get(1).setAdoptionStat(true);
+        return pets;
+    }
+
+    private static List<AdoptionRequest> requests() {
+        List<AdoptionRequest> requests = new ArrayList<>();
+        RequestStatus[] statuses = RequestStatus.values();
+        for (int i = 0; i < 10; i++) {
+            AdoptionRequest request = new AdoptionRequest("CUST00" + i % 3, "D_00" + i);
+            request.setStatus(statuses[i % statuses.length]);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static void checkPet(Pet expected, Pet actual) {
+        TestSupport.checkEquals(expected.getId(), actual.getId(), "pet ID");
+        TestSupport.checkEquals(expected.getName(), actual.getName(), "name of " + expected.getId());
+        TestSupport.checkEquals(expected.getBreed(), actual.getBreed(), "breed of " + expected.getId());
+        TestSupport.checkEquals(expected.getAge(), actual.getAge(), "age of " + expected.getId());
+        TestSupport.checkEquals(expected.getGender(), actual.getGender(), "gender of " + expected.getId());
+        TestSupport.checkEquals(expected.getAdoptionStat(), actual.getAdoptionStat(),
+                "adoption status of " + expected.getId());
+    }
+
+    private static void checkCustomer(Customer expected, Customer actual) {
+        TestSupport.checkEquals(expected.getCustomerId(), actual.getCustomerId(), "customer ID");
+        TestSupport.checkEquals(expected.getName(), actual.getName(), "name");
+        TestSupport.checkEquals(expected.getGender(), actual.getGender(), "gender");
+        TestSupport.checkEquals(expected.getAddress(), actual.getAddress(), "address");
+        TestSupport.checkEquals(expected.getEmail(), actual.getEmail(), "email");
+        TestSupport.checkEquals(expected.getPhone(), actual.getPhone(), "phone");
+        TestSupport.checkEquals(expected.getBirthYear(), actual.getBirthYear(), "birth year");
+        TestSupport.checkEquals(expected.getPassword(), actual.getPassword(), "password");
+        TestSupport.checkEquals(expected.getUsername(), actual.getUsername(), "username");
+        TestSupport.checkEquals(expected.getAdoptedPets(), actual.getAdoptedPets(), "adopted pets");
+    }
+
+    private static void checkRequest(AdoptionRequest expected, AdoptionRequest actual) {
+        TestSupport.checkEquals(expected.getCustomerId(), actual.getCustomerId(), "customer ID");
+        TestSupport.checkEquals(expected.getAnimalID(), actual.getAnimalID(), "animal ID");
+        TestSupport.checkEquals(expected.getStatus(), actual.getStatus(), "status");
+    }
+}
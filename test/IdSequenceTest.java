@@ -0,0 +1,141 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * The {@code IdSequenceTest} class checks that {@link IdSequence} never hands out a number twice, whether the
+ * numbers are taken by many threads at once or by the application started again, and that it only falls back to
+ * its seed for a prefix the sidecar file does not know.
+ *
+ * <p>Each restart is a new process that takes numbers from the sidecar in the shared working directory, since a
+ * sequence is only started once per process.</p>
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Starting a sequence after its seed and formatting its IDs</li>
+ *   <li>Continuing after the last reserved block when started again</li>
+ *   <li>Handing out unique numbers to many threads at once</li>
+ *   <li>Finding the highest number used with a prefix</li>
+ * </ul>
+ */
+public class IdSequenceTest {
+
+    private static final int THREADS = 16;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("take")) {
+            IdSequence sequence = IdSequence.forPrefix(args[1], 3, () -> 1000);
+            for (int i = Integer.parseInt(args[2]); i > 0; i--) {
+                System.out.println(sequence.nextNumber());
+            }
+            return;
+        }
+        TestSupport.run("seed and format", IdSequenceTest::startsAfterSeed);
+        TestSupport.run("restarts", IdSequenceTest::continuesAfterReservedBlock);
+        TestSupport.run("many threads", IdSequenceTest::handsOutUniqueNumbers);
+        TestSupport.run("highest number", IdSequenceTest::findsHighestNumber);
+        TestSupport.finish();
+    }
+
+    private static void startsAfterSeed() {
+        IdSequence sequence = IdSequence.forPrefix("CUST", 3, () -> 11);
+        TestSupport.checkEquals("CUST012", sequence.nextId(), "first ID");
+        TestSupport.checkEquals("CUST013", sequence.nextId(), "second ID");
+        TestSupport.check(IdSequence.forPrefix("CUST", 3, () -> 500) == sequence, "same sequence for the prefix");
+        TestSupport.checkEquals(14L, sequence.nextNumber(), "number after asking again");
+        TestSupport.checkEquals("CUST005", sequence.format(5), "padded ID");
+        TestSupport.checkEquals("CUST12345", sequence.format(12345), "ID longer than the width");
+        TestSupport.checkEquals(1L, IdSequence.forPrefix("B_", 3, () -> -7).nextNumber(),
+                "number after a negative seed");
+        TestSupport.check(new File(IdSequence.FILE_NAME).exists(), "sidecar written");
+    }
+
+    private static void continuesAfterReservedBlock() throws Exception {
+        // The first start seeds from 1000; later starts ignore the seed and skip the rest of the last block
+        TestSupport.checkEquals(List.of(1001L, 1002L, 1003L), take("R_", 3), "numbers of the first start");
+        long blockEnd = 1000 + IdSequence.DEFAULT_BLOCK_SIZE;
+        TestSupport.checkEquals(List.of(blockEnd + 1, blockEnd + 2), take("R_", 2), "numbers after a restart");
+
+        // Taking past the end of a block reserves the next one
+        List<Long> numbers = take("R_", IdSequence.DEFAULT_BLOCK_SIZE + 1);
+        TestSupport.checkEquals(blockEnd + IdSequence.DEFAULT_BLOCK_SIZE + 1, numbers.get(0),
+                "first number of a run across blocks");
+        TestSupport.checkEquals(blockEnd + 2 * IdSequence.DEFAULT_BLOCK_SIZE + 1, numbers.get(numbers.size() - 1),
+                "last number of a run across blocks");
+        TestSupport.checkEquals(List.of(blockEnd + 3 * IdSequence.DEFAULT_BLOCK_SIZE + 1), take("R_", 1),
+                "number after a restart past two blocks");
+
+        // Other prefixes in the same sidecar are kept
+        TestSupport.checkEquals(List.of(1001L), take("F_", 1), "number of a new prefix");
+        TestSupport.checkEquals(List.of(blockEnd + 4 * IdSequence.DEFAULT_BLOCK_SIZE + 1), take("R_", 1),
+                "number after another prefix was added");
+    }
+
+    private static void handsOutUniqueNumbers() throws Exception {
+        IdSequence sequence = IdSequence.forPrefix("C_", 3, () -> 0);
+        int perThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Long> numbers = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        TestSupport.check(numbers.add(sequence.nextNumber()), "number taken twice");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        int taken = THREADS * perThread;
+        TestSupport.checkEquals(taken, numbers.size(), "numbers taken");
+        TestSupport.checkEquals((long) taken, numbers.stream().mapToLong(Long::longValue).max().getAsLong(),
+                "highest number, with no gaps within one run");
+        TestSupport.check(take("C_", 1).get(0) > taken, "number after a restart is past every number taken");
+    }
+
+    private static void findsHighestNumber() {
+        List<String> ids = new ArrayList<>();
+        ids.add("D_007");
+        ids.add("D_012");
+        ids.add("C_099");
+        ids.add("D_");
+        ids.add("D_x1");
+        ids.add(null);
+        TestSupport.checkEquals(12L, IdSequence.highestNumber(ids, "D_"), "highest dog number");
+        TestSupport.checkEquals(99L, IdSequence.highestNumber(ids, "C_"), "highest cat number");
+        TestSupport.checkEquals(0L, IdSequence.highestNumber(ids, "B_"), "highest number of an unused prefix");
+    }
+
+    /**
+     * Starts the application again in a new process that takes the given count of numbers with the prefix.
+     */
+    private static List<Long> take(String prefix, int count) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "--enable-preview", "-Djava.awt.headless=true", "-cp", System.getProperty("java.class.path"),
+                "IdSequenceTest", "take", prefix, Integer.toString(count))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        TestSupport.checkEquals(0, process.waitFor(), "exit code of the restarted process");
+        List<Long> numbers = new ArrayList<>();
+        for (String line : output.split("\\R")) {
+            if (!line.isEmpty()) {
+                numbers.add(Long.parseLong(line));
+            }
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,163 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The {@code PetBitmapIndexTest} class checks that {@link PetBitmapIndex} filters the pet catalog the same way
+ * the string comparisons it replaced did, as pets are added, changed, adopted, and removed, and that renumbering
+ * the slots after many removals changes none of its answers.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Filtering by species, breed, gender, and adoption status, ignoring case</li>
+ *   <li>Re-indexing a changed pet and flipping its adoption bit</li>
+ *   <li>Removing pets and renumbering the slots once most are empty</li>
+ *   <li>Finding pets and their positions after renumbering</li>
+ * </ul>
+ */
+public class PetBitmapIndexTest {
+
+    private static final String[] BREEDS = {"Labrador", "Beagle", "Siamese", "Parrot"};
+
+    public static void main(String[] args) {
+        TestSupport.run("filters", PetBitmapIndexTest::filtersLikeScans);
+        TestSupport.run("changes", PetBitmapIndexTest::reindexesChangedPets);
+        TestSupport.run("renumbering", PetBitmapIndexTest::renumbersAfterRemovals);
+        TestSupport.finish();
+    }
+
+    private static void filtersLikeScans() {
+        List<Pet> pets = pets(200);
+        PetBitmapIndex index = new PetBitmapIndex(pets);
+        checkFilters(pets, index);
+        TestSupport.checkEquals(scan(pets, "Dog", "Labrador", "Male", false),
+                index.filter("dog", "LABRADOR", "male", false), "filter ignoring case");
+        TestSupport.checkEquals(List.of(), index.filter("Horse", null, null, null), "unknown species");
+        TestSupport.checkEquals(pets, index.filter("", "", null, null), "empty criteria");
+
+        BitSet dogsOrCats = index.species("Dog");
+        dogsOrCats.or(index.species("Cat"));
+        dogsOrCats.and(index.adopted(true));
+        List<Pet> expected = new ArrayList<>();
+        for (Pet pet : pets) {
+            if (!pet.getSpecies().equals("Bird") && pet.getAdoptionStat()) {
+                expected.add(pet);
+            }
+        }
+        TestSupport.checkEquals(expected, index.select(dogsOrCats), "combined bitmaps");
+    }
+
+    private static void reindexesChangedPets() {
+        List<Pet> pets = pets(20);
+        PetBitmapIndex index = new PetBitmapIndex(pets);
+
+        Pet changed = new Pet(pets.get(0).getId(), "Renamed", "Poodle", 3, "Female");
+        pets.set(0, changed);
+        index.add(changed);
+        TestSupport.checkEquals(20, index.size(), "size after re-indexing");
+        TestSupport.checkEquals(changed, index.get(changed.getId()), "re-indexed pet");
+        TestSupport.checkEquals(List.of(changed), index.filter(null, "poodle", null, null), "poodles");
+        checkFilters(pets, index);
+
+        Pet adopted = pets.get(3);
+        adopted.setAdoptionStat(!adopted.getAdoptionStat());
+        index.setAdopted(adopted.getId(), adopted.getAdoptionStat());
+        index.setAdopted("D_999", true);
+        checkFilters(pets, index);
+
+        index.remove(pets.get(5).getId());
+        index.remove("D_999");
+        Pet removed = pets.remove(5);
+        TestSupport.checkEquals(null, index.get(removed.getId()), "removed pet");
+        TestSupport.checkEquals(19, index.size(), "size after removing");
+        TestSupport.check(!index.all().get(5), "slot of the removed pet is empty");
+        checkFilters(pets, index);
+    }
+
+    private static void renumbersAfterRemovals() {
+        List<Pet> pets = pets(200);
+        PetBitmapIndex index = new PetBitmapIndex(pets);
+        List<Pet> kept = new ArrayList<>();
+        for (Pet pet : pets) {
+            if (pet.getAge() % 3 == 0) {
+                kept.add(pet);
+            } else {
+                index.remove(pet.getId());
+                // Once there are more than 64 slots, at most half of them are empty
+                int live = index.size();
+                TestSupport.check(index.all().length() <= Math.max(64, 2 * live + 1),
+                        "slots in use with " + live + " pets: " + index.all().length());
+            }
+        }
+
+        // Renumbering keeps the remaining pets in catalog order
+        BitSet all = index.all();
+        TestSupport.checkEquals(kept.size(), all.cardinality(), "indexed pets");
+        TestSupport.check(all.length() < pets.size(), "slots renumbered");
+        TestSupport.checkEquals(kept, index.select(all), "pets in catalog order");
+        checkFilters(kept, index);
+        for (int i = 0; i < kept.size(); i++) {
+            Pet pet = kept.get(i);
+            TestSupport.checkEquals(pet, index.get(pet.getId()), "pet found after renumbering");
+            TestSupport.checkEquals(i, index.positionIn(kept, pet.getId()), "position of " + pet.getId());
+        }
+
+        // Pets added after renumbering get the next slots
+        Pet added = new Pet("C_900", "Late", "Siamese", 1, "Female");
+        index.add(added);
+        kept.add(added);
+        checkFilters(kept, index);
+        TestSupport.checkEquals(List.of(added), index.select(slotsFrom(index.all(), all.length())),
+                "pet in the next slot");
+    }
+
+    private static BitSet slotsFrom(BitSet bits, int from) {
+        bits.clear(0, from);
+        return bits;
+    }
+
+    /**
+     * Checks a spread of filter combinations against a plain scan of the pets.
+     */
+    private static void checkFilters(List<Pet> pets, PetBitmapIndex index) {
+        String[] species = {null, "Dog", "Cat", "Bird"};
+        String[] genders = {null, "Male", "Female"};
+        Boolean[] adoption = {null, true, false};
+        for (String s : species) {
+            for (String breed : new String[] {null, BREEDS[0], BREEDS[2]}) {
+                for (String gender : genders) {
+                    for (Boolean adopted : adoption) {
+                        TestSupport.checkEquals(scan(pets, s, breed, gender, adopted),
+                                index.filter(s, breed, gender, adopted),
+                                "filter " + s + "/" + breed + "/" + gender + "/" + adopted);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Pet> scan(List<Pet> pets, String species, String breed, String gender, Boolean adopted) {
+        List<Pet> matching = new ArrayList<>();
+        for (Pet pet : pets) {
+            if ((species == null || pet.getSpecies().equalsIgnoreCase(species))
+                    && (breed == null || pet.getBreed().equalsIgnoreCase(breed))
+                    && (gender == null || pet.getGender().equalsIgnoreCase(gender))
+                    && (adopted == null || pet.getAdoptionStat() == adopted)) {
+                matching.add(pet);
+            }
+        }
+        return matching;
+    }
+
+    private static List<Pet> pets(int count) {
+        String[] prefixes = {"D", "C", "B"};
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Pet pet = new Pet(String.format("%s_%03d", prefixes[i % 3], i), "Pet " + i, BREEDS[i % BREEDS.length],
+                    i % 15, i % 2 == 0 ? "Male" : "Female");
+            pet.setAdoptionStat(i % 5 == 0);
+            pets.add(pet);
+        }
+        return pets;
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The {@code PetMutationLogTest} class checks that {@link PetMutationLog} replays single-pet changes on top of a
+ * snapshot, recovers from a crash up to its last complete record, and keeps every change through a rotation.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Replaying adds, updates, adoptions, and removals in order and in catalog order</li>
+ *   <li>Replaying again over a snapshot that already holds the changes</li>
+ *   <li>Dropping a torn tail and stopping at a corrupt record</li>
+ *   <li>Replaying the rotated log before the current one, and clearing it</li>
+ *   <li>Counting the records of an existing log</li>
+ * </ul>
+ */
+public class PetMutationLogTest {
+
+    private static final String FILE_NAME = "Pets.log";
+
+    public static void main(String[] args) {
+        TestSupport.run("replay in order", PetMutationLogTest::replaysInOrder);
+        TestSupport.run("replay is idempotent", PetMutationLogTest::replaysIdempotently);
+        TestSupport.run("torn tail", PetMutationLogTest::dropsTornTail);
+        TestSupport.run("corrupt record", PetMutationLogTest::stopsAtCorruptRecord);
+        TestSupport.run("rotation", PetMutationLogTest::keepsChangesThroughRotation);
+        TestSupport.run("record count", PetMutationLogTest::countsExistingRecords);
+        TestSupport.finish();
+    }
+
+    private static void replaysInOrder() {
+        PetMutationLog log = freshLog();
+        log.append(PetMutationLog.OP_ADD, pet("D_003", "Rex", false));
+        log.append(PetMutationLog.OP_UPDATE, pet("D_001", "Bella", false));
+        log.append(PetMutationLog.OP_ADOPT, pet("D_002", "ignored", true));
+        log.append(PetMutationLog.OP_REMOVE, pet("D_000", "ignored", false));
+        log.append(PetMutationLog.OP_ADOPT, pet("D_009", "ignored", true));
+
+        LinkedHashMap<String, Pet> pets = snapshot();
+        TestSupport.checkEquals(5, new PetMutationLog(FILE_NAME).replay(pets), "records applied");
+        // The update keeps the pet's place, the add goes last, and adopting a pet that is not stored does nothing
+        TestSupport.checkEquals(List.of("D_001/Bella/no", "D_002/Max/yes", "D_003/Rex/no"), describe(pets),
+                "replayed pets");
+    }
+
+    private static void replaysIdempotently() {
+        PetMutationLog log = freshLog();
+        log.append(PetMutationLog.OP_ADD, pet("D_003", "Rex", false));
+        log.append(PetMutationLog.OP_ADOPT, pet("D_003", "Rex", true));
+        log.append(PetMutationLog.OP_REMOVE, pet("D_000", "Luna", false));
+
+        LinkedHashMap<String, Pet> pets = snapshot();
+        log.replay(pets);
+        List<String> once = describe(pets);
+        log.replay(pets);
+        TestSupport.checkEquals(once, describe(pets), "pets after replaying twice");
+    }
+
+    private static void dropsTornTail() throws IOException {
+        PetMutationLog log = freshLog();
+        log.append(PetMutationLog.OP_ADD, pet("D_003", "Rex", false));
+        File file = new File(FILE_NAME);
+        long complete = file.length();
+        log.append(PetMutationLog.OP_ADD, pet("D_004", "Kiwi", false));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 2);
+        }
+
+        PetMutationLog reopened = new PetMutationLog(FILE_NAME);
+        LinkedHashMap<String, Pet> pets = new LinkedHashMap<>();
+        TestSupport.checkEquals(1, reopened.replay(pets), "records applied");
+        TestSupport.checkEquals(complete, file.length(), "log length after the torn record is dropped");
+
+        reopened.append(PetMutationLog.OP_ADD, pet("D_005", "Coco", false));
+        pets.clear();
+        TestSupport.checkEquals(2, new PetMutationLog(FILE_NAME).replay(pets), "records applied after appending");
+        TestSupport.checkEquals(List.of("D_003/Rex/no", "D_005/Coco/no"), describe(pets), "replayed pets");
+    }
+
+    private static void stopsAtCorruptRecord() throws IOException {
+        PetMutationLog log = freshLog();
+        log.append(PetMutationLog.OP_ADD, pet("D_003", "Rex", false));
+        File file = new File(FILE_NAME);
+        long first = file.length();
+        log.append(PetMutationLog.OP_ADD, pet("D_004", "Kiwi", false));
+        log.append(PetMutationLog.OP_ADD, pet("D_005", "Coco", false));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(first + 12);
+            int b = raf.read();
+            raf.seek(first + 12);
+            raf.write(b ^ 0xFF);
+        }
+
+        LinkedHashMap<String, Pet> pets = new LinkedHashMap<>();
+        TestSupport.checkEquals(1, new PetMutationLog(FILE_NAME).replay(pets), "records applied");
+        TestSupport.checkEquals(List.of("D_003/Rex/no"), describe(pets), "replayed pets");
+        TestSupport.checkEquals(first, file.length(), "log length after the corrupt records are dropped");
+    }
+
+    private static void keepsChangesThroughRotation() {
+        PetMutationLog log = freshLog();
+        log.append(PetMutationLog.OP_ADD, pet("D_003", "Rex", false));
+        log.rotate();
+        TestSupport.checkEquals(0, log.getRecordCount(), "records after rotating");
+        log.append(PetMutationLog.OP_ADOPT, pet("D_003", "Rex", true));
+
+        // A second rotation before the first snapshot was written keeps both sets of records
+        log.rotate();
+        log.append(PetMutationLog.OP_ADD, pet("D_004", "Kiwi", false));
+        LinkedHashMap<String, Pet> pets = new LinkedHashMap<>();
+        TestSupport.checkEquals(3, new PetMutationLog(FILE_NAME).replay(pets), "records applied");
+        TestSupport.checkEquals(List.of("D_003/Rex/yes", "D_004/Kiwi/no"), describe(pets), "replayed pets");
+
+        log.clearRotated();
+        TestSupport.check(!new File(FILE_NAME + ".1").exists(), "rotated log removed once its snapshot is written");
+        pets.clear();
+        TestSupport.checkEquals(1, new PetMutationLog(FILE_NAME).replay(pets), "records left after clearing");
+    }
+
+    private static void countsExistingRecords() {
+        PetMutationLog log = freshLog();
+        for (int i = 0; i < 7; i++) {
+            log.append(PetMutationLog.OP_ADD, pet("D_00" + i, "Pet " + i, false));
+        }
+        TestSupport.checkEquals(7, log.getRecordCount(), "records counted while appending");
+        TestSupport.checkEquals(7, new PetMutationLog(FILE_NAME).getRecordCount(), "records counted from the file");
+    }
+
+    private static PetMutationLog freshLog() {
+        new File(FILE_NAME).delete();
+        new File(FILE_NAME + ".1").delete();
+        return new PetMutationLog(FILE_NAME);
+    }
+
+    private static LinkedHashMap<String, Pet> snapshot() {
+        LinkedHashMap<String, Pet> pets = new LinkedHashMap<>();
+        for (Pet pet : List.of(pet("D_000", "Luna", false), pet("D_001", "Bell", false), pet("D_002", "Max", false))) {
+            pets.put(pet.getId(), pet);
+        }
+        return pets;
+    }
+
+    private static Pet pet(String id, String name, boolean adopted) {
+        Pet pet = new Pet(id, name, "Labrador", 3, "Female");
+        pet.setAdoptionStat(adopted);
+        return pet;
+    }
+
+    private static List<String> describe(LinkedHashMap<String, Pet> pets) {
+        List<String> described = new ArrayList<>();
+        for (Pet pet : pets.values()) {
+            described.add(pet.getId() + "/" + pet.getName() + "/" + (pet.getAdoptionStat() ? "yes" : "no"));
+        }
+        return described;
+    }
+}
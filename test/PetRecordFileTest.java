@@ -0,0 +1,171 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code PetRecordFileTest} class checks that {@link PetRecordFile} keeps its fixed-width records contiguous
+ * and its slot map in step with them through appends, in-place updates, and removals, and that the file reads
+ * back the same after reopening.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Writing a catalog and reading it back whole, by range, and by ID</li>
+ *   <li>Appending past the initial mapping and updating records in their slots</li>
+ *   <li>Flipping the adoption status in place</li>
+ *   <li>Moving the last record into the slot of a removed one</li>
+ *   <li>Leaving the file unchanged when a pet does not fit</li>
+ * </ul>
+ */
+public class PetRecordFileTest {
+
+    private static final File FILE = new File("Pets.rec");
+
+    public static void main(String[] args) {
+        TestSupport.run("save and reopen", PetRecordFileTest::savesAndReopens);
+        TestSupport.run("append and update", PetRecordFileTest::appendsAndUpdates);
+        TestSupport.run("adoption flip", PetRecordFileTest::flipsAdoption);
+        TestSupport.run("swap-remove", PetRecordFileTest::removesBySwapping);
+        TestSupport.run("pet that does not fit", PetRecordFileTest::rejectsOversizedPet);
+        TestSupport.run("not a record file", PetRecordFileTest::rejectsOtherFiles);
+        TestSupport.finish();
+    }
+
+    private static void savesAndReopens() throws IOException {
+        List<Pet> pets = pets(100);
+        try (PetRecordFile records = fresh()) {
+            records.saveAll(pets);
+            TestSupport.checkEquals(100, records.size(), "size");
+            List<Pet> range = records.loadRange(40, 5);
+            TestSupport.checkEquals(5, range.size(), "range size");
+            TestSupport.checkEquals(id(40), range.get(0).getId(), "first pet of the range");
+            TestSupport.checkEquals(0, records.loadRange(100, 5).size(), "range past the end");
+        }
+        try (PetRecordFile records = PetRecordFile.open(FILE)) {
+            checkPets(pets, records.loadAll());
+            TestSupport.checkEquals("Pet 7", records.get(id(7)).getName(), "pet found by ID");
+            TestSupport.checkEquals(null, records.get("D_999"), "missing pet");
+        }
+    }
+
+    private static void appendsAndUpdates() throws IOException {
+        List<Pet> pets = pets(10);
+        try (PetRecordFile records = fresh()) {
+            records.saveAll(pets);
+            // More records than the initial mapping holds
+            for (int i = 10; i < 200; i++) {
+                Pet pet = pet(i);
+                records.put(pet);
+                pets.add(pet);
+            }
+            Pet renamed = new Pet(id(5), "Renamed", "Beagle", 9, "Male");
+            records.put(renamed);
+            pets.set(5, renamed);
+            TestSupport.checkEquals(200, records.size(), "size after appending and updating");
+            TestSupport.checkEquals("Renamed", records.get(5).getName(), "pet updated in its own slot");
+        }
+        try (PetRecordFile records = PetRecordFile.open(FILE)) {
+            checkPets(pets, records.loadAll());
+        }
+    }
+
+    private static void flipsAdoption() throws IOException {
+        try (PetRecordFile records = fresh()) {
+            records.saveAll(pets(5));
+            TestSupport.check(records.setAdopted(id(3), true), "adopted");
+            TestSupport.check(!records.setAdopted("D_999", true), "missing pet not adopted");
+        }
+        try (PetRecordFile records = PetRecordFile.open(FILE)) {
+            TestSupport.check(records.get(id(3)).getAdoptionStat(), "adoption kept after reopening");
+            TestSupport.check(!records.get(id(2)).getAdoptionStat(), "other pets unchanged");
+            TestSupport.checkEquals("Pet 3", records.get(id(3)).getName(), "rest of the record unchanged");
+        }
+    }
+
+    private static void removesBySwapping() throws IOException {
+        List<Pet> pets = pets(10);
+        try (PetRecordFile records = fresh()) {
+            records.saveAll(pets);
+            TestSupport.check(records.remove(id(2)), "removed");
+            TestSupport.check(!records.remove(id(2)), "second removal of the same pet");
+            TestSupport.checkEquals(9, records.size(), "size after removing");
+            TestSupport.checkEquals(id(9), records.get(2).getId(), "last pet moved into the freed slot");
+            TestSupport.checkEquals(null, records.get(id(2)), "removed pet");
+
+            // The moved pet is found, updated, and adopted in its new slot
+            records.put(new Pet(id(9), "Moved", "Beagle", 4, "Female"));
+            records.setAdopted(id(9), true);
+            TestSupport.checkEquals(9, records.size(), "size after updating the moved pet");
+            TestSupport.checkEquals("Moved", records.get(2).getName(), "moved pet updated in its new slot");
+
+            // Removing the last record moves nothing
+            TestSupport.check(records.remove(id(8)), "last pet removed");
+            TestSupport.checkEquals(8, records.size(), "size after removing the last pet");
+        }
+        try (PetRecordFile records = PetRecordFile.open(FILE)) {
+            List<String> ids = new ArrayList<>();
+            for (Pet pet : records.loadAll()) {
+                ids.add(pet.getId());
+            }
+            TestSupport.checkEquals(List.of(id(0), id(1), id(9), id(3), id(4), id(5), id(6), id(7)), ids,
+                    "pets after reopening");
+            TestSupport.check(records.get(id(9)).getAdoptionStat(), "moved pet adopted after reopening");
+        }
+    }
+
+    private static void rejectsOversizedPet() throws IOException {
+        List<Pet> pets = pets(5);
+        try (PetRecordFile records = fresh()) {
+            records.saveAll(pets);
+            List<Pet> replacement = pets(5);
+            replacement.set(3, new Pet(id(3), "x".repeat(200), "Beagle", 1, "Male"));
+            TestSupport.checkThrows(IllegalArgumentException.class, () -> records.saveAll(replacement));
+            TestSupport.checkThrows(IllegalArgumentException.class,
+                    () -> records.put(new Pet(id(1), "x".repeat(200), "Beagle", 1, "Male")));
+            checkPets(pets, records.loadAll());
+        }
+    }
+
+    private static void rejectsOtherFiles() throws IOException {
+        Files.write(FILE.toPath(), new byte[PetRecordFile.HEADER_SIZE * 4]);
+        TestSupport.checkThrows(IOException.class, () -> PetRecordFile.open(FILE));
+    }
+
+    private static PetRecordFile fresh() throws IOException {
+        Files.deleteIfExists(FILE.toPath());
+        return PetRecordFile.open(FILE);
+    }
+
+    private static List<Pet> pets(int count) {
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pets.add(pet(i));
+        }
+        return pets;
+    }
+
+    private static Pet pet(int i) {
+        Pet pet = new Pet(id(i), "Pet " + i, i % 2 == 0 ? "Labrador" : "Siamese", i % 12, i % 2 == 0 ? "Male" : "Female");
+        pet.setAdoptionStat(i % 4 == 0);
+        return pet;
+    }
+
+    private static String id(int i) {
+        return String.format("D_%03d", i);
+    }
+
+    private static void checkPets(List<Pet> expected, List<Pet> actual) {
+        TestSupport.checkEquals(expected.size(), actual.size(), "pet count");
+        for (int i = 0; i < expected.size(); i++) {
+            Pet want = expected.get(i);
+            Pet got = actual.get(i);
+            TestSupport.checkEquals(want.getId(), got.getId(), "ID in slot " + i);
+            TestSupport.checkEquals(want.getName(), got.getName(), "name of " + want.getId());
+            TestSupport.checkEquals(want.getBreed(), got.getBreed(), "breed of " + want.getId());
+            TestSupport.checkEquals(want.getAge(), got.getAge(), "age of " + want.getId());
+            TestSupport.checkEquals(want.getGender(), got.getGender(), "gender of " + want.getId());
+            TestSupport.checkEquals(want.getAdoptionStat(), got.getAdoptionStat(), "adoption of " + want.getId());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The {@code PetSearchIndexTest} class checks that {@link PetSearchIndex} finds exactly the slots whose words
+ * start with every word typed, ranks the closest words first, and forgets a slot's old words when it is changed
+ * or cleared, including after its stale entries are compacted.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Ranking exact words before completions, and names before breeds</li>
+ *   <li>Matching several words, ignoring case and accents</li>
+ *   <li>Stopping at the limit and returning each slot once</li>
+ *   <li>Re-indexing and clearing slots, before and after compaction</li>
+ * </ul>
+ */
+public class PetSearchIndexTest {
+
+    private static final String[] NAMES = {"Max", "Maxi", "Maximilian", "Bella", "Bell", "Luna", "Coco", "Zoé"};
+    private static final String[] BREEDS = {"Labrador Retriever", "Beagle", "Maltese", "Bengal", "Siamese"};
+
+    public static void main(String[] args) {
+        TestSupport.run("ranking", PetSearchIndexTest::ranksClosestWordsFirst);
+        TestSupport.run("words", PetSearchIndexTest::matchesEveryWord);
+        TestSupport.run("limit", PetSearchIndexTest::stopsAtLimit);
+        TestSupport.run("changes", PetSearchIndexTest::forgetsOldWords);
+        TestSupport.run("compaction", PetSearchIndexTest::matchesScanAfterManyChanges);
+        TestSupport.finish();
+    }
+
+    private static void ranksClosestWordsFirst() {
+        PetSearchIndex index = new PetSearchIndex();
+        index.set(0, "Maximilian", "Beagle");
+        index.set(1, "Rex", "Maltese");
+        index.set(2, "Maxi", "Beagle");
+        index.set(3, "Max", "Beagle");
+        index.set(4, "Bella", "Max Breed");
+        // Shorter completions first: max, then maxi, maltese, and maximilian
+        TestSupport.checkEquals(List.of(3, 4, 2, 1, 0), list(index.search("ma", 10)), "ranking for ma");
+        TestSupport.checkEquals(List.of(3, 4, 2, 0), list(index.search("max", 10)), "ranking for max");
+        TestSupport.checkEquals(List.of(), list(index.search("", 10)), "empty query");
+        TestSupport.checkEquals(List.of(), list(index.search("  ,", 10)), "query without words");
+        TestSupport.checkEquals(List.of(), list(index.search("ma", 0)), "zero limit");
+    }
+
+    private static void matchesEveryWord() {
+        PetSearchIndex index = new PetSearchIndex();
+        index.set(0, "Zoé", "Labrador Retriever");
+        index.set(1, "Zoe", "Beagle");
+        index.set(2, "Luna", "Labrador Retriever");
+        TestSupport.checkEquals(List.of(0, 1), list(index.search("ZOE", 10)), "name ignoring case and accents");
+        TestSupport.checkEquals(List.of(0), list(index.search("zo retr", 10)), "name and breed words");
+        TestSupport.checkEquals(List.of(0, 2), list(index.search("lab ret", 10)), "two breed words");
+        TestSupport.checkEquals(List.of(), list(index.search("luna beagle", 10)), "words of different pets");
+        TestSupport.checkEquals(List.of(0), list(index.search("retriever, zoé!", 10)), "punctuation");
+    }
+
+    private static void stopsAtLimit() {
+        PetSearchIndex index = new PetSearchIndex();
+        for (int slot = 0; slot < 300; slot++) {
+            // Every pet matches "be" through its name, its breed, or both
+            index.set(slot, slot % 2 == 0 ? "Bella" : "Rex", "Beagle");
+        }
+        int[] all = index.search("be", 1000);
+        TestSupport.checkEquals(300, all.length, "matches");
+        TestSupport.checkEquals(300, new TreeSet<>(list(all)).size(), "distinct matches");
+        for (int i = 0; i < 150; i++) {
+            TestSupport.checkEquals(0, all[i] % 2, "name match ranked before breed-only matches");
+        }
+        TestSupport.checkEquals(Arrays.toString(Arrays.copyOf(all, 100)), Arrays.toString(index.search("be", 100)),
+                "first 100 matches");
+    }
+
+    private static void forgetsOldWords() {
+        PetSearchIndex index = new PetSearchIndex();
+        index.set(0, "Max", "Beagle");
+        index.set(1, "Luna", "Beagle");
+        index.set(0, "Coco", "Maltese");
+        TestSupport.checkEquals(List.of(0), list(index.search("coco", 10)), "new name");
+        TestSupport.checkEquals(List.of(0), list(index.search("mal", 10)), "new breed");
+        TestSupport.checkEquals(List.of(), list(index.search("max", 10)), "old name");
+        TestSupport.checkEquals(List.of(1), list(index.search("beagle", 10)), "old breed");
+
+        index.clear(1);
+        index.clear(1);
+        index.clear(7);
+        TestSupport.checkEquals(List.of(), list(index.search("luna", 10)), "cleared slot");
+        index.set(1, "Luna", null);
+        TestSupport.checkEquals(List.of(1), list(index.search("lu", 10)), "slot set again without a breed");
+    }
+
+    private static void matchesScanAfterManyChanges() {
+        Random random = new Random(42);
+        PetSearchIndex index = new PetSearchIndex();
+        String[][] pets = new String[200][];
+        // Enough changes to drop stale entries several times over
+        for (int change = 0; change < 5000; change++) {
+            int slot = random.nextInt(pets.length);
+            if (random.nextInt(5) == 0) {
+                index.clear(slot);
+                pets[slot] = null;
+            } else {
+                pets[slot] = new String[] {NAMES[random.nextInt(NAMES.length)], BREEDS[random.nextInt(BREEDS.length)]};
+                index.set(slot, pets[slot][0], pets[slot][1]);
+            }
+        }
+        for (String query : new String[] {"m", "max", "maxi", "b", "bel", "be lab", "zoe", "sia", "co ben", "x"}) {
+            TestSupport.checkEquals(scan(pets, query), new TreeSet<>(list(index.search(query, 1000))),
+                    "matches for " + query);
+        }
+    }
+
+    /**
+     * Finds the slots whose name or breed has a word starting with each word of the query, by checking every slot.
+     */
+    private static Set<Integer> scan(String[][] pets, String query) {
+        Set<Integer> matching = new TreeSet<>();
+        for (int slot = 0; slot < pets.length; slot++) {
+            if (pets[slot] == null) {
+                continue;
+            }
+            List<String> words = new ArrayList<>(List.of(PetSearchIndex.words(pets[slot][0])));
+            words.addAll(List.of(PetSearchIndex.words(pets[slot][1])));
+            boolean all = true;
+            for (String typed : PetSearchIndex.words(query)) {
+                all &= words.stream().anyMatch(word -> word.startsWith(typed));
+            }
+            if (all) {
+                matching.add(slot);
+            }
+        }
+        return matching;
+    }
+
+    private static List<Integer> list(int[] slots) {
+        List<Integer> list = new ArrayList<>();
+        for (int slot : slots) {
+            list.add(slot);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code PetStorageTest} class checks that single-pet changes keep the cached pet list and its bitmap index
+ * in step with each other and with what is on disk.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Adding, updating, adopting, and removing pets through the cached list</li>
+ *   <li>Moving the last pet into the place of a removed one</li>
+ *   <li>Filtering through the index after the list changed</li>
+ *   <li>Reading the same pets back from the snapshot and mutation log</li>
+ * </ul>
+ */
+public class PetStorageTest {
+
+    private static final int PETS = 300;
+
+    public static void main(String[] args) {
+        TestSupport.run("single-pet changes", PetStorageTest::appliesSinglePetChanges);
+        TestSupport.run("remove moves the last pet", PetStorageTest::removeMovesLastPet);
+        StorageWriter.flush();
+        TestSupport.finish();
+    }
+
+    private static void appliesSinglePetChanges() {
+        Map<String, Pet> expected = new LinkedHashMap<>();
+        for (int i = 0; i < PETS; i++) {
+            Pet pet = pet(i, "Labrador");
+            PetStorage.addAnimal(pet);
+            expected.put(pet.getId(), pet);
+        }
+        for (int i = 0; i < PETS; i += 3) {
+            Pet updated = pet(i, "Beagle");
+            PetStorage.updateAnimal(updated);
+            expected.put(updated.getId(), updated);
+        }
+        for (int i = 1; i < PETS; i += 5) {
+            Pet pet = PetStorage.findAnimal(id(i));
+            pet.setAdoptionStat(true);
+            PetStorage.updateAdoptionStatus(pet);
+            expected.put(pet.getId(), pet);
+        }
+        for (int i = 2; i < PETS; i += 7) {
+            PetStorage.removeAnimal(expected.remove(id(i)));
+        }
+
+        checkStored(expected, PetStorage.loadAnimals());
+        List<Pet> adopted = PetStorage.filterAnimals(null, null, null, true);
+        for (Pet pet : adopted) {
+            TestSupport.check(pet.getAdoptionStat(), pet.getId() + " filtered as adopted");
+            TestSupport.check(expected.containsKey(pet.getId()), pet.getId() + " is still stored");
+        }
+        long adoptedCount = expected.values().stream().filter(Pet::getAdoptionStat).count();
+        TestSupport.checkEquals((int) adoptedCount, adopted.size(), "adopted pets");
+        long beagles = expected.values().stream().filter(pet -> pet.getBreed().equals("Beagle")).count();
+        TestSupport.checkEquals((int) beagles, PetStorage.filterAnimals(null, "beagle", null, null).size(), "beagles");
+
+        StorageWriter.flush();
+        StorageCache.invalidate("pets");
+        checkStored(expected, PetStorage.loadAnimals());
+    }
+
+    private static void removeMovesLastPet() {
+        List<Pet> before = PetStorage.loadAnimals();
+        Pet removed = before.get(1);
+        Pet last = before.get(before.size() - 1);
+        PetStorage.removeAnimal(removed);
+
+        List<Pet> after = PetStorage.loadAnimals();
+        TestSupport.checkEquals(before.size() - 1, after.size(), "pet count");
+        TestSupport.checkEquals(last.getId(), after.get(1).getId(), "pet in the removed pet's place");
+        TestSupport.checkEquals(before.get(2).getId(), after.get(2).getId(), "next pet keeps its place");
+        TestSupport.checkEquals(null, PetStorage.findAnimal(removed.getId()), "removed pet");
+
+        // The moved pet is still found in its new place
+        last.setName("Moved");
+        PetStorage.updateAnimal(last);
+        TestSupport.checkEquals("Moved", PetStorage.loadAnimals().get(1).getName(), "moved pet updated in place");
+        TestSupport.checkEquals(before.size() - 1, PetStorage.loadAnimals().size(), "pet count after the update");
+    }
+
+    private static void checkStored(Map<String, Pet> expected, List<Pet> stored) {
+        TestSupport.checkEquals(expected.size(), stored.size(), "stored pet count");
+        List<String> missing = new ArrayList<>(expected.keySet());
+        for (Pet pet : stored) {
+            Pet want = expected.get(pet.getId());
+            TestSupport.check(want != null, pet.getId() + " should not be stored");
+            TestSupport.checkEquals(want.getBreed(), pet.getBreed(), "breed of " + pet.getId());
+            TestSupport.checkEquals(want.getAdoptionStat(), pet.getAdoptionStat(), "adoption of " + pet.getId());
+            missing.remove(pet.getId());
+        }
+        TestSupport.check(missing.isEmpty(), "pets not stored: " + missing);
+    }
+
+    private static String id(int i) {
+        return String.format("D_%03d", i);
+    }
+
+    private static Pet pet(int i, String breed) {
+        return new Pet(id(i), "Pet " + i, breed, i % 15, i % 2 == 0 ? "Male" : "Female");
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The {@code PetViewTest} class checks that a {@link PetQuery} evaluated by {@link PetBitmapIndex} gives the same
+ * pets in the same order as filtering and sorting a copy of the catalog, whether its result was cached or not,
+ * and that a view keeps showing the pets it was made for after the catalog changes.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Combining filters, age ranges, and orders into queries</li>
+ *   <li>Sorting by age and by ID with ties kept in catalog order</li>
+ *   <li>Running queries again after the catalog changed, with and without cached results</li>
+ *   <li>Reading earlier views after pets were added and removed</li>
+ * </ul>
+ */
+public class PetViewTest {
+
+    private static final String[] BREEDS = {"Labrador", "beagle", "Siamese"};
+
+    public static void main(String[] args) {
+        TestSupport.run("queries", PetViewTest::buildsQueries);
+        TestSupport.run("views", PetViewTest::matchesSortedCopies);
+        TestSupport.run("changes", PetViewTest::reflectsChangesWhenRunAgain);
+        TestSupport.run("earlier views", PetViewTest::keepsEarlierViews);
+        TestSupport.finish();
+    }
+
+    private static void buildsQueries() {
+        TestSupport.checkEquals(PetQuery.all().withBreed("beagle"), PetQuery.all().withBreed("BEAGLE"),
+                "breeds ignoring case");
+        TestSupport.checkEquals(PetQuery.all(), PetQuery.all().withSpecies("").withGender(null), "empty criteria");
+        TestSupport.check(!PetQuery.all().isRestricted(), "all pets");
+        TestSupport.check(PetQuery.all().sortedBy(PetQuery.Order.AGE).isRestricted(), "sorted query");
+        TestSupport.checkEquals(PetQuery.all().withAdopted(true),
+                PetQuery.all().withAdopted(true).sortedBy(PetQuery.Order.ID).unsorted(), "unsorted query");
+        TestSupport.checkEquals(0, PetQuery.all().withAgeRange(-3, 4).getMinAge(), "lowest age");
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> PetQuery.all().withAgeRange(5, 4));
+    }
+
+    private static void matchesSortedCopies() {
+        List<Pet> pets = pets(150);
+        PetBitmapIndex index = new PetBitmapIndex(pets);
+        // More queries than the index caches, each run twice
+        for (int pass = 0; pass < 2; pass++) {
+            for (PetQuery.Order order : PetQuery.Order.values()) {
+                for (String breed : new String[] {null, "Beagle"}) {
+                    for (Boolean adopted : new Boolean[] {null, false}) {
+                        PetQuery query = PetQuery.all().withBreed(breed).withAdopted(adopted).sortedBy(order);
+                        checkView(pets, index, query);
+                        checkView(pets, index, query.withAgeRange(3, 8));
+                        checkView(pets, index, query.withSpecies("Cat").withGender("Female"));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void reflectsChangesWhenRunAgain() {
+        List<Pet> pets = pets(80);
+        PetBitmapIndex index = new PetBitmapIndex(pets);
+        PetQuery available = PetQuery.all().withAdopted(false).sortedBy(PetQuery.Order.AGE);
+        checkView(pets, index, available);
+
+        pets.get(4).setAdoptionStat(true);
+        index.setAdopted(pets.get(4).getId(), true);
+        checkView(pets, index, available);
+
+        Pet changed = new Pet(pets.get(10).getId(), "Changed", "Beagle", 0, "Male");
+        pets.set(10, changed);
+        index.add(changed);
+        checkView(pets, index, available);
+
+        Pet added = new Pet("D_500", "Added", "Beagle", 1, "Male");
+        pets.add(added);
+        index.add(added);
+        checkView(pets, index, available);
+
+        index.remove(pets.remove(20).getId());
+        checkView(pets, index, available);
+        checkView(pets, index, available.unsorted());
+    }
+
+    private static void keepsEarlierViews() {
+        List<Pet> pets = pets(10);
+        PetBitmapIndex index = new PetBitmapIndex(pets);
+        PetView before = index.view(PetQuery.all());
+        List<Pet> shown = new ArrayList<>(before);
+
+        // Enough new pets to grow the slot array, then remove most of them to renumber the slots
+        List<Pet> added = pets(200).subList(10, 200);
+        for (Pet pet : added) {
+            index.add(pet);
+        }
+        for (Pet pet : added) {
+            index.remove(pet.getId());
+        }
+        index.remove(pets.get(0).getId());
+        TestSupport.checkEquals(shown, new ArrayList<>(before), "earlier view after the catalog changed");
+        TestSupport.checkEquals(pets.subList(1, 10), new ArrayList<>(index.view(PetQuery.all())),
+                "view made after the catalog changed");
+        TestSupport.checkThrows(IndexOutOfBoundsException.class, () -> before.get(10));
+    }
+
+    /**
+     * Checks a view of the query against filtering and stably sorting a copy of the catalog.
+     */
+    private static void checkView(List<Pet> pets, PetBitmapIndex index, PetQuery query) {
+        Predicate<Pet> matches = pet ->
+                (query.getSpecies() == null || pet.getSpecies().equalsIgnoreCase(query.getSpecies()))
+                && (query.getBreed() == null || pet.getBreed().equalsIgnoreCase(query.getBreed()))
+                && (query.getGender() == null || pet.getGender().equalsIgnoreCase(query.getGender()))
+                && (query.getAdopted() == null || pet.getAdoptionStat() == query.getAdopted())
+                && query.allowsAge(pet.getAge());
+        List<Pet> expected = new ArrayList<>();
+        for (Pet pet : pets) {
+            if (matches.test(pet)) {
+                expected.add(pet);
+            }
+        }
+        if (query.getOrder() == PetQuery.Order.AGE) {
+            expected.sort(Comparator.comparingInt(Pet::getAge));
+        } else if (query.getOrder() == PetQuery.Order.ID) {
+            expected.sort(Comparator.comparing(Pet::getId, String.CASE_INSENSITIVE_ORDER));
+        }
+        PetView view = index.view(query);
+        TestSupport.checkEquals(query, view.getQuery(), "query of the view");
+        TestSupport.checkEquals(expected, new ArrayList<>(view), "view of " + query);
+    }
+
+    private static List<Pet> pets(int count) {
+        String[] prefixes = {"D", "c", "C", "B"};
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // IDs out of catalog order, with mixed case, so sorting by ID has work to do
+            Pet pet = new Pet(String.format("%s_%03d", prefixes[i % 4], (i * 37) % 1000), "Pet " + i,
+                    BREEDS[i % BREEDS.length], (i * 7) % 12, i % 3 == 0 ? "Female" : "Male");
+            pet.setAdoptionStat(i % 4 == 1);
+            pets.add(pet);
+        }
+        return pets;
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * The {@code RequestStatusTest} class checks that a request is decided exactly once, that its status and version
+ * change together, and that statuses convert to and from their labels and codes.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Allowing only a pending request to become approved or denied</li>
+ *   <li>Rejecting a second decision and a change at an outdated version</li>
+ *   <li>Converting statuses to and from labels and byte codes</li>
+ *   <li>Serializing a request with its status as a label</li>
+ * </ul>
+ */
+public class RequestStatusTest {
+
+    public static void main(String[] args) {
+        TestSupport.run("allowed moves", RequestStatusTest::allowsOnlyDecisions);
+        TestSupport.run("decide once", RequestStatusTest::decidesOnce);
+        TestSupport.run("versions", RequestStatusTest::checksVersions);
+        TestSupport.run("labels and codes", RequestStatusTest::convertsLabelsAndCodes);
+        TestSupport.run("serialized request", RequestStatusTest::serializesStatusAsLabel);
+        TestSupport.finish();
+    }
+
+    private static void allowsOnlyDecisions() {
+        for (RequestStatus from : RequestStatus.values()) {
+            for (RequestStatus to : RequestStatus.values()) {
+                boolean allowed = from == RequestStatus.PENDING && to != RequestStatus.PENDING;
+                TestSupport.checkEquals(allowed, from.canBecome(to), from.name() + " to " + to.name());
+            }
+            TestSupport.check(!from.canBecome(null), from.name() + " to null");
+        }
+        TestSupport.check(!RequestStatus.PENDING.isDecided(), "pending is undecided");
+        TestSupport.check(RequestStatus.APPROVED.isDecided() && RequestStatus.DENIED.isDecided(), "decisions");
+    }
+
+    private static void decidesOnce() {
+        AdoptionRequest request = new AdoptionRequest("CUST001", "D_001");
+        TestSupport.checkEquals(RequestStatus.PENDING.name(), request.getStatus().name(), "new request");
+        request.transitionTo(RequestStatus.APPROVED);
+        TestSupport.checkEquals(RequestStatus.APPROVED.name(), request.getStatus().name(), "approved request");
+        TestSupport.checkThrows(IllegalStateException.class, () -> request.transitionTo(RequestStatus.DENIED));
+        TestSupport.checkThrows(IllegalStateException.class, () -> request.transitionTo(RequestStatus.PENDING));
+        TestSupport.checkEquals(RequestStatus.APPROVED.name(), request.getStatus().name(), "status after rejections");
+
+        // Restoring a stored request is not a decision
+        request.setStatus(RequestStatus.PENDING);
+        TestSupport.checkEquals(RequestStatus.PENDING.name(), request.getStatus().name(), "restored request");
+    }
+
+    private static void checksVersions() {
+        AdoptionRequest request = new AdoptionRequest("CUST001", "D_001");
+        TestSupport.checkEquals(0, request.getVersion(), "version of a new request");
+        TestSupport.check(!request.compareAndSetStatus(1, RequestStatus.APPROVED), "change at a future version");
+        TestSupport.check(!request.compareAndSetStatus(0, RequestStatus.PENDING), "change to pending");
+        TestSupport.checkEquals(0, request.getVersion(), "version after rejected changes");
+
+        TestSupport.check(request.compareAndSetStatus(0, RequestStatus.DENIED), "change at the current version");
+        TestSupport.checkEquals(1, request.getVersion(), "version after the change");
+        TestSupport.checkEquals(RequestStatus.DENIED.name(), request.getStatus().name(), "status after the change");
+        TestSupport.check(!request.compareAndSetStatus(1, RequestStatus.APPROVED), "second decision");
+
+        request.setStatus(RequestStatus.PENDING);
+        TestSupport.checkEquals(2, request.getVersion(), "version after restoring");
+        TestSupport.check(!request.compareAndSetStatus(1, RequestStatus.APPROVED), "change at an outdated version");
+        TestSupport.check(request.compareAndSetStatus(2, RequestStatus.APPROVED), "change at the restored version");
+    }
+
+    private static void convertsLabelsAndCodes() {
+        for (RequestStatus status : RequestStatus.values()) {
+            TestSupport.checkEquals(status, RequestStatus.fromLabel(status.getLabel()), "label of " + status.name());
+            TestSupport.checkEquals(status, RequestStatus.fromCode(status.getCode()), "code of " + status.name());
+            TestSupport.checkEquals(status.getLabel(), status.toString(), "text of " + status.name());
+        }
+        TestSupport.checkEquals("Pending", RequestStatus.PENDING.getLabel(), "pending label");
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> RequestStatus.fromLabel("pending"));
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> RequestStatus.fromCode(3));
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> RequestStatus.fromCode(-1));
+    }
+
+    private static void serializesStatusAsLabel() throws Exception {
+        AdoptionRequest request = new AdoptionRequest("CUST001", "D_001");
+        request.transitionTo(RequestStatus.DENIED);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(request);
+        }
+        AdoptionRequest read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (AdoptionRequest) in.readObject();
+        }
+        TestSupport.checkEquals("CUST001/D_001", read.getCustomerId() + "/" + read.getAnimalID(), "IDs");
+        TestSupport.checkEquals(RequestStatus.DENIED.name(), read.getStatus().name(), "status");
+        TestSupport.checkEquals(0, read.getVersion(), "version of a loaded request");
+    }
+}
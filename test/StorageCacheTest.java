@@ -0,0 +1,222 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The {@code StorageCacheTest} class checks that {@link StorageCache} serves a list from memory while its files
+ * are unchanged, reloads it once they change outside the storage classes, and keeps attachments only while they
+ * still describe the cached list.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Loading a list once and reloading it after its file changed or it was invalidated</li>
+ *   <li>Handing out copies and read-only views</li>
+ *   <li>Updating, replacing, and restamping entries after the storage classes write</li>
+ *   <li>Dropping attachments when the list changes</li>
+ *   <li>Loading a list once when many threads ask for it at the same time</li>
+ *   <li>Trusting a dirty list over its files until the write that took it has finished</li>
+ * </ul>
+ */
+public class StorageCacheTest {
+
+    private static final File FILE = new File("cached.dat");
+
+    public static void main(String[] args) {
+        TestSupport.run("hit while unchanged", StorageCacheTest::servesUnchangedList);
+        TestSupport.run("reload after change", StorageCacheTest::reloadsChangedList);
+        TestSupport.run("copies and views", StorageCacheTest::handsOutCopiesAndViews);
+        TestSupport.run("update and put", StorageCacheTest::appliesWrites);
+        TestSupport.run("restamp", StorageCacheTest::restampsWithoutReloading);
+        TestSupport.run("concurrent loads", StorageCacheTest::loadsOnceForManyThreads);
+        TestSupport.run("dirty list", StorageCacheTest::trustsDirtyList);
+        TestSupport.run("changed while written", StorageCacheTest::staysDirtyWhenChangedDuringWrite);
+        TestSupport.finish();
+    }
+
+    private static void servesUnchangedList() throws IOException {
+        String key = fresh("hit");
+        AtomicInteger loads = new AtomicInteger();
+        long hits = StorageCache.getHitCount();
+        TestSupport.checkEquals(List.of("a", "b"), StorageCache.view(key, loader(loads, "a", "b"), FILE), "first read");
+        TestSupport.checkEquals(List.of("a", "b"), StorageCache.view(key, loader(loads, "x"), FILE), "second read");
+        TestSupport.checkEquals(1, loads.get(), "loads");
+        TestSupport.checkEquals(hits + 1, StorageCache.getHitCount(), "hits");
+    }
+
+    private static void reloadsChangedList() throws IOException {
+        String key = fresh("reload");
+        AtomicInteger loads = new AtomicInteger();
+        StorageCache.view(key, loader(loads, "a"), FILE);
+        StorageCache.attach(key, "index");
+
+        Files.write(FILE.toPath(), new byte[] {1, 2, 3});
+        TestSupport.checkEquals(List.of("b"), StorageCache.view(key, loader(loads, "b"), FILE), "read after the change");
+        TestSupport.checkEquals(null, StorageCache.getAttachment(key), "attachment after reloading");
+
+        StorageCache.invalidate(key);
+        TestSupport.checkEquals(List.of("c"), StorageCache.view(key, loader(loads, "c"), FILE),
+                "read after invalidating");
+        TestSupport.checkEquals(3, loads.get(), "loads");
+    }
+
+    private static void handsOutCopiesAndViews() throws IOException {
+        String key = fresh("copies");
+        List<String> copy = StorageCache.get(key, loader(new AtomicInteger(), "a", "b"), FILE);
+        copy.add("c");
+        TestSupport.checkEquals(List.of("a", "b"), StorageCache.get(key, loader(new AtomicInteger()), FILE),
+                "cached list after changing a copy");
+        List<String> view = StorageCache.view(key, loader(new AtomicInteger()), FILE);
+        TestSupport.checkThrows(UnsupportedOperationException.class, () -> view.add("c"));
+    }
+
+    private static void appliesWrites() throws IOException {
+        String key = fresh("writes");
+        AtomicInteger loads = new AtomicInteger();
+        List<String> view = StorageCache.view(key, loader(loads, "a"), FILE);
+        StorageCache.attach(key, "index");
+        TestSupport.checkEquals("index", StorageCache.getAttachment(key), "attachment");
+
+        // The storage class writes the file and changes the cached list to match
+        Files.write(FILE.toPath(), new byte[] {1, 2});
+        StorageCache.<String>update(key, list -> list.add("b"), FILE);
+        TestSupport.checkEquals(List.of("a", "b"), view, "view after the update");
+        TestSupport.checkEquals(null, StorageCache.getAttachment(key), "attachment after the update");
+        TestSupport.checkEquals(List.of("a", "b"), StorageCache.view(key, loader(loads, "x"), FILE),
+                "read after the update");
+
+        Files.write(FILE.toPath(), new byte[] {1, 2, 3});
+        StorageCache.attach(key, "index");
+        StorageCache.put(key, List.of("c"), FILE);
+        TestSupport.checkEquals(null, StorageCache.getAttachment(key), "attachment after replacing the list");
+        TestSupport.checkEquals(List.of("c"), StorageCache.view(key, loader(loads, "x"), FILE),
+                "read after replacing the list");
+        TestSupport.checkEquals(1, loads.get(), "loads");
+
+        StorageCache.invalidate(key);
+        StorageCache.attach(key, "index");
+        StorageCache.<String>update(key, list -> list.add("d"), FILE);
+        TestSupport.checkEquals(null, StorageCache.getAttachment(key), "attachment without a cached list");
+    }
+
+    private static void restampsWithoutReloading() throws IOException {
+        String key = fresh("restamp");
+        AtomicInteger loads = new AtomicInteger();
+        StorageCache.view(key, loader(loads, "a"), FILE);
+        StorageCache.attach(key, "index");
+
+        // The storage class appended to the file and changed the cached elements in place
+        Files.write(FILE.toPath(), new byte[] {1, 2, 3, 4});
+        StorageCache.restamp(key, FILE);
+        TestSupport.checkEquals(List.of("a"), StorageCache.view(key, loader(loads, "x"), FILE), "read after restamp");
+        TestSupport.checkEquals("index", StorageCache.getAttachment(key), "attachment after restamp");
+        TestSupport.checkEquals(1, loads.get(), "loads");
+    }
+
+    private static void loadsOnceForManyThreads() throws Exception {
+        String key = fresh("concurrent");
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<String>> slowLoader = () -> {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of("a");
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> reads = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                reads.add(pool.submit(() -> {
+                    start.await();
+                    return StorageCache.get(key, slowLoader, FILE);
+                }));
+            }
+            start.countDown();
+            for (Future<List<String>> read : reads) {
+                TestSupport.checkEquals(List.of("a"), read.get(30, TimeUnit.SECONDS), "list read by a thread");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        TestSupport.checkEquals(1, loads.get(), "loads");
+    }
+
+    private static void trustsDirtyList() throws IOException {
+        String key = fresh("dirty");
+        AtomicInteger loads = new AtomicInteger();
+        StorageCache.view(key, loader(loads, "a"), FILE);
+        StorageCache.<String>update(key, list -> list.add("b"), FILE);
+        StorageCache.markDirty(key);
+
+        // The writer replaces the file while the list is dirty
+        List<String> taken = StorageCache.takeForWrite(key);
+        TestSupport.checkEquals(List.of("a", "b"), taken, "list taken for writing");
+        Files.write(FILE.toPath(), new byte[] {1, 2});
+        TestSupport.checkEquals(List.of("a", "b"), StorageCache.view(key, loader(loads, "x"), FILE),
+                "read while the file is being written");
+
+        StorageCache.markWritten(key);
+        StorageCache.restamp(key, FILE);
+        TestSupport.checkEquals(List.of("a", "b"), StorageCache.view(key, loader(loads, "x"), FILE),
+                "read after the write");
+        Files.write(FILE.toPath(), new byte[] {1, 2, 3});
+        TestSupport.checkEquals(List.of("y"), StorageCache.view(key, loader(loads, "y"), FILE),
+                "read after an outside change");
+        TestSupport.checkEquals(2, loads.get(), "loads");
+        TestSupport.checkEquals(null, StorageCache.takeForWrite("missing"), "list taken without a cached list");
+    }
+
+    private static void staysDirtyWhenChangedDuringWrite() throws IOException {
+        String key = fresh("rewritten");
+        AtomicInteger loads = new AtomicInteger();
+        StorageCache.view(key, loader(loads, "a"), FILE);
+        StorageCache.markDirty(key);
+        StorageCache.takeForWrite(key);
+
+        // A change made after the list was taken is not in the file being written
+        StorageCache.<String>update(key, list -> list.add("b"), FILE);
+        StorageCache.markDirty(key);
+        Files.write(FILE.toPath(), new byte[] {1, 2});
+        StorageCache.markWritten(key);
+        TestSupport.checkEquals(List.of("a", "b"), StorageCache.view(key, loader(loads, "x"), FILE),
+                "read after the earlier write finished");
+
+        // Replacing the list keeps it dirty
+        StorageCache.put(key, List.of("c"), FILE);
+        Files.write(FILE.toPath(), new byte[] {1, 2, 3});
+        TestSupport.checkEquals(List.of("c"), StorageCache.view(key, loader(loads, "x"), FILE),
+                "read after replacing a dirty list");
+
+        StorageCache.takeForWrite(key);
+        StorageCache.markWritten(key);
+        Files.write(FILE.toPath(), new byte[] {1, 2, 3, 4});
+        TestSupport.checkEquals(List.of("y"), StorageCache.view(key, loader(loads, "y"), FILE),
+                "read after the last write and an outside change");
+        TestSupport.checkEquals(2, loads.get(), "loads");
+    }
+
+    /**
+     * Writes a new backing file and returns a key that nothing has cached yet.
+     */
+    private static String fresh(String key) throws IOException {
+        Files.write(FILE.toPath(), new byte[] {1});
+        StorageCache.invalidate(key);
+        return key;
+    }
+
+    private static Supplier<List<String>> loader(AtomicInteger loads, String... values) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(values);
+        };
+    }
+}
@@ -0,0 +1,303 @@
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * The {@code StorageEventsTest} class checks that {@link StorageEvents} delivers every published change once, in
+ * order, in batches on the event dispatch thread, that the storage classes publish the changes they make, and that
+ * the table models apply a batch to the affected rows with a single table event.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Collecting changes only while a listener is registered</li>
+ *   <li>Batching changes published from several threads without losing or reordering them</li>
+ *   <li>Publishing pet, request, and customer changes from the storage classes</li>
+ *   <li>Delivering to every listener even if one of them fails</li>
+ *   <li>Applying batches to the pet and request table models</li>
+ * </ul>
+ */
+public class StorageEventsTest {
+
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) {
+        TestSupport.run("no listeners", StorageEventsTest::collectsNothingWithoutListeners);
+        TestSupport.run("batches", StorageEventsTest::deliversBatchesInOrder);
+        TestSupport.run("storage changes", StorageEventsTest::publishesStorageChanges);
+        TestSupport.run("failing listener", StorageEventsTest::deliversDespiteFailingListener);
+        TestSupport.run("pet table", StorageEventsTest::appliesPetChanges);
+        TestSupport.run("request table", StorageEventsTest::appliesRequestChanges);
+        StorageWriter.flush();
+        TestSupport.finish();
+    }
+
+    private static void collectsNothingWithoutListeners() throws Exception {
+        StorageEvents.publish(StorageEvents.Type.PET_ADDED, pet("D_000"));
+        Recorder recorder = new Recorder();
+        StorageEvents.addListener(recorder);
+        try {
+            Thread.sleep(10 * StorageEvents.FRAME_MILLIS);
+            TestSupport.checkEquals(0, recorder.changes().size(), "changes delivered");
+        } finally {
+            StorageEvents.removeListener(recorder);
+        }
+    }
+
+    private static void deliversBatchesInOrder() throws Exception {
+        Recorder recorder = new Recorder();
+        StorageEvents.addListener(recorder);
+        int perThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                String prefix = "T" + t + "_";
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        StorageEvents.publish(StorageEvents.Type.PET_UPDATED, pet(prefix + i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            List<StorageEvents.Change> changes = recorder.await(THREADS * perThread);
+            for (int t = 0; t < THREADS; t++) {
+                String prefix = "T" + t + "_";
+                int next = 0;
+                for (StorageEvents.Change change : changes) {
+                    if (change.getPet().getId().startsWith(prefix)) {
+                        TestSupport.checkEquals(prefix + next++, change.getPet().getId(), "change in publish order");
+                    }
+                }
+                TestSupport.checkEquals(perThread, next, "changes of thread " + t);
+            }
+            TestSupport.check(recorder.batchCount() < changes.size(), "changes delivered in batches");
+            TestSupport.check(recorder.onlyOnEventThread(), "delivered on the event dispatch thread");
+            TestSupport.check(recorder.batchesReadOnly(), "batches are read-only");
+        } finally {
+            pool.shutdownNow();
+            StorageEvents.removeListener(recorder);
+        }
+    }
+
+    private static void publishesStorageChanges() throws Exception {
+        Recorder recorder = new Recorder();
+        StorageEvents.addListener(recorder);
+        try {
+            Customer customer = new Customer(CustomerStorage.nextCustomerId(), "Events", "Female", "1 Main Street",
+                    "events@example.com", "555-1000", 1980, "secret", "events");
+            CustomerStorage.addCustomer(customer);
+            PetStorage.addAnimal(pet("D_100"));
+            Pet stored = PetStorage.findAnimal("D_100");
+            stored.setAdoptionStat(true);
+            PetStorage.updateAdoptionStatus(stored);
+            AdoptionRequestStorage.addRequest(new AdoptionRequest(customer.getCustomerId(), "D_100"));
+            AdoptionService.deny(customer.getCustomerId(), "D_100");
+            AdoptionRequestStorage.removeRequest(AdoptionRequestStorage.findRequest(customer.getCustomerId(), "D_100"));
+            PetStorage.removeAnimal(stored);
+
+            List<StorageEvents.Type> types = new ArrayList<>();
+            for (StorageEvents.Change change : recorder.await(7)) {
+                types.add(change.getType());
+            }
+            TestSupport.checkEquals(List.of(StorageEvents.Type.CUSTOMER_ADDED, StorageEvents.Type.PET_ADDED,
+                    StorageEvents.Type.PET_UPDATED, StorageEvents.Type.REQUEST_ADDED,
+                    StorageEvents.Type.REQUEST_STATUS_CHANGED, StorageEvents.Type.REQUEST_REMOVED,
+                    StorageEvents.Type.PET_REMOVED), types, "published changes");
+            TestSupport.check(StorageEvents.hasPetChanges(recorder.changes()), "batch has pet changes");
+            StorageEvents.Change first = recorder.changes().get(0);
+            TestSupport.check(first.getCustomer() == customer && first.getPet() == null && first.getRequest() == null,
+                    "subject of a customer change");
+        } finally {
+            StorageEvents.removeListener(recorder);
+        }
+    }
+
+    private static void deliversDespiteFailingListener() throws Exception {
+        StorageEvents.Listener failing = changes -> {
+            throw new IllegalStateException("expected by the test");
+        };
+        Recorder recorder = new Recorder();
+        StorageEvents.addListener(failing);
+        StorageEvents.addListener(recorder);
+        try {
+            StorageEvents.publish(StorageEvents.Type.PET_ADDED, pet("D_200"));
+            TestSupport.checkEquals("D_200", recorder.await(1).get(0).getPet().getId(), "change delivered");
+            StorageEvents.removeListener(failing);
+            StorageEvents.publish(StorageEvents.Type.PET_ADDED, pet("D_201"));
+            TestSupport.checkEquals(2, recorder.await(2).size(), "changes after the failing listener was removed");
+        } finally {
+            StorageEvents.removeListener(failing);
+            StorageEvents.removeListener(recorder);
+        }
+    }
+
+    private static void appliesPetChanges() throws Exception {
+        List<Pet> shown = new ArrayList<>(List.of(pet("D_300"), pet("D_301"), pet("D_302")));
+        Pet updated = pet("D_301");
+        List<StorageEvents.Change> changes = deliver(
+                StorageEvents.Type.PET_UPDATED, updated,
+                StorageEvents.Type.PET_ADDED, pet("D_303"),
+                StorageEvents.Type.PET_ADDED, pet("D_304"),
+                StorageEvents.Type.PET_UPDATED, pet("D_999"),
+                StorageEvents.Type.REQUEST_ADDED, new AdoptionRequest("CUST001", "D_300"));
+
+        PetTableModel model = new PetTableModel(shown, PetTableModel.Column.values());
+        List<TableModelEvent> events = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            model.addTableModelListener(events::add);
+            model.applyChanges(changes);
+        });
+        TestSupport.checkEquals(List.of("D_300", "D_301", "D_302", "D_303", "D_304"), ids(model.getPets()), "rows");
+        TestSupport.check(model.getPetAt(1) == updated, "updated pet shown");
+        TestSupport.checkEquals(2, events.size(), "table events for updates and inserts");
+
+        List<StorageEvents.Change> removals = deliver(
+                StorageEvents.Type.PET_REMOVED, pet("D_300"),
+                StorageEvents.Type.PET_ADDED, pet("D_305"),
+                StorageEvents.Type.PET_REMOVED, pet("D_305"),
+                StorageEvents.Type.PET_REMOVED, pet("D_303"),
+                StorageEvents.Type.PET_ADDED, pet("D_303"));
+        events.clear();
+        SwingUtilities.invokeAndWait(() -> model.applyChanges(removals));
+        TestSupport.checkEquals(List.of("D_301", "D_302", "D_303", "D_304"), ids(model.getPets()),
+                "rows after removals");
+        TestSupport.checkEquals(1, events.size(), "table events for removals");
+        TestSupport.checkEquals(2, model.rowOf("D_303"), "row found after removals");
+    }
+
+    private static void appliesRequestChanges() throws Exception {
+        AdoptionRequest first = new AdoptionRequest("CUST001", "D_400");
+        AdoptionRequest second = new AdoptionRequest("CUST002", "D_400");
+        AdoptionRequest third = new AdoptionRequest("CUST003", "D_401");
+        AdoptionRequestTableModel model = new AdoptionRequestTableModel();
+        List<TableModelEvent> events = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            model.setRequests(List.of(first, second, third), request -> request.getStatus() == RequestStatus.PENDING);
+            model.addTableModelListener(events::add);
+        });
+
+        AdoptionRequest added = new AdoptionRequest("CUST004", "D_402");
+        second.transitionTo(RequestStatus.DENIED);
+        List<StorageEvents.Change> changes = deliver(
+                StorageEvents.Type.REQUEST_ADDED, added,
+                StorageEvents.Type.REQUEST_STATUS_CHANGED, second);
+        SwingUtilities.invokeAndWait(() -> model.applyChanges(changes));
+        TestSupport.checkEquals(List.of(first, third, added), rows(model), "pending rows");
+        TestSupport.checkEquals(1, events.size(), "table events");
+
+        List<StorageEvents.Change> more = deliver(
+                StorageEvents.Type.REQUEST_REMOVED, first,
+                StorageEvents.Type.REQUEST_ADDED, new AdoptionRequest("CUST005", "D_403"));
+        events.clear();
+        SwingUtilities.invokeAndWait(() -> model.applyChanges(more));
+        TestSupport.checkEquals(List.of("CUST003", "CUST004", "CUST005"), customerIds(model), "rows after a removal");
+        TestSupport.checkEquals(1, events.size(), "table events after a removal");
+    }
+
+    /**
+     * Publishes the given types and subjects, in pairs, and returns them as delivered to a listener.
+     */
+    private static List<StorageEvents.Change> deliver(Object... typesAndSubjects) throws Exception {
+        Recorder recorder = new Recorder();
+        StorageEvents.addListener(recorder);
+        try {
+            for (int i = 0; i < typesAndSubjects.length; i += 2) {
+                StorageEvents.publish((StorageEvents.Type) typesAndSubjects[i], typesAndSubjects[i + 1]);
+            }
+            return recorder.await(typesAndSubjects.length / 2);
+        } finally {
+            StorageEvents.removeListener(recorder);
+        }
+    }
+
+    private static List<AdoptionRequest> rows(AdoptionRequestTableModel model) {
+        List<AdoptionRequest> rows = new ArrayList<>();
+        for (int row = 0; row < model.getRowCount(); row++) {
+            rows.add(model.getRequestAt(row));
+        }
+        return rows;
+    }
+
+    private static List<String> customerIds(AdoptionRequestTableModel model) {
+        List<String> ids = new ArrayList<>();
+        for (AdoptionRequest request : rows(model)) {
+            ids.add(request.getCustomerId());
+        }
+        return ids;
+    }
+
+    private static List<String> ids(List<Pet> pets) {
+        List<String> ids = new ArrayList<>();
+        for (Pet pet : pets) {
+            ids.add(pet.getId());
+        }
+        return ids;
+    }
+
+    private static Pet pet(String id) {
+        return new Pet(id, "Pet " + id, "Labrador", 2, "Male");
+    }
+
+    /**
+     * Records the batches delivered to it and the thread they were delivered on.
+     */
+    private static class Recorder implements StorageEvents.Listener {
+        private final List<List<StorageEvents.Change>> batches = new ArrayList<>();
+        private boolean offEventThread;
+
+        @Override
+        public synchronized void storageChanged(List<StorageEvents.Change> changes) {
+            offEventThread |= !SwingUtilities.isEventDispatchThread();
+            batches.add(changes);
+            notifyAll();
+        }
+
+        synchronized List<StorageEvents.Change> changes() {
+            List<StorageEvents.Change> changes = new ArrayList<>();
+            for (List<StorageEvents.Change> batch : batches) {
+                changes.addAll(batch);
+            }
+            return changes;
+        }
+
+        /**
+         * Waits until at least the given number of changes has been delivered and returns them in order.
+         */
+        synchronized List<StorageEvents.Change> await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (changes().size() < count && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            TestSupport.checkEquals(count, changes().size(), "changes delivered");
+            return changes();
+        }
+
+        synchronized int batchCount() {
+            return batches.size();
+        }
+
+        synchronized boolean onlyOnEventThread() {
+            return !offEventThread;
+        }
+
+        synchronized boolean batchesReadOnly() {
+            for (List<StorageEvents.Change> batch : batches) {
+                try {
+                    batch.clear();
+                    return false;
+                } catch (UnsupportedOperationException e) {
+                    // Expected
+                }
+            }
+            return true;
+        }
+    }
+}
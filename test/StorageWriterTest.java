@@ -0,0 +1,139 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code StorageWriterTest} class checks that {@link StorageWriter} coalesces writes to the same file that
+ * queue up behind a running commit, completes every caller's future once its data is written, and replaces files
+ * without ever leaving a partial one behind.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Running only the latest of several queued writes for one key</li>
+ *   <li>Running queued writes for different keys separately</li>
+ *   <li>Waiting for queued and running writes on flush</li>
+ *   <li>Reporting a failed write through its future and carrying on</li>
+ *   <li>Keeping the old file when writing its replacement fails</li>
+ * </ul>
+ */
+public class StorageWriterTest {
+
+    public static void main(String[] args) {
+        TestSupport.run("coalescing", StorageWriterTest::coalescesQueuedWrites);
+        TestSupport.run("flush", StorageWriterTest::flushWaitsForRunningWrite);
+        TestSupport.run("failed write", StorageWriterTest::reportsFailedWrite);
+        TestSupport.run("file replacement", StorageWriterTest::replacesFilesWhole);
+        TestSupport.finish();
+    }
+
+    private static void coalescesQueuedWrites() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StorageWriter.submit("blocker", () -> {
+            running.countDown();
+            await(release);
+        });
+        TestSupport.check(running.await(30, TimeUnit.SECONDS), "blocking write started");
+
+        // Everything submitted while the writer is busy waits for the next commit
+        AtomicInteger runs = new AtomicInteger();
+        AtomicReference<String> written = new AtomicReference<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String value = "value " + i;
+            futures.add(StorageWriter.submit("a", () -> {
+                runs.incrementAndGet();
+                written.set(value);
+            }));
+        }
+        AtomicInteger otherRuns = new AtomicInteger();
+        StorageWriter.submit("b", otherRuns::incrementAndGet);
+        TestSupport.checkEquals(2, StorageWriter.getPendingCount(), "queued writes");
+        for (CompletableFuture<Void> future : futures) {
+            TestSupport.check(future == futures.get(0), "callers share one future");
+        }
+
+        release.countDown();
+        StorageWriter.flush();
+        TestSupport.checkEquals(1, runs.get(), "writes run for key a");
+        TestSupport.checkEquals("value 9", written.get(), "value written for key a");
+        TestSupport.checkEquals(1, otherRuns.get(), "writes run for key b");
+        TestSupport.check(futures.get(0).isDone(), "future completed");
+        TestSupport.checkEquals(0, StorageWriter.getPendingCount(), "queued writes after flushing");
+    }
+
+    private static void flushWaitsForRunningWrite() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+        CompletableFuture<Void> future = StorageWriter.submit("slow", () -> {
+            running.countDown();
+            sleep(100);
+            finished.incrementAndGet();
+        });
+        TestSupport.check(running.await(30, TimeUnit.SECONDS), "slow write started");
+        StorageWriter.flush();
+        TestSupport.checkEquals(1, finished.get(), "running write finished before flush returned");
+        TestSupport.check(future.isDone() && !future.isCompletedExceptionally(), "future completed");
+    }
+
+    private static void reportsFailedWrite() throws Exception {
+        CompletableFuture<Void> failed = StorageWriter.submit("failing", () -> {
+            throw new IllegalStateException("expected by the test");
+        });
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Void> next = StorageWriter.submit("next", runs::incrementAndGet);
+        StorageWriter.flush();
+        TestSupport.check(failed.isCompletedExceptionally(), "failed write reported");
+        TestSupport.check(next.isDone() && !next.isCompletedExceptionally(), "next write completed");
+        TestSupport.checkEquals(1, runs.get(), "next write ran");
+
+        // The writer keeps working after a failure
+        CompletableFuture<Void> later = StorageWriter.submit("later", runs::incrementAndGet);
+        later.get(30, TimeUnit.SECONDS);
+        TestSupport.checkEquals(2, runs.get(), "writes run after the failure");
+    }
+
+    private static void replacesFilesWhole() throws IOException {
+        File file = new File("replaced.dat");
+        StorageWriter.replaceFile(file.getName(), out -> out.write(new byte[] {1, 2, 3}));
+        TestSupport.checkEquals(3L, file.length(), "file length");
+
+        TestSupport.checkThrows(UncheckedIOException.class, () -> StorageWriter.replaceFile(file.getName(), out -> {
+            out.write(new byte[100]);
+            throw new IOException("expected by the test");
+        }));
+        TestSupport.checkEquals(List.of((byte) 1, (byte) 2, (byte) 3), bytes(file), "file after a failed write");
+    }
+
+    private static List<Byte> bytes(File file) throws IOException {
+        List<Byte> bytes = new ArrayList<>();
+        for (byte b : Files.readAllBytes(file.toPath())) {
+            bytes.add(b);
+        }
+        return bytes;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
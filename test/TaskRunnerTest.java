@@ -0,0 +1,209 @@
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code TaskRunnerTest} class checks that {@link TaskRunner} runs work away from the event dispatch thread,
+ * completes it on the event dispatch thread with the exception the work threw, and runs no callback for a task
+ * that was cancelled, without interrupting its work.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Passing results and unwrapped exceptions to callbacks on the event dispatch thread</li>
+ *   <li>Running work with no callback for startup loads</li>
+ *   <li>Cancelling a task through its flag, before and while its work runs</li>
+ *   <li>Delivering the latest progress report before the result</li>
+ * </ul>
+ */
+public class TaskRunnerTest {
+
+    private static final int STEPS = 1000;
+
+    public static void main(String[] args) {
+        TestSupport.run("results", TaskRunnerTest::passesResultOnEventThread);
+        TestSupport.run("failures", TaskRunnerTest::passesUnwrappedFailure);
+        TestSupport.run("supplied work", TaskRunnerTest::suppliesWithoutCallback);
+        TestSupport.run("cancelled task", TaskRunnerTest::skipsCallbacksOfCancelledTask);
+        TestSupport.run("cancelled work", TaskRunnerTest::letsWorkNoticeCancellation);
+        TestSupport.run("progress", TaskRunnerTest::deliversLatestProgress);
+        TestSupport.finish();
+    }
+
+    private static void passesResultOnEventThread() throws Exception {
+        AtomicBoolean workOnEventThread = new AtomicBoolean(true);
+        AtomicBoolean callbackOnEventThread = new AtomicBoolean();
+        AtomicReference<Object> received = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        TaskRunner.Task<String> task = TaskRunner.run(() -> {
+            workOnEventThread.set(SwingUtilities.isEventDispatchThread());
+            return "result";
+        }, result -> {
+            callbackOnEventThread.set(SwingUtilities.isEventDispatchThread());
+            received.set(result);
+            done.countDown();
+        }, TaskRunnerTest::unexpected);
+        await(done, "success callback");
+        TestSupport.check(!workOnEventThread.get(), "work ran off the event dispatch thread");
+        TestSupport.check(callbackOnEventThread.get(), "callback ran on the event dispatch thread");
+        TestSupport.checkEquals("result", received.get(), "result");
+        TestSupport.check(task.isDone(), "task done");
+
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch executed = new CountDownLatch(1);
+        TaskRunner.execute(() -> ran.set(true), executed::countDown);
+        await(executed, "callback of work without a result");
+        TestSupport.check(ran.get(), "work without a result ran before its callback");
+    }
+
+    private static void passesUnwrappedFailure() throws Exception {
+        IllegalStateException thrown = new IllegalStateException("rejected");
+        AtomicReference<Throwable> received = new AtomicReference<>();
+        AtomicBoolean onEventThread = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        TaskRunner.Task<Object> task = TaskRunner.run(() -> {
+            throw thrown;
+        }, TaskRunnerTest::unexpected, error -> {
+            onEventThread.set(SwingUtilities.isEventDispatchThread());
+            received.set(error);
+            done.countDown();
+        });
+        await(done, "failure callback");
+        TestSupport.check(received.get() == thrown, "failure callback received the exception the work threw");
+        TestSupport.check(onEventThread.get(), "failure callback ran on the event dispatch thread");
+        TestSupport.check(task.future().isCompletedExceptionally(), "future completed with the exception");
+    }
+
+    private static void suppliesWithoutCallback() throws Exception {
+        CompletableFuture<Boolean> onEventThread = TaskRunner.supply(SwingUtilities::isEventDispatchThread);
+        TestSupport.checkEquals(false, onEventThread.get(10, TimeUnit.SECONDS), "supplied work on the event thread");
+
+        CompletableFuture<Object> failed = TaskRunner.supply(() -> {
+            throw new IllegalArgumentException("bad input");
+        });
+        try {
+            failed.get(10, TimeUnit.SECONDS);
+            TestSupport.check(false, "supplied work that failed completed normally");
+        } catch (ExecutionException e) {
+            TestSupport.checkEquals(IllegalArgumentException.class, e.getCause().getClass(), "exception of supplied work");
+        }
+    }
+
+    private static void skipsCallbacksOfCancelledTask() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        AtomicBoolean called = new AtomicBoolean();
+        TaskRunner.Task<String> task = TaskRunner.run(() -> {
+            release.await();
+            finished.set(true);
+            return "late";
+        }, result -> called.set(true), error -> called.set(true));
+        task.cancel();
+        TestSupport.check(task.isCancelled(), "task cancelled");
+        release.countDown();
+        TestSupport.checkEquals("late", task.future().get(10, TimeUnit.SECONDS), "result of the cancelled work");
+        TestSupport.check(finished.get(), "cancelled work ran on without being interrupted");
+        settle();
+        TestSupport.check(!called.get(), "no callback after cancelling");
+
+        CountDownLatch releaseFailing = new CountDownLatch(1);
+        TaskRunner.Task<Object> failing = TaskRunner.run(() -> {
+            releaseFailing.await();
+            throw new IllegalStateException("late failure");
+        }, result -> called.set(true), error -> called.set(true));
+        failing.cancel();
+        releaseFailing.countDown();
+        try {
+            failing.future().get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // The work fails as it would have without cancelling
+        }
+        settle();
+        TestSupport.check(!called.get(), "no failure callback after cancelling");
+    }
+
+    private static void letsWorkNoticeCancellation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean called = new AtomicBoolean();
+        TaskRunner.Task<Integer> task = TaskRunner.runWithProgress(progress -> {
+            started.countDown();
+            int rounds = 0;
+            while (!progress.isCancelled()) {
+                rounds++;
+                Thread.onSpinWait();
+            }
+            return rounds;
+        }, null, result -> called.set(true), error -> called.set(true));
+        await(started, "start of the work");
+        task.cancel();
+        TestSupport.check(task.future().get(10, TimeUnit.SECONDS) >= 0, "work stopped after noticing it was cancelled");
+        settle();
+        TestSupport.check(!called.get(), "no callback after the work noticed it was cancelled");
+    }
+
+    private static void deliversLatestProgress() throws Exception {
+        List<int[]> reports = new ArrayList<>();
+        AtomicBoolean listenerOnEventThread = new AtomicBoolean(true);
+        AtomicReference<int[]> lastBeforeResult = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        TaskRunner.runWithProgress(progress -> {
+            for (int step = 1; step <= STEPS; step++) {
+                progress.update(step, STEPS, "step " + step);
+            }
+            return STEPS;
+        }, (doneSteps, total, message) -> {
+            listenerOnEventThread.compareAndSet(true, SwingUtilities.isEventDispatchThread());
+            TestSupport.checkEquals("step " + doneSteps, message, "message of a progress report");
+            reports.add(new int[]{doneSteps, total});
+        }, result -> {
+            lastBeforeResult.set(reports.isEmpty() ? null : reports.get(reports.size() - 1));
+            done.countDown();
+        }, TaskRunnerTest::unexpected);
+        await(done, "success callback after progress");
+        TestSupport.check(listenerOnEventThread.get(), "progress delivered on the event dispatch thread");
+        TestSupport.check(!reports.isEmpty() && reports.size() <= STEPS, "progress reports merged, not added");
+        for (int i = 1; i < reports.size(); i++) {
+            TestSupport.check(reports.get(i)[0] > reports.get(i - 1)[0], "progress reports in order");
+        }
+        TestSupport.check(lastBeforeResult.get() != null && lastBeforeResult.get()[0] == STEPS,
+                "latest progress delivered before the result");
+
+        AtomicBoolean reportedAfterCancel = new AtomicBoolean();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        TaskRunner.Task<Object> task = TaskRunner.runWithProgress(progress -> {
+            cancelled.await();
+            progress.update(1, 1, null);
+            return null;
+        }, (doneSteps, total, message) -> reportedAfterCancel.set(true), result -> { }, TaskRunnerTest::unexpected);
+        task.cancel();
+        cancelled.countDown();
+        task.future().get(10, TimeUnit.SECONDS);
+        settle();
+        TestSupport.check(!reportedAfterCancel.get(), "no progress delivered after cancelling");
+    }
+
+    /**
+     * Waits for a callback, failing the case instead of hanging if it never runs.
+     */
+    private static void await(CountDownLatch latch, String what) throws InterruptedException {
+        TestSupport.check(latch.await(10, TimeUnit.SECONDS), what + " ran");
+    }
+
+    /**
+     * Gives a finished task time to queue its callback, then waits until the event dispatch thread has run
+     * everything queued so far.
+     */
+    private static void settle() throws Exception {
+        Thread.sleep(200);
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+
+    private static void unexpected(Object value) {
+        TestSupport.check(false, "unexpected callback with " + value);
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.Objects;
+
+/**
+ * The {@code TestSupport} class holds the few checks shared by the test programs in this directory. Each test
+ * program is a plain class with a {@code main} method that runs its cases through {@link #run}, so the tests
+ * need nothing but the JDK; {@code test/run-tests.sh} compiles and runs them.
+ *
+ * <p>Key functionalities include:</p>
+ * <ul>
+ *   <li>Running a named test case and reporting whether it passed</li>
+ *   <li>Checking conditions and expected values</li>
+ *   <li>Exiting with a failure status if any case failed</li>
+ * </ul>
+ */
+final class TestSupport {
+
+    /**
+     * A test case, which fails by throwing.
+     */
+    interface TestCase {
+        void run() throws Exception;
+    }
+
+    private static int failures;
+
+    private TestSupport() {
+    }
+
+    /**
+     * Runs a test case and prints whether it passed, with the failure if it did not.
+     *
+     * @param name the name of the case
+     * @param test the case
+     */
+    static void run(String name, TestCase test) {
+        try {
+            test.run();
+            System.out.println("PASS " + name);
+        } catch (Throwable e) {
+            failures++;
+            System.out.println("FAIL " + name);
+            e.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Ends the test program, with exit status 1 if any case failed.
+     */
+    static void finish() {
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Checks that a condition holds.
+     *
+     * @param condition the condition
+     * @param message what is wrong if it does not hold
+     */
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Checks that a value is the expected one.
+     *
+     * @param expected the expected value
+     * @param actual the actual value
+     * @param what the name of the value, for the failure message
+     */
+    static void checkEquals(Object expected, Object actual, String what) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Checks that a piece of code throws an exception of the given type.
+     *
+     * @param type the expected exception type
+     * @param code the code
+     */
+    static void checkThrows(Class<? extends Throwable> type, TestCase code) {
+        try {
+            code.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError("Expected " + type.getSimpleName() + " but got " + e, e);
+        }
+        throw new AssertionError("Expected " + type.getSimpleName() + " but nothing was thrown");
+    }
+}
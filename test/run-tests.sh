@@ -0,0 +1,27 @@
+#!/bin/sh
+# Compiles the application with the test programs in this directory and runs each *Test class.
+# Every test runs in its own empty working directory, since the storage classes keep their files in the
+# working directory. Needs JDK 21; the sources use unnamed variables, a preview feature in 21.
+#
+# Usage: test/run-tests.sh [TestClass ...]
+
+set -e
+root=$(cd "$(dirname "$0")/.." && pwd)
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+javac --release 21 --enable-preview -Xlint:-preview -d "$work/classes" "$root"/*.java "$root"/test/*.java
+
+if [ $# -eq 0 ]; then
+    set -- $(cd "$root/test" && ls *Test.java | sed 's/\.java$//')
+fi
+
+failed=0
+for test in "$@"; do
+    echo "== $test"
+    mkdir "$work/$test"
+    if ! (cd "$work/$test" && java --enable-preview -Djava.awt.headless=true -cp "$work/classes" "$test"); then
+        failed=1
+    fi
+done
+exit $failed